@@ -18,8 +18,11 @@ package gov.nasa.jpf.jdart;
 import gov.nasa.jpf.constraints.api.Valuation;
 import gov.nasa.jpf.jdart.config.ConcolicMethodConfig;
 import gov.nasa.jpf.jdart.constraints.ConstraintsTree;
+import gov.nasa.jpf.jdart.constraints.PathSummary;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
 
 public class CompletedAnalysis {
   
@@ -28,6 +31,12 @@ public class CompletedAnalysis {
   private final ConstraintsTree constraintsTree;
   
   private final Object[] initParams;
+  
+  private Map<String,Integer> concretizations = Collections.emptyMap();
+  
+  private PathSummary summarizedPaths = new PathSummary();
+  
+  private int resumedPaths = 0;
 
   public CompletedAnalysis(ConcolicMethodConfig methodConfig, Valuation initialValuation, Object[] initParams, ConstraintsTree constraintsTree) {
     this.methodConfig = methodConfig;
@@ -74,4 +83,40 @@ public class CompletedAnalysis {
     return initParams;
   }
   
+  /**
+   * number of symbolic results concretized due to the expression budget,
+   * per instruction
+   */
+  public Map<String,Integer> getConcretizations() {
+    return concretizations;
+  }
+  
+  public void setConcretizations(Map<String,Integer> concretizations) {
+    this.concretizations = concretizations;
+  }
+  
+  /**
+   * paths that are not part of the constraints tree since their subtree
+   * has been summarized
+   */
+  public PathSummary getSummarizedPaths() {
+    return summarizedPaths;
+  }
+  
+  public void setSummarizedPaths(PathSummary summarizedPaths) {
+    this.summarizedPaths = summarizedPaths;
+  }
+  
+  /**
+   * number of paths resumed from a VM snapshot instead of started from 
+   * the beginning of the method
+   */
+  public int getResumedPaths() {
+    return resumedPaths;
+  }
+  
+  public void setResumedPaths(int resumedPaths) {
+    this.resumedPaths = resumedPaths;
+  }
+  
 }
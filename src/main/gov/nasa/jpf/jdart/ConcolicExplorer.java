@@ -49,6 +49,12 @@ public final class ConcolicExplorer {
    */
   private ConcolicMethodExplorer analysis;
   
+  /**
+   * a path of the current analysis has been started and the termination
+   * strategy has not been notified about its end yet
+   */
+  private boolean pathRunning = false;
+  
   /**
    * configuration of the symbolic analysis
    */
@@ -94,6 +100,7 @@ public final class ConcolicExplorer {
     caList.add(analysis.finish());
     methodExplorers.add(analysis);
     analysis = null;
+    pathRunning = false;
   }
   
   /**
@@ -160,11 +167,30 @@ public final class ConcolicExplorer {
     SimpleProfiler.start("JDART-symbolic-path-execution");
     
     analysis.newPath(sf);
+    pathRunning = true;
     // new set of globals ...
     //this.persistentGlobals = new SymbolicGlobals(this.config.getMinMax());    
   }
   
 
+  /**
+   * start a new path from a VM snapshot taken at the given node of the
+   * constraints tree, instead of from the beginning of the method.
+   */
+  public void resumePath(ThreadInfo ti, int node, boolean explore, int snapshots) {
+    logger.finest("ConcolicExplorer.resumePath()");
+
+    if (this.analysis == null) {
+      throw new IllegalStateException("Cannot resume analysis path when no analysis is running!");
+    }
+
+    SimpleProfiler.start("JDART-symbolic-path-execution");
+
+    analysis.resumePath(ti, node, explore, snapshots);
+    pathRunning = true;
+  }
+
+
   public void completePathOk(ThreadInfo ti) {
     if(analysis == null)
       throw new IllegalStateException("Cannot complete paths when no analysis is running!");
@@ -197,6 +223,11 @@ public final class ConcolicExplorer {
       throw new IllegalStateException("ConcolicExplorer asked for more choices, but no analysis is running");
     
     TerminationStrategy t = getTermination();
+    if (pathRunning) {
+      // the previous path ended, however it was finished
+      pathRunning = false;
+      t.pathCompleted(analysis.getInternalConstraintsTree());
+    }
     if (t.isDone()) {
       logger.severe("Terminating exploration prematurely: " + t.getReason());
       return false;
@@ -205,6 +236,16 @@ public final class ConcolicExplorer {
     
     return analysis.hasMoreChoices();
   }
+
+  /**
+   * checks if there are choices left and the next one can be resumed from
+   * a snapshot taken at the given node.
+   *
+   * @return
+   */
+  public boolean hasMoreChoicesBelow(int node) {
+    return hasMoreChoices() && analysis.canResumeAt(node);
+  }
   
   public Map<String,List<CompletedAnalysis>> getCompletedAnalyses() {
     return completedAnalyses;
@@ -25,6 +25,7 @@ import gov.nasa.jpf.util.SimpleProfiler;
 import gov.nasa.jpf.vm.ClassInfo;
 import gov.nasa.jpf.vm.ElementInfo;
 import gov.nasa.jpf.vm.ExceptionInfo;
+import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.MethodInfo;
 import gov.nasa.jpf.vm.ThreadInfo;
 import gov.nasa.jpf.vm.VM;
@@ -89,6 +90,18 @@ public class ConcolicListener extends Perturbator {
   }
 
 
+  /**
+   * Enforces the execution budget of the current path.
+   */
+  @Override
+  public void instructionExecuted(VM vm, ThreadInfo ti, Instruction nextInsn, Instruction executedInsn) {
+    ConcolicMethodExplorer ca = ConcolicMethodExplorer.getCurrentAnalysis(ti);
+    if(ca != null)
+      ca.instructionExecuted(ti, executedInsn, nextInsn);
+    super.instructionExecuted(vm, ti, nextInsn, executedInsn);
+  }
+
+
   /* ***************************************************************************
    * 
    * methods used for debugging
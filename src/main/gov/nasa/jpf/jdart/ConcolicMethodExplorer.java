@@ -23,7 +23,9 @@ import gov.nasa.jpf.constraints.api.ValuationEntry;
 import gov.nasa.jpf.constraints.api.Variable;
 import gov.nasa.jpf.constraints.java.ObjectConstraints;
 import gov.nasa.jpf.constraints.parser.ParserUtil;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
 import gov.nasa.jpf.constraints.types.Type;
+import gov.nasa.jpf.constraints.util.ExpressionUtil;
 import gov.nasa.jpf.jdart.ConcolicUtil.Pair;
 import gov.nasa.jpf.jdart.config.AnalysisConfig;
 import gov.nasa.jpf.jdart.config.ConcolicConfig;
@@ -35,10 +37,12 @@ import gov.nasa.jpf.jdart.constraints.InternalConstraintsTree;
 import gov.nasa.jpf.jdart.constraints.InternalConstraintsTree.BranchEffect;
 import gov.nasa.jpf.jdart.constraints.PathResult;
 import gov.nasa.jpf.jdart.constraints.PostCondition;
+import gov.nasa.jpf.jdart.constraints.WorkSharing;
 import gov.nasa.jpf.jdart.objects.SymbolicObjectsContext;
 import gov.nasa.jpf.util.JPFLogger;
 import gov.nasa.jpf.vm.ClassInfo;
 import gov.nasa.jpf.vm.ElementInfo;
+import gov.nasa.jpf.vm.FieldInfo;
 import gov.nasa.jpf.vm.Heap;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.MethodInfo;
@@ -51,6 +55,8 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import org.antlr.runtime.RecognitionException;
 
@@ -118,6 +124,27 @@ public class ConcolicMethodExplorer {
   
   private final SolverContext solverCtx;
   
+  /**
+   * number of results concretized due to the expression budget, 
+   * per instruction
+   */
+  private final Map<String,Integer> concretizations = new TreeMap<>();
+  
+  /**
+   * execution budget of the current path
+   */
+  private boolean pathRunning = false;
+  private long pathInstructions = 0;
+  private long pathStart = 0;
+  
+  /**
+   * snapshots along the current path
+   */
+  private int snapshots = 0;
+  private long sinceSnapshot = 0;
+  private int resumedPaths = 0;
+  private boolean pathConcretized = false;
+  
 
   public ConcolicMethodExplorer(ConcolicConfig config, String id, MethodInfo mi) {
     // store method info and config
@@ -125,12 +152,18 @@ public class ConcolicMethodExplorer {
     this.methodConfig = config.getMethodConfig(id);
     this.anaConf = methodConfig.getAnalysisConfig();
     
+    // the analysis runs in the current thread
+    ExpressionFactory.setSimplify(config.isSimplify());
+    
     // get preset values
     ConcolicValues vals = methodConfig.getConcolicValues();
     
     // create a constraints tree
     this.solverCtx = config.getSolver().createContext();    
-    this.constraintsTree = new InternalConstraintsTree(solverCtx, anaConf, vals);
+    this.constraintsTree = new InternalConstraintsTree(config.getSolver(), solverCtx, anaConf, vals);
+    WorkSharing workSharing = config.getWorkSharing();
+    if(workSharing != null)
+      constraintsTree.setWorkSharing(workSharing);
   }
   
   public void setExplore(boolean explore) {
@@ -178,12 +211,14 @@ public class ConcolicMethodExplorer {
   }
       
   public void completePathOk(ThreadInfo ti) {
+    pathRunning = false;
     PostCondition pc = collectPostCondition(ti);
     PathResult res = PathResult.ok(currValuation, pc);
     constraintsTree.finish(res);
   }
   
   public void completePathError(ThreadInfo ti) {
+    pathRunning = false;
     ElementInfo exElem = ti.getPendingException().getException();
     StringWriter sw = new StringWriter();
     try(PrintWriter pw = new PrintWriter(sw)) {
@@ -194,6 +229,43 @@ public class ConcolicMethodExplorer {
     constraintsTree.finish(res);
   }
 
+  /**
+   * Counts an executed instruction towards the next snapshot and against 
+   * the budget of the current path, and cuts the path off if the budget 
+   * is exceeded. The wall-clock time 
+   * is checked on backjumps and every 1024 instructions.
+   */
+  public void instructionExecuted(ThreadInfo ti, Instruction insn, Instruction next) {
+    if(!pathRunning)
+      return;
+    sinceSnapshot++;
+    if(!anaConf.hasPathBudget())
+      return;
+    long n = ++pathInstructions;
+    String budget = null;
+    if(anaConf.maxPathInstructionsExceeded(n)) {
+      budget = n + " instructions";
+    }
+    else if((n & 0x3ff) == 0 || isBackjump(insn, next)) {
+      long millis = (System.nanoTime() - pathStart) / 1000000;
+      if(anaConf.maxPathTimeExceeded(millis))
+        budget = millis + " ms";
+    }
+    if(budget == null)
+      return;
+    
+    pathRunning = false;
+    logger.warning("Cutting off path after ", budget);
+    Expression<Boolean> pc = ExpressionUtil.and(constraintsTree.getCurrentPathCondition());
+    constraintsTree.cutOff(PathResult.budgetExceeded(currValuation, budget, pc));
+    ti.breakTransition(true);
+  }
+  
+  private static boolean isBackjump(Instruction insn, Instruction next) {
+    return next != null && next.getMethodInfo() == insn.getMethodInfo() 
+        && next.getPosition() <= insn.getPosition();
+  }
+  
   public boolean hasMoreChoices() {
     // If the initValuation is null, then the initial
     // valuation has not been read; we are *before* the
@@ -261,7 +333,7 @@ public class ConcolicMethodExplorer {
             ObjectConstraints.getJavaTypes(),
             vlist);
         try {
-          solverCtx.add(constrExpr);
+          constraintsTree.addGlobalConstraint(constrExpr);
         }
         catch(Exception ex) {
           logger.severe("Could not add constraint to solver: ", ex);
@@ -377,13 +449,33 @@ public class ConcolicMethodExplorer {
       break;
     case UNEXPECTED:
       logger.warning("Unexpected divergence in execution of current valuation ...");
-      constraintsTree.failCurrentTarget(); // TODO: Here, we could make more effort ...
+      constraintsTree.retryCurrentTarget();
       break;
     default:
     }
   }
  
     
+  public <T> Pair<T> checkExpressionBudget(Instruction insn, Pair<T> result) {
+    if(!anaConf.hasExpressionBudget() || result.isConcrete())
+      return result;
+    int size = ExpressionFactory.size(result.symb);
+    int depth = ExpressionFactory.depth(result.symb);
+    if(!anaConf.expressionBudgetExceeded(size, depth))
+      return result;
+    
+    String loc = insn.getMethodInfo().getFullName() + ":" + insn.getPosition() + " " + insn.getMnemonic();
+    pathConcretized = true;
+    Integer cnt = concretizations.get(loc);
+    concretizations.put(loc, (cnt == null) ? 1 : cnt + 1);
+    logger.finer("Concretizing expression of size ", size, " and depth ", depth, " at ", loc);
+    return new Pair<T>(result.conc, ExpressionFactory.constant(result.symb.getType(), result.conc));
+  }
+  
+  public Map<String,Integer> getConcretizations() {
+    return concretizations;
+  }
+    
   public ConcolicMethodConfig getMethodConfig() {
     return this.methodConfig;
   }
@@ -393,10 +485,17 @@ public class ConcolicMethodExplorer {
   }
   
   public CompletedAnalysis finish() {
-    return new CompletedAnalysis(methodConfig, initValuation, initParams, constraintsTree.toFinalCTree());
+    CompletedAnalysis ca = new CompletedAnalysis(methodConfig, initValuation, initParams, constraintsTree.toFinalCTree());
+    ca.setConcretizations(new TreeMap<>(concretizations));
+    ca.setSummarizedPaths(constraintsTree.getSummarizedPaths());
+    ca.setResumedPaths(resumedPaths);
+    constraintsTree.dispose();
+    return ca;
   }
 
   public void newPath(StackFrame sf) {
+    startPath();
+    snapshots = 0;
     if(initValuation == null) { // first execution
       prepareFirstExecution(sf);
     }
@@ -407,6 +506,134 @@ public class ConcolicMethodExplorer {
   }
   
   
+  private void startPath() {
+    pathRunning = true;
+    pathInstructions = 0;
+    pathStart = System.nanoTime();
+    sinceSnapshot = 0;
+    pathConcretized = false;
+  }
+  
+  /**
+   * Takes a snapshot of the VM before the execution of a branch
+   * instruction, if the branch has not been decided before and enough
+   * instructions have been executed since the last snapshot. The snapshot
+   * is the state JPF stores for a {@link PrefixChoiceGenerator}, so the
+   * instruction has to be re-executed if this method returns true.
+   * 
+   * Executions that concretized symbolic values are not snapshot, their
+   * concrete state cannot be recomputed for another valuation.
+   */
+  public boolean snapshot(ThreadInfo ti, Instruction insn) {
+    if(ti.isFirstStepInsn() || !pathRunning || pathConcretized 
+        || snapshots >= anaConf.getSnapshots() 
+        || sinceSnapshot < anaConf.getSnapshotInterval())
+      return false;
+    int node = constraintsTree.getSnapshotNode();
+    if(node < 0)
+      return false;
+    
+    ConcolicExplorer explorer = JDart.getConcolicExplorer(ti.getVM().getConfig());
+    PrefixChoiceGenerator cg = new PrefixChoiceGenerator(methodConfig.getId(), methodInfo, 
+        explorer, node, constraintsTree.isExplore(), ++snapshots);
+    ti.getVM().getSystemState().setNextChoiceGenerator(cg);
+    sinceSnapshot = 0;
+    logger.finer("Taking snapshot ", snapshots, " at ", insn.getMethodInfo().getFullName(), ":", insn.getPosition());
+    return true;
+  }
+  
+  /**
+   * @return true if the current target can be reached by resuming at the
+   * given snapshot node
+   */
+  public boolean canResumeAt(int node) {
+    return constraintsTree.canResumeAt(node);
+  }
+  
+  /**
+   * Starts the next path from a restored snapshot. The concrete values of
+   * all symbolic locations are recomputed for the new valuation.
+   */
+  public void resumePath(ThreadInfo ti, int node, boolean explore, int snapshots) {
+    startPath();
+    resumedPaths++;
+    this.snapshots = snapshots;
+    advanceValuation();
+    constraintsTree.resumeAt(node);
+    constraintsTree.setExplore(explore);
+    logger.finest("Resuming at snapshot ", snapshots, " with valuation ", currValuation);
+    for(StackFrame sf = ti.getTopFrame(); sf != null; sf = sf.getPrevious())
+      applyToFrame(ti.getModifiableFrame(sf));
+    for(ElementInfo ei : ti.getHeap().liveObjects())
+      applyToObject(ei);
+  }
+  
+  private void applyToFrame(StackFrame sf) {
+    for(int i = 0; i <= sf.getTopPos(); i++) {
+      Object attr = sf.getSlotAttr(i);
+      if(!(attr instanceof Expression))
+        continue;
+      Expression<?> expr = (Expression<?>)attr;
+      Object value = evaluate(expr);
+      if(value == null)
+        continue;
+      Type<?> type = expr.getType();
+      if(BuiltinTypes.SINT64.equals(type))
+        sf.setLongLocalVariable(i, (Long)value);
+      else if(BuiltinTypes.DOUBLE.equals(type))
+        sf.setDoubleLocalVariable(i, (Double)value);
+      else if(BuiltinTypes.FLOAT.equals(type))
+        sf.setFloatLocalVariable(i, (Float)value);
+      else if(BuiltinTypes.BOOL.equals(type))
+        sf.setLocalVariable(i, (Boolean)value ? 1 : 0);
+      else if(BuiltinTypes.UINT16.equals(type))
+        sf.setLocalVariable(i, (Character)value);
+      else
+        sf.setLocalVariable(i, ((Number)value).intValue());
+    }
+  }
+  
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private void applyToObject(ElementInfo ei) {
+    ClassInfo ci = ei.getClassInfo();
+    if(ei.isArray()) {
+      Type type = ConcolicUtil.forClassInfo(ci.getComponentClassInfo());
+      if(type == null)
+        return;
+      for(int i = 0; i < ei.arrayLength(); i++) {
+        Expression<?> expr = ei.getElementAttr(i, Expression.class);
+        Object value = (expr == null) ? null : evaluate(expr);
+        if(value == null)
+          continue;
+        ei.defreeze();
+        ConcolicUtil.setArrayElement(ei, i, type, type.cast(value));
+      }
+      return;
+    }
+    for(int i = 0; i < ci.getNumberOfInstanceFields(); i++) {
+      FieldInfo fi = ci.getInstanceField(i);
+      if(fi.isReference())
+        continue;
+      Expression<?> expr = ei.getFieldAttr(fi, Expression.class);
+      Object value = (expr == null) ? null : evaluate(expr);
+      if(value == null)
+        continue;
+      Type type = ConcolicUtil.forTypeCode(fi.getTypeCode());
+      ei.defreeze();
+      ConcolicUtil.setField(ei, fi, type, type.cast(value));
+    }
+  }
+  
+  private Object evaluate(Expression<?> expr) {
+    try {
+      return expr.evaluate(currValuation);
+    }
+    catch(RuntimeException ex) {
+      logger.finer("Could not evaluate ", expr, ": ", ex.getMessage());
+      return null;
+    }
+  }
+  
   public void makeCurrentAnalysis(ThreadInfo ti) {
     ti.setAttr(this);
   }
@@ -19,7 +19,6 @@ import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.api.Variable;
 import gov.nasa.jpf.constraints.expressions.CastExpression;
 import gov.nasa.jpf.constraints.expressions.Constant;
-import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
 import gov.nasa.jpf.constraints.expressions.NumericComparator;
 import gov.nasa.jpf.constraints.types.BuiltinTypes;
 import gov.nasa.jpf.constraints.types.NumericType;
@@ -28,7 +27,9 @@ import gov.nasa.jpf.constraints.util.ExpressionUtil;
 import gov.nasa.jpf.vm.ClassInfo;
 import gov.nasa.jpf.vm.ElementInfo;
 import gov.nasa.jpf.vm.FieldInfo;
+import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
+import gov.nasa.jpf.vm.ThreadInfo;
 import gov.nasa.jpf.vm.Types;
 
 import java.util.Arrays;
@@ -73,15 +74,15 @@ public class ConcolicUtil {
    *
    */
 
-  public static synchronized Variable<Double> getAnonymousDouble() {
+  public static Variable<Double> getAnonymousDouble() {
     return Variable.createAnonymous(BuiltinTypes.DOUBLE);
   }
 
-  public static synchronized Variable<Float> getAnonymousFloat() {
+  public static Variable<Float> getAnonymousFloat() {
     return Variable.createAnonymous(BuiltinTypes.FLOAT);
   }
 
-  public static synchronized Variable<Integer> getAnonymousInt() {
+  public static Variable<Integer> getAnonymousInt() {
     return Variable.createAnonymous(BuiltinTypes.SINT32);
   }
 
@@ -106,8 +107,8 @@ public class ConcolicUtil {
     else if(!BuiltinTypes.BOOL.equals(symb.getType())) {
       if(symb.getType() instanceof NumericType) {
         NumericType<?> nt = (NumericType<?>)symb.getType();
-        Constant<?> zero = Constant.createCasted(nt, nt.getDefaultValue()); // 0
-        symb = new NumericBooleanExpression(symb, NumericComparator.NE, zero);
+        Constant<?> zero = ExpressionFactory.castedConstant(nt, nt.getDefaultValue()); // 0
+        symb = ExpressionFactory.compare(symb, NumericComparator.NE, zero);
       }
       else
         throw new IllegalStateException();
@@ -136,7 +137,7 @@ public class ConcolicUtil {
     Expression<?> symb = (Expression<?>)sf.getOperandAttr(stackOffset+1, Expression.class);
     double conc = sf.peekDouble(stackOffset);
     if (symb == null) {
-      symb = Constant.create(BuiltinTypes.DOUBLE, conc);
+      symb = ExpressionFactory.constant(BuiltinTypes.DOUBLE, conc);
     }
     return Pair.create(conc, symb.requireAs(BuiltinTypes.DOUBLE));
   }
@@ -160,7 +161,7 @@ public class ConcolicUtil {
     Expression<?> symb = (Expression<?>) sf.getOperandAttr(stackOffset+1, Expression.class);
     long conc = sf.peekLong(stackOffset);
     if (symb == null) {
-      symb = Constant.create(BuiltinTypes.SINT64, conc);
+      symb = ExpressionFactory.constant(BuiltinTypes.SINT64, conc);
     }
     return Pair.create(conc, symb.requireAs(BuiltinTypes.SINT64));
   }
@@ -184,7 +185,7 @@ public class ConcolicUtil {
     Expression<?> symb = (Expression<?>) sf.getOperandAttr(stackOffset, Expression.class);
     float conc = sf.peekFloat(stackOffset);
     if (symb == null) {
-      symb = Constant.create(BuiltinTypes.FLOAT, conc);
+      symb = ExpressionFactory.constant(BuiltinTypes.FLOAT, conc);
     }
     return Pair.create(conc, symb.requireAs(BuiltinTypes.FLOAT));
   }
@@ -206,13 +207,13 @@ public class ConcolicUtil {
     int conc = sf.peek(stackOffset);
     Expression<Integer> isymb;
     if (symb == null) {
-      isymb = Constant.create(BuiltinTypes.SINT32, conc);
+      isymb = ExpressionFactory.constant(BuiltinTypes.SINT32, conc);
     }
     else if (symb.getType().equals(BuiltinTypes.SINT32)) {
       isymb = symb.requireAs(BuiltinTypes.SINT32);
     }
     else {
-      isymb = CastExpression.create(symb, BuiltinTypes.SINT32);
+      isymb = ExpressionFactory.cast(symb, BuiltinTypes.SINT32);
     }
     return Pair.create(conc, isymb);
   }
@@ -259,7 +260,7 @@ public class ConcolicUtil {
     Expression<?> symb = sf.getOperandAttr(stackOffset, Expression.class);
     Expression<T> tsymb = null;
     if(symb == null) {
-      tsymb = Constant.create(type, concVal);
+      tsymb = ExpressionFactory.constant(type, concVal);
     }
     else if(type.equals(symb.getType())) {
       tsymb = symb.requireAs(type);
@@ -272,7 +273,7 @@ public class ConcolicUtil {
         tsymb = ce.getCasted().requireAs(type);
     }
     if(tsymb == null) {
-      tsymb = CastExpression.create(symb, type);
+      tsymb = ExpressionFactory.cast(symb, type);
     }
     
     return tsymb;
@@ -352,13 +353,13 @@ public class ConcolicUtil {
     final Expression<?> symb = (Expression<?>) sf.getLocalAttr(index);
     Expression<Integer> isymb;
     if (symb == null) {
-      isymb = Constant.create(BuiltinTypes.SINT32, conc);
+      isymb = ExpressionFactory.constant(BuiltinTypes.SINT32, conc);
     }
     else if (symb.getType().equals(BuiltinTypes.SINT32)) {
       isymb = symb.requireAs(BuiltinTypes.SINT32);
     }
     else {
-      isymb = CastExpression.create(symb, BuiltinTypes.SINT32);
+      isymb = ExpressionFactory.cast(symb, BuiltinTypes.SINT32);
     }
     return Pair.create(conc, isymb);    
   }
@@ -368,6 +369,17 @@ public class ConcolicUtil {
     sf.setLocalAttr(index, pair.symb);
   }  
   
+  /**
+   * concretizes the result of a symbolic operation if it exceeds the 
+   * expression budget of the current analysis
+   */
+  public static <T> Pair<T> checkBudget(ThreadInfo ti, Instruction insn, Pair<T> result) {
+    ConcolicMethodExplorer analysis = ConcolicMethodExplorer.getCurrentAnalysis(ti);
+    if(analysis == null)
+      return result;
+    return analysis.checkExpressionBudget(insn, result);
+  }
+  
   public static void setOperandAttr(StackFrame sf, int stackPos, Type<?> type, Object value) {
     if(BuiltinTypes.SINT64.equals(type) || BuiltinTypes.DOUBLE.equals(type))
       stackPos++;
@@ -490,6 +502,9 @@ public class ConcolicUtil {
     else if (BuiltinTypes.BOOL.equals(type)) {
       ei.setBooleanField(fi, (Boolean)value);
     }
+    else if (BuiltinTypes.UINT16.equals(type)) {
+      ei.setCharField(fi, (Character)value);
+    }
     else {
       throw new RuntimeException("type " + type.getName() + " is not supported currently");
     }
@@ -0,0 +1,658 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart;
+
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.casts.CastOperation;
+import gov.nasa.jpf.constraints.expressions.BitvectorExpression;
+import gov.nasa.jpf.constraints.expressions.BitvectorOperator;
+import gov.nasa.jpf.constraints.expressions.CastExpression;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.LogicalOperator;
+import gov.nasa.jpf.constraints.expressions.Negation;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.expressions.NumericCompound;
+import gov.nasa.jpf.constraints.expressions.NumericOperator;
+import gov.nasa.jpf.constraints.expressions.PropositionalCompound;
+import gov.nasa.jpf.constraints.expressions.UnaryMinus;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+import gov.nasa.jpf.constraints.types.Type;
+import gov.nasa.jpf.jdart.constraints.NumericCMP;
+
+import java.util.Arrays;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Hash-consing factory for the symbolic expressions built by the concolic
+ * bytecodes. Structurally equal terms built from the same subterms are
+ * represented by a single shared instance. Unless disabled via
+ * {@code jdart.simplify} (see {@link #setSimplify(boolean)}), terms are 
+ * also simplified as they are built, so the factory methods may return a 
+ * constant or one of their arguments.
+ * 
+ * Since every interned term is built from interned (or otherwise unique)
+ * subterms, lookups compare subexpressions by identity and never descend
+ * into them. Entries are held weakly and disappear once no path condition
+ * or operand attribute refers to them anymore.
+ */
+public final class ExpressionFactory {
+  
+  private static final String CONST = "const";
+  private static final String CASTED = "casted";
+  private static final String CAST = "cast";
+  private static final String NOT = "not";
+  private static final String MINUS = "minus";
+  private static final String CMP = "cmp";
+  
+  private static final long NEGATIVE_ZERO_BITS = Double.doubleToRawLongBits(-0.0);
+  
+  // set per thread, as concurrent analyses may be configured differently
+  private static final ThreadLocal<Boolean> simplify = new ThreadLocal<Boolean>() {
+    @Override
+    protected Boolean initialValue() {
+      return Boolean.TRUE;
+    }
+  };
+  
+  private static final Cache<Key,Expression<?>> table = CacheBuilder.newBuilder()
+      .weakValues()
+      .concurrencyLevel(4)
+      .build();
+  
+  private static final Cache<Expression<?>,Long> metrics = CacheBuilder.newBuilder()
+      .weakKeys()
+      .concurrencyLevel(4)
+      .build();
+  
+  public static <E> Constant<E> constant(Type<E> type, E value) {
+    Key key = new Key(CONST, type, value);
+    Constant<E> c = lookup(key);
+    if(c == null)
+      c = intern(key, Constant.create(type, value));
+    return c;
+  }
+  
+  public static <E> Constant<E> castedConstant(Type<E> type, Object value) {
+    Key key = new Key(CASTED, type, value);
+    Constant<E> c = lookup(key);
+    if(c == null)
+      c = intern(key, Constant.createCasted(type, value));
+    return c;
+  }
+  
+  /**
+   * Numeric operation {@code left op right}. With simplification enabled,
+   * constants are folded, neutral elements are dropped, constants are moved
+   * to the right and chains of integer additions (resp. multiplications)
+   * with constants are merged into a single constant.
+   */
+  public static <E> Expression<E> compound(Expression<E> left, NumericOperator op, Expression<?> right) {
+    Expression<E> r = right.requireAs(left.getType());
+    if(isSimplify()) {
+      Expression<E> s = simplifyCompound(left, op, r);
+      if(s != null)
+        return s;
+    }
+    Key key = new Key(op, left, r);
+    NumericCompound<E> e = lookup(key);
+    if(e == null)
+      e = intern(key, NumericCompound.create(left, op, r));
+    return e;
+  }
+  
+  /**
+   * Comparison {@code left cmp right}. With simplification enabled, comparisons 
+   * of constants are folded and constants are moved to the right.
+   */
+  public static Expression<Boolean> compare(Expression<?> left, NumericComparator cmp, Expression<?> right) {
+    if(isSimplify()) {
+      Expression<Boolean> s = simplifyCompare(left, cmp, right);
+      if(s != null)
+        return s;
+    }
+    Key key = new Key(cmp, left, right);
+    NumericBooleanExpression e = lookup(key);
+    if(e == null)
+      e = intern(key, NumericBooleanExpression.create(left, cmp, right));
+    return e;
+  }
+  
+  /**
+   * Three-way comparison of {@code left} and {@code right}, as computed by
+   * the {@code xCMPy} bytecodes. It is not simplified, branches on it are
+   * turned into comparisons of its operands.
+   */
+  public static Expression<Integer> cmp(Expression<?> left, Expression<?> right) {
+    Key key = new Key(CMP, left, right);
+    NumericCMP e = lookup(key);
+    if(e == null)
+      e = intern(key, new NumericCMP(left, right));
+    return e;
+  }
+  
+  public static <E> Expression<E> bitvector(Expression<E> left, BitvectorOperator op, Expression<?> right) {
+    Expression<E> r = right.requireAs(left.getType());
+    if(isSimplify()) {
+      Expression<E> s = simplifyBitvector(left, op, r);
+      if(s != null)
+        return s;
+    }
+    Key key = new Key(op, left, r);
+    BitvectorExpression<E> e = lookup(key);
+    if(e == null)
+      e = intern(key, BitvectorExpression.create(left, op, r));
+    return e;
+  }
+  
+  public static Expression<Boolean> propositional(Expression<Boolean> left, LogicalOperator op, Expression<Boolean> right) {
+    if(isSimplify() && (op == LogicalOperator.AND || op == LogicalOperator.OR)) {
+      // true && x, false || x => x,   false && x, true || x => constant
+      Boolean neutral = (op == LogicalOperator.AND);
+      Boolean lb = boolValue(left), rb = boolValue(right);
+      if(neutral.equals(lb))
+        return right;
+      if(neutral.equals(rb))
+        return left;
+      if(lb != null)
+        return left;
+      if(rb != null)
+        return right;
+    }
+    Key key = new Key(op, left, right);
+    PropositionalCompound e = lookup(key);
+    if(e == null)
+      e = intern(key, new PropositionalCompound(left, op, right));
+    return e;
+  }
+  
+  public static Expression<Boolean> not(Expression<Boolean> negated) {
+    if(isSimplify()) {
+      if(negated instanceof Negation)
+        return ((Negation)negated).getNegated();
+      Boolean b = boolValue(negated);
+      if(b != null)
+        return constant(BuiltinTypes.BOOL, !b);
+    }
+    Key key = new Key(NOT, negated);
+    Negation e = lookup(key);
+    if(e == null)
+      e = intern(key, new Negation(negated));
+    return e;
+  }
+  
+  public static <E> Expression<E> minus(Expression<E> negated) {
+    if(isSimplify()) {
+      if(negated instanceof UnaryMinus)
+        return ((UnaryMinus<E>)negated).getNegated();
+      Number n = numValue(negated);
+      if(n != null && (isIntegral(negated.getType()) || isFloating(negated.getType())))
+        return number(negated.getType(), negate(negated.getType(), n));
+    }
+    Key key = new Key(MINUS, negated);
+    UnaryMinus<E> e = lookup(key);
+    if(e == null)
+      e = intern(key, UnaryMinus.create(negated));
+    return e;
+  }
+  
+  public static <F,E> Expression<E> cast(Expression<F> casted, Type<E> type) {
+    if(isSimplify() && type.equals(casted.getType()))
+      return casted.requireAs(type);
+    Key key = new Key(CAST, casted, type);
+    CastExpression<F,E> e = lookup(key);
+    if(e == null)
+      e = intern(key, CastExpression.create(casted, type));
+    return isSimplify() ? foldCast(e) : e;
+  }
+  
+  public static <F,E> Expression<E> cast(Expression<F> casted, Type<E> type, CastOperation<? super F, ? extends E> op) {
+    Key key = new Key(CAST, casted, type, op);
+    CastExpression<F,E> e = lookup(key);
+    if(e == null)
+      e = intern(key, CastExpression.create(casted, type, op));
+    return isSimplify() ? foldCast(e) : e;
+  }
+  
+  /**
+   * Enables or disables on-the-fly simplification (enabled by default) for
+   * the terms built by the calling thread. Every analysis sets it from its
+   * {@link gov.nasa.jpf.jdart.config.ConcolicConfig} when it is started. 
+   * Interning is always performed.
+   */
+  public static void setSimplify(boolean enabled) {
+    simplify.set(enabled);
+  }
+  
+  public static boolean isSimplify() {
+    return simplify.get();
+  }
+  
+  /* ******************************************************************************
+   * 
+   * simplification
+   * 
+   * Rules on integers rely on two's complement arithmetic (associativity and 
+   * commutativity hold modulo overflow), rules on floating point values are 
+   * only applied where they are exact, including for NaN and signed zeros.
+   */
+  
+  private static <E> Expression<E> simplifyCompound(Expression<E> l, NumericOperator op, Expression<E> r) {
+    Type<E> type = l.getType();
+    boolean integral = isIntegral(type);
+    if(!integral && !isFloating(type))
+      return null;
+    Number lc = numValue(l), rc = numValue(r);
+    if(lc != null && rc != null) {
+      Number v = fold(type, op, lc, rc);
+      return (v != null) ? number(type, v) : null;
+    }
+    if(lc == null && rc == null) {
+      if(integral && l == r && op == NumericOperator.MINUS)
+        return number(type, 0);
+      return null;
+    }
+    
+    if(!integral) {
+      switch(op) {
+      case PLUS: // -0.0 is the neutral element of addition
+        if(isNegativeZero(rc))
+          return l;
+        if(isNegativeZero(lc))
+          return r;
+        return null;
+      case MINUS:
+        return isPositiveZero(rc) ? l : null;
+      case MUL:
+        if(isOne(rc))
+          return l;
+        if(isOne(lc))
+          return r;
+        return null;
+      case DIV:
+        return isOne(rc) ? l : null;
+      default:
+        return null;
+      }
+    }
+    
+    switch(op) {
+    case PLUS:
+      if(lc != null)
+        return compound(r, op, l);
+      if(rc.longValue() == 0L)
+        return l;
+      // (x + c1) + c2 => x + (c1 + c2)
+      if(l instanceof NumericCompound) {
+        NumericCompound<E> nc = (NumericCompound<E>)l;
+        Number c1 = numValue(nc.getRight());
+        if(nc.getOperator() == NumericOperator.PLUS && c1 != null)
+          return compound(nc.getLeft(), op, number(type, fold(type, op, c1, rc)));
+      }
+      return null;
+    case MINUS:
+      // x - c => x + (-c)
+      if(rc != null)
+        return compound(l, NumericOperator.PLUS, number(type, negate(type, rc)));
+      return null;
+    case MUL:
+      if(lc != null)
+        return compound(r, op, l);
+      if(rc.longValue() == 0L)
+        return r;
+      if(rc.longValue() == 1L)
+        return l;
+      // (x * c1) * c2 => x * (c1 * c2)
+      if(l instanceof NumericCompound) {
+        NumericCompound<E> nc = (NumericCompound<E>)l;
+        Number c1 = numValue(nc.getRight());
+        if(nc.getOperator() == NumericOperator.MUL && c1 != null)
+          return compound(nc.getLeft(), op, number(type, fold(type, op, c1, rc)));
+      }
+      return null;
+    case DIV:
+      return (rc != null && rc.longValue() == 1L) ? l : null;
+    default:
+      return null;
+    }
+  }
+  
+  private static <E> Expression<E> simplifyBitvector(Expression<E> l, BitvectorOperator op, Expression<E> r) {
+    Type<E> type = l.getType();
+    if(!isIntegral(type))
+      return null;
+    Number lc = numValue(l), rc = numValue(r);
+    if(lc != null && rc != null)
+      return number(type, fold(type, op, lc, rc));
+    boolean shift = (op == BitvectorOperator.SHIFTL 
+            || op == BitvectorOperator.SHIFTR || op == BitvectorOperator.SHIFTUR);
+    if(lc != null && !shift)
+      return bitvector(r, op, l);
+    if(rc == null) {
+      if(l != r || shift)
+        return null;
+      // x & x, x | x => x,   x ^ x => 0
+      return (op == BitvectorOperator.XOR) ? number(type, 0) : l;
+    }
+    long c = rc.longValue();
+    switch(op) {
+    case AND:
+      return (c == 0L) ? r : (c == -1L) ? l : null;
+    case OR:
+      return (c == 0L) ? l : (c == -1L) ? r : null;
+    default: // XOR and shifts
+      return (c == 0L) ? l : null;
+    }
+  }
+  
+  private static Expression<Boolean> simplifyCompare(Expression<?> l, NumericComparator cmp, Expression<?> r) {
+    Type<?> type = l.getType();
+    boolean integral = isIntegral(type);
+    if((!integral && !isFloating(type)) || !type.equals(r.getType()))
+      return null;
+    Number lc = numValue(l), rc = numValue(r);
+    if(lc != null && rc != null) 
+      return constant(BuiltinTypes.BOOL, compare(type, lc, cmp, rc));
+    if(lc != null)
+      return compare(r, mirror(cmp), l);
+    if(!integral)
+      return null;
+    if(l == r)
+      return constant(BuiltinTypes.BOOL, cmp.eval(0));
+    // (x + c1) == c2 => x == (c2 - c1), only exact for (in)equality
+    if(rc != null && (cmp == NumericComparator.EQ || cmp == NumericComparator.NE)
+            && l instanceof NumericCompound) {
+      NumericCompound<?> nc = (NumericCompound<?>)l;
+      Number c1 = numValue(nc.getRight());
+      if(nc.getOperator() == NumericOperator.PLUS && c1 != null)
+        return compare(nc.getLeft(), cmp, number(type, fold(type, NumericOperator.MINUS, rc, c1)));
+    }
+    return null;
+  }
+  
+  private static <F,E> Expression<E> foldCast(CastExpression<F,E> e) {
+    if(numValue(e.getCasted()) == null)
+      return e;
+    try {
+      return constant(e.getType(), e.evaluate(new Valuation()));
+    }
+    catch(RuntimeException ex) {
+      return e;
+    }
+  }
+  
+  private static Number fold(Type<?> type, NumericOperator op, Number a, Number b) {
+    if(BuiltinTypes.SINT32.equals(type)) {
+      int x = a.intValue(), y = b.intValue();
+      switch(op) {
+      case PLUS: return x + y;
+      case MINUS: return x - y;
+      case MUL: return x * y;
+      case DIV: return (y != 0) ? x / y : null;
+      case REM: return (y != 0) ? x % y : null;
+      }
+    }
+    else if(BuiltinTypes.SINT64.equals(type)) {
+      long x = a.longValue(), y = b.longValue();
+      switch(op) {
+      case PLUS: return x + y;
+      case MINUS: return x - y;
+      case MUL: return x * y;
+      case DIV: return (y != 0L) ? x / y : null;
+      case REM: return (y != 0L) ? x % y : null;
+      }
+    }
+    else if(BuiltinTypes.FLOAT.equals(type)) {
+      float x = a.floatValue(), y = b.floatValue();
+      switch(op) {
+      case PLUS: return x + y;
+      case MINUS: return x - y;
+      case MUL: return x * y;
+      case DIV: return x / y;
+      case REM: return x % y;
+      }
+    }
+    else if(BuiltinTypes.DOUBLE.equals(type)) {
+      double x = a.doubleValue(), y = b.doubleValue();
+      switch(op) {
+      case PLUS: return x + y;
+      case MINUS: return x - y;
+      case MUL: return x * y;
+      case DIV: return x / y;
+      case REM: return x % y;
+      }
+    }
+    return null;
+  }
+  
+  private static Number fold(Type<?> type, BitvectorOperator op, Number a, Number b) {
+    if(BuiltinTypes.SINT32.equals(type)) {
+      int x = a.intValue(), y = b.intValue();
+      switch(op) {
+      case AND: return x & y;
+      case OR: return x | y;
+      case XOR: return x ^ y;
+      case SHIFTL: return x << y;
+      case SHIFTR: return x >> y;
+      case SHIFTUR: return x >>> y;
+      }
+    }
+    long x = a.longValue(), y = b.longValue();
+    switch(op) {
+    case AND: return x & y;
+    case OR: return x | y;
+    case XOR: return x ^ y;
+    case SHIFTL: return x << y;
+    case SHIFTR: return x >> y;
+    default: return x >>> y;
+    }
+  }
+  
+  private static boolean compare(Type<?> type, Number a, NumericComparator cmp, Number b) {
+    if(isIntegral(type))
+      return cmp.eval(Long.compare(a.longValue(), b.longValue()));
+    // Java semantics: every comparison with NaN is false, except for !=
+    double x = a.doubleValue(), y = b.doubleValue();
+    switch(cmp) {
+    case EQ: return x == y;
+    case NE: return x != y;
+    case LT: return x < y;
+    case LE: return x <= y;
+    case GT: return x > y;
+    default: return x >= y;
+    }
+  }
+  
+  private static NumericComparator mirror(NumericComparator cmp) {
+    switch(cmp) {
+    case LT: return NumericComparator.GT;
+    case LE: return NumericComparator.GE;
+    case GT: return NumericComparator.LT;
+    case GE: return NumericComparator.LE;
+    default: return cmp;
+    }
+  }
+  
+  private static Number negate(Type<?> type, Number n) {
+    if(BuiltinTypes.SINT32.equals(type))
+      return -n.intValue();
+    if(BuiltinTypes.SINT64.equals(type))
+      return -n.longValue();
+    if(BuiltinTypes.FLOAT.equals(type))
+      return -n.floatValue();
+    return -n.doubleValue();
+  }
+  
+  private static boolean isIntegral(Type<?> type) {
+    return BuiltinTypes.SINT32.equals(type) || BuiltinTypes.SINT64.equals(type);
+  }
+  
+  private static boolean isFloating(Type<?> type) {
+    return BuiltinTypes.FLOAT.equals(type) || BuiltinTypes.DOUBLE.equals(type);
+  }
+  
+  private static boolean isOne(Number n) {
+    return n != null && n.doubleValue() == 1.0;
+  }
+  
+  private static boolean isPositiveZero(Number n) {
+    return n != null && Double.doubleToRawLongBits(n.doubleValue()) == 0L;
+  }
+  
+  private static boolean isNegativeZero(Number n) {
+    return n != null && Double.doubleToRawLongBits(n.doubleValue()) == NEGATIVE_ZERO_BITS;
+  }
+  
+  private static Number numValue(Expression<?> e) {
+    if(!(e instanceof Constant))
+      return null;
+    Object v = ((Constant<?>)e).getValue();
+    return (v instanceof Number) ? (Number)v : null;
+  }
+  
+  private static Boolean boolValue(Expression<?> e) {
+    if(!(e instanceof Constant))
+      return null;
+    Object v = ((Constant<?>)e).getValue();
+    return (v instanceof Boolean) ? (Boolean)v : null;
+  }
+  
+  @SuppressWarnings("unchecked")
+  private static <E> Constant<E> number(Type<E> type, Number n) {
+    if(BuiltinTypes.SINT32.equals(type))
+      return constant(type, (E)Integer.valueOf(n.intValue()));
+    if(BuiltinTypes.SINT64.equals(type))
+      return constant(type, (E)Long.valueOf(n.longValue()));
+    if(BuiltinTypes.FLOAT.equals(type))
+      return constant(type, (E)Float.valueOf(n.floatValue()));
+    return constant(type, (E)Double.valueOf(n.doubleValue()));
+  }
+  
+  /**
+   * Number of nodes of an expression (shared subterms are counted once for
+   * each occurrence, saturating at {@link Integer#MAX_VALUE}).
+   */
+  public static int size(Expression<?> expr) {
+    return (int)(metrics(expr) >>> 32);
+  }
+  
+  /**
+   * Depth of an expression, variables and constants have depth 0.
+   */
+  public static int depth(Expression<?> expr) {
+    return (int)metrics(expr);
+  }
+  
+  /**
+   * Number of interned terms that are currently alive (approximately).
+   */
+  public static long size() {
+    return table.size();
+  }
+  
+  /**
+   * size and depth packed into one long, memoized per node so measuring a
+   * freshly built term only looks at its direct children
+   */
+  private static long metrics(Expression<?> expr) {
+    Long m = metrics.getIfPresent(expr);
+    if(m != null)
+      return m;
+    long size = 1L;
+    long depth = 0L;
+    for(Expression<?> child : expr.getChildren()) {
+      long cm = metrics(child);
+      size = Math.min(size + (cm >>> 32), Integer.MAX_VALUE);
+      depth = Math.max(depth, (cm & 0xFFFFFFFFL) + 1L);
+    }
+    long result = (size << 32) | depth;
+    metrics.put(expr, result);
+    return result;
+  }
+  
+  @SuppressWarnings("unchecked")
+  private static <T extends Expression<?>> T lookup(Key key) {
+    return (T)table.getIfPresent(key);
+  }
+  
+  @SuppressWarnings("unchecked")
+  private static <T extends Expression<?>> T intern(Key key, T expr) {
+    // weakly held entries that have been collected count as absent
+    Expression<?> prev = table.asMap().putIfAbsent(key, expr);
+    return (prev != null) ? (T)prev : expr;
+  }
+  
+  /**
+   * Interning key. Expression components are compared by identity, all
+   * other components (operators, types, constant values) by equality.
+   */
+  private static final class Key {
+    private final Object[] parts;
+    private final int hash;
+    
+    Key(Object ... parts) {
+      this.parts = parts;
+      int h = 1;
+      for(Object p : parts)
+        h = 31*h + partHash(p);
+      this.hash = h;
+    }
+    
+    private static int partHash(Object p) {
+      if(p == null)
+        return 0;
+      if(p instanceof Expression)
+        return System.identityHashCode(p);
+      return p.hashCode();
+    }
+    
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+    
+    @Override
+    public boolean equals(Object obj) {
+      if(this == obj)
+        return true;
+      if(!(obj instanceof Key))
+        return false;
+      Key other = (Key)obj;
+      if(hash != other.hash || parts.length != other.parts.length)
+        return false;
+      for(int i = 0; i < parts.length; i++) {
+        Object a = parts[i], b = other.parts[i];
+        if(a instanceof Expression || b instanceof Expression) {
+          if(a != b)
+            return false;
+        }
+        else if(a == null ? b != null : !a.equals(b))
+          return false;
+      }
+      return true;
+    }
+    
+    @Override
+    public String toString() {
+      return Arrays.toString(parts);
+    }
+  }
+  
+  private ExpressionFactory() {}
+}
@@ -24,6 +24,8 @@ import gov.nasa.jpf.constraints.util.ExpressionUtil;
 import gov.nasa.jpf.jdart.config.ConcolicConfig;
 import gov.nasa.jpf.jdart.config.ConcolicMethodConfig;
 import gov.nasa.jpf.jdart.constraints.Path;
+import gov.nasa.jpf.jdart.constraints.PathState;
+import gov.nasa.jpf.jdart.constraints.PathSummary;
 import gov.nasa.jpf.jdart.testsuites.TestSuiteGenerator;
 import gov.nasa.jpf.util.JPFLogger;
 import gov.nasa.jpf.util.LogHandler;
@@ -38,6 +40,7 @@ import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.FileHandler;
 import java.util.logging.Formatter;
 import java.util.logging.Level;
@@ -50,6 +53,9 @@ import java.util.logging.SimpleFormatter;
 public class JDart implements JPFShell {
 
   public static final String CONFIG_KEY_CONCOLIC_EXPLORER = "jdart.concolic_explorer_instance";
+  
+  // distinguishes the explorers of runs sharing a JVM
+  private static final AtomicInteger runIds = new AtomicInteger();
 
   private final Config config;
   private final ConcolicConfig cc;
@@ -137,6 +143,16 @@ public class JDart implements JPFShell {
    * @return the {@link ConcolicExplorer} containing the analysis data.
    */
   public ConcolicExplorer run() {
+    SimpleProfiler outer = SimpleProfiler.enterScope();
+    try {
+      return doRun();
+    }
+    finally {
+      SimpleProfiler.leaveScope(outer);
+    }
+  }
+  
+  private ConcolicExplorer doRun() {
 
     logger.finest("JDart.run() -- begin");
     
@@ -156,7 +172,7 @@ public class JDart implements JPFShell {
     jpfConf.setProperty("search.multiple_errors", "true");
 
     //
-    jpfConf.setProperty(CONFIG_KEY_CONCOLIC_EXPLORER, ConcolicExplorer.class.getName() + "@jdart-explorer");
+    jpfConf.setProperty(CONFIG_KEY_CONCOLIC_EXPLORER, ConcolicExplorer.class.getName() + "@jdart-explorer-" + runIds.incrementAndGet());
     ConcolicExplorer ce = getConcolicExplorer(jpfConf);
     this.explorer = ce;
     ce.configure(cc);
@@ -239,6 +255,17 @@ public class JDart implements JPFShell {
       logger.info("==================================");
       for (CompletedAnalysis ca : e.getValue()) {
 
+        PathSummary summarized = ca.getSummarizedPaths();
+        if (summarized.getTotal() > 0) {
+          logger.info("-------Summarized Paths-------");
+          logger.info("# paths (total): " + summarized.getTotal());
+          logger.info("# OK paths: " + summarized.getCount(PathState.OK));
+          logger.info("# ERROR paths: " + summarized.getCount(PathState.ERROR));
+          logger.info("# DONT_KNOW paths: " + summarized.getCount(PathState.DONT_KNOW));
+          logger.info("# BUDGET_EXCEEDED paths: " + summarized.getCount(PathState.BUDGET_EXCEEDED));
+          logger.info("");
+        }
+
         if (ca.getConstraintsTree() == null) {
           logger.info("tree is null");
           continue;
@@ -265,14 +292,23 @@ public class JDart implements JPFShell {
         }
 
         logger.info("----Constraints Tree Statistics---");
-        logger.info("# paths (total): " + ca.getConstraintsTree().getAllPaths().size());
-        logger.info("# OK paths: " + ca.getConstraintsTree().getCoveredPaths().size());
-        logger.info("# ERROR paths: " + ca.getConstraintsTree().getErrorPaths().size());
-        logger.info("# DONT_KNOW paths: " + ca.getConstraintsTree().getDontKnowPaths().size());
+        logger.info("# paths (total): " + ca.getConstraintsTree().getPathCount());
+        logger.info("# OK paths: " + ca.getConstraintsTree().getPathCount(PathState.OK));
+        logger.info("# ERROR paths: " + ca.getConstraintsTree().getPathCount(PathState.ERROR));
+        logger.info("# DONT_KNOW paths: " + ca.getConstraintsTree().getPathCount(PathState.DONT_KNOW));
+        logger.info("# BUDGET_EXCEEDED paths: " + ca.getConstraintsTree().getPathCount(PathState.BUDGET_EXCEEDED));
         logger.info("");
         
+        if (!ca.getConcretizations().isEmpty()) {
+          logger.info("-------Concretized Expressions-------");
+          for (Map.Entry<String, Integer> c : ca.getConcretizations().entrySet()) {
+            logger.info(c.getKey() + ": " + c.getValue());
+          }
+          logger.info("");
+        }
+        
         logger.info("-------Valuation Statistics-------");
-        logger.info("# of valuations (OK+ERR): " + (ca.getConstraintsTree().getCoveredPaths().size() + ca.getConstraintsTree().getErrorPaths().size()));
+        logger.info("# of valuations (OK+ERR): " + (ca.getConstraintsTree().getPathCount(PathState.OK) + ca.getConstraintsTree().getPathCount(PathState.ERROR)));
         logger.info("");
         for (Path p : ca.getConstraintsTree().getAllPaths()) {
           if (p.getValuation() == null) {
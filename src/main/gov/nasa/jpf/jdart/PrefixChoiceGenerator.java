@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart;
+
+import gov.nasa.jpf.vm.MethodInfo;
+
+/**
+ * marks a snapshot of the VM taken before a branch instruction. JPF stores
+ * the state for this choice generator; when backtracking to it, the next
+ * path is resumed from here if its target lies below the snapshot node.
+ * Otherwise, the search backtracks to the previous snapshot or the
+ * {@link JDartChoiceGenerator} at the beginning of the method.
+ */
+public class PrefixChoiceGenerator extends JDartChoiceGenerator {
+
+  private final ConcolicExplorer explorer;
+  
+  private final int node;
+  
+  private final boolean explore;
+  
+  private final int snapshots;
+  
+  private boolean first = true;
+  
+  PrefixChoiceGenerator(String id, MethodInfo methodInfo, ConcolicExplorer explorer, 
+      int node, boolean explore, int snapshots) {
+    super(id, methodInfo, explorer);
+    this.explorer = explorer;
+    this.node = node;
+    this.explore = explore;
+    this.snapshots = snapshots;
+  }
+  
+  /**
+   * the first choice continues the path that took the snapshot.
+   * 
+   * @return 
+   */
+  @Override
+  public boolean hasMoreChoices() {
+    return first || explorer.hasMoreChoicesBelow(node);
+  }
+
+  /**
+   * 
+   */
+  @Override
+  public void advance() {
+    if(first) {
+      first = false;
+      return;
+    }
+    explorer.resumePath(getThreadInfo(), node, explore, snapshots);
+  }
+}
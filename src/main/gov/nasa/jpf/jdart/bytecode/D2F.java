@@ -15,11 +15,12 @@
  */
 package gov.nasa.jpf.jdart.bytecode;
 
-import gov.nasa.jpf.constraints.expressions.CastExpression;
+import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.types.BuiltinTypes;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicUtil;
 import gov.nasa.jpf.jdart.ConcolicUtil.Pair;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -41,9 +42,10 @@ public class D2F extends gov.nasa.jpf.jvm.bytecode.D2F {
     Pair<Double> val = ConcolicUtil.popDouble(sf);
     
     float f = val.conc.floatValue();
-    CastExpression<Double,Float> cast = CastExpression.create(val.symb, BuiltinTypes.FLOAT);
+    Expression<Float> cast = ExpressionFactory.cast(val.symb, BuiltinTypes.FLOAT);
     
     Pair<Float> result = new Pair<Float>(f, cast);
+    result = ConcolicUtil.checkBudget(ti, this, result);
     ConcolicUtil.pushFloat(result, sf);
     
     if (ConcolicInstructionFactory.DEBUG) ConcolicInstructionFactory.logger.finest("Execute D2F: " + result);
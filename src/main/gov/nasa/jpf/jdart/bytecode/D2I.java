@@ -15,11 +15,12 @@
  */
 package gov.nasa.jpf.jdart.bytecode;
 
-import gov.nasa.jpf.constraints.expressions.CastExpression;
+import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.types.BuiltinTypes;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicUtil;
 import gov.nasa.jpf.jdart.ConcolicUtil.Pair;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -41,9 +42,10 @@ public class D2I extends gov.nasa.jpf.jvm.bytecode.D2I {
     Pair<Double> val = ConcolicUtil.popDouble(sf);
     
     int i = val.conc.intValue();
-    CastExpression<Double,Integer> cast = CastExpression.create(val.symb, BuiltinTypes.SINT32);
+    Expression<Integer> cast = ExpressionFactory.cast(val.symb, BuiltinTypes.SINT32);
     
     Pair<Integer> result = new Pair<Integer>(i, cast);
+    result = ConcolicUtil.checkBudget(ti, this, result);
     ConcolicUtil.pushInt(result, sf);
     
     if (ConcolicInstructionFactory.DEBUG) ConcolicInstructionFactory.logger.finest("Execute D2I: " + result);
@@ -15,10 +15,11 @@
  */
 package gov.nasa.jpf.jdart.bytecode;
 
-import gov.nasa.jpf.constraints.expressions.CastExpression;
+import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.types.BuiltinTypes;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicUtil;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -40,9 +41,10 @@ public class D2L extends gov.nasa.jpf.jvm.bytecode.D2L {
     ConcolicUtil.Pair<Double> val = ConcolicUtil.popDouble(sf);
     
     long l = val.conc.longValue();
-    CastExpression<Double,Long> cast = CastExpression.create(val.symb, BuiltinTypes.SINT64);
+    Expression<Long> cast = ExpressionFactory.cast(val.symb, BuiltinTypes.SINT64);
     
     ConcolicUtil.Pair<Long> result = new ConcolicUtil.Pair<Long>(l, cast);
+    result = ConcolicUtil.checkBudget(ti, this, result);
     ConcolicUtil.pushLong(result, sf);
     
     if (ConcolicInstructionFactory.DEBUG) ConcolicInstructionFactory.logger.finest("Execute D2L: " + result);
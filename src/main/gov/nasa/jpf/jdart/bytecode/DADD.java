@@ -15,11 +15,12 @@
  */
 package gov.nasa.jpf.jdart.bytecode;
 
-import gov.nasa.jpf.constraints.expressions.NumericCompound;
+import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.expressions.NumericOperator;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicUtil;
 import gov.nasa.jpf.jdart.ConcolicUtil.Pair;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -37,12 +38,13 @@ public class DADD extends gov.nasa.jpf.jvm.bytecode.DADD {
 	  Pair<Double> right = ConcolicUtil.popDouble(sf);
 	  Pair<Double> left = ConcolicUtil.popDouble(sf);
 
-    NumericCompound<Double> symb = new NumericCompound<Double>(
+    Expression<Double> symb = ExpressionFactory.compound(
             left.symb, NumericOperator.PLUS, right.symb);    
     
     double conc = left.conc + right.conc;    
     
     Pair<Double> result = new Pair<Double>(conc, symb);
+    result = ConcolicUtil.checkBudget(ti, this, result);
     ConcolicUtil.pushDouble(result, sf);
 
     if (ConcolicInstructionFactory.DEBUG) ConcolicInstructionFactory.logger.finest("Execute DADD: " + result);		
@@ -17,7 +17,7 @@ package gov.nasa.jpf.jdart.bytecode;
 
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicUtil;
-import gov.nasa.jpf.jdart.constraints.NumericCMP;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -44,8 +44,7 @@ public class DCMPG extends gov.nasa.jpf.jvm.bytecode.DCMPG {
     
     int conditionValue = conditionValue(rv, lv); // INVERTED
 
-    ConcolicUtil.Pair<Integer> result = new ConcolicUtil.Pair<Integer>(conditionValue, new NumericCMP(
-            left.symb, right.symb));
+    ConcolicUtil.Pair<Integer> result = new ConcolicUtil.Pair<Integer>(conditionValue, ExpressionFactory.cmp(left.symb, right.symb));
     
     ConcolicUtil.pushInt(result, sf);
     
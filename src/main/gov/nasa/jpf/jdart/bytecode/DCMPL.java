@@ -18,7 +18,7 @@ package gov.nasa.jpf.jdart.bytecode;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicUtil;
 import gov.nasa.jpf.jdart.ConcolicUtil.Pair;
-import gov.nasa.jpf.jdart.constraints.NumericCMP;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -45,8 +45,7 @@ public class DCMPL extends gov.nasa.jpf.jvm.bytecode.DCMPL {
     
     int conditionValue = conditionValue(rv, lv); // INVERTED
 
-    Pair<Integer> result = new Pair<Integer>(conditionValue, new NumericCMP(
-            left.symb, right.symb));
+    Pair<Integer> result = new Pair<Integer>(conditionValue, ExpressionFactory.cmp(left.symb, right.symb));
     
     ConcolicUtil.pushInt(result, sf);
     
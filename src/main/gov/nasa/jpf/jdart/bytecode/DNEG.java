@@ -15,9 +15,10 @@
  */
 package gov.nasa.jpf.jdart.bytecode;
 
-import gov.nasa.jpf.constraints.expressions.UnaryMinus;
+import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicUtil;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -37,10 +38,11 @@ public class DNEG extends gov.nasa.jpf.jvm.bytecode.DNEG {
     
 	  ConcolicUtil.Pair<Double> negated = ConcolicUtil.popDouble(sf);
     
-    UnaryMinus<Double> symb = new UnaryMinus<Double>(negated.symb);    
+    Expression<Double> symb = ExpressionFactory.minus(negated.symb);    
     double conc = -negated.conc;    
     
     ConcolicUtil.Pair<Double> result = new ConcolicUtil.Pair<Double>(conc, symb);
+    result = ConcolicUtil.checkBudget(ti, this, result);
     ConcolicUtil.pushDouble(result, sf);
 
     if (ConcolicInstructionFactory.DEBUG) ConcolicInstructionFactory.logger.finest("Execute DNEG: " + result);		
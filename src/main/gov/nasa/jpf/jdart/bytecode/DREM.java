@@ -15,10 +15,11 @@
  */
 package gov.nasa.jpf.jdart.bytecode;
 
-import gov.nasa.jpf.constraints.expressions.NumericCompound;
+import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.expressions.NumericOperator;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicUtil;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -41,7 +42,7 @@ public class DREM extends gov.nasa.jpf.jvm.bytecode.DREM  {
 	  ConcolicUtil.Pair<Double> right = ConcolicUtil.popDouble(sf);
 	  ConcolicUtil.Pair<Double> left = ConcolicUtil.popDouble(sf);
 
-    NumericCompound<Double> symb = new NumericCompound<Double>(
+    Expression<Double> symb = ExpressionFactory.compound(
             left.symb, NumericOperator.REM, right.symb);    
     
     if(right.conc == 0.0) {
@@ -51,6 +52,7 @@ public class DREM extends gov.nasa.jpf.jvm.bytecode.DREM  {
     double conc = left.conc % right.conc;    
     
     ConcolicUtil.Pair<Double> result = new ConcolicUtil.Pair<Double>(conc, symb);
+    result = ConcolicUtil.checkBudget(ti, this, result);
     ConcolicUtil.pushDouble(result, sf);
 
     if (ConcolicInstructionFactory.DEBUG) ConcolicInstructionFactory.logger.finest("Execute DREM: " + result);		
@@ -15,10 +15,11 @@
  */
 package gov.nasa.jpf.jdart.bytecode;
 
-import gov.nasa.jpf.constraints.expressions.CastExpression;
+import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.types.BuiltinTypes;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicUtil;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -42,10 +43,11 @@ public class F2D extends gov.nasa.jpf.jvm.bytecode.F2D {
     ConcolicUtil.Pair<Float> val = ConcolicUtil.popFloat(sf);
     
     float f = val.conc;
-    CastExpression<Float,Double> cast = CastExpression.create(
+    Expression<Double> cast = ExpressionFactory.cast(
             val.symb, BuiltinTypes.DOUBLE);
     
     ConcolicUtil.Pair<Double> result = new ConcolicUtil.Pair<Double>( new Double(f), cast);
+    result = ConcolicUtil.checkBudget(ti, this, result);
     ConcolicUtil.pushDouble(result, sf);
     
     if (ConcolicInstructionFactory.DEBUG) ConcolicInstructionFactory.logger.finest("Execute F2D: " + result);
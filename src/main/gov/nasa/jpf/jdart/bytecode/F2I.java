@@ -17,10 +17,11 @@ package gov.nasa.jpf.jdart.bytecode;
 
 
 
-import gov.nasa.jpf.constraints.expressions.CastExpression;
+import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.types.BuiltinTypes;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicUtil;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -42,10 +43,11 @@ public class F2I extends gov.nasa.jpf.jvm.bytecode.F2I {
     ConcolicUtil.Pair<Float> val = ConcolicUtil.popFloat(sf);
     
     float f = val.conc;
-    CastExpression<Float,Integer> cast = CastExpression.create(
+    Expression<Integer> cast = ExpressionFactory.cast(
             val.symb, BuiltinTypes.SINT32);
     
     ConcolicUtil.Pair<Integer> result = new ConcolicUtil.Pair<Integer>( (int)f, cast);
+    result = ConcolicUtil.checkBudget(ti, this, result);
     ConcolicUtil.pushInt(result, sf);
     
     if (ConcolicInstructionFactory.DEBUG) ConcolicInstructionFactory.logger.finest("Execute F2I: " + result);
@@ -15,10 +15,11 @@
  */
 package gov.nasa.jpf.jdart.bytecode;
 
-import gov.nasa.jpf.constraints.expressions.CastExpression;
+import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.types.BuiltinTypes;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicUtil;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -41,10 +42,11 @@ public class F2L extends gov.nasa.jpf.jvm.bytecode.F2L {
     ConcolicUtil.Pair<Float> val = ConcolicUtil.popFloat(sf);
     
     float f = val.conc;
-    CastExpression<Float,Long> cast = CastExpression.create(
+    Expression<Long> cast = ExpressionFactory.cast(
             val.symb, BuiltinTypes.SINT64);
     
     ConcolicUtil.Pair<Long> result = new ConcolicUtil.Pair<Long>( (long) f, cast);
+    result = ConcolicUtil.checkBudget(ti, this, result);
     ConcolicUtil.pushLong(result, sf);
     
     if (ConcolicInstructionFactory.DEBUG) ConcolicInstructionFactory.logger.finest("Execute F2L: " + result);
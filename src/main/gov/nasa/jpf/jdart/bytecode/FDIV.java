@@ -15,10 +15,11 @@
  */
 package gov.nasa.jpf.jdart.bytecode;
 
-import gov.nasa.jpf.constraints.expressions.NumericCompound;
+import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.expressions.NumericOperator;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicUtil;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -42,12 +43,13 @@ public class FDIV extends gov.nasa.jpf.jvm.bytecode.FDIV  {
 	  ConcolicUtil.Pair<Float> right = ConcolicUtil.popFloat(sf);
 	  ConcolicUtil.Pair<Float> left = ConcolicUtil.popFloat(sf);
 
-    NumericCompound<Float> symb = new NumericCompound<Float>(
+    Expression<Float> symb = ExpressionFactory.compound(
             left.symb, NumericOperator.DIV, right.symb);    
     
     float conc = left.conc / right.conc;    
     
     ConcolicUtil.Pair<Float> result = new ConcolicUtil.Pair<Float>(conc, symb);
+    result = ConcolicUtil.checkBudget(ti, this, result);
     ConcolicUtil.pushFloat(result, sf);
 
     if (ConcolicInstructionFactory.DEBUG) ConcolicInstructionFactory.logger.finest("Execute FDIV: " + result);		
@@ -15,9 +15,10 @@
  */
 package gov.nasa.jpf.jdart.bytecode;
 
-import gov.nasa.jpf.constraints.expressions.UnaryMinus;
+import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicUtil;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -37,10 +38,11 @@ public class FNEG extends gov.nasa.jpf.jvm.bytecode.FNEG {
     
 	  ConcolicUtil.Pair<Float> negated = ConcolicUtil.popFloat(sf);
     
-    UnaryMinus<Float> symb = new UnaryMinus<Float>(negated.symb);    
+    Expression<Float> symb = ExpressionFactory.minus(negated.symb);    
     float conc = -negated.conc;    
     
     ConcolicUtil.Pair<Float> result = new ConcolicUtil.Pair<Float>(conc, symb);
+    result = ConcolicUtil.checkBudget(ti, this, result);
     ConcolicUtil.pushFloat(result, sf);
 
     if (ConcolicInstructionFactory.DEBUG) ConcolicInstructionFactory.logger.finest("Execute FNEG: " + result);		
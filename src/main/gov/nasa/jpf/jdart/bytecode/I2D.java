@@ -16,10 +16,11 @@
 package gov.nasa.jpf.jdart.bytecode;
 
 
-import gov.nasa.jpf.constraints.expressions.CastExpression;
+import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.types.BuiltinTypes;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicUtil;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -43,9 +44,10 @@ public class I2D extends gov.nasa.jpf.jvm.bytecode.I2D {
     ConcolicUtil.Pair<Integer> val = ConcolicUtil.popInt(sf);
     
     double i = (double) ((int) val.conc);
-    CastExpression<Integer,Double> cast = CastExpression.create(val.symb, BuiltinTypes.DOUBLE);
+    Expression<Double> cast = ExpressionFactory.cast(val.symb, BuiltinTypes.DOUBLE);
     
     ConcolicUtil.Pair<Double> result = new ConcolicUtil.Pair<Double>(i, cast);
+    result = ConcolicUtil.checkBudget(ti, this, result);
     ConcolicUtil.pushDouble(result, sf);
     
     if (ConcolicInstructionFactory.DEBUG) ConcolicInstructionFactory.logger.finest("Execute I2D: " + result);
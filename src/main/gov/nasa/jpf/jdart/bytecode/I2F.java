@@ -15,10 +15,11 @@
  */
 package gov.nasa.jpf.jdart.bytecode;
 
-import gov.nasa.jpf.constraints.expressions.CastExpression;
+import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.types.BuiltinTypes;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicUtil;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -40,10 +41,11 @@ public class I2F extends gov.nasa.jpf.jvm.bytecode.I2F {
     ConcolicUtil.Pair<Integer> val = ConcolicUtil.popInt(sf);
     
     int i = val.conc;
-    CastExpression<Integer,Float> cast = CastExpression.create(
+    Expression<Float> cast = ExpressionFactory.cast(
             val.symb, BuiltinTypes.FLOAT);
     
     ConcolicUtil.Pair<Float> result = new ConcolicUtil.Pair<Float>( (float)i, cast);
+    result = ConcolicUtil.checkBudget(ti, this, result);
     ConcolicUtil.pushFloat(result, sf);
     
     if (ConcolicInstructionFactory.DEBUG) ConcolicInstructionFactory.logger.finest("Execute I2F: " + result);
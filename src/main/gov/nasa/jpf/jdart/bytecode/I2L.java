@@ -15,10 +15,11 @@
  */
 package gov.nasa.jpf.jdart.bytecode;
 
-import gov.nasa.jpf.constraints.expressions.CastExpression;
+import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.types.BuiltinTypes;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicUtil;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -43,9 +44,10 @@ public class I2L extends gov.nasa.jpf.jvm.bytecode.I2L {
     ConcolicUtil.Pair<Integer> val = ConcolicUtil.popInt(sf);
     
     int i = val.conc;
-    CastExpression<Integer,Long> cast = CastExpression.create(val.symb, BuiltinTypes.SINT64);
+    Expression<Long> cast = ExpressionFactory.cast(val.symb, BuiltinTypes.SINT64);
     
     ConcolicUtil.Pair<Long> result = new ConcolicUtil.Pair<Long>( (long)i, cast);
+    result = ConcolicUtil.checkBudget(ti, this, result);
     ConcolicUtil.pushLong(result, sf);
     
     if (ConcolicInstructionFactory.DEBUG) ConcolicInstructionFactory.logger.finest("Execute I2L: " + result);
@@ -15,11 +15,12 @@
  */
 package gov.nasa.jpf.jdart.bytecode;
 
-import gov.nasa.jpf.constraints.expressions.NumericCompound;
+import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.expressions.NumericOperator;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicUtil;
 import gov.nasa.jpf.jdart.ConcolicUtil.Pair;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -37,12 +38,13 @@ public class IADD extends gov.nasa.jpf.jvm.bytecode.IADD {
 	  ConcolicUtil.Pair<Integer> right = ConcolicUtil.popInt(sf);
 	  ConcolicUtil.Pair<Integer> left = ConcolicUtil.popInt(sf);
 
-    NumericCompound<Integer> symb = new NumericCompound<Integer>(
+    Expression<Integer> symb = ExpressionFactory.compound(
             left.symb, NumericOperator.PLUS, right.symb);    
     
     int conc = left.conc + right.conc;    
     
     Pair<Integer> result = new Pair<Integer>(conc, symb);
+    result = ConcolicUtil.checkBudget(ti, this, result);
     ConcolicUtil.pushInt(result, sf);
 
     if (ConcolicInstructionFactory.DEBUG) ConcolicInstructionFactory.logger.finest("Execute IADD: " + result);		
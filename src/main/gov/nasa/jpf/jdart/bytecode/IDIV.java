@@ -17,14 +17,13 @@ package gov.nasa.jpf.jdart.bytecode;
 
 import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.expressions.Constant;
-import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
 import gov.nasa.jpf.constraints.expressions.NumericComparator;
-import gov.nasa.jpf.constraints.expressions.NumericCompound;
 import gov.nasa.jpf.constraints.expressions.NumericOperator;
 import gov.nasa.jpf.constraints.types.BuiltinTypes;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicMethodExplorer;
 import gov.nasa.jpf.jdart.ConcolicUtil;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -53,9 +52,9 @@ public class IDIV extends gov.nasa.jpf.jvm.bytecode.IDIV {
       Expression<Boolean>[] constraints = null;
       if(analysis.needsDecisions()) {
         constraints = new Expression[2];
-        Constant<Integer> zero = Constant.create(BuiltinTypes.SINT32, 0);
-        constraints[0] = NumericBooleanExpression.create(right.symb, NumericComparator.NE, zero);
-        constraints[1] = NumericBooleanExpression.create(right.symb, NumericComparator.EQ, zero);
+        Constant<Integer> zero = ExpressionFactory.constant(BuiltinTypes.SINT32, 0);
+        constraints[0] = ExpressionFactory.compare(right.symb, NumericComparator.NE, zero);
+        constraints[1] = ExpressionFactory.compare(right.symb, NumericComparator.EQ, zero);
       }
       analysis.decision(ti, this, (right.conc != 0) ? 0 : 1, constraints);
     }
@@ -63,12 +62,13 @@ public class IDIV extends gov.nasa.jpf.jvm.bytecode.IDIV {
     if (right.conc == 0)
 			return ti.createAndThrowException("java.lang.ArithmeticException", "division by zero");
     
-    NumericCompound<Integer> symb = new NumericCompound<Integer>(
+    Expression<Integer> symb = ExpressionFactory.compound(
             left.symb, NumericOperator.DIV, right.symb);    
     
     int conc = left.conc / right.conc;    
     
     ConcolicUtil.Pair<Integer> result = new ConcolicUtil.Pair<Integer>(conc, symb);
+    result = ConcolicUtil.checkBudget(ti, this, result);
     ConcolicUtil.pushInt(result, sf);
 
     if (ConcolicInstructionFactory.DEBUG) ConcolicInstructionFactory.logger.finest("Execute IDIV: " + result);		
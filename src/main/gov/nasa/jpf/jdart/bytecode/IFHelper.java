@@ -17,13 +17,12 @@ package gov.nasa.jpf.jdart.bytecode;
 
 import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.expressions.Constant;
-import gov.nasa.jpf.constraints.expressions.Negation;
-import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
 import gov.nasa.jpf.constraints.expressions.NumericComparator;
 import gov.nasa.jpf.constraints.types.BuiltinTypes;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicMethodExplorer;
 import gov.nasa.jpf.jdart.ConcolicUtil;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.jdart.constraints.NumericCMP;
 import gov.nasa.jpf.jvm.bytecode.IfInstruction;
 import gov.nasa.jpf.vm.Instruction;
@@ -53,6 +52,10 @@ public abstract class IFHelper {
       return null;
     }
     
+    if(analysis.snapshot(ti, insn)) {
+      return insn;
+    }
+    
     ConcolicUtil.Pair<Integer> v1 = ConcolicUtil.popInt(sf);
     
 
@@ -66,7 +69,7 @@ public abstract class IFHelper {
         constraints[0] = exp.requireAs(BuiltinTypes.BOOL);
         constraints[1] = exp.requireAs(BuiltinTypes.BOOL);
         int neg = (cmp == NumericComparator.EQ) ? 0 : 1;
-        constraints[neg] = new Negation(constraints[neg]);
+        constraints[neg] = ExpressionFactory.not(constraints[neg]);
       }
       int branchIdx = sat ? 0 : 1;
       
@@ -83,14 +86,14 @@ public abstract class IFHelper {
         // in this case we have to turn the cmp together with the ifne into
         // a path condition ...
         NumericCMP ncmp = (NumericCMP)v1.symb;
-        constraints[0] = new NumericBooleanExpression(ncmp.getLeft(), cmp, ncmp.getRight());
-        constraints[1] = new NumericBooleanExpression(ncmp.getLeft(), cmp.not(), ncmp.getRight());
+        constraints[0] = ExpressionFactory.compare(ncmp.getLeft(), cmp, ncmp.getRight());
+        constraints[1] = ExpressionFactory.compare(ncmp.getLeft(), cmp.not(), ncmp.getRight());
       }
       else {
         // this is really a comparison against 0
-        Constant<Integer> zero = Constant.create(BuiltinTypes.SINT32, 0);
-        constraints[0] = new NumericBooleanExpression(v1.symb, cmp, zero);
-        constraints[1] = new NumericBooleanExpression(v1.symb, cmp.not(), zero);
+        Constant<Integer> zero = ExpressionFactory.constant(BuiltinTypes.SINT32, 0);
+        constraints[0] = ExpressionFactory.compare(v1.symb, cmp, zero);
+        constraints[1] = ExpressionFactory.compare(v1.symb, cmp.not(), zero);
       }
       // System.err.println("Comparison against zero: ");
       // System.err.println(Arrays.asList(constraints));
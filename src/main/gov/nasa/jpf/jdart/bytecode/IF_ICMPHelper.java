@@ -16,13 +16,12 @@
 package gov.nasa.jpf.jdart.bytecode;
 
 import gov.nasa.jpf.constraints.api.Expression;
-import gov.nasa.jpf.constraints.expressions.Negation;
-import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
 import gov.nasa.jpf.constraints.expressions.NumericComparator;
 import gov.nasa.jpf.constraints.types.BuiltinTypes;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicMethodExplorer;
 import gov.nasa.jpf.jdart.ConcolicUtil;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.jvm.bytecode.IfInstruction;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
@@ -55,6 +54,10 @@ public class IF_ICMPHelper {
       return null; // null return value means concrete execution
     }
     
+    if(analysis.snapshot(ti, instruction)) {
+      return instruction; // re-executed after the snapshot
+    }
+    
     Expression<?> rsym = sf.getOperandAttr(0, Expression.class);
     Expression<?> lsym = sf.getOperandAttr(1, Expression.class);
     
@@ -76,8 +79,8 @@ public class IF_ICMPHelper {
           && ((lsym == null || lsym.getType().equals(BuiltinTypes.BOOL))
               && (rsym == null || rsym.getType().equals(BuiltinTypes.BOOL)))) {
         if(lsym != null && rsym != null) { // symbolic / symbolic
-          constraints[0] = NumericBooleanExpression.create(lsym, cmp, rsym);
-          constraints[1] = NumericBooleanExpression.create(lsym, cmp.not(), rsym);
+          constraints[0] = ExpressionFactory.compare(lsym, cmp, rsym);
+          constraints[1] = ExpressionFactory.compare(lsym, cmp.not(), rsym);
         }
         else { // symbolic / concrete
           boolean cmpVal;
@@ -94,12 +97,12 @@ public class IF_ICMPHelper {
           constraints[0] = bsym;
           constraints[1] = bsym;
           int neg = (cmpVal ^ (cmp == NumericComparator.EQ)) ? 0 : 1;
-          constraints[neg] = new Negation(constraints[neg]);
+          constraints[neg] = ExpressionFactory.not(constraints[neg]);
         }
       }
       else {
-        constraints[0] = NumericBooleanExpression.create(left.symb, cmp, right.symb);
-        constraints[1] = NumericBooleanExpression.create(left.symb, cmp.not(), right.symb);
+        constraints[0] = ExpressionFactory.compare(left.symb, cmp, right.symb);
+        constraints[1] = ExpressionFactory.compare(left.symb, cmp.not(), right.symb);
       }
     }
     
@@ -15,14 +15,13 @@
  */
 package gov.nasa.jpf.jdart.bytecode;
 
-import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.expressions.Constant;
-import gov.nasa.jpf.constraints.expressions.NumericCompound;
 import gov.nasa.jpf.constraints.expressions.NumericOperator;
 import gov.nasa.jpf.constraints.types.BuiltinTypes;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicUtil;
 import gov.nasa.jpf.jdart.ConcolicUtil.Pair;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -33,7 +32,7 @@ public class IINC extends gov.nasa.jpf.jvm.bytecode.IINC {
 
   public IINC(int localVarIndex, int incConstant) {
     super(localVarIndex, incConstant);
-    this.symbolicInc = Constant.create(BuiltinTypes.SINT32, incConstant);
+    this.symbolicInc = ExpressionFactory.constant(BuiltinTypes.SINT32, incConstant);
   }
 
   @Override
@@ -47,11 +46,13 @@ public class IINC extends gov.nasa.jpf.jvm.bytecode.IINC {
 
     Pair<Integer> updatedAttr = new Pair<>(
             localAttr.conc + increment,
-            NumericCompound.create(
+            ExpressionFactory.compound(
                     localAttr.symb.requireAs(BuiltinTypes.SINT32),
                     NumericOperator.PLUS,
                     symbolicInc));
 
+    updatedAttr = ConcolicUtil.checkBudget(ti, this, updatedAttr);
+
     ConcolicUtil.setLocalAttrInt(sf, index, updatedAttr);
 
     if (ConcolicInstructionFactory.DEBUG) {
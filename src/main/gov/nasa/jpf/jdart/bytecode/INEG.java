@@ -15,9 +15,10 @@
  */
 package gov.nasa.jpf.jdart.bytecode;
 
-import gov.nasa.jpf.constraints.expressions.UnaryMinus;
+import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicUtil;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -34,10 +35,11 @@ public class INEG extends gov.nasa.jpf.jvm.bytecode.INEG{
     
 	  ConcolicUtil.Pair<Integer> negated = ConcolicUtil.popInt(sf);
     
-    UnaryMinus<Integer> symb = new UnaryMinus<Integer>(negated.symb);    
+    Expression<Integer> symb = ExpressionFactory.minus(negated.symb);    
     int conc = -negated.conc;    
     
     ConcolicUtil.Pair<Integer> result = new ConcolicUtil.Pair<Integer>(conc, symb);
+    result = ConcolicUtil.checkBudget(ti, this, result);
     ConcolicUtil.pushInt(result, sf);
 
     if (ConcolicInstructionFactory.DEBUG) ConcolicInstructionFactory.logger.finest("Execute INEG: " + result);		
@@ -15,10 +15,11 @@
  */
 package gov.nasa.jpf.jdart.bytecode;
 
-import gov.nasa.jpf.constraints.expressions.BitvectorExpression;
+import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.expressions.BitvectorOperator;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicUtil;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -36,12 +37,13 @@ public class IOR extends gov.nasa.jpf.jvm.bytecode.IOR {
 	  ConcolicUtil.Pair<Integer> right = ConcolicUtil.popInt(sf);
 	  ConcolicUtil.Pair<Integer> left = ConcolicUtil.popInt(sf);
 
-    BitvectorExpression<Integer> symb = BitvectorExpression.create(
+    Expression<Integer> symb = ExpressionFactory.bitvector(
             left.symb, BitvectorOperator.OR, right.symb);    
     
     int conc = left.conc | right.conc;    
     
     ConcolicUtil.Pair<Integer> result = new ConcolicUtil.Pair<Integer>(conc, symb);
+    result = ConcolicUtil.checkBudget(ti, this, result);
     ConcolicUtil.pushInt(result, sf);
 
     if (ConcolicInstructionFactory.DEBUG) ConcolicInstructionFactory.logger.finest("Execute IOR: " + result);		
@@ -15,10 +15,11 @@
  */
 package gov.nasa.jpf.jdart.bytecode;
 
-import gov.nasa.jpf.constraints.expressions.CastExpression;
+import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.types.BuiltinTypes;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicUtil;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -40,10 +41,11 @@ public class L2D extends gov.nasa.jpf.jvm.bytecode.L2D {
     ConcolicUtil.Pair<Long> val = ConcolicUtil.popLong(sf);
     
     long f = val.conc;
-    CastExpression<Long,Double> cast = CastExpression.create(
+    Expression<Double> cast = ExpressionFactory.cast(
             val.symb, BuiltinTypes.DOUBLE);
     
     ConcolicUtil.Pair<Double> result = new ConcolicUtil.Pair<Double>( (double)f , cast);
+    result = ConcolicUtil.checkBudget(ti, this, result);
     ConcolicUtil.pushDouble(result, sf);
     
     if (ConcolicInstructionFactory.DEBUG) ConcolicInstructionFactory.logger.finest("Execute L2D: " + result);
@@ -15,10 +15,11 @@
  */
 package gov.nasa.jpf.jdart.bytecode;
 
-import gov.nasa.jpf.constraints.expressions.CastExpression;
+import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.types.BuiltinTypes;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicUtil;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -40,10 +41,11 @@ public class L2F extends gov.nasa.jpf.jvm.bytecode.L2F {
     ConcolicUtil.Pair<Long> val = ConcolicUtil.popLong(sf);
     
     long f = val.conc;
-    CastExpression<Long,Float> cast = CastExpression.create(
+    Expression<Float> cast = ExpressionFactory.cast(
             val.symb, BuiltinTypes.FLOAT);
     
     ConcolicUtil.Pair<Float> result = new ConcolicUtil.Pair<Float>( (float)f , cast);
+    result = ConcolicUtil.checkBudget(ti, this, result);
     ConcolicUtil.pushFloat(result, sf);
     
     if (ConcolicInstructionFactory.DEBUG) ConcolicInstructionFactory.logger.finest("Execute L2F: " + result);
@@ -15,10 +15,11 @@
  */
 package gov.nasa.jpf.jdart.bytecode;
 
-import gov.nasa.jpf.constraints.expressions.CastExpression;
+import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.types.BuiltinTypes;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicUtil;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -42,10 +43,11 @@ public class L2I extends gov.nasa.jpf.jvm.bytecode.L2I {
     ConcolicUtil.Pair<Long> val = ConcolicUtil.popLong(sf);
     
     Long f = val.conc;
-    CastExpression<Long,Integer> cast = CastExpression.create(
+    Expression<Integer> cast = ExpressionFactory.cast(
             val.symb, BuiltinTypes.SINT32);
     
     ConcolicUtil.Pair<Integer> result = new ConcolicUtil.Pair<Integer>( f.intValue() , cast);
+    result = ConcolicUtil.checkBudget(ti, this, result);
     ConcolicUtil.pushInt(result, sf);
     
     if (ConcolicInstructionFactory.DEBUG) ConcolicInstructionFactory.logger.finest("Execute L2I: " + result);
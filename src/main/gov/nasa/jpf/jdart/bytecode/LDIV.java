@@ -17,15 +17,14 @@ package gov.nasa.jpf.jdart.bytecode;
 
 import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.expressions.Constant;
-import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
 import gov.nasa.jpf.constraints.expressions.NumericComparator;
-import gov.nasa.jpf.constraints.expressions.NumericCompound;
 import gov.nasa.jpf.constraints.expressions.NumericOperator;
 import gov.nasa.jpf.constraints.types.BuiltinTypes;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicMethodExplorer;
 import gov.nasa.jpf.jdart.ConcolicUtil;
 import gov.nasa.jpf.jdart.ConcolicUtil.Pair;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -59,9 +58,9 @@ public class LDIV extends gov.nasa.jpf.jvm.bytecode.LDIV  {
       Expression<Boolean>[] constraints = null;
       if(analysis.needsDecisions()) {
         constraints = new Expression[2];
-        Constant<Long> zero = Constant.create(BuiltinTypes.SINT64, 0L);
-        constraints[0] = NumericBooleanExpression.create(right.symb, NumericComparator.NE, zero);
-        constraints[1] = NumericBooleanExpression.create(right.symb, NumericComparator.EQ, zero);
+        Constant<Long> zero = ExpressionFactory.constant(BuiltinTypes.SINT64, 0L);
+        constraints[0] = ExpressionFactory.compare(right.symb, NumericComparator.NE, zero);
+        constraints[1] = ExpressionFactory.compare(right.symb, NumericComparator.EQ, zero);
       }
       analysis.decision(ti, this, (right.conc != 0) ? 0 : 1, constraints);
     }    
@@ -69,12 +68,13 @@ public class LDIV extends gov.nasa.jpf.jvm.bytecode.LDIV  {
 		if (right.conc == 0) 
 			return ti.createAndThrowException("java.lang.ArithmeticException", "long division by zero");
     
-    NumericCompound<Long> symb = new NumericCompound<Long>(
+    Expression<Long> symb = ExpressionFactory.compound(
             left.symb, NumericOperator.DIV, right.symb);    
     
     long conc = left.conc / right.conc;    
     
     Pair<Long> result = new Pair<Long>(conc, symb);
+    result = ConcolicUtil.checkBudget(ti, this, result);
     ConcolicUtil.pushLong(result, sf);
 
     if (ConcolicInstructionFactory.DEBUG) ConcolicInstructionFactory.logger.finest("Execute IDIV: " + result);		
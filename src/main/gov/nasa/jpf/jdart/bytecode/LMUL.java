@@ -15,10 +15,11 @@
  */
 package gov.nasa.jpf.jdart.bytecode;
 
-import gov.nasa.jpf.constraints.expressions.NumericCompound;
+import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.expressions.NumericOperator;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicUtil;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -41,12 +42,13 @@ public class LMUL extends gov.nasa.jpf.jvm.bytecode.LMUL {
 	  ConcolicUtil.Pair<Long> right = ConcolicUtil.popLong(sf);
 	  ConcolicUtil.Pair<Long> left = ConcolicUtil.popLong(sf);
 
-    NumericCompound<Long> symb = new NumericCompound<Long>(
+    Expression<Long> symb = ExpressionFactory.compound(
             left.symb, NumericOperator.MUL, right.symb);    
     
     long conc = left.conc * right.conc;    
     
     ConcolicUtil.Pair<Long> result = new ConcolicUtil.Pair<Long>(conc, symb);
+    result = ConcolicUtil.checkBudget(ti, this, result);
     ConcolicUtil.pushLong(result, sf);
 
     if (ConcolicInstructionFactory.DEBUG) ConcolicInstructionFactory.logger.finest("Execute LMUL: " + result);		
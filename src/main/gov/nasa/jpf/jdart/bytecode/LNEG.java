@@ -15,9 +15,10 @@
  */
 package gov.nasa.jpf.jdart.bytecode;
 
-import gov.nasa.jpf.constraints.expressions.UnaryMinus;
+import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicUtil;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -39,10 +40,11 @@ public class LNEG extends gov.nasa.jpf.jvm.bytecode.LNEG {
     
 	  ConcolicUtil.Pair<Long> negated = ConcolicUtil.popLong(sf);
     
-    UnaryMinus<Long> symb = new UnaryMinus<Long>(negated.symb);    
+    Expression<Long> symb = ExpressionFactory.minus(negated.symb);    
     long conc = -negated.conc;    
     
     ConcolicUtil.Pair<Long> result = new ConcolicUtil.Pair<Long>(conc, symb);
+    result = ConcolicUtil.checkBudget(ti, this, result);
     ConcolicUtil.pushLong(result, sf);
 
     if (ConcolicInstructionFactory.DEBUG) ConcolicInstructionFactory.logger.finest("Execute LNEG: " + result);		
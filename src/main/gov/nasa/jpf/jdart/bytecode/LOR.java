@@ -15,10 +15,11 @@
  */
 package gov.nasa.jpf.jdart.bytecode;
 
-import gov.nasa.jpf.constraints.expressions.BitvectorExpression;
+import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.expressions.BitvectorOperator;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicUtil;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -40,12 +41,13 @@ public class LOR extends gov.nasa.jpf.jvm.bytecode.LOR {
 	  ConcolicUtil.Pair<Long> right = ConcolicUtil.popLong(sf);
 	  ConcolicUtil.Pair<Long> left = ConcolicUtil.popLong(sf);
 
-	  BitvectorExpression<Long> symb = BitvectorExpression.create(
+	  Expression<Long> symb = ExpressionFactory.bitvector(
             left.symb, BitvectorOperator.OR, right.symb);    
     
     long conc = left.conc | right.conc;    
     
     ConcolicUtil.Pair<Long> result = new ConcolicUtil.Pair<Long>(conc, symb);
+    result = ConcolicUtil.checkBudget(ti, this, result);
     ConcolicUtil.pushLong(result, sf);
 
     if (ConcolicInstructionFactory.DEBUG) ConcolicInstructionFactory.logger.finest("Execute LOR: " + result);		
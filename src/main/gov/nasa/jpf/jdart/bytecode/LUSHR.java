@@ -15,13 +15,13 @@
  */
 package gov.nasa.jpf.jdart.bytecode;
 
+import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.casts.NumericCastOperation;
-import gov.nasa.jpf.constraints.expressions.BitvectorExpression;
 import gov.nasa.jpf.constraints.expressions.BitvectorOperator;
-import gov.nasa.jpf.constraints.expressions.CastExpression;
 import gov.nasa.jpf.constraints.types.BuiltinTypes;
 import gov.nasa.jpf.jdart.ConcolicInstructionFactory;
 import gov.nasa.jpf.jdart.ConcolicUtil;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -44,12 +44,13 @@ public class LUSHR extends gov.nasa.jpf.jvm.bytecode.LUSHR {
 	  ConcolicUtil.Pair<Integer> right = ConcolicUtil.popInt(sf);
 	  ConcolicUtil.Pair<Long> left = ConcolicUtil.popLong(sf);
 
-	  BitvectorExpression<Long> symb = BitvectorExpression.create(
-            left.symb, BitvectorOperator.SHIFTUR, new CastExpression<>(right.symb, BuiltinTypes.SINT64, NumericCastOperation.TO_SINT64));    
+	  Expression<Long> symb = ExpressionFactory.bitvector(
+            left.symb, BitvectorOperator.SHIFTUR, ExpressionFactory.cast(right.symb, BuiltinTypes.SINT64, NumericCastOperation.TO_SINT64));    
     
     long conc = left.conc >>> right.conc;    
     
     ConcolicUtil.Pair<Long> result = new ConcolicUtil.Pair<Long>(conc, symb);
+    result = ConcolicUtil.checkBudget(ti, this, result);
     ConcolicUtil.pushLong(result, sf);
 
     if (ConcolicInstructionFactory.DEBUG) ConcolicInstructionFactory.logger.finest("Execute LUSHR: " + result);		
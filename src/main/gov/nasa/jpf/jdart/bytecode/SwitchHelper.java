@@ -18,13 +18,12 @@ package gov.nasa.jpf.jdart.bytecode;
 import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.expressions.Constant;
 import gov.nasa.jpf.constraints.expressions.LogicalOperator;
-import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
 import gov.nasa.jpf.constraints.expressions.NumericComparator;
-import gov.nasa.jpf.constraints.expressions.PropositionalCompound;
 import gov.nasa.jpf.constraints.types.BuiltinTypes;
 import gov.nasa.jpf.jdart.ConcolicMethodExplorer;
 import gov.nasa.jpf.jdart.ConcolicUtil;
 import gov.nasa.jpf.jdart.ConcolicUtil.Pair;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.vm.Instruction;
 import gov.nasa.jpf.vm.StackFrame;
 import gov.nasa.jpf.vm.ThreadInfo;
@@ -48,6 +47,9 @@ public abstract class SwitchHelper {
     if(sf.getOperandAttr() == null)
       return si.executeConcrete(ti);
     
+    if(analysis.snapshot(ti, si))
+      return si;
+    
     Pair<Integer> val = ConcolicUtil.popInt(sf);
     
     Expression<Boolean>[] decisionExprs = null;
@@ -71,14 +73,14 @@ public abstract class SwitchHelper {
     Expression<Boolean> defaultExpr = null;
     for(int i = 0; i < numTargets; i++) {
       int tgtVal = si.getTargetValue(i);
-      Constant<Integer> c = Constant.create(BuiltinTypes.SINT32, tgtVal);
-      Expression<Boolean> posExpr = NumericBooleanExpression.create(symbExpr, NumericComparator.EQ, c);
+      Constant<Integer> c = ExpressionFactory.constant(BuiltinTypes.SINT32, tgtVal);
+      Expression<Boolean> posExpr = ExpressionFactory.compare(symbExpr, NumericComparator.EQ, c);
       result[i] = posExpr;
-      Expression<Boolean> negExpr = NumericBooleanExpression.create(symbExpr, NumericComparator.NE, c);
+      Expression<Boolean> negExpr = ExpressionFactory.compare(symbExpr, NumericComparator.NE, c);
       if(defaultExpr == null)
         defaultExpr = negExpr;
       else
-        defaultExpr = new PropositionalCompound(defaultExpr, LogicalOperator.AND, negExpr);
+        defaultExpr = ExpressionFactory.propositional(defaultExpr, LogicalOperator.AND, negExpr);
     }
     result[numTargets] = defaultExpr;
     
@@ -16,9 +16,13 @@
 package gov.nasa.jpf.jdart.config;
 
 import gov.nasa.jpf.Config;
+import gov.nasa.jpf.jdart.search.DepthFirst;
+import gov.nasa.jpf.jdart.search.SearchStrategy;
 import gov.nasa.jpf.vm.ClassInfo;
 import gov.nasa.jpf.vm.MethodInfo;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -107,9 +111,148 @@ public class AnalysisConfig {
   private int treeMaxDepth = -1;
   private int treeMaxAltDepth = -1;
   private int maxNestingDepth = -1;
+  
+  /**
+   * iterative deepening: targets beyond the current depth and alternation 
+   * bounds are deferred, the bounds are raised (up to max_depth and 
+   * max_alt_depth) while deeper targets keep covering new branches
+   */
+  private boolean adaptiveBounds = false;
+  private int adaptiveInitialDepth = 16;
+  private int adaptiveInitialAltDepth = 2;
+  /**
+   * percentage of failed targets in the deepest band that stops deepening
+   */
+  private int adaptiveMaxDontKnow = 50;
 
   private boolean loadAxioms = false;
   
+  /**
+   * search strategy, "class,intarg,..." as for jdart.termination
+   */
+  private String searchStrategy = null;
+  
+  /**
+   * size of the counterexample cache, 0 disables model reuse
+   */
+  private int modelReuse = 0;
+  
+  /**
+   * number of times a target is solved again when the solver returns a 
+   * valuation that has been executed before. If no other valuation is
+   * found, the returned one is executed. -1 only skips repetitions of the 
+   * previous valuation
+   */
+  private int dedupValuations = -1;
+  
+  /**
+   * log2 of the size of the Bloom filter for executed valuations, 0 keeps
+   * an exact set of hashes
+   */
+  private int dedupBloomBits = 0;
+  
+  /**
+   * store the constraints tree in primitive arrays
+   */
+  private boolean compactTree = false;
+  
+  /**
+   * replace closed subtrees of the constraints tree by the number of paths 
+   * they contain. In the final tree, each summarized subtree is a single 
+   * path, carrying the result of one of the paths it contained.
+   */
+  private boolean summarizeClosed = false;
+  
+  /**
+   * file to which the paths of summarized subtrees are written, null 
+   * discards them
+   */
+  private String summarySpillFile = null;
+  
+  /**
+   * file to which the constraints tree is checkpointed, null disables
+   * checkpointing
+   */
+  private String checkpointFile = null;
+  
+  /**
+   * number of paths between two checkpoints
+   */
+  private int checkpointInterval = 100;
+  
+  /**
+   * resume from an existing checkpoint
+   */
+  private boolean resume = false;
+  
+  /**
+   * file to which an event is written for every finished path, null 
+   * disables event output
+   */
+  private String eventFile = null;
+  
+  /**
+   * time in milliseconds after which buffered events are written, together
+   * with the next event
+   */
+  private int eventFlushInterval = 1000;
+  
+  /**
+   * number of threads solving likely next targets in advance, 0 disables 
+   * speculative solving
+   */
+  private int speculationWorkers = 0;
+  
+  /**
+   * number of next targets solved in advance, -1 for twice the number of
+   * workers
+   */
+  private int speculationLookahead = -1;
+  
+  /**
+   * number of times a target is retried after an unexpected divergence,
+   * each time excluding the valuation that diverged. Retries are not 
+   * counted against the alternation depth. Disabled by default, a 
+   * diverging target is given up.
+   */
+  private int divergenceRetries = 0;
+  
+  /**
+   * maximal number of nodes of a symbolic expression computed by the
+   * bytecodes, larger results are concretized. -1 disables the limit
+   */
+  private int maxExpressionSize = -1;
+  
+  /**
+   * maximal depth of a symbolic expression computed by the bytecodes, 
+   * deeper results are concretized. -1 disables the limit
+   */
+  private int maxExpressionDepth = -1;
+  
+  /**
+   * maximal number of instructions executed on a single path, longer 
+   * executions are cut off. -1 disables the limit
+   */
+  private long maxPathInstructions = -1;
+  
+  /**
+   * maximal time in milliseconds spent executing a single path, longer 
+   * executions are cut off. -1 disables the limit
+   */
+  private long maxPathTime = -1;
+  
+  /**
+   * maximal number of VM snapshots kept along the current path, new 
+   * targets resume from the deepest snapshot on their path. 0 disables 
+   * snapshots
+   */
+  private int snapshots = 0;
+  
+  /**
+   * minimal number of instructions executed between two snapshots
+   */
+  private long snapshotInterval = 10000;
+  
   public void parse(String prefix, Config config) {
     String maxDepthKey = prefix + ".max_depth";
     if(config.hasValue(maxDepthKey)) {
@@ -120,6 +263,23 @@ public class AnalysisConfig {
       this.treeMaxAltDepth = config.getInt(maxAltDepthKey);
     }
     
+    String adaptiveKey = prefix + ".adaptive_bounds";
+    if(config.hasValue(adaptiveKey)) {
+      this.adaptiveBounds = config.getBoolean(adaptiveKey);
+    }
+    String adaptiveDepthKey = prefix + ".adaptive_bounds.initial_depth";
+    if(config.hasValue(adaptiveDepthKey)) {
+      this.adaptiveInitialDepth = config.getInt(adaptiveDepthKey);
+    }
+    String adaptiveAltDepthKey = prefix + ".adaptive_bounds.initial_alt_depth";
+    if(config.hasValue(adaptiveAltDepthKey)) {
+      this.adaptiveInitialAltDepth = config.getInt(adaptiveAltDepthKey);
+    }
+    String adaptiveDontKnowKey = prefix + ".adaptive_bounds.max_dont_know";
+    if(config.hasValue(adaptiveDontKnowKey)) {
+      this.adaptiveMaxDontKnow = config.getInt(adaptiveDontKnowKey);
+    }
+    
     String maxNestDepthKey = prefix + ".max_nesting_depth";
     if(config.hasValue(maxNestDepthKey)) {
       this.maxNestingDepth = config.getInt(maxNestDepthKey);
@@ -131,6 +291,100 @@ public class AnalysisConfig {
       setConstraints(constraintsStr);
     }
 
+    String searchKey = prefix + ".search";
+    if(config.hasValue(searchKey)) {
+      this.searchStrategy = config.getString(searchKey);
+    }
+
+    String modelReuseKey = prefix + ".model_reuse";
+    if(config.hasValue(modelReuseKey)) {
+      this.modelReuse = config.getInt(modelReuseKey);
+    }
+    String dedupKey = prefix + ".dedup_valuations";
+    if(config.hasValue(dedupKey)) {
+      this.dedupValuations = config.getInt(dedupKey);
+    }
+    String dedupBloomKey = prefix + ".dedup_valuations.bloom_bits";
+    if(config.hasValue(dedupBloomKey)) {
+      this.dedupBloomBits = config.getInt(dedupBloomKey);
+    }
+
+    String compactTreeKey = prefix + ".compact_tree";
+    if(config.hasValue(compactTreeKey)) {
+      this.compactTree = config.getBoolean(compactTreeKey);
+    }
+    String summarizeKey = prefix + ".summarize_closed";
+    if(config.hasValue(summarizeKey)) {
+      this.summarizeClosed = config.getBoolean(summarizeKey);
+    }
+    String summarySpillKey = prefix + ".summarize_closed.spill";
+    if(config.hasValue(summarySpillKey)) {
+      this.summarySpillFile = config.getString(summarySpillKey);
+    }
+
+    String checkpointKey = prefix + ".checkpoint";
+    if(config.hasValue(checkpointKey)) {
+      this.checkpointFile = config.getString(checkpointKey);
+    }
+    String checkpointIntervalKey = prefix + ".checkpoint.interval";
+    if(config.hasValue(checkpointIntervalKey)) {
+      this.checkpointInterval = config.getInt(checkpointIntervalKey);
+    }
+    String checkpointResumeKey = prefix + ".checkpoint.resume";
+    if(config.hasValue(checkpointResumeKey)) {
+      this.resume = config.getBoolean(checkpointResumeKey);
+    }
+
+    String eventsKey = prefix + ".events";
+    if(config.hasValue(eventsKey)) {
+      this.eventFile = config.getString(eventsKey);
+    }
+    String eventsFlushKey = prefix + ".events.flush_interval";
+    if(config.hasValue(eventsFlushKey)) {
+      this.eventFlushInterval = config.getInt(eventsFlushKey);
+    }
+
+    String specWorkersKey = prefix + ".speculation.workers";
+    if(config.hasValue(specWorkersKey)) {
+      this.speculationWorkers = config.getInt(specWorkersKey);
+    }
+    String specLookaheadKey = prefix + ".speculation.lookahead";
+    if(config.hasValue(specLookaheadKey)) {
+      this.speculationLookahead = config.getInt(specLookaheadKey);
+    }
+
+    String divRetriesKey = prefix + ".divergence_retries";
+    if(config.hasValue(divRetriesKey)) {
+      this.divergenceRetries = config.getInt(divRetriesKey);
+    }
+
+    String maxExprSizeKey = prefix + ".max_expression_size";
+    if(config.hasValue(maxExprSizeKey)) {
+      this.maxExpressionSize = config.getInt(maxExprSizeKey);
+    }
+    String maxExprDepthKey = prefix + ".max_expression_depth";
+    if(config.hasValue(maxExprDepthKey)) {
+      this.maxExpressionDepth = config.getInt(maxExprDepthKey);
+    }
+
+    String maxPathInsnsKey = prefix + ".max_path_instructions";
+    if(config.hasValue(maxPathInsnsKey)) {
+      this.maxPathInstructions = config.getLong(maxPathInsnsKey);
+    }
+    String maxPathTimeKey = prefix + ".max_path_time";
+    if(config.hasValue(maxPathTimeKey)) {
+      this.maxPathTime = config.getLong(maxPathTimeKey);
+    }
+    
+    String snapshotsKey = prefix + ".snapshots";
+    if(config.hasValue(snapshotsKey)) {
+      this.snapshots = config.getInt(snapshotsKey);
+    }
+    String snapshotIntervalKey = prefix + ".snapshots.min_instructions";
+    if(config.hasValue(snapshotIntervalKey)) {
+      this.snapshotInterval = config.getLong(snapshotIntervalKey);
+    }
+
     String fdefKey = prefix + ".use_func_defs";
     if(config.hasValue(fdefKey)) {
       this.loadAxioms = config.getBoolean(fdefKey);
@@ -200,6 +454,38 @@ public class AnalysisConfig {
     return (altDepth > treeMaxAltDepth);
   }
   
+  public boolean isAdaptiveBounds() {
+    return adaptiveBounds;
+  }
+  
+  public void setAdaptiveBounds(boolean adaptiveBounds) {
+    this.adaptiveBounds = adaptiveBounds;
+  }
+  
+  public int getAdaptiveInitialDepth() {
+    return adaptiveInitialDepth;
+  }
+  
+  public void setAdaptiveInitialDepth(int adaptiveInitialDepth) {
+    this.adaptiveInitialDepth = adaptiveInitialDepth;
+  }
+  
+  public int getAdaptiveInitialAltDepth() {
+    return adaptiveInitialAltDepth;
+  }
+  
+  public void setAdaptiveInitialAltDepth(int adaptiveInitialAltDepth) {
+    this.adaptiveInitialAltDepth = adaptiveInitialAltDepth;
+  }
+  
+  public int getAdaptiveMaxDontKnow() {
+    return adaptiveMaxDontKnow;
+  }
+  
+  public void setAdaptiveMaxDontKnow(int adaptiveMaxDontKnow) {
+    this.adaptiveMaxDontKnow = adaptiveMaxDontKnow;
+  }
+  
   public void setConstraints(List<String> constraints) {
     this.constraints.clear();
     this.constraints.addAll(constraints);
@@ -334,5 +620,235 @@ public class AnalysisConfig {
   public boolean loadFunctionDefintions() {
     return loadAxioms;
   }
+  
+  public int getModelReuse() {
+    return modelReuse;
+  }
+  
+  public void setModelReuse(int modelReuse) {
+    this.modelReuse = modelReuse;
+  }
+  
+  public int getDedupValuations() {
+    return dedupValuations;
+  }
+  
+  public void setDedupValuations(int dedupValuations) {
+    this.dedupValuations = dedupValuations;
+  }
+  
+  public int getDedupBloomBits() {
+    return dedupBloomBits;
+  }
+  
+  public void setDedupBloomBits(int dedupBloomBits) {
+    this.dedupBloomBits = dedupBloomBits;
+  }
+  
+  public boolean isCompactTree() {
+    return compactTree;
+  }
+  
+  public void setCompactTree(boolean compactTree) {
+    this.compactTree = compactTree;
+  }
+  
+  public boolean isSummarizeClosed() {
+    return summarizeClosed;
+  }
+  
+  public void setSummarizeClosed(boolean summarizeClosed) {
+    this.summarizeClosed = summarizeClosed;
+  }
+  
+  public String getSummarySpillFile() {
+    return summarySpillFile;
+  }
+  
+  public void setSummarySpillFile(String summarySpillFile) {
+    this.summarySpillFile = summarySpillFile;
+  }
+  
+  public String getCheckpointFile() {
+    return checkpointFile;
+  }
+  
+  public void setCheckpointFile(String checkpointFile) {
+    this.checkpointFile = checkpointFile;
+  }
+  
+  public int getCheckpointInterval() {
+    return checkpointInterval;
+  }
+  
+  public void setCheckpointInterval(int checkpointInterval) {
+    this.checkpointInterval = checkpointInterval;
+  }
+  
+  public boolean isResume() {
+    return resume;
+  }
+  
+  public void setResume(boolean resume) {
+    this.resume = resume;
+  }
+  
+  public String getEventFile() {
+    return eventFile;
+  }
+  
+  public void setEventFile(String eventFile) {
+    this.eventFile = eventFile;
+  }
+  
+  public int getEventFlushInterval() {
+    return eventFlushInterval;
+  }
+  
+  public void setEventFlushInterval(int eventFlushInterval) {
+    this.eventFlushInterval = eventFlushInterval;
+  }
+  
+  public int getSpeculationWorkers() {
+    return speculationWorkers;
+  }
+  
+  public void setSpeculationWorkers(int speculationWorkers) {
+    this.speculationWorkers = speculationWorkers;
+  }
+  
+  public int getSpeculationLookahead() {
+    if(speculationLookahead < 0)
+      return 2 * speculationWorkers;
+    return speculationLookahead;
+  }
+  
+  public void setSpeculationLookahead(int speculationLookahead) {
+    this.speculationLookahead = speculationLookahead;
+  }
+  
+  public int getDivergenceRetries() {
+    return divergenceRetries;
+  }
+  
+  public void setDivergenceRetries(int divergenceRetries) {
+    this.divergenceRetries = divergenceRetries;
+  }
+  
+  public int getMaxExpressionSize() {
+    return maxExpressionSize;
+  }
+  
+  public void setMaxExpressionSize(int maxExpressionSize) {
+    this.maxExpressionSize = maxExpressionSize;
+  }
+  
+  public int getMaxExpressionDepth() {
+    return maxExpressionDepth;
+  }
+  
+  public void setMaxExpressionDepth(int maxExpressionDepth) {
+    this.maxExpressionDepth = maxExpressionDepth;
+  }
+  
+  public boolean hasExpressionBudget() {
+    return maxExpressionSize >= 0 || maxExpressionDepth >= 0;
+  }
+  
+  public boolean expressionBudgetExceeded(int size, int depth) {
+    return (maxExpressionSize >= 0 && size > maxExpressionSize)
+        || (maxExpressionDepth >= 0 && depth > maxExpressionDepth);
+  }
+  
+  public long getMaxPathInstructions() {
+    return maxPathInstructions;
+  }
+  
+  public void setMaxPathInstructions(long maxPathInstructions) {
+    this.maxPathInstructions = maxPathInstructions;
+  }
+  
+  public long getMaxPathTime() {
+    return maxPathTime;
+  }
+  
+  public void setMaxPathTime(long maxPathTime) {
+    this.maxPathTime = maxPathTime;
+  }
+  
+  public boolean hasPathBudget() {
+    return maxPathInstructions >= 0 || maxPathTime >= 0;
+  }
+  
+  public boolean maxPathInstructionsExceeded(long instructions) {
+    return maxPathInstructions >= 0 && instructions > maxPathInstructions;
+  }
+  
+  public boolean maxPathTimeExceeded(long millis) {
+    return maxPathTime >= 0 && millis > maxPathTime;
+  }
+  
+  public int getSnapshots() {
+    return snapshots;
+  }
+  
+  public void setSnapshots(int snapshots) {
+    this.snapshots = snapshots;
+  }
+  
+  public long getSnapshotInterval() {
+    return snapshotInterval;
+  }
+  
+  public void setSnapshotInterval(long snapshotInterval) {
+    this.snapshotInterval = snapshotInterval;
+  }
+  
+  public void setSearchStrategy(String searchStrategy) {
+    this.searchStrategy = searchStrategy;
+  }
+  
+  public String getSearchStrategy() {
+    return searchStrategy;
+  }
+  
+  /**
+   * creates a fresh instance of the configured search strategy. Search 
+   * strategies are stateful, so every constraints tree needs its own.
+   * 
+   * @return the search strategy, depth-first search by default
+   */
+  public SearchStrategy createSearchStrategy() {
+    if(searchStrategy == null)
+      return new DepthFirst();
+    return parseSearchStrategy(searchStrategy);
+  }
+  
+  public static SearchStrategy parseSearchStrategy(String line) {
+    try {
+      String[] opt = line.split("\\,");
+      Class<?> clazz = Class.forName(opt[0].trim());
+      Object obj = null;
+      if (opt.length <= 1) {
+        obj = clazz.newInstance();         
+      } else {
+        Object[] params = new Object[opt.length-1];
+        Class<?>[] types = new Class[opt.length-1];
+        for (int i=0; i<params.length; i++) {
+          types[i] = int.class;
+          params[i] = (int) Integer.parseInt(opt[i+1].trim());
+        }
+        Constructor<?> c = clazz.getConstructor(types);
+        obj = c.newInstance(params);
+      }
+      return (SearchStrategy)obj;
+    } catch (ClassNotFoundException | InstantiationException | IllegalAccessException | 
+            NoSuchMethodException | SecurityException | IllegalArgumentException | 
+            InvocationTargetException | ClassCastException ex) {
+      logger.warning("Could not instantiate search strategy: ",
+              ex.getClass().getSimpleName(), " / ", ex.getMessage());
+    }
+    return new DepthFirst();
+  }
 
 }
@@ -22,9 +22,16 @@ import gov.nasa.jpf.constraints.solvers.ConstraintSolverFactory;
 import gov.nasa.jpf.constraints.types.TypeContext;
 import gov.nasa.jpf.jdart.ConcolicPerturbator;
 import gov.nasa.jpf.jdart.ConcolicUtil;
+import gov.nasa.jpf.jdart.constraints.WorkSharing;
+import gov.nasa.jpf.jdart.parallel.JDartCoordinator;
+import gov.nasa.jpf.jdart.parallel.WorkerChannel;
+import gov.nasa.jpf.jdart.termination.AllOf;
+import gov.nasa.jpf.jdart.termination.AnyOf;
 import gov.nasa.jpf.jdart.termination.NeverTerminate;
 import gov.nasa.jpf.jdart.termination.TerminationStrategy;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
@@ -64,6 +71,27 @@ public class ConcolicConfig {
    */
   private TerminationStrategy termination;
   
+  /**
+   * port of the {@link JDartCoordinator} when running as one of its 
+   * workers, -1 otherwise
+   */
+  private int coordinatorPort = -1;
+  
+  private int worker = 0;
+  
+  private File workerResult = null;
+  
+  /**
+   * connection to other processes when running as worker 
+   * of a {@link JDartCoordinator}, opened when first requested
+   */
+  private WorkSharing workSharing;
+  
+  /**
+   * on-the-fly simplification of symbolic expressions
+   */
+  private boolean simplify = true;
+  
   /**
    * 
    * @param conf 
@@ -86,6 +114,11 @@ public class ConcolicConfig {
     this.solver = other.solver;
     this.concolicMethods.putAll(other.concolicMethods);
     this.termination = other.termination;
+    this.coordinatorPort = other.coordinatorPort;
+    this.worker = other.worker;
+    this.workerResult = other.workerResult;
+    this.workSharing = other.workSharing;
+    this.simplify = other.simplify;
   }
 
   /**
@@ -121,6 +154,39 @@ public class ConcolicConfig {
     return this.termination;
   }
   
+  /**
+   * @return <tt>true</tt> if symbolic expressions are simplified as they 
+   * are built (<tt>jdart.simplify</tt>)
+   */
+  public boolean isSimplify() {
+    return simplify;
+  }
+  
+  public void setSimplify(boolean simplify) {
+    this.simplify = simplify;
+  }
+  
+  /**
+   * connects to the coordinator on the first call, so that parsing a 
+   * configuration does not open connections.
+   * 
+   * @return the connection to the other processes when running as worker,
+   * <tt>null</tt> otherwise
+   */
+  public WorkSharing getWorkSharing() {
+    if(workSharing == null && coordinatorPort >= 0) {
+      try {
+        this.workSharing = new WorkerChannel(coordinatorPort, worker, workerResult);
+      }
+      catch(IOException ex) {
+        Logger.getLogger("jdart").log(Level.SEVERE, 
+                "Could not connect to coordinator: " + ex.getMessage(), ex);
+        coordinatorPort = -1;
+      }
+    }
+    return workSharing;
+  }
+  
   public Config generateJPFConfig() {
     return generateJPFConfig(null);
   }
@@ -143,8 +209,10 @@ public class ConcolicConfig {
     
     StringBuilder sb = new StringBuilder();
     boolean first = true;
+    boolean snapshots = false;
     for(ConcolicMethodConfig mc : concolicMethods.values()) {
       generatePerturbConfig(mc, newConf);
+      snapshots |= mc.getAnalysisConfig().getSnapshots() > 0;
       if(first)
         first = false;
       else
@@ -154,6 +222,11 @@ public class ConcolicConfig {
     
     newConf.setProperty("perturb.params", sb.toString());
     
+    // snapshots are intermediate states of a path, they must never be
+    // matched against the states of other paths
+    if(snapshots)
+      newConf.setProperty("vm.storage.class", "nil");
+    
     return newConf;
   }  
   
@@ -217,9 +290,24 @@ public class ConcolicConfig {
       ConcolicMethodConfig mc = ConcolicMethodConfig.read(id, CONF_PREFIX + ".method." + id, conf);
       registerConcolicMethod(mc);
     }
+    if(conf.hasValue(CONF_PREFIX + ".methods")) {
+      for(String id : conf.getStringSet(CONF_PREFIX + ".methods")) {
+        registerConcolicMethod(ConcolicMethodConfig.read(id, CONF_PREFIX + ".method." + id, conf));
+      }
+    }
     
     // parse termination
     this.termination = parseTerminationStrategy(conf);
+    
+    // on-the-fly simplification of symbolic expressions
+    this.simplify = conf.getBoolean("jdart.simplify", true);
+    
+    // coordinator, connected to when the analysis starts
+    if(conf.hasValue(JDartCoordinator.CONFIG_KEY_COORDINATOR)) {
+      this.coordinatorPort = conf.getInt(JDartCoordinator.CONFIG_KEY_COORDINATOR);
+      this.worker = conf.getInt(JDartCoordinator.CONFIG_KEY_WORKER, 0);
+      this.workerResult = new File(conf.getString(JDartCoordinator.CONFIG_KEY_RESULT));
+    }
   }
   
   public static TerminationStrategy parseTerminationStrategy(Config conf) {
@@ -229,7 +317,46 @@ public class ConcolicConfig {
     return parseTerminationStrategy(conf.getProperty("jdart.termination"));
   }
     
+  /**
+   * Parses a termination strategy of the form "class,intarg,...". Several
+   * strategies can be combined with "|" (any of) and "&amp;" (all of), where 
+   * "&amp;" binds stronger. A single strategy that cannot be instantiated is
+   * replaced by {@link NeverTerminate}, a combination with such a part is 
+   * rejected.
+   * 
+   * @throws IllegalArgumentException if a part of a combination cannot be
+   * instantiated
+   */
   public static TerminationStrategy parseTerminationStrategy(String line) {
+    if (!line.contains("|") && !line.contains("&")) {
+      TerminationStrategy t = parseSingleTerminationStrategy(line);
+      return (t != null) ? t : new NeverTerminate();
+    }
+    return parseCombinedTerminationStrategy(line);
+  }
+  
+  private static TerminationStrategy parseCombinedTerminationStrategy(String line) {
+    String[] any = line.split("\\|", -1);
+    if (any.length > 1) {
+      TerminationStrategy[] ts = new TerminationStrategy[any.length];
+      for (int i = 0; i < any.length; i++)
+        ts[i] = parseCombinedTerminationStrategy(any[i]);
+      return new AnyOf(ts);
+    }
+    String[] all = line.split("&", -1);
+    if (all.length > 1) {
+      TerminationStrategy[] ts = new TerminationStrategy[all.length];
+      for (int i = 0; i < all.length; i++)
+        ts[i] = parseCombinedTerminationStrategy(all[i]);
+      return new AllOf(ts);
+    }
+    TerminationStrategy t = parseSingleTerminationStrategy(line);
+    if (t == null)
+      throw new IllegalArgumentException("Invalid part of combined termination strategy: '" + line.trim() + "'");
+    return t;
+  }
+    
+  private static TerminationStrategy parseSingleTerminationStrategy(String line) {
     try {
       String[] opt = line.split("\\,");
       Class clazz = Class.forName(opt[0].trim());
@@ -255,7 +382,7 @@ public class ConcolicConfig {
               "Could not instantiate termination strategy: " + 
               ex.getClass().getSimpleName() + " / " +ex.getMessage(), ex);
     }
-    return new NeverTerminate();
+    return null;
   }
   
   
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.constraints;
+
+import gov.nasa.jpf.jdart.config.AnalysisConfig;
+
+import java.util.Arrays;
+
+/**
+ * Depth and alternation bounds for iterative deepening. Targets beyond
+ * the current bounds are deferred. Once no target within the bounds is 
+ * left, the bounds are raised if the deepest depth band still produced 
+ * new coverage and not too many of its targets failed. The statistics are
+ * reset whenever the bounds are raised, so each raise has to be earned by
+ * the paths explored since the previous one.
+ */
+final class AdaptiveBounds {
+  
+  private final int depthStep;
+  private final int maxDepth;
+  private final int maxAltDepth;
+  private final int maxDontKnow;
+  
+  private int depth;
+  private int altDepth;
+  
+  private int[] deferred = new int[64];
+  private int numDeferred = 0;
+  
+  // statistics per depth band of width depthStep, since the last raise
+  private int[] paths = new int[4];
+  private int[] coverage = new int[4];
+  private int[] dontKnows = new int[4];
+  
+  AdaptiveBounds(AnalysisConfig anaConf) {
+    this.depthStep = Math.max(1, anaConf.getAdaptiveInitialDepth());
+    this.maxDepth = anaConf.getTreeMaxDepth();
+    this.maxAltDepth = anaConf.getTreeMaxAltDepth();
+    this.maxDontKnow = anaConf.getAdaptiveMaxDontKnow();
+    this.depth = bound(depthStep, maxDepth);
+    this.altDepth = bound(Math.max(1, anaConf.getAdaptiveInitialAltDepth()), maxAltDepth);
+  }
+  
+  private static int bound(int value, int max) {
+    return (max < 0) ? value : Math.min(value, max);
+  }
+  
+  public int getDepth() {
+    return depth;
+  }
+  
+  public int getAltDepth() {
+    return altDepth;
+  }
+  
+  /**
+   * @return <tt>true</tt> if a target at the given depths lies within the
+   * current bounds
+   */
+  public boolean accepts(int nodeDepth, int nodeAltDepth) {
+    return nodeDepth <= depth && nodeAltDepth <= altDepth;
+  }
+  
+  /**
+   * Defers a target that lies beyond the current bounds.
+   * 
+   * @return <tt>true</tt> if the target was deferred
+   */
+  public boolean defer(int node, int nodeDepth, int nodeAltDepth) {
+    if(accepts(nodeDepth, nodeAltDepth))
+      return false;
+    if(numDeferred == deferred.length)
+      deferred = Arrays.copyOf(deferred, numDeferred << 1);
+    deferred[numDeferred++] = node;
+    return true;
+  }
+  
+  public void pathCompleted(int targetDepth, int newCoverage) {
+    int b = band(targetDepth);
+    paths[b]++;
+    coverage[b] += newCoverage;
+  }
+  
+  public void dontKnow(int nodeDepth) {
+    dontKnows[band(nodeDepth)]++;
+  }
+  
+  private int band(int nodeDepth) {
+    int b = Math.max(nodeDepth - 1, 0) / depthStep;
+    if(b >= paths.length) {
+      int len = Math.max(b + 1, paths.length << 1);
+      paths = Arrays.copyOf(paths, len);
+      coverage = Arrays.copyOf(coverage, len);
+      dontKnows = Arrays.copyOf(dontKnows, len);
+    }
+    return b;
+  }
+  
+  /**
+   * Raises the bounds if targets have been deferred and the deepest band 
+   * is still productive.
+   * 
+   * @return <tt>true</tt> if the bounds have been raised
+   */
+  public boolean raise() {
+    if(numDeferred == 0)
+      return false;
+    boolean canDeepen = maxDepth < 0 || depth < maxDepth;
+    boolean canAlternate = maxAltDepth < 0 || altDepth < maxAltDepth;
+    if(!canDeepen && !canAlternate)
+      return false;
+    int b = band(depth);
+    if(coverage[b] == 0)
+      return false;
+    int attempts = paths[b] + dontKnows[b];
+    if(dontKnows[b] * 100 > maxDontKnow * attempts)
+      return false;
+    if(canDeepen)
+      depth = bound(depth + depthStep, maxDepth);
+    if(canAlternate)
+      altDepth++;
+    // the band may not change, e.g., if only the alternation depth rises
+    Arrays.fill(paths, 0);
+    Arrays.fill(coverage, 0);
+    Arrays.fill(dontKnows, 0);
+    return true;
+  }
+  
+  /**
+   * @return the deferred targets, which are forgotten
+   */
+  public int[] takeDeferred() {
+    int[] result = Arrays.copyOf(deferred, numDeferred);
+    numDeferred = 0;
+    return result;
+  }
+  
+  /**
+   * @return a description of the statistics per depth band since the 
+   * bounds have last been raised
+   */
+  public String getStatistics() {
+    StringBuilder sb = new StringBuilder();
+    for(int b = 0; b <= band(depth); b++) {
+      if(b > 0)
+        sb.append(", ");
+      sb.append(b * depthStep + 1).append('-').append((b + 1) * depthStep);
+      sb.append(": ").append(paths[b]).append(" paths, ");
+      sb.append(coverage[b]).append(" new branches, ");
+      sb.append(dontKnows[b]).append(" don't know");
+    }
+    return sb.toString();
+  }
+}
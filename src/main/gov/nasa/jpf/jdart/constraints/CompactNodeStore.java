@@ -0,0 +1,378 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.constraints;
+
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.vm.Instruction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Compact backend for very large trees. Nodes are stored as parallel
+ * primitive arrays (struct of arrays), the successors of a decision occupy
+ * a contiguous range of ids. Constraints and branching instructions are
+ * kept in separate tables. Constraints are deduplicated by identity, as
+ * the constraints built by {@link gov.nasa.jpf.jdart.ExpressionFactory}
+ * are interned.
+ * <p>
+ * Ids are never reused, as search strategies and checkpoints refer to 
+ * nodes by id. Pruning a node releases its constraint (constraints are 
+ * reference counted), its result or summary, and the slots of these in 
+ * their tables are reused. The primitive node data is allocated in chunks 
+ * of {@value #CHUNK_SIZE} ids, a chunk is released once all of its ids 
+ * have been pruned. Branching instructions are kept for the whole analysis.
+ */
+final class CompactNodeStore extends NodeStore {
+  
+  private static final int CHUNK_BITS = 10;
+  private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+  
+  private static final byte CLOSED = 0x10;
+  private static final byte STATE_MASK = 0x0f;
+  
+  private static final class Chunk {
+    private final int[] parent = new int[CHUNK_SIZE];
+    private final int[] depth = new int[CHUNK_SIZE];
+    private final int[] altDepth = new int[CHUNK_SIZE];
+    private final byte[] state = new byte[CHUNK_SIZE];
+    // decision: first successor, result: index into results
+    private final int[] first = new int[CHUNK_SIZE];
+    private final int[] numChildren = new int[CHUNK_SIZE];
+    private final int[] numOpen = new int[CHUNK_SIZE];
+    private final int[] numUnexhausted = new int[CHUNK_SIZE];
+    // decision: index into instructions, summary: index into summaries
+    private final int[] insn = new int[CHUNK_SIZE];
+    // constraint on the edge from the parent
+    private final int[] constraint = new int[CHUNK_SIZE];
+    // number of pruned ids
+    private int pruned = 0;
+  }
+  
+  /**
+   * List with reusable slots
+   */
+  private static final class Table<T> {
+    private final ArrayList<T> entries = new ArrayList<>();
+    private int[] free = new int[16];
+    private int numFree = 0;
+    
+    public int add(T entry) {
+      if(numFree > 0) {
+        int id = free[--numFree];
+        entries.set(id, entry);
+        return id;
+      }
+      entries.add(entry);
+      return entries.size() - 1;
+    }
+    
+    public T get(int id) {
+      return entries.get(id);
+    }
+    
+    public void remove(int id) {
+      entries.set(id, null);
+      if(numFree == free.length)
+        free = Arrays.copyOf(free, numFree << 1);
+      free[numFree++] = id;
+    }
+    
+    public int size() {
+      return entries.size() - numFree;
+    }
+  }
+  
+  private int size = 0;
+  
+  private Chunk[] chunks = new Chunk[16];
+  private int numChunks = 0;
+  
+  private final Table<Expression<Boolean>> expressions = new Table<>();
+  private final Map<Expression<Boolean>,Integer> expressionIds = new IdentityHashMap<>();
+  private int[] expressionRefs = new int[64];
+  private final ArrayList<Instruction> instructions = new ArrayList<>();
+  private final Map<Instruction,Integer> instructionIds = new IdentityHashMap<>();
+  private final Table<PathResult> results = new Table<>();
+  private final Table<PathSummary> summaries = new Table<>();
+  
+  public CompactNodeStore() {
+    int root = allocate(1);
+    Chunk c = chunks[0];
+    c.parent[root] = NONE;
+    c.constraint[root] = NONE;
+  }
+  
+  private int allocate(int n) {
+    int id = size;
+    int newSize = size + n;
+    int needed = ((newSize - 1) >>> CHUNK_BITS) + 1;
+    if(needed > chunks.length)
+      chunks = Arrays.copyOf(chunks, Math.max(needed, chunks.length << 1));
+    for(int i = (size == 0) ? 0 : ((size - 1) >>> CHUNK_BITS) + 1; i < needed; i++) {
+      chunks[i] = new Chunk();
+      numChunks++;
+    }
+    size = newSize;
+    return id;
+  }
+  
+  /**
+   * @return the chunk of the given node, or null if the chunk has been
+   * released
+   */
+  private Chunk at(int node) {
+    return chunks[node >>> CHUNK_BITS];
+  }
+  
+  private Chunk live(int node) {
+    Chunk c = chunks[node >>> CHUNK_BITS];
+    if(c == null)
+      throw new IllegalStateException("Node " + node + " has been pruned!");
+    return c;
+  }
+  
+  private int expressionId(Expression<Boolean> expr) {
+    Integer id = expressionIds.get(expr);
+    if(id == null) {
+      id = expressions.add(expr);
+      expressionIds.put(expr, id);
+      if(id >= expressionRefs.length)
+        expressionRefs = Arrays.copyOf(expressionRefs, Math.max(id + 1, expressionRefs.length << 1));
+    }
+    expressionRefs[id]++;
+    return id;
+  }
+  
+  private void releaseExpression(int id) {
+    if(--expressionRefs[id] > 0)
+      return;
+    expressionIds.remove(expressions.get(id));
+    expressions.remove(id);
+  }
+  
+  private int instructionId(Instruction i) {
+    Integer id = instructionIds.get(i);
+    if(id == null) {
+      id = instructions.size();
+      instructions.add(i);
+      instructionIds.put(i, id);
+    }
+    return id;
+  }
+  
+  /**
+   * @return the number of constraints that are referenced by nodes
+   */
+  int numConstraints() {
+    return expressions.size();
+  }
+  
+  /**
+   * @return the number of chunks of node data that have not been released
+   */
+  int numChunks() {
+    return numChunks;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public int getParent(int node) {
+    Chunk c = at(node);
+    return (c != null) ? c.parent[node & CHUNK_MASK] : NONE;
+  }
+
+  @Override
+  public int getDepth(int node) {
+    Chunk c = at(node);
+    return (c != null) ? c.depth[node & CHUNK_MASK] : 0;
+  }
+
+  @Override
+  public int getAltDepth(int node) {
+    Chunk c = at(node);
+    return (c != null) ? c.altDepth[node & CHUNK_MASK] : 0;
+  }
+
+  @Override
+  public int incAltDepth(int node) {
+    return ++live(node).altDepth[node & CHUNK_MASK];
+  }
+
+  @Override
+  public byte getState(int node) {
+    Chunk c = at(node);
+    return (c != null) ? (byte)(c.state[node & CHUNK_MASK] & STATE_MASK) : PRUNED;
+  }
+
+  @Override
+  protected void setState(int node, byte s) {
+    Chunk c = live(node);
+    int i = node & CHUNK_MASK;
+    c.state[i] = (byte)((c.state[i] & CLOSED) | s);
+  }
+
+  @Override
+  public boolean isClosed(int node) {
+    Chunk c = at(node);
+    return (c == null) || (c.state[node & CHUNK_MASK] & CLOSED) != 0;
+  }
+
+  @Override
+  public void setClosed(int node) {
+    live(node).state[node & CHUNK_MASK] |= CLOSED;
+  }
+
+  @Override
+  protected void setDecision(int node, Instruction branchInsn, Expression<Boolean>[] constraints, boolean explore) {
+    int n = constraints.length;
+    int first = allocate(n);
+    Chunk p = live(node);
+    int pi = node & CHUNK_MASK;
+    byte cstate = explore ? VIRGIN : DONT_KNOW;
+    for(int i = 0; i < n; i++) {
+      int child = first + i;
+      Chunk c = chunks[child >>> CHUNK_BITS];
+      int ci = child & CHUNK_MASK;
+      c.parent[ci] = node;
+      c.depth[ci] = p.depth[pi] + 1;
+      c.altDepth[ci] = p.altDepth[pi];
+      c.state[ci] = cstate;
+      c.constraint[ci] = expressionId(constraints[i]);
+    }
+    p.first[pi] = first;
+    p.numChildren[pi] = n;
+    p.numOpen[pi] = explore ? n : 0;
+    p.numUnexhausted[pi] = n;
+    p.insn[pi] = instructionId(branchInsn);
+    setState(node, DECISION);
+  }
+
+  @Override
+  public int getNumChildren(int node) {
+    return (getState(node) == DECISION) ? at(node).numChildren[node & CHUNK_MASK] : 0;
+  }
+
+  @Override
+  public int getChild(int node, int idx) {
+    return live(node).first[node & CHUNK_MASK] + idx;
+  }
+
+  @Override
+  public int getBranchIndex(int node) {
+    int p = getParent(node);
+    if(p == NONE)
+      return NONE;
+    return node - at(p).first[p & CHUNK_MASK];
+  }
+
+  @Override
+  public Instruction getBranchInstruction(int node) {
+    if(getState(node) != DECISION)
+      return null;
+    return instructions.get(at(node).insn[node & CHUNK_MASK]);
+  }
+
+  @Override
+  public Expression<Boolean> getConstraint(int node, int idx) {
+    int child = getChild(node, idx);
+    return expressions.get(live(child).constraint[child & CHUNK_MASK]);
+  }
+
+  @Override
+  public int getNumOpen(int node) {
+    return live(node).numOpen[node & CHUNK_MASK];
+  }
+
+  @Override
+  public void decrementOpen(int node) {
+    live(node).numOpen[node & CHUNK_MASK]--;
+  }
+
+  @Override
+  public int getNumUnexhausted(int node) {
+    return live(node).numUnexhausted[node & CHUNK_MASK];
+  }
+
+  @Override
+  public void decrementUnexhausted(int node) {
+    live(node).numUnexhausted[node & CHUNK_MASK]--;
+  }
+
+  @Override
+  protected void setResult(int node, PathResult result) {
+    live(node).first[node & CHUNK_MASK] = results.add(result);
+    setState(node, RESULT);
+  }
+
+  @Override
+  public PathResult getResult(int node) {
+    if(getState(node) != RESULT)
+      return null;
+    return results.get(at(node).first[node & CHUNK_MASK]);
+  }
+
+  @Override
+  protected void setSummary(int node, PathSummary summary) {
+    live(node).insn[node & CHUNK_MASK] = summaries.add(summary);
+    setState(node, SUMMARY);
+  }
+
+  @Override
+  public PathSummary getSummary(int node) {
+    if(getState(node) != SUMMARY)
+      return null;
+    return summaries.get(at(node).insn[node & CHUNK_MASK]);
+  }
+
+  @Override
+  protected void prune(int node) {
+    Chunk c = live(node);
+    int i = node & CHUNK_MASK;
+    switch(c.state[i] & STATE_MASK) {
+    case PRUNED:
+      return;
+    case RESULT:
+      results.remove(c.first[i]);
+      break;
+    case SUMMARY:
+      summaries.remove(c.insn[i]);
+      break;
+    default:
+    }
+    if(c.constraint[i] != NONE) {
+      releaseExpression(c.constraint[i]);
+      c.constraint[i] = NONE;
+    }
+    // read like the nodes of released chunks
+    c.parent[i] = NONE;
+    c.depth[i] = 0;
+    c.altDepth[i] = 0;
+    c.state[i] = (byte)(PRUNED | CLOSED);
+    if(++c.pruned == CHUNK_SIZE) {
+      chunks[node >>> CHUNK_BITS] = null;
+      numChunks--;
+    }
+  }
+  
+}
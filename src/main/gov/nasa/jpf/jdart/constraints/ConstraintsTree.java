@@ -25,17 +25,23 @@ import gov.nasa.jpf.constraints.expressions.Negation;
 import gov.nasa.jpf.constraints.expressions.PropositionalCompound;
 import gov.nasa.jpf.constraints.util.ExpressionUtil;
 import gov.nasa.jpf.constraints.util.MixedParamsException;
+import gov.nasa.jpf.jdart.ExpressionFactory;
 import gov.nasa.jpf.util.JPFLogger;
 import java.io.PrintWriter;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
 
 /**
  * constraints tree implementation. 
@@ -59,9 +65,27 @@ public class ConstraintsTree {
     private Node succTrue = null;
     
     private Node succFalse = null;
+    
+    // constraint under which succFalse is taken, null for the negated decision
+    private Expression<Boolean> falseDecision = null;
 
     public Node(Expression<Boolean> decision, Node succTrue, Node succFalse) {
+      this(decision, succTrue, succFalse, null);
+    }
+    
+    /**
+     * creates a node whose false successor is taken under the given 
+     * constraint instead of the negated decision, e.g., for the branches of
+     * an n-ary decision. The constraints need not be complementary,
+     * executions satisfying neither are not described by the node.
+     * 
+     * @param falseDecision the constraint of the false successor, 
+     * {@link ExpressionUtil#TRUE} if it is only constrained by its own 
+     * decisions, <tt>null</tt> for the negated decision
+     */
+    public Node(Expression<Boolean> decision, Node succTrue, Node succFalse, Expression<Boolean> falseDecision) {
       this.decision = decision;
+      this.falseDecision = falseDecision;
       this.succTrue = succTrue;
       succTrue.parent = this;
       this.succFalse = succFalse;
@@ -165,7 +189,7 @@ public class ConstraintsTree {
         return falseStripped;
       if(falseStripped == null)
         return trueStripped;
-      return new Node(decision, trueStripped, falseStripped);
+      return new Node(decision, trueStripped, falseStripped, falseDecision);
     }
     
     /**
@@ -173,27 +197,30 @@ public class ConstraintsTree {
      * @return 
      */
     public Expression<Boolean> getConstraint() {
-      return getConstraint(null);
-    }
-    
-    private Expression<Boolean> getConstraint(Node child) {
-
-      Expression<Boolean> myDec = this.decision;
-      if (myDec != null && child != null && child == succFalse) {
-        myDec = new Negation(this.decision);
+      // collect decisions bottom-up, conjunction is built root first
+      Deque<Expression<Boolean>> decisions = new ArrayDeque<>();
+      if (decision != null) {
+        decisions.push(decision);
       }
-      
-      Expression<Boolean> pExpr = (parent == null) ? null : parent.getConstraint(this);
-      if (pExpr == null) {
-        return myDec;
+      Node child = this;
+      for (Node n = parent; n != null; child = n, n = n.parent) {
+        if (child == n.succTrue) {
+          decisions.push(n.decision);
+        }
+        else if (n.falseDecision == null) {
+          decisions.push(new Negation(n.decision));
+        }
+        else if (n.falseDecision != ExpressionUtil.TRUE) {
+          decisions.push(n.falseDecision);
+        }
       }
       
-      if (this.decision == null) {
-        return pExpr;
+      Expression<Boolean> ret = decisions.poll();
+      while (!decisions.isEmpty()) {
+        ret = new PropositionalCompound(ret, LogicalOperator.AND, decisions.poll());
       }
-      
-      return new PropositionalCompound(pExpr, LogicalOperator.AND, myDec);
-    }        
+      return ret;
+    }
   }
 
   /**
@@ -206,6 +233,38 @@ public class ConstraintsTree {
    * root of the tree
    */
   private final Node root;
+  
+  /**
+   * leaves grouped by final state. The shape of a constraints tree does 
+   * not change after construction, so the index is built once.
+   */
+  private volatile PathIndex index = null;
+  
+  /**
+   * memoized constraints per final state
+   */
+  private final Map<PathState,Expression<Boolean>> stateConstraints = new EnumMap<>(PathState.class);
+  
+  private static final class PathIndex {
+    private final List<Path> all;
+    private final Map<PathState,List<Path>> byState = new EnumMap<>(PathState.class);
+    
+    PathIndex(Collection<Node> leaves) {
+      List<Path> paths = new ArrayList<>(leaves.size());
+      Map<PathState,List<Path>> grouped = new EnumMap<>(PathState.class);
+      for (PathState ps : PathState.values()) {
+        grouped.put(ps, new ArrayList<Path>());
+      }
+      for (Node n : leaves) {
+        paths.add(n.path);
+        grouped.get(n.path.getState()).add(n.path);
+      }
+      this.all = Collections.unmodifiableList(paths);
+      for (Map.Entry<PathState,List<Path>> e : grouped.entrySet()) {
+        byState.put(e.getKey(), Collections.unmodifiableList(e.getValue()));
+      }
+    }
+  }
  
   public ConstraintsTree(Node root) {
     this.root = root;
@@ -237,23 +296,43 @@ public class ConstraintsTree {
    */
   
   public Collection<Path> getCoveredPaths() {
-    return getPathsLeadingTo(PathState.OK);
+    return getPaths(PathState.OK);
   }
  
   public Collection<Path> getErrorPaths() {
-    return getPathsLeadingTo(PathState.ERROR);
+    return getPaths(PathState.ERROR);
   }
   
   public Collection<Path> getDontKnowPaths() {
-    return getPathsLeadingTo(PathState.DONT_KNOW);
+    return getPaths(PathState.DONT_KNOW);
+  }
+  
+  public Collection<Path> getBudgetExceededPaths() {
+    return getPaths(PathState.BUDGET_EXCEEDED);
   }
 
+  /**
+   * all paths, i.e., leaves, of the tree. The returned collection is 
+   * a read-only view that is shared between calls.
+   */
   public Collection<Path> getAllPaths() {
-    ArrayList<Path> ret = new ArrayList<>();    
-    for (Node n : getDoneLeaves()) {
-      ret.add(n.path);
-    }
-    return ret;
+    return index().all;
+  }
+  
+  /**
+   * paths with the given final state. The returned collection is a 
+   * read-only view that is shared between calls.
+   */
+  public Collection<Path> getPaths(PathState state) {
+    return index().byState.get(state);
+  }
+  
+  public int getPathCount() {
+    return index().all.size();
+  }
+  
+  public int getPathCount(PathState state) {
+    return index().byState.get(state).size();
   }
   
   @Deprecated
@@ -268,43 +347,58 @@ public class ConstraintsTree {
   
   public Set<Variable<?>> getVariables() {
     Set<Variable<?>> vars = new HashSet<Variable<?>>();
-    Collection<Node> nodes = getDoneLeaves();
-    for (Node n : nodes) {
-      n.path.getPathCondition().collectFreeVariables(vars);
+    for (Path p : getAllPaths()) {
+      p.getPathCondition().collectFreeVariables(vars);
     }
     return vars;
   }
   
-  public Expression<Boolean> getConstraint(Predicate<? super PathResult> pred, Predicate<? super Variable<?>> restrict) {
-    return getConstraintInSubtree(pred, restrict, root);
+  public Expression<Boolean> getConstraint(Predicate<? super PathResult> pred, final Predicate<? super Variable<?>> restrict) {
+    return extractConstraint(pred, new Predicate<Expression<Boolean>>() {
+      @Override
+      public boolean apply(Expression<Boolean> decision) {
+        boolean relevant = true;
+        boolean someRelevant = false;
+        for(Variable<?> v : ExpressionUtil.freeVariables(decision)) {
+          if(!restrict.apply(v))
+            relevant = false;
+          else
+            someRelevant = true;
+        }
+        if(!relevant && someRelevant)
+          throw new MixedParamsException();
+        return relevant;
+      }
+    });
   }
   
   
   public Expression<Boolean> getCoveredConstraint() {
-//    return getConstraintForStateInSubtree(PathState.OK, root);
     return getConstraintsFor(PathState.OK);
   }
   
   public Expression<Boolean> getErrorConstraint() {
-//    return getConstraintForStateInSubtree(PathState.ERROR, root);
     return getConstraintsFor(PathState.ERROR);
   }
   
   public Expression<Boolean> getDontKnowConstraint() {
-//    return getConstraintForStateInSubtree(PathState.DONT_KNOW, root);
     return getConstraintsFor(PathState.DONT_KNOW);
   }
+  
+  public Expression<Boolean> getBudgetExceededConstraint() {
+    return getConstraintsFor(PathState.BUDGET_EXCEEDED);
+  }
 
   public Expression<Boolean> getCoveredConstraintRestricted(Set<?> restrict) {
-    return getConstraintForStateInSubtree(PathState.OK, root, restrict);
+    return getConstraintForState(PathState.OK, restrict);
   }
   
   public Expression<Boolean> getErrorConstraintRestricted(Set<?> restrict) {
-    return getConstraintForStateInSubtree(PathState.ERROR, root, restrict);
+    return getConstraintForState(PathState.ERROR, restrict);
   }
   
   public Expression<Boolean> getDontKnowConstraintRestricted(Set<?> restrict) {
-    return getConstraintForStateInSubtree(PathState.DONT_KNOW, root,restrict);
+    return getConstraintForState(PathState.DONT_KNOW, restrict);
   }  
   
   public ConstraintsTree strip(Predicate<? super PathResult> resultPred) {
@@ -320,198 +414,154 @@ public class ConstraintsTree {
    * 
    */
   
-  private Expression<Boolean> getConstraintInSubtree(Predicate<? super PathResult> pred,
-      Predicate<? super Variable<?>> restrict,
-      Node subtreeRoot) {
-    if(subtreeRoot.isLeaf()) {
-      return ExpressionUtil.boolConst(pred.apply(subtreeRoot.path.getPathResult()));
+  /**
+   * constraint describing all leaves in the given state. Computed once per
+   * state, the result shares subformulas instead of repeating path prefixes
+   * and thus is linear in the size of the tree.
+   */
+  private Expression<Boolean> getConstraintsFor(PathState state) {
+    synchronized (stateConstraints) {
+      Expression<Boolean> c = stateConstraints.get(state);
+      if (c == null) {
+        c = extractConstraint(inState(state), Predicates.<Expression<Boolean>>alwaysTrue());
+        stateConstraints.put(state, c);
+      }
+      return c;
     }
+  }
+  
+  private Expression<Boolean> getConstraintForState(PathState state, final Set<?> restrict) {
+    return extractConstraint(inState(state), new Predicate<Expression<Boolean>>() {
+      @Override
+      public boolean apply(Expression<Boolean> decision) {
+        return restrict.containsAll(ExpressionUtil.freeVariables(decision));
+      }
+    });
+  }
+  
+  private static Predicate<PathResult> inState(final PathState state) {
+    return new Predicate<PathResult>() {
+      @Override
+      public boolean apply(PathResult res) {
+        return res.getState() == state;
+      }
+    };
+  }
+  
+  /**
+   * Computes a formula describing the executions ending in a leaf whose result
+   * satisfies {@code accept}. Decisions not deemed {@code relevant} are 
+   * projected away. 
+   * 
+   * The tree is processed bottom-up without recursion, so arbitrarily deep 
+   * trees are fine. Each subtree is translated exactly once. If both 
+   * branches of a decision yield the same (interned) formula, the decision
+   * is dropped, so identical sibling subtrees are merged rather than 
+   * duplicated. This is not done for the branches of n-ary decisions with
+   * trimmed (e.g., unexplored) branches, which are guarded by their own
+   * constraints, as for the path conditions of the leaves.
+   */
+  private Expression<Boolean> extractConstraint(Predicate<? super PathResult> accept,
+      Predicate<? super Expression<Boolean>> relevant) {
+    Deque<Expression<Boolean>> results = new ArrayDeque<>();
+    Node curr = root;
+    Node prev = null;
     
-    Set<Variable<?>> vars = ExpressionUtil.freeVariables(subtreeRoot.decision);
-    boolean relevant = true;
-    boolean someRelevant = false;
-    for(Variable<?> v : vars) {
-      if(!restrict.apply(v))
-        relevant = false;
-      else
-        someRelevant = true;
+    while (curr != null) {
+      if (curr.isLeaf()) {
+        results.push(ExpressionUtil.boolConst(accept.apply(curr.path.getPathResult())));
+        prev = curr; curr = curr.parent;
+      }
+      // down
+      else if (prev == null || prev == curr.parent) {
+        prev = curr; curr = curr.succTrue;
+      }
+      // from true to false
+      else if (prev == curr.succTrue) {
+        prev = curr; curr = curr.succFalse;
+      }
+      // up, both subtrees are done
+      else {
+        Expression<Boolean> sf = results.pop();
+        Expression<Boolean> st = results.pop();
+        results.push(combine(curr, relevant, st, sf));
+        prev = curr; curr = curr.parent;
+      }
     }
+    return results.pop();
+  }
+  
+  private static Expression<Boolean> combine(Node node, Predicate<? super Expression<Boolean>> relevant,
+      Expression<Boolean> st, Expression<Boolean> sf) {
+    Expression<Boolean> decision = node.decision;
+    boolean relevantTrue = relevant.apply(decision);
     
-    if(!relevant && someRelevant)
-      throw new MixedParamsException();
-    
-    Expression<Boolean> sf = getConstraintInSubtree(pred, restrict, subtreeRoot.succFalse);
-    Expression<Boolean> st = getConstraintInSubtree(pred, restrict, subtreeRoot.succTrue);
-    
-    
-    if(sf instanceof Constant) {
-      boolean bf = ((Constant<Boolean>)sf).getValue();
-      
+    if (node.falseDecision == null) {
+      Boolean bt = boolValue(st);
+      Boolean bf = boolValue(sf);
       
-      if(st instanceof Constant) {
-        boolean bt = ((Constant<Boolean>)st).getValue();
-        if(bf) {
-          if(bt || !relevant)
-            return ExpressionUtil.TRUE;
-          return new Negation(subtreeRoot.decision);
+      // can we simplify?
+      if (bt != null && bf != null) {
+        if (bt.equals(bf)) {
+          return st;
         }
-        if(bt) { // && !bf
-          if(!relevant)
-            return ExpressionUtil.TRUE;
-          return subtreeRoot.decision;
+        if (!relevantTrue) {
+          return ExpressionUtil.TRUE;
         }
-        // !bf && !bt
-        return ExpressionUtil.FALSE;
+        return bt ? decision : ExpressionFactory.not(decision);
       }
-      
-      if(bf)
-        sf = relevant ? new Negation(subtreeRoot.decision) : ExpressionUtil.TRUE;
-      else
-        sf = null;
-    }
-    else {
-      if(relevant)
-        sf = new PropositionalCompound(new Negation(subtreeRoot.decision), LogicalOperator.AND, sf);
-    }
-    
-    if(st instanceof Constant) {
-      boolean bt = ((Constant<Boolean>)st).getValue();
-      
-      if(bt)
-        st = relevant ? subtreeRoot.decision : ExpressionUtil.TRUE;
-      else
-        st = null;
+      // identical subtrees
+      if (st == sf) {
+        return st;
+      }
+      sf = guard(ExpressionFactory.not(decision), relevantTrue, sf);
     }
     else {
-      if(relevant)
-        st = new PropositionalCompound(subtreeRoot.decision, LogicalOperator.AND, st);
+      // branches of an n-ary decision, the parts of the decision not 
+      // covered by either branch (e.g., trimmed unexplored branches) are 
+      // not described
+      sf = guard(node.falseDecision, relevant.apply(node.falseDecision), sf);
     }
+    st = guard(decision, relevantTrue, st);
     
-    if(sf == null)
-      return st;
-    if(st == null)
-      return sf;
-    return new PropositionalCompound(sf, LogicalOperator.OR, st);
-  }
-
-  private Expression<Boolean> getConstraintForStateInSubtree(PathState state,
-      Node subtreeRoot, Set<?> restrict) {
-
-    if (subtreeRoot.isLeaf()) {
-
-      return subtreeRoot.path.getState().equals(state) ? ExpressionUtil.TRUE
-          : ExpressionUtil.FALSE;
-    }
-
-    Set<Variable<?>> vars = new HashSet<Variable<?>>();
-    subtreeRoot.decision.collectFreeVariables(vars);
-    boolean relevant = true;
-    if (!restrict.containsAll(vars)) {
-      relevant = false;
-    }
-
-    // check on children ...
-    Expression<Boolean> sf = getConstraintForStateInSubtree(state,
-        subtreeRoot.succFalse, restrict);
-    Expression<Boolean> st = getConstraintForStateInSubtree(state,
-        subtreeRoot.succTrue, restrict);
-
-    // can we simplify?
-    if (sf instanceof Constant && st instanceof Constant) {
-      boolean bf = ((Constant<Boolean>) sf).getValue();
-      boolean bt = ((Constant<Boolean>) st).getValue();
-
-      if (bf && bt) {
-        return ExpressionUtil.TRUE;
-      }
-
-      if (!bf && !bt) {
-        return ExpressionUtil.FALSE;
-      }
-
-      if (bt) {
-        return relevant ? subtreeRoot.decision : ExpressionUtil.TRUE;
-      } else {
-        return relevant ? new Negation(subtreeRoot.decision)
-            : ExpressionUtil.TRUE;
-      }
-    }
-
-    // simplify independenty
-    if (sf instanceof Constant) {
-      boolean bf = ((Constant<Boolean>) sf).getValue();
-      if (bf) {
-        sf = relevant ? new Negation(subtreeRoot.decision)
-            : ExpressionUtil.TRUE;
-      } else {
-        sf = null;
-      }
-    } else {
-      if (relevant)
-        sf = new PropositionalCompound(new Negation(subtreeRoot.decision),
-            LogicalOperator.AND, sf);
-    }
-
-    // simplify independenty
-    if (st instanceof Constant) {
-      boolean bt = ((Constant<Boolean>) st).getValue();
-      if (bt) {
-        st = relevant ? subtreeRoot.decision : ExpressionUtil.TRUE;
-      } else {
-        st = null;
-      }
-    } else {
-      if (relevant)
-        st = new PropositionalCompound(subtreeRoot.decision,
-            LogicalOperator.AND, st);
-    }
-
     if (sf == null || st == null) {
-      return (sf != null) ? sf : st;
-    }
-
-    return new PropositionalCompound(sf, LogicalOperator.OR, st);
-  }
-    
-  private Expression<Boolean> getConstraintsFor(PathState state) {
-    LinkedList<Node> nodes = new LinkedList<Node>(getNodesMatchingState(state));
-    if (nodes.isEmpty()) {
-      return ExpressionUtil.FALSE;
+      return (sf != null) ? sf : (st != null) ? st : ExpressionUtil.FALSE;
     }
-    Expression<Boolean> ret = nodes.pollLast().path.getPathCondition();
-    while (!nodes.isEmpty()) {
-      ret = new PropositionalCompound(ret, LogicalOperator.OR,
-              nodes.pollLast().path.getPathCondition());
-    }
-    return ret;
+    return ExpressionFactory.propositional(sf, LogicalOperator.OR, st);
   }
   
-  private Collection<Path> getPathsLeadingTo(PathState state) {
-    Collection<Node> nodes = getNodesMatchingState(state);
-    Collection<Path> result = new ArrayList<Path>();
-    for (Node n : nodes) {
-      result.add(n.path);
+  /**
+   * simplifies the constraint of one branch of a decision, given the 
+   * constraint of its subtree.
+   * 
+   * @return the constraint, <tt>null</tt> if it is false
+   */
+  private static Expression<Boolean> guard(Expression<Boolean> decision, boolean relevant, 
+      Expression<Boolean> sub) {
+    Boolean b = boolValue(sub);
+    if (b != null && !b) {
+      return null;
     }
-    return result;
+    if (!relevant || decision == ExpressionUtil.TRUE) {
+      return (b != null) ? ExpressionUtil.TRUE : sub;
+    }
+    return (b != null) ? decision : ExpressionFactory.propositional(decision, LogicalOperator.AND, sub);
   }
   
-  private Collection<Node> getNodesMatchingState(PathState state) {
-    Collection<Node> result = new ArrayList<Node>();
-    getNodesMatchingState(state, root, result);
-    return result;
+  private static Boolean boolValue(Expression<Boolean> expr) {
+    return (expr instanceof Constant) ? ((Constant<Boolean>)expr).getValue() : null;
   }
   
-  private void getNodesMatchingState(PathState state, Node n, Collection<Node> matching) {
-    if (n == null) {
-      return;
-    }
-    
-    if (n.isLeaf() && n.path.getState().equals(state)) {
-      matching.add(n);      
+  /**
+   * builds the leaf index in a single traversal on first use
+   */
+  private PathIndex index() {
+    PathIndex idx = index;
+    if (idx == null) {
+      idx = new PathIndex(getDoneLeaves());
+      index = idx;
     }
-    
-    getNodesMatchingState(state, n.succFalse, matching);
-    getNodesMatchingState(state, n.succTrue, matching);
+    return idx;
   }
   
   private Collection<Node> getDoneLeaves() {
@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.constraints;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.util.SimpleProfiler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Counterexample cache (as in KLEE). Stores models of completed paths and
+ * solved queries as well as unsatisfiable queries, and tries to answer
+ * new queries from them:
+ * <ul>
+ * <li>a query containing an unsatisfiable query is unsatisfiable,</li>
+ * <li>a model of a query is a model of all of its subsets,</li>
+ * <li>any stored model sharing variables with a query is evaluated 
+ * on that query.</li>
+ * </ul>
+ * Both sets of entries are bounded, least recently used entries are evicted
+ * first.
+ */
+public class CounterexampleCache {
+  
+  public static final String UNSAT_HITS = "cex-cache-unsat-hits";
+  public static final String SUPERSET_HITS = "cex-cache-superset-hits";
+  public static final String EVAL_HITS = "cex-cache-evaluation-hits";
+  public static final String AVOIDED = "cex-cache-avoided-solver-calls";
+  
+  private static final class Entry {
+    private final Set<Expression<Boolean>> constraints;
+    private final Set<Variable<?>> vars = new HashSet<>();
+    private final Valuation model;
+    
+    public Entry(Collection<Expression<Boolean>> constraints, Valuation model) {
+      this.constraints = new HashSet<>(constraints);
+      this.model = model;
+      if(model != null)
+        vars.addAll(model.getVariables());
+    }
+  }
+  
+  private final int size;
+  private final List<Entry> models = new ArrayList<>();
+  private final List<Entry> unsat = new ArrayList<>();
+  
+  public CounterexampleCache(int size) {
+    this.size = size;
+  }
+  
+  /**
+   * adds a model, e.g., the valuation of a completed path.
+   * 
+   * @param constraints constraints satisfied by the model
+   * @param model the model
+   */
+  public void addModel(Collection<Expression<Boolean>> constraints, Valuation model) {
+    Valuation copy = new Valuation();
+    copy.putAll(model);
+    add(models, new Entry(constraints, copy));
+  }
+  
+  /**
+   * records the result of a solver call.
+   * 
+   * @param query the conjunction of constraints solved
+   * @param res the result
+   * @param model the model, if <tt>res</tt> is SAT
+   */
+  public void store(Collection<Expression<Boolean>> query, Result res, Valuation model) {
+    switch(res) {
+    case SAT:
+      addModel(query, model);
+      break;
+    case UNSAT:
+      add(unsat, new Entry(query, null));
+      break;
+    default:
+    }
+  }
+  
+  /**
+   * tries to answer a query from the cache.
+   * 
+   * @param query the conjunction of constraints
+   * @param val valuation the model is stored in
+   * @return SAT or UNSAT, <tt>null</tt> if the query cannot be answered
+   */
+  public Result lookup(Collection<Expression<Boolean>> query, Valuation val) {
+    Set<Expression<Boolean>> qset = new HashSet<>(query);
+    
+    for(int i = unsat.size() - 1; i >= 0; i--) {
+      Entry e = unsat.get(i);
+      if(qset.containsAll(e.constraints)) {
+        touch(unsat, i);
+        SimpleProfiler.count(UNSAT_HITS);
+        SimpleProfiler.count(AVOIDED);
+        return Result.UNSAT;
+      }
+    }
+    
+    for(int i = models.size() - 1; i >= 0; i--) {
+      Entry e = models.get(i);
+      if(e.constraints.containsAll(qset)) {
+        touch(models, i);
+        val.putAll(e.model);
+        SimpleProfiler.count(SUPERSET_HITS);
+        SimpleProfiler.count(AVOIDED);
+        return Result.SAT;
+      }
+    }
+    
+    Set<Variable<?>> qvars = new HashSet<>();
+    for(Expression<Boolean> c : qset)
+      c.collectFreeVariables(qvars);
+    
+    for(int i = models.size() - 1; i >= 0; i--) {
+      Entry e = models.get(i);
+      if(overlaps(e.vars, qvars) && satisfies(e.model, qset)) {
+        touch(models, i);
+        val.putAll(e.model);
+        SimpleProfiler.count(EVAL_HITS);
+        SimpleProfiler.count(AVOIDED);
+        return Result.SAT;
+      }
+    }
+    
+    return null;
+  }
+  
+  private void add(List<Entry> entries, Entry e) {
+    entries.add(e);
+    if(entries.size() > size)
+      entries.remove(0);
+  }
+  
+  private static void touch(List<Entry> entries, int idx) {
+    entries.add(entries.remove(idx));
+  }
+  
+  private static boolean overlaps(Set<Variable<?>> vars1, Set<Variable<?>> vars2) {
+    for(Variable<?> v : vars2) {
+      if(vars1.contains(v))
+        return true;
+    }
+    return false;
+  }
+  
+  private static boolean satisfies(Valuation model, Set<Expression<Boolean>> constraints) {
+    try {
+      for(Expression<Boolean> c : constraints) {
+        if(!c.evaluate(model))
+          return false;
+      }
+      return true;
+    }
+    catch(RuntimeException ex) {
+      // e.g. due to function with undefined semantics
+      return false;
+    }
+  }
+}
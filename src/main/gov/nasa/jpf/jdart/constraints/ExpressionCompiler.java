@@ -0,0 +1,650 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.constraints;
+
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.BitvectorExpression;
+import gov.nasa.jpf.constraints.expressions.BitvectorNegation;
+import gov.nasa.jpf.constraints.expressions.CastExpression;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.IfThenElse;
+import gov.nasa.jpf.constraints.expressions.Negation;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericCompound;
+import gov.nasa.jpf.constraints.expressions.PropositionalCompound;
+import gov.nasa.jpf.constraints.expressions.UnaryMinus;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+import gov.nasa.jpf.constraints.types.Type;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Compiles boolean expressions over the builtin primitive types into trees
+ * of specialized evaluators. These work on the primitive slots of a 
+ * {@link Slots} object instead of looking up boxed values in a 
+ * {@link Valuation} on every access.
+ * 
+ * Compiled expressions are cached per expression identity. Subexpressions
+ * that cannot be compiled (e.g., functions) are interpreted, as are 
+ * expressions over other types (e.g., big numbers).
+ */
+public final class ExpressionCompiler {
+  
+  /**
+   * A compiled boolean expression.
+   */
+  public static abstract class CompiledExpression {
+    public abstract boolean evaluate(Slots slots);
+  }
+  
+  /**
+   * Values of the variables in a valuation. Every variable is read from 
+   * the valuation at most once. The values are kept in a small hash table
+   * that grows with the number of variables actually read.
+   */
+  public static final class Slots {
+    private final Valuation valuation;
+    private Variable<?>[] vars;
+    private long[] ints;
+    private double[] fps;
+    private int size = 0;
+    
+    private Slots(Valuation valuation) {
+      this.valuation = valuation;
+    }
+    
+    public Valuation getValuation() {
+      return valuation;
+    }
+    
+    private static int index(int hash, int mask) {
+      return (hash ^ (hash >>> 16)) & mask;
+    }
+    
+    /**
+     * @return the position of the variable in the table, loading its 
+     * value if necessary
+     */
+    private int find(Variable<?> var, int hash) {
+      if(vars == null) {
+        vars = new Variable<?>[4];
+        ints = new long[4];
+        fps = new double[4];
+      }
+      int mask = vars.length - 1;
+      int i = index(hash, mask);
+      for(Variable<?> v; (v = vars[i]) != null; i = (i + 1) & mask) {
+        if(v == var || v.equals(var))
+          return i;
+      }
+      if(2 * (size + 1) > vars.length) {
+        grow();
+        mask = vars.length - 1;
+        for(i = index(hash, mask); vars[i] != null; i = (i + 1) & mask);
+      }
+      load(var, i);
+      return i;
+    }
+    
+    private void grow() {
+      Variable<?>[] oldVars = vars;
+      long[] oldInts = ints;
+      double[] oldFps = fps;
+      int n = oldVars.length << 1;
+      vars = new Variable<?>[n];
+      ints = new long[n];
+      fps = new double[n];
+      for(int j = 0; j < oldVars.length; j++) {
+        if(oldVars[j] == null)
+          continue;
+        int i = index(oldVars[j].hashCode(), n - 1);
+        while(vars[i] != null)
+          i = (i + 1) & (n - 1);
+        vars[i] = oldVars[j];
+        ints[i] = oldInts[j];
+        fps[i] = oldFps[j];
+      }
+    }
+    
+    private void load(Variable<?> var, int i) {
+      Object val = valuation.getValue(var);
+      if(val == null) {
+        throw new IllegalArgumentException("No value for variable " + var);
+      }
+      if(val instanceof Boolean) {
+        ints[i] = ((Boolean)val) ? 1 : 0;
+      }
+      else if(val instanceof Character) {
+        ints[i] = (Character)val;
+      }
+      else {
+        Number num = (Number)val;
+        ints[i] = num.longValue();
+        fps[i] = num.doubleValue();
+      }
+      vars[i] = var;
+      size++;
+    }
+    
+    long getInt(Variable<?> var, int hash) {
+      // the table may be replaced by find
+      int i = find(var, hash);
+      return ints[i];
+    }
+    
+    double getFp(Variable<?> var, int hash) {
+      int i = find(var, hash);
+      return fps[i];
+    }
+  }
+  
+  private final Cache<Expression<Boolean>,CompiledExpression> cache = 
+          CacheBuilder.newBuilder().weakKeys().build();
+  
+  /**
+   * @param expr a boolean expression
+   * @return the compiled expression
+   */
+  public CompiledExpression compile(Expression<Boolean> expr) {
+    CompiledExpression ce = cache.getIfPresent(expr);
+    if(ce == null) {
+      ce = doCompile(expr);
+      cache.put(expr, ce);
+    }
+    return ce;
+  }
+  
+  /**
+   * @param valuation the values of the variables
+   * @return slots reading from the valuation, for expressions of this compiler
+   */
+  public Slots slots(Valuation valuation) {
+    return new Slots(valuation);
+  }
+  
+  private CompiledExpression doCompile(final Expression<Boolean> expr) {
+    final BoolNode node;
+    try {
+      node = bool(expr);
+    }
+    catch(Unsupported ex) {
+      return new CompiledExpression() {
+        @Override
+        public boolean evaluate(Slots slots) {
+          return expr.evaluate(slots.getValuation());
+        }
+      };
+    }
+    return new CompiledExpression() {
+      @Override
+      public boolean evaluate(Slots slots) {
+        return node.eval(slots);
+      }
+    };
+  }
+  
+  /* ******************************************************************************
+   * 
+   * evaluators
+   * 
+   */
+  
+  private static final class Unsupported extends Exception {
+    private static final long serialVersionUID = 1L;
+  }
+  
+  private static final Unsupported UNSUPPORTED = new Unsupported();
+  
+  private static abstract class BoolNode {
+    abstract boolean eval(Slots s);
+  }
+  
+  /**
+   * integer values, normalized to the range of their type.
+   */
+  private static abstract class IntNode {
+    abstract long eval(Slots s);
+  }
+  
+  private static abstract class FpNode {
+    abstract double eval(Slots s);
+  }
+  
+  private static enum Kind {
+    BOOL, BYTE, SHORT, CHAR, INT, LONG, FLOAT, DOUBLE;
+    
+    boolean isIntegral() {
+      return this != BOOL && this != FLOAT && this != DOUBLE;
+    }
+    
+    boolean isFp() {
+      return this == FLOAT || this == DOUBLE;
+    }
+    
+    long narrow(long v) {
+      switch(this) {
+      case BYTE: return (byte)v;
+      case SHORT: return (short)v;
+      case CHAR: return (char)v;
+      case INT: return (int)v;
+      default: return v;
+      }
+    }
+  }
+  
+  private static Kind kind(Type<?> type) throws Unsupported {
+    if(type.equals(BuiltinTypes.BOOL))
+      return Kind.BOOL;
+    if(type.equals(BuiltinTypes.SINT8))
+      return Kind.BYTE;
+    if(type.equals(BuiltinTypes.SINT16))
+      return Kind.SHORT;
+    if(type.equals(BuiltinTypes.UINT16))
+      return Kind.CHAR;
+    if(type.equals(BuiltinTypes.SINT32))
+      return Kind.INT;
+    if(type.equals(BuiltinTypes.SINT64))
+      return Kind.LONG;
+    if(type.equals(BuiltinTypes.FLOAT))
+      return Kind.FLOAT;
+    if(type.equals(BuiltinTypes.DOUBLE))
+      return Kind.DOUBLE;
+    throw UNSUPPORTED;
+  }
+  
+  private BoolNode bool(Expression<?> e) throws Unsupported {
+    if(kind(e.getType()) != Kind.BOOL)
+      throw UNSUPPORTED;
+    
+    if(e instanceof Constant) {
+      final boolean c = (Boolean)((Constant<?>)e).getValue();
+      return new BoolNode() {
+        @Override boolean eval(Slots s) { return c; }
+      };
+    }
+    if(e instanceof Variable) {
+      final Variable<?> var = (Variable<?>)e;
+      final int hash = var.hashCode();
+      return new BoolNode() {
+        @Override boolean eval(Slots s) { return s.getInt(var, hash) != 0; }
+      };
+    }
+    if(e instanceof Negation) {
+      final BoolNode n = bool(((Negation)e).getNegated());
+      return new BoolNode() {
+        @Override boolean eval(Slots s) { return !n.eval(s); }
+      };
+    }
+    if(e instanceof PropositionalCompound) {
+      PropositionalCompound pc = (PropositionalCompound)e;
+      final BoolNode l = bool(pc.getLeft());
+      final BoolNode r = bool(pc.getRight());
+      switch(pc.getOperator()) {
+      case AND:
+        return new BoolNode() {
+          @Override boolean eval(Slots s) { return l.eval(s) && r.eval(s); }
+        };
+      case OR:
+        return new BoolNode() {
+          @Override boolean eval(Slots s) { return l.eval(s) || r.eval(s); }
+        };
+      case IMPLY:
+        return new BoolNode() {
+          @Override boolean eval(Slots s) { return !l.eval(s) || r.eval(s); }
+        };
+      case EQUIV:
+        return new BoolNode() {
+          @Override boolean eval(Slots s) { return l.eval(s) == r.eval(s); }
+        };
+      case XOR:
+        return new BoolNode() {
+          @Override boolean eval(Slots s) { return l.eval(s) != r.eval(s); }
+        };
+      default:
+        throw UNSUPPORTED;
+      }
+    }
+    if(e instanceof NumericBooleanExpression) {
+      return comparison((NumericBooleanExpression)e);
+    }
+    if(e instanceof IfThenElse) {
+      IfThenElse<?> ite = (IfThenElse<?>)e;
+      final BoolNode c = bool(ite.getIf());
+      final BoolNode t = bool(ite.getThen());
+      final BoolNode f = bool(ite.getElse());
+      return new BoolNode() {
+        @Override boolean eval(Slots s) { return c.eval(s) ? t.eval(s) : f.eval(s); }
+      };
+    }
+    final Expression<?> interpreted = e;
+    return new BoolNode() {
+      @Override boolean eval(Slots s) { return (Boolean)interpreted.evaluate(s.getValuation()); }
+    };
+  }
+  
+  private BoolNode comparison(NumericBooleanExpression nbe) throws Unsupported {
+    Kind lk = kind(nbe.getLeft().getType());
+    Kind rk = kind(nbe.getRight().getType());
+    final int op;
+    switch(nbe.getComparator()) {
+    case EQ: op = 0; break;
+    case NE: op = 1; break;
+    case LT: op = 2; break;
+    case LE: op = 3; break;
+    case GT: op = 4; break;
+    case GE: op = 5; break;
+    default: throw UNSUPPORTED;
+    }
+    
+    if(lk.isIntegral() && rk.isIntegral()) {
+      final IntNode l = integral(nbe.getLeft());
+      final IntNode r = integral(nbe.getRight());
+      return new BoolNode() {
+        @Override boolean eval(Slots s) { return test(op, Long.compare(l.eval(s), r.eval(s))); }
+      };
+    }
+    if(lk.isFp() && rk.isFp()) {
+      final FpNode l = fp(nbe.getLeft());
+      final FpNode r = fp(nbe.getRight());
+      return new BoolNode() {
+        @Override boolean eval(Slots s) { return test(op, l.eval(s), r.eval(s)); }
+      };
+    }
+    throw UNSUPPORTED;
+  }
+  
+  private static boolean test(int op, int cmp) {
+    switch(op) {
+    case 0: return cmp == 0;
+    case 1: return cmp != 0;
+    case 2: return cmp < 0;
+    case 3: return cmp <= 0;
+    case 4: return cmp > 0;
+    default: return cmp >= 0;
+    }
+  }
+  
+  // primitive comparisons, so that -0.0 == 0.0 and NaN is unordered
+  private static boolean test(int op, double l, double r) {
+    switch(op) {
+    case 0: return l == r;
+    case 1: return l != r;
+    case 2: return l < r;
+    case 3: return l <= r;
+    case 4: return l > r;
+    default: return l >= r;
+    }
+  }
+  
+  private IntNode integral(Expression<?> e) throws Unsupported {
+    final Kind k = kind(e.getType());
+    if(!k.isIntegral())
+      throw UNSUPPORTED;
+    
+    if(e instanceof Constant) {
+      final long c = toLong(((Constant<?>)e).getValue());
+      return new IntNode() {
+        @Override long eval(Slots s) { return c; }
+      };
+    }
+    if(e instanceof Variable) {
+      final Variable<?> var = (Variable<?>)e;
+      final int hash = var.hashCode();
+      return new IntNode() {
+        @Override long eval(Slots s) { return s.getInt(var, hash); }
+      };
+    }
+    if(e instanceof NumericCompound) {
+      NumericCompound<?> nc = (NumericCompound<?>)e;
+      final IntNode l = integral(nc.getLeft());
+      final IntNode r = integral(nc.getRight());
+      switch(nc.getOperator()) {
+      case PLUS:
+        return new IntNode() {
+          @Override long eval(Slots s) { return k.narrow(l.eval(s) + r.eval(s)); }
+        };
+      case MINUS:
+        return new IntNode() {
+          @Override long eval(Slots s) { return k.narrow(l.eval(s) - r.eval(s)); }
+        };
+      case MUL:
+        return new IntNode() {
+          @Override long eval(Slots s) { return k.narrow(l.eval(s) * r.eval(s)); }
+        };
+      case DIV:
+        return new IntNode() {
+          @Override long eval(Slots s) { return k.narrow(l.eval(s) / r.eval(s)); }
+        };
+      case REM:
+        return new IntNode() {
+          @Override long eval(Slots s) { return k.narrow(l.eval(s) % r.eval(s)); }
+        };
+      default:
+        throw UNSUPPORTED;
+      }
+    }
+    if(e instanceof UnaryMinus) {
+      final IntNode n = integral(((UnaryMinus<?>)e).getNegated());
+      return new IntNode() {
+        @Override long eval(Slots s) { return k.narrow(-n.eval(s)); }
+      };
+    }
+    if(e instanceof BitvectorNegation) {
+      final IntNode n = integral(((BitvectorNegation<?>)e).getNegated());
+      return new IntNode() {
+        @Override long eval(Slots s) { return k.narrow(~n.eval(s)); }
+      };
+    }
+    if(e instanceof BitvectorExpression) {
+      return bitvector((BitvectorExpression<?>)e, k);
+    }
+    if(e instanceof CastExpression) {
+      Expression<?> casted = ((CastExpression<?,?>)e).getCasted();
+      Kind from = kind(casted.getType());
+      if(from.isIntegral()) {
+        final IntNode n = integral(casted);
+        return new IntNode() {
+          @Override long eval(Slots s) { return k.narrow(n.eval(s)); }
+        };
+      }
+      if(from.isFp() && k != Kind.CHAR) {
+        final FpNode n = fp(casted);
+        if(k == Kind.LONG) {
+          return new IntNode() {
+            @Override long eval(Slots s) { return (long)n.eval(s); }
+          };
+        }
+        return new IntNode() {
+          @Override long eval(Slots s) { return k.narrow((int)n.eval(s)); }
+        };
+      }
+      throw UNSUPPORTED;
+    }
+    if(e instanceof IfThenElse) {
+      IfThenElse<?> ite = (IfThenElse<?>)e;
+      final BoolNode c = bool(ite.getIf());
+      final IntNode t = integral(ite.getThen());
+      final IntNode f = integral(ite.getElse());
+      return new IntNode() {
+        @Override long eval(Slots s) { return c.eval(s) ? t.eval(s) : f.eval(s); }
+      };
+    }
+    final Expression<?> interpreted = e;
+    return new IntNode() {
+      @Override long eval(Slots s) { return toLong(interpreted.evaluate(s.getValuation())); }
+    };
+  }
+  
+  private static long toLong(Object v) {
+    return (v instanceof Character) ? (Character)v : ((Number)v).longValue();
+  }
+  
+  private IntNode bitvector(BitvectorExpression<?> bve, final Kind k) throws Unsupported {
+    final IntNode l = integral(bve.getLeft());
+    final IntNode r = integral(bve.getRight());
+    switch(bve.getOperator()) {
+    case AND:
+      return new IntNode() {
+        @Override long eval(Slots s) { return k.narrow(l.eval(s) & r.eval(s)); }
+      };
+    case OR:
+      return new IntNode() {
+        @Override long eval(Slots s) { return k.narrow(l.eval(s) | r.eval(s)); }
+      };
+    case XOR:
+      return new IntNode() {
+        @Override long eval(Slots s) { return k.narrow(l.eval(s) ^ r.eval(s)); }
+      };
+    default:
+    }
+    // shifts follow the Java semantics: operands narrower than long are
+    // shifted as int
+    if(k == Kind.LONG) {
+      switch(bve.getOperator()) {
+      case SHIFTL:
+        return new IntNode() {
+          @Override long eval(Slots s) { return l.eval(s) << r.eval(s); }
+        };
+      case SHIFTR:
+        return new IntNode() {
+          @Override long eval(Slots s) { return l.eval(s) >> r.eval(s); }
+        };
+      case SHIFTUR:
+        return new IntNode() {
+          @Override long eval(Slots s) { return l.eval(s) >>> r.eval(s); }
+        };
+      default:
+        throw UNSUPPORTED;
+      }
+    }
+    switch(bve.getOperator()) {
+    case SHIFTL:
+      return new IntNode() {
+        @Override long eval(Slots s) { return k.narrow((int)l.eval(s) << (int)r.eval(s)); }
+      };
+    case SHIFTR:
+      return new IntNode() {
+        @Override long eval(Slots s) { return k.narrow((int)l.eval(s) >> (int)r.eval(s)); }
+      };
+    case SHIFTUR:
+      return new IntNode() {
+        @Override long eval(Slots s) { return k.narrow((int)l.eval(s) >>> (int)r.eval(s)); }
+      };
+    default:
+      throw UNSUPPORTED;
+    }
+  }
+  
+  private FpNode fp(Expression<?> e) throws Unsupported {
+    final Kind k = kind(e.getType());
+    if(!k.isFp())
+      throw UNSUPPORTED;
+    final boolean single = (k == Kind.FLOAT);
+    
+    if(e instanceof Constant) {
+      final double c = ((Number)((Constant<?>)e).getValue()).doubleValue();
+      return new FpNode() {
+        @Override double eval(Slots s) { return c; }
+      };
+    }
+    if(e instanceof Variable) {
+      final Variable<?> var = (Variable<?>)e;
+      final int hash = var.hashCode();
+      return new FpNode() {
+        @Override double eval(Slots s) { return s.getFp(var, hash); }
+      };
+    }
+    if(e instanceof NumericCompound) {
+      NumericCompound<?> nc = (NumericCompound<?>)e;
+      final FpNode l = fp(nc.getLeft());
+      final FpNode r = fp(nc.getRight());
+      // float operations are exactly rounded when computed in double
+      switch(nc.getOperator()) {
+      case PLUS:
+        return new FpNode() {
+          @Override double eval(Slots s) { return round(single, l.eval(s) + r.eval(s)); }
+        };
+      case MINUS:
+        return new FpNode() {
+          @Override double eval(Slots s) { return round(single, l.eval(s) - r.eval(s)); }
+        };
+      case MUL:
+        return new FpNode() {
+          @Override double eval(Slots s) { return round(single, l.eval(s) * r.eval(s)); }
+        };
+      case DIV:
+        return new FpNode() {
+          @Override double eval(Slots s) { return round(single, l.eval(s) / r.eval(s)); }
+        };
+      case REM:
+        return new FpNode() {
+          @Override double eval(Slots s) { return round(single, l.eval(s) % r.eval(s)); }
+        };
+      default:
+        throw UNSUPPORTED;
+      }
+    }
+    if(e instanceof UnaryMinus) {
+      final FpNode n = fp(((UnaryMinus<?>)e).getNegated());
+      return new FpNode() {
+        @Override double eval(Slots s) { return -n.eval(s); }
+      };
+    }
+    if(e instanceof CastExpression) {
+      Expression<?> casted = ((CastExpression<?,?>)e).getCasted();
+      Kind from = kind(casted.getType());
+      if(from.isFp()) {
+        final FpNode n = fp(casted);
+        return new FpNode() {
+          @Override double eval(Slots s) { return round(single, n.eval(s)); }
+        };
+      }
+      if(from.isIntegral()) {
+        final IntNode n = integral(casted);
+        if(single) {
+          return new FpNode() {
+            @Override double eval(Slots s) { return (float)n.eval(s); }
+          };
+        }
+        return new FpNode() {
+          @Override double eval(Slots s) { return (double)n.eval(s); }
+        };
+      }
+      throw UNSUPPORTED;
+    }
+    if(e instanceof IfThenElse) {
+      IfThenElse<?> ite = (IfThenElse<?>)e;
+      final BoolNode c = bool(ite.getIf());
+      final FpNode t = fp(ite.getThen());
+      final FpNode f = fp(ite.getElse());
+      return new FpNode() {
+        @Override double eval(Slots s) { return c.eval(s) ? t.eval(s) : f.eval(s); }
+      };
+    }
+    final Expression<?> interpreted = e;
+    return new FpNode() {
+      @Override double eval(Slots s) { return ((Number)interpreted.evaluate(s.getValuation())).doubleValue(); }
+    };
+  }
+  
+  private static double round(boolean single, double v) {
+    return single ? (float)v : v;
+  }
+  
+}
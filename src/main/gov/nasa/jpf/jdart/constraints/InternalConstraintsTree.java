@@ -16,21 +16,29 @@
 package gov.nasa.jpf.jdart.constraints;
 
 import gov.nasa.jpf.JPF;
+import gov.nasa.jpf.constraints.api.ConstraintSolver;
 import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
 import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.api.SolverContext;
 import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.expressions.Negation;
 import gov.nasa.jpf.constraints.util.ExpressionUtil;
 import gov.nasa.jpf.jdart.config.AnalysisConfig;
 import gov.nasa.jpf.jdart.config.ConcolicValues;
+import gov.nasa.jpf.jdart.search.SearchStrategy;
 import gov.nasa.jpf.util.JPFLogger;
 import gov.nasa.jpf.util.Pair;
 import gov.nasa.jpf.vm.Instruction;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
+import java.util.Map;
 
 public class InternalConstraintsTree {
 
@@ -41,279 +49,496 @@ public class InternalConstraintsTree {
     INCONCLUSIVE
   }
   
-  private static abstract class NodeData {
+  private final JPFLogger logger = JPF.getLogger("jdart");
+  
+  
+  private final NodeStore nodes;
+  private final int root = NodeStore.ROOT;
+  private int current = root; // This is the current node in our EXPLORATION
+  private int currentTarget = root; // This is the node the valuation computed by the constraint solver SHOULD reach
+  
+  private final AnalysisConfig anaConf;
+  
+  private ArrayList<Integer> expectedPath = new ArrayList<>();
+  private int[] expectedNodes = new int[64];
+  private boolean diverged = false;
+  private final SolverContext solverCtx;
+  private boolean explore;
+  
+  private final ConcolicValues preset;
+  private boolean replay = false;
+  
+  private Valuation prev = null;  
+  
+  private final ExpressionCompiler compiler = new ExpressionCompiler();
+  
+  // valuations that diverged from a target, excluded when solving again
+  private final Map<Integer,List<Expression<Boolean>>> exclusions = new HashMap<>();
+  
+  private final SearchStrategy strategy;
+  private final Map<Instruction,BitSet> coveredBranches = new HashMap<>();
+  private int numCoveredBranches = 0;
+  private int pathStartCoverage = 0;
+  // depth of the target of the current path, currentTarget moves along
+  private int pathTargetDepth = 0;
+  
+  // statistics for termination strategies
+  private int numCompletedPaths = 0;
+  private int numFailedTargets = 0;
+  private long solverTime = 0;
+  
+  private final List<Expression<Boolean>> globalConstraints = new ArrayList<>();
+  private final CounterexampleCache cexCache;
+  // valuations executed so far, null if only the previous one is skipped
+  private final ValuationSet executed;
+  
+  private TreeCheckpoint checkpoint = null;
+  private int pathsSinceCheckpoint = 0;
+  
+  private PathEventSink events = null;
+  
+  // replace closed subtrees by summaries
+  private boolean summarizeClosed;
+  // paths dropped from the tree by summarizing
+  private final PathSummary summarized = new PathSummary();
+  private PathEventSink spill = null;
+  
+  private Speculator speculator = null;
+  
+  // iterative deepening, null if the bounds are static
+  private AdaptiveBounds bounds = null;
+  
+  private WorkSharing workSharing = null;
+  // nodes this tree may explore when sharing work, null if not sharing
+  private BitSet owned = null;
+ 
+  
+  public InternalConstraintsTree(SolverContext solverCtx, AnalysisConfig anaConf) {
+    this(solverCtx, anaConf, null);   
+  }
+
+  public InternalConstraintsTree(SolverContext solverCtx, AnalysisConfig anaConf, ConcolicValues preset) {
+    this(null, solverCtx, anaConf, preset);
   }
   
-  private static final class DecisionData extends NodeData {
-    private final Node node;
-    private final Instruction branchInsn;
-    private final Expression<Boolean>[] constraints;
-    private final Node[] children;
-    private int numOpen;
-    private int numUnexhausted;
-    
-    
-    public DecisionData(Node node, Instruction branchInsn, Expression<Boolean>[] constraints, boolean explore) {
-      this.node = node;
-      this.branchInsn = branchInsn;
-      this.constraints = constraints;
-      this.children = new Node[constraints.length];
-      this.numUnexhausted = constraints.length;
-      
-      if(!explore) {
-        for(int i = 0; i < constraints.length; i++) {
-          this.children[i] = new Node(node);
-          this.children[i].dontKnow();
-        }
-        this.numOpen = 0;
+  /**
+   * @param solver the solver <tt>solverCtx</tt> was created from, used for 
+   * speculative solving. May be <tt>null</tt>.
+   */
+  public InternalConstraintsTree(ConstraintSolver solver, SolverContext solverCtx, AnalysisConfig anaConf, ConcolicValues preset) {
+    this.solverCtx = solverCtx;
+    this.anaConf = anaConf;
+    this.explore = anaConf.isExploreInitially();
+    this.preset = preset;
+    this.nodes = anaConf.isCompactTree() ? new CompactNodeStore() : new ObjectNodeStore();
+    this.strategy = anaConf.createSearchStrategy();
+    this.strategy.initialize(this);
+    this.strategy.add(root);
+    int modelReuse = anaConf.getModelReuse();
+    this.cexCache = (modelReuse > 0) ? new CounterexampleCache(modelReuse) : null;
+    this.executed = (anaConf.getDedupValuations() >= 0) ? new ValuationSet(anaConf.getDedupBloomBits()) : null;
+    this.summarizeClosed = anaConf.isSummarizeClosed();
+    if(anaConf.isAdaptiveBounds())
+      this.bounds = new AdaptiveBounds(anaConf);
+    String checkpointFile = anaConf.getCheckpointFile();
+    if(checkpointFile != null)
+      initCheckpoint(new File(checkpointFile));
+    String eventFile = anaConf.getEventFile();
+    if(eventFile != null) {
+      try {
+        this.events = new PathEventSink(new File(eventFile), anaConf.isResume(), anaConf.getEventFlushInterval());
       }
-      else {
-        this.numOpen = constraints.length;
+      catch(IOException ex) {
+        logger.severe("Could not open event file ", eventFile, ": ", ex.getMessage());
       }
     }
-    
-    public Expression<Boolean> getConstraint(int idx) {
-      return constraints[idx];
-    }
-    
-    public Node getChild(int idx) {
-      Node c = children[idx];
-      if(c == null) {
-        c = new Node(node);
-        children[idx] = c;
+    // paths of subtrees summarized when resuming have been spilled before
+    String spillFile = anaConf.getSummarySpillFile();
+    if(summarizeClosed && spillFile != null) {
+      try {
+        this.spill = new PathEventSink(new File(spillFile), anaConf.isResume(), anaConf.getEventFlushInterval());
       }
-      return c;
-    }
-    
-    public boolean hasUnexhausted() {
-      return (numUnexhausted > 0);
-    }
-    
-    public boolean hasOpen() {
-      return (numOpen > 0);
-    }
-    
-    public int nextOpenChild() {
-      if(numOpen == 0)
-        return -1;
-      
-      for(int i = 0; i < constraints.length; i++) {
-        Node n = children[i];
-        if(n == null || n.isOpen())
-          return i;
+      catch(IOException ex) {
+        logger.severe("Could not open spill file ", spillFile, ": ", ex.getMessage());
       }
-      
-      return -1;
-    }
-    
-    public void decrementOpen() {
-      numOpen--;
-    }
-    
-    public void decrementUnexhausted() {
-      numUnexhausted--;
     }
-    
-    public void verifyDecision(Instruction branchInsn, Expression<Boolean>[] constraints) {
-      if(branchInsn != this.branchInsn)
-        throw new IllegalStateException("Same decision, but different branching instruction!");
-      if(constraints != null && constraints.length == this.constraints.length)
-        throw new IllegalStateException("Same decision, but different number of constraints!");
-    }
-
-  }
-  
-  private static abstract class AbstractResultData extends NodeData {
-   
-    public abstract PathResult getResult();
-    
+    int workers = anaConf.getSpeculationWorkers();
+    if(solver != null && workers > 0)
+      this.speculator = new Speculator(solver, workers, anaConf.getSpeculationLookahead());
   }
   
-  private static final class ResultData extends AbstractResultData {
-    
-    private final PathResult result;
-    
-    public ResultData(PathResult result) {
-      this.result = result;
+  /**
+   * Restores the tree from a checkpoint (if resuming) and starts recording
+   * modifications.
+   */
+  private void initCheckpoint(File file) {
+    TreeCheckpoint cp = new TreeCheckpoint(file);
+    try {
+      boolean append = false;
+      if(anaConf.isResume() && file.exists()) {
+        int checkpoints = cp.replay(new CheckpointReplay());
+        for(int i = 0; i < nodes.size(); i++) {
+          if(nodes.isVirgin(i))
+            strategy.add(i);
+        }
+        logger.info("Resumed from checkpoint ", file, ": ", checkpoints, " checkpoints, ", nodes.size(), " nodes");
+        append = true;
+      }
+      cp.open(append);
+      this.checkpoint = cp;
     }
-    
-    @Override
-    public PathResult getResult() {
-      return result;
+    catch(IOException ex) {
+      logger.severe("Could not open checkpoint ", file, ": ", ex.getMessage());
     }
-
   }
   
-  private static final class DontKnowData extends AbstractResultData {
-    
-    private static final DontKnowData INSTANCE = new DontKnowData();
-    
-    public static DontKnowData getInstance() {
-      return INSTANCE;
+  /**
+   * Writes the current state of the tree in checkpoint format. Closed
+   * flags and alternation depths are not included.
+   * 
+   * @param file the file
+   * @throws IOException 
+   */
+  public void save(File file) throws IOException {
+    TreeCheckpoint cp = new TreeCheckpoint(file);
+    cp.open(false);
+    try {
+      // successors are created in the order of the decisions
+      for(int n = 1; n < nodes.size(); n++) {
+        if(nodes.getBranchIndex(n) != 0)
+          continue;
+        int p = nodes.getParent(n);
+        cp.decision(p, nodes.getBranchInstruction(p), TreeCheckpoint.constraintsOf(nodes, p), true);
+      }
+      for(int n = 0; n < nodes.size(); n++) {
+        switch(nodes.getState(n)) {
+        case NodeStore.RESULT:
+          cp.result(n, nodes.getResult(n));
+          break;
+        case NodeStore.DONT_KNOW:
+          cp.dontKnow(n);
+          break;
+        case NodeStore.UNSAT:
+          cp.unsatisfiable(n);
+          break;
+        default:
+        }
+      }
+      cp.checkpoint(root);
     }
-    
-    @Override
-    public PathResult getResult() {
-      return PathResult.dontKnow();
+    finally {
+      cp.close();
     }
-
   }
   
-  private static final class UnsatisfiableData extends NodeData {
-    private static final UnsatisfiableData INSTANCE = new UnsatisfiableData();
-    
-    public static UnsatisfiableData getInstance() {
-      return INSTANCE;
+  private void writeCheckpoint() {
+    pathsSinceCheckpoint = 0;
+    try {
+      checkpoint.checkpoint(currentTarget);
+    }
+    catch(IOException ex) {
+      logger.severe("Could not write checkpoint: ", ex.getMessage());
+      checkpoint = null;
     }
   }
   
-  private static final class Node {
-    private final Node parent;
-    private final int depth;
-    private int altDepth;
-    
-    private NodeData data;
-    
-    
-    public Node(Node parent) {
-      this.parent = parent;
-      this.depth = (parent != null) ? parent.depth + 1 : 0;
-      this.altDepth = (parent != null) ? parent.altDepth : 0;
-    }
-    
-    public int incAltDepth() {
-      return ++altDepth;
-    }
-    
-    public boolean isVirgin() {
-      return (data == null);
-    }
-    
-    
-    public Node getParent() {
-      return parent;
-    }
-    
-    
-    public int getDepth() {
-      return depth;
-    }
-    
-    public boolean hasData() {
-      return (data != null);
+  /**
+   * Applies the modifications stored in a checkpoint. Ids of replayed
+   * nodes are identical to the ones of the checkpointed tree, since nodes 
+   * are created in the same order.
+   */
+  private final class CheckpointReplay implements TreeCheckpoint.Handler {
+    @Override
+    public void decision(int node, Instruction insn, Expression<Boolean>[] constraints, boolean explore) {
+      nodes.decision(node, insn, constraints, explore);
     }
-    
-    public DecisionData decisionData() {
-      if(data == null || data.getClass() != DecisionData.class)
-        return null;
-      return (DecisionData)data;
+    @Override
+    public void result(int node, PathResult result) {
+      nodes.result(node, result);
     }
-    
-    public boolean isOpen() {
-      DecisionData dec = decisionData();
-      if(dec == null)
-        return (data == null);
-      return dec.hasOpen();
+    @Override
+    public void dontKnow(int node) {
+      nodes.dontKnow(node);
     }
-    
-    public boolean isExhausted() {
-      DecisionData dec = decisionData();
-      if(dec == null)
-        return (data != null && data.getClass() != DontKnowData.class); // Dont know is not exhausted, all other forms of data are
-      
-      return !dec.hasUnexhausted();
+    @Override
+    public void unsatisfiable(int node) {
+      nodes.unsatisfiable(node);
     }
-    
-    public boolean hasDecisionData() {
-      if(data == null || data.getClass() == DontKnowData.class)
-        return false;
-      
-      //if(data.getClass() == DecisionData.class)
-      return true;      
-      //throw new IllegalArgumentException("Querying non-decision node (depth: "+ depth + 
-      //        ") about decision data! " + data.getClass());
+    @Override
+    public void altDepth(int node) {
+      nodes.incAltDepth(node);
     }
-    
-    public DecisionData decision(Instruction branchInsn, Expression<Boolean>[] constraints, boolean explore) {
-      if(!hasDecisionData()) {
-        DecisionData dec = new DecisionData(this, branchInsn, constraints, explore);
-        data = dec;
-        return dec;
-      }
-      
-      DecisionData dec = (DecisionData)data;
-      dec.verifyDecision(branchInsn, constraints);
-      
-      return dec;
+    @Override
+    public void close(int node) {
+      InternalConstraintsTree.this.close(node);
     }
-    
-    public ResultData result(PathResult result) {
-      if(data == null || data.getClass() == DontKnowData.class) {
-        ResultData res = new ResultData(result);
-        data = res;
-        return res;
-      }
-      
-      //throw new IllegalStateException("Attempting to finish already explored path (data = " + data.getClass().getName() + "!");
-      return null;
+    @Override
+    public void cover(Instruction insn, int branchIdx) {
+      InternalConstraintsTree.this.cover(insn, branchIdx);
     }
-    
-    public DontKnowData dontKnow() {
-      if(data == null) {
-        DontKnowData dk = DontKnowData.getInstance();
-        data = dk;
-        return dk;
-      }
-      
-      if(data.getClass() != DontKnowData.class) {
-        //System.err.println("Attempting to fail already explored path!");
-        return null;
-      }
-      return (DontKnowData)data;
+    @Override
+    public void checkpoint(int target) {
+      logger.finer("Replayed checkpoint, target depth ", nodes.getDepth(target));
     }
-    
-    public UnsatisfiableData unsatisfiable() {
-      if(data == null) {
-        UnsatisfiableData dk = UnsatisfiableData.getInstance();
-        data = dk;
-        return dk;
-      }
-      
-      //throw new IllegalStateException("Attempting to fail already explored path!");
-      return null;
+  }
+  
+  /**
+   * Adds a constraint that holds on all paths (e.g., a precondition).
+   * 
+   * @param constraint the constraint
+   */
+  public void addGlobalConstraint(Expression<Boolean> constraint) {
+    solverCtx.add(constraint);
+    globalConstraints.add(constraint);
+  }
+  
+  /**
+   * @param node a node in this tree
+   * @return the global constraints and the constraints along the path 
+   * to the given node
+   */
+  public List<Expression<Boolean>> getPathCondition(int node) {
+    List<Expression<Boolean>> pc = new ArrayList<>(globalConstraints);
+    for(int n = node; nodes.getParent(n) != NodeStore.NONE; n = nodes.getParent(n)) {
+      pc.add(nodes.getConstraint(nodes.getParent(n), nodes.getBranchIndex(n)));
     }
-    
+    return pc;
   }
   
-  private final JPFLogger logger = JPF.getLogger("jdart");
+  /*
+   * Read-only access to the tree structure for search strategies. Nodes 
+   * are identified by integer ids.
+   */
+  
+  /**
+   * id denoting no node
+   */
+  public static final int NONE = NodeStore.NONE;
   
+  public int getRoot() {
+    return root;
+  }
   
-  private final Node root = new Node(null);
-  private Node current = root; // This is the current node in our EXPLORATION
-  private Node currentTarget = root; // This is the node the valuation computed by the constraint solver SHOULD reach
+  /**
+   * @return the number of nodes in this tree
+   */
+  public int size() {
+    return nodes.size();
+  }
   
-  private final AnalysisConfig anaConf;
+  /**
+   * @return the parent of the given node, -1 for the root
+   */
+  public int getParent(int node) {
+    return nodes.getParent(node);
+  }
   
-  private ArrayList<Integer> expectedPath = new ArrayList<>();
-  private boolean diverged = false;
-  private final SolverContext solverCtx;
-  private boolean explore;
+  public int getDepth(int node) {
+    return nodes.getDepth(node);
+  }
   
-  private final ConcolicValues preset;
-  private boolean replay = false;
+  /**
+   * @return the number of successors if the given node is a decision node, 
+   * 0 otherwise
+   */
+  public int getNumChildren(int node) {
+    return nodes.getNumChildren(node);
+  }
   
-  private Valuation prev = null;  
- 
+  public int getChild(int node, int idx) {
+    return nodes.getChild(node, idx);
+  }
   
-  public InternalConstraintsTree(SolverContext solverCtx, AnalysisConfig anaConf) {
-    this(solverCtx, anaConf, null);   
+  /**
+   * @return the index of the branch of the parent decision leading
+   * to the given node, -1 for the root
+   */
+  public int getBranchIndex(int node) {
+    return nodes.getBranchIndex(node);
   }
-
-  public InternalConstraintsTree(SolverContext solverCtx, AnalysisConfig anaConf, ConcolicValues preset) {
-    this.solverCtx = solverCtx;
-    this.anaConf = anaConf;
-    this.explore = anaConf.isExploreInitially();
-    this.preset = preset;
+  
+  /**
+   * @return the branching instruction if the given node is a decision node, 
+   * <tt>null</tt> otherwise
+   */
+  public Instruction getBranchInstruction(int node) {
+    return nodes.getBranchInstruction(node);
+  }
+  
+  public boolean isVirgin(int node) {
+    return nodes.isVirgin(node);
+  }
+  
+  public boolean isOpen(int node) {
+    return nodes.isOpen(node);
+  }
+  
+  public boolean isExhausted(int node) {
+    return nodes.isExhausted(node);
+  }
+  
+  /**
+   * Checks whether a node would currently be accepted as the next target,
+   * i.e., it is unexplored, owned by this tree when sharing work, and
+   * within the adaptive bounds. Strategies that do not return their
+   * candidates in order must skip other nodes, as these are rejected.
+   * 
+   * @param node a node in this tree
+   * @return <tt>true</tt> if the node can be targeted now
+   */
+  public boolean isSelectable(int node) {
+    return nodes.isVirgin(node) && isOwned(node) && (bounds == null 
+        || bounds.accepts(nodes.getDepth(node), targetAltDepth(node)));
+  }
+  
+  /**
+   * @return the alternation depth of an unexplored node once it is the 
+   * target, retries are not counted
+   */
+  private int targetAltDepth(int node) {
+    int ad = nodes.getAltDepth(node);
+    return exclusions.containsKey(node) ? ad : ad + 1;
+  }
+  
+  /**
+   * Checks whether the branch leading to the given node has been taken
+   * by any execution so far.
+   * 
+   * @param node a node in this tree
+   * @return <tt>true</tt> if the branch has been covered
+   */
+  public boolean isCovered(int node) {
+    int parent = nodes.getParent(node);
+    if(parent == NodeStore.NONE)
+      return true;
+    BitSet covered = coveredBranches.get(nodes.getBranchInstruction(parent));
+    return (covered != null && covered.get(nodes.getBranchIndex(node)));
+  }
+  
+  public int getNumCoveredBranches() {
+    return numCoveredBranches;
+  }
+  
+  /**
+   * @return the number of executed paths
+   */
+  public int getNumCompletedPaths() {
+    return numCompletedPaths;
+  }
+  
+  /**
+   * @return the number of targets that have been given up, i.e., turned 
+   * into dont know nodes
+   */
+  public int getNumFailedTargets() {
+    return numFailedTargets;
+  }
+  
+  /**
+   * @return the time in nanoseconds spent in the solver to find new 
+   * valuations
+   */
+  public long getSolverTime() {
+    return solverTime;
+  }
+  
+  private void cover(Instruction insn, int branchIdx) {
+    BitSet covered = coveredBranches.get(insn);
+    if(covered == null) {
+      covered = new BitSet();
+      coveredBranches.put(insn, covered);
+    }
+    if(!covered.get(branchIdx)) {
+      covered.set(branchIdx);
+      numCoveredBranches++;
+      if(checkpoint != null)
+        checkpoint.cover(insn, branchIdx);
+    }
+  }
+  
+  /**
+   * Shares the exploration of this tree with other processes. Only nodes 
+   * in owned subtrees are explored, open nodes may be given away, and 
+   * further subtrees are requested when running out of work.
+   * 
+   * @param workSharing the connection to the other processes
+   */
+  public void setWorkSharing(WorkSharing workSharing) {
+    this.workSharing = workSharing;
+    this.owned = new BitSet();
+    if(summarizeClosed) {
+      // partial trees are exchanged completely
+      logger.warning("Summarizing closed subtrees is not supported when sharing work, disabled");
+      summarizeClosed = false;
+    }
+    if(workSharing.ownsRoot())
+      owned.set(root);
+  }
+  
+  private boolean isOwned(int node) {
+    return owned == null || owned.get(node);
+  }
+  
+  /**
+   * Gives away the shallowest owned open node, keeping at least one.
+   */
+  private void shareWork() {
+    int candidate = NodeStore.NONE;
+    int numOpen = 0;
+    for(int n = 0; n < nodes.size(); n++) {
+      if(!nodes.isVirgin(n) || !owned.get(n))
+        continue;
+      numOpen++;
+      if(candidate == NodeStore.NONE || nodes.getDepth(n) < nodes.getDepth(candidate))
+        candidate = n;
+    }
+    if(numOpen < 2) {
+      workSharing.provide(null);
+      return;
+    }
+    owned.clear(candidate);
+    workSharing.provide(TreeCheckpoint.encodePath(nodes, candidate));
+  }
+  
+  /**
+   * Requests a subtree from the other processes.
+   * 
+   * @return <tt>false</tt> if there is no work left
+   */
+  private boolean acquireWork() {
+    String work = workSharing.request();
+    if(work == null)
+      return false;
+    int node = graft(TreeCheckpoint.decodePath(work));
+    if(node != NodeStore.NONE) {
+      owned.set(node);
+      strategy.add(node);
+    }
+    else {
+      logger.warning("Received subtree that has already been explored");
+    }
+    return true;
+  }
+  
+  /**
+   * Adds the decisions on a path to this tree.
+   * 
+   * @return the (virgin) node at the end of the path
+   */
+  private int graft(List<TreeCheckpoint.PathStep> path) {
+    int n = root;
+    for(TreeCheckpoint.PathStep step : path) {
+      if(!nodes.hasDecisionData(n)) {
+        nodes.decision(n, step.branchInsn, step.constraints, true);
+        if(checkpoint != null)
+          checkpoint.decision(n, step.branchInsn, step.constraints, true);
+      }
+      else if(!nodes.isDecision(n)) {
+        return NodeStore.NONE;
+      }
+      n = nodes.getChild(n, step.branchIdx);
+    }
+    return nodes.isVirgin(n) ? n : NodeStore.NONE;
   }
   
   public void setExplore(boolean explore) {
@@ -321,7 +546,7 @@ public class InternalConstraintsTree {
   }
   
   public boolean needsDecision() {
-    return !current.hasDecisionData();
+    return !nodes.hasDecisionData(current);
   }
   
   /**
@@ -329,58 +554,69 @@ public class InternalConstraintsTree {
    * the given valuation.
    * 
    * @param valuation the valuation
-   * @return the node in the tree that would be reached by the given valuation
+   * @return the node in the tree that would be reached by the given valuation,
+   * -1 if the constraints cannot be evaluated
    */
-  public Node simulate(Valuation valuation) {
-	  Node curr = root;
+  public int simulate(Valuation valuation) {
+	  int curr = root;
+	  ExpressionCompiler.Slots slots = compiler.slots(valuation);
 	  
-	  while(curr.decisionData() != null) {
-		  DecisionData dd = curr.decisionData();
+	  while(nodes.isDecision(curr)) {
+		  int numChildren = nodes.getNumChildren(curr);
 		  int branchIdx = -1;
-		  for(int i = 0; i < dd.constraints.length; i++) {
-			  Expression<Boolean> constraint = dd.constraints[i];
+		  for(int i = 0; i < numChildren; i++) {
+			  Expression<Boolean> constraint = nodes.getConstraint(curr, i);
 			  try {
-				  if(constraint.evaluate(valuation)) {
+				  if(compiler.compile(constraint).evaluate(slots)) {
 					  branchIdx = i;
 					  break;
 				  }
 			  }
 			  catch(RuntimeException ex) {
 				  // e.g. due to function with undefined semantics
-				  return null;
+				  return NodeStore.NONE;
 			  }
 		  }
 		  if(branchIdx < 0) {
 			  throw new IllegalStateException("Non-complete set of constraints at constraints tree node!");
 		  }
-		  if(dd.children[branchIdx] == null) {
-			  break;
-		  }
-		  curr = dd.children[branchIdx];
+		  curr = nodes.getChild(curr, branchIdx);
 	  }
 	  
 	  return curr;
   }
   
   public BranchEffect decision(Instruction insn, int branchIdx, Expression<Boolean>[] decisions) {
-    if(anaConf.maxDepthExceeded(current.depth)) {
+    if(anaConf.maxDepthExceeded(nodes.getDepth(current))) {
       //System.err.println("DEPTH EXCEEDED");
       return BranchEffect.NORMAL; // just ignore it
     }
     
-    DecisionData data;
+    boolean fresh = !nodes.hasDecisionData(current);
     try {
-      data = current.decision(insn, decisions, explore);
+      nodes.decision(current, insn, decisions, explore);
+      if(fresh && checkpoint != null)
+        checkpoint.decision(current, insn, decisions, explore);
     } catch(IllegalStateException e) {
       logger.severe(e.getMessage());
       // FIXME: this indicates a bug //
       return BranchEffect.INCONCLUSIVE;
     }
     
-    int depth = current.getDepth();
-    current = data.getChild(branchIdx);
+    cover(insn, branchIdx);
+    if(fresh && nodes.isOpen(current) && isOwned(current)) {
+      if(owned != null) {
+        int first = nodes.getChild(current, 0);
+        owned.set(first, first + nodes.getNumChildren(current));
+      }
+      strategy.addChildren(current, branchIdx);
+    }
     
-    if(current.isExhausted() && !replay) { // FALK: check how exhaustion is computed, maybe replay check is not necessary
+    int parent = current;
+    int depth = nodes.getDepth(current);
+    current = nodes.getChild(current, branchIdx);
+    
+    if(nodes.getState(current) == NodeStore.SUMMARY || (nodes.isExhausted(current) && !replay)) { // FALK: check how exhaustion is computed, maybe replay check is not necessary
       diverged = true;
       return BranchEffect.INCONCLUSIVE;
     }
@@ -394,7 +630,7 @@ public class InternalConstraintsTree {
           } 
       }
       else {
-        Expression<Boolean> constraint = data.getConstraint(branchIdx);
+        Expression<Boolean> constraint = nodes.getConstraint(parent, branchIdx);
         solverCtx.push();
         try {
           solverCtx.add(constraint);
@@ -404,7 +640,7 @@ public class InternalConstraintsTree {
           //ex.printStackTrace();
         }
        
-        expectedPath.add(branchIdx);
+        pushExpected(branchIdx, current);
         currentTarget = current;
       }
     }
@@ -413,104 +649,388 @@ public class InternalConstraintsTree {
   }
   
   public void finish(PathResult result) {
-    current.result(result);
+    numCompletedPaths++;
+    if(nodes.result(current, result) && checkpoint != null)
+      checkpoint.result(current, result);
+    if(events != null) {
+      try {
+        events.pathFinished(result, nodes.getDepth(current));
+      }
+      catch(IOException ex) {
+        logger.severe("Could not write path event: ", ex.getMessage());
+        events = null;
+      }
+    }
+    if(cexCache != null && result instanceof PathResult.ValuationResult) {
+      cexCache.addModel(getPathCondition(current), ((PathResult.ValuationResult)result).getValuation());
+    }
+    if(executed != null && result instanceof PathResult.ValuationResult) {
+      executed.add(((PathResult.ValuationResult)result).getValuation());
+    }
+    strategy.pathCompleted(current, numCoveredBranches - pathStartCoverage);
+    if(bounds != null)
+      bounds.pathCompleted(pathTargetDepth, numCoveredBranches - pathStartCoverage);
+  }
+  
+  
+  /**
+   * Ends the current execution before it left the analyzed method. If the
+   * execution did not reach its target yet, the target is given up.
+   * 
+   * @param result the result of the partial path
+   */
+  public void cutOff(PathResult result) {
+    if(!nodes.hasDecisionData(current)) {
+      finish(result);
+      return;
+    }
+    // after a divergence, the target has already been retried or failed
+    if(!diverged)
+      failCurrentTarget();
   }
   
+  /**
+   * @return the global constraints and the constraints along the path 
+   * executed so far
+   */
+  public List<Expression<Boolean>> getCurrentPathCondition() {
+    return getPathCondition(current);
+  }
+
+  /**
+   * @return the node the next decision of the current execution is
+   * recorded at, if a snapshot may be taken before it, or -1 otherwise
+   */
+  public int getSnapshotNode() {
+    if(!explore || replay || nodes.hasDecisionData(current)
+        || anaConf.maxDepthExceeded(nodes.getDepth(current)))
+      return -1;
+    return current;
+  }
+
+  /**
+   * @return true if the current target lies strictly below the given node,
+   * i.e., an execution resumed at that node can reach it
+   */
+  public boolean canResumeAt(int node) {
+    if(currentTarget == NodeStore.NONE || currentTarget == node || replay)
+      return false;
+    int depth = nodes.getDepth(node);
+    int n = currentTarget;
+    while(nodes.getDepth(n) > depth)
+      n = nodes.getParent(n);
+    return n == node;
+  }
+
+  /**
+   * Continues the execution of the current target from a snapshot taken
+   * at the given node, instead of from the root.
+   */
+  public void resumeAt(int node) {
+    current = node;
+  }
   
   public void failCurrentTarget() {
-    currentTarget.dontKnow();
+    dontKnow(currentTarget);
   }
   
+  /**
+   * Handles an unexpected divergence from the current target. The executed
+   * path is kept. The target stays open and is solved again without the
+   * valuation that diverged, unless it ran out of retries.
+   */
+  public void retryCurrentTarget() {
+    List<Expression<Boolean>> excl = exclusions.get(currentTarget);
+    int attempts = (excl == null) ? 0 : excl.size();
+    if(prev == null || attempts >= anaConf.getDivergenceRetries()) {
+      exclusions.remove(currentTarget);
+      failCurrentTarget();
+      return;
+    }
+    if(excl == null) {
+      excl = new ArrayList<>();
+      exclusions.put(currentTarget, excl);
+    }
+    excl.add(new Negation(ExpressionUtil.valuationToExpression(prev)));
+    logger.finer("Retrying target, attempt ", attempts + 1);
+    strategy.add(currentTarget);
+  }
   
-  private Node backtrack(Node node, boolean pop) {
-    if(node == null)
-      return null;
-    
-    while(!node.isOpen()) {
-      boolean exh = node.isExhausted();
-      node = node.getParent();
-      if(node == null)
-        break;
-      if(pop) {
-        solverCtx.pop();
-        expectedPath.remove(expectedPath.size() - 1);
+  private void dontKnow(int node) {
+    exclusions.remove(node);
+    if(!nodes.dontKnow(node))
+      return;
+    numFailedTargets++;
+    if(bounds != null)
+      bounds.dontKnow(nodes.getDepth(node));
+    if(checkpoint != null)
+      checkpoint.dontKnow(node);
+    if(events != null) {
+      try {
+        events.targetFailed(nodes.getDepth(node));
       }
-      DecisionData dec = node.decisionData();
-      dec.decrementOpen();
+      catch(IOException ex) {
+        logger.severe("Could not write path event: ", ex.getMessage());
+        events = null;
+      }
+    }
+  }
+  
+  
+  /**
+   * Propagates the exploration status of a node that is no longer open
+   * to its ancestors. Each node is propagated at most once.
+   */
+  private void close(int node) {
+    if(checkpoint != null && node != NodeStore.NONE && !nodes.isClosed(node) && !nodes.isOpen(node))
+      checkpoint.close(node);
+    while(node != NodeStore.NONE && !nodes.isClosed(node) && !nodes.isOpen(node)) {
+      nodes.setClosed(node);
+      boolean exh = nodes.isExhausted(node);
+      // the root is kept, so the final tree is never empty
+      if(summarizeClosed && node != root && nodes.isDecision(node))
+        nodes.summarize(node, new PathSummary(), summaryVisitor);
+      node = nodes.getParent(node);
+      if(node == NodeStore.NONE)
+        break;
+      nodes.decrementOpen(node);
       if(exh)
-        dec.decrementUnexhausted();
+        nodes.decrementUnexhausted(node);
+    }
+  }
+  
+  /**
+   * Counts the paths of summarized subtrees and spills their results.
+   */
+  private final NodeStore.Visitor summaryVisitor = new NodeStore.Visitor() {
+    @Override
+    public void visit(NodeStore nodes, int node) {
+      switch(nodes.getState(node)) {
+      case NodeStore.RESULT:
+        PathResult res = nodes.getResult(node);
+        summarized.add(res.getState());
+        if(spill != null) {
+          try {
+            spill.pathFinished(res, nodes.getDepth(node));
+          }
+          catch(IOException ex) {
+            logger.severe("Could not write to spill file: ", ex.getMessage());
+            spill = null;
+          }
+        }
+        break;
+      case NodeStore.DONT_KNOW:
+        summarized.add(PathState.DONT_KNOW);
+        break;
+      default:
+      }
+    }
+  };
+  
+  /**
+   * @return the number of paths that have been dropped from the tree by
+   * summarizing closed subtrees
+   */
+  public PathSummary getSummarizedPaths() {
+    return summarized;
+  }
+  
+  private void pushExpected(int branchIdx, int node) {
+    int size = expectedPath.size();
+    if(size == expectedNodes.length)
+      expectedNodes = Arrays.copyOf(expectedNodes, size << 1);
+    expectedNodes[size] = node;
+    expectedPath.add(branchIdx);
+  }
+  
+  /**
+   * Aligns the solver context (and the expected path) with the path
+   * leading to the given node.
+   */
+  private void moveTo(int node) {
+    int[] suffix = new int[nodes.getDepth(node)];
+    int n = node;
+    int depth = nodes.getDepth(n);
+    while(depth > 0 && (depth > expectedPath.size() || expectedNodes[depth - 1] != n)) {
+      suffix[depth - 1] = n;
+      n = nodes.getParent(n);
+      depth--;
     }
     
-    return node;
+    while(expectedPath.size() > depth) {
+      solverCtx.pop();
+      expectedPath.remove(expectedPath.size() - 1);
+    }
+    
+    for(int i = depth; i < suffix.length; i++) {
+      int c = suffix[i];
+      int idx = nodes.getBranchIndex(c);
+      Expression<Boolean> constraint = nodes.getConstraint(nodes.getParent(c), idx);
+      solverCtx.push();
+      pushExpected(idx, c);
+      try {
+        solverCtx.add(constraint);
+      }
+      catch(Exception ex) {
+        logger.finer(ex.getMessage());           
+        // ex.printStackTrace();
+        //currentTarget.dontKnow(); // TODO good idea?
+      }
+    }
+  }
+  
+  private int nextTarget() {
+    do {
+      int n;
+      while((n = strategy.next()) != NodeStore.NONE) {
+        if(nodes.isVirgin(n) && isOwned(n))
+          return n;
+      }
+    } while((workSharing != null && acquireWork()) || raiseBounds());
+    return NodeStore.NONE;
+  }
+  
+  /**
+   * Raises the adaptive bounds and revisits the deferred targets. If the
+   * bounds cannot be raised, the deferred targets are given up.
+   */
+  private boolean raiseBounds() {
+    if(bounds == null)
+      return false;
+    String stats = bounds.getStatistics();
+    boolean raised = bounds.raise();
+    int[] deferred = bounds.takeDeferred();
+    if(raised)
+      logger.info("Raising bounds to depth ", bounds.getDepth(), ", alternation depth ", bounds.getAltDepth(), 
+          " (", stats, ")");
+    else if(deferred.length > 0)
+      logger.info("Not raising bounds, giving up ", deferred.length, " deferred targets (", stats, ")");
+    for(int n : deferred) {
+      if(!nodes.isVirgin(n))
+        continue;
+      if(raised) {
+        strategy.add(n);
+      }
+      else {
+        dontKnow(n);
+        close(n);
+      }
+    }
+    return raised;
   }
   
   public Valuation findNext() {
     replay = false;
     
-    if(diverged) {
-      backtrack(current, false);
-      diverged = false;
-    }
+    close(current);
+    close(currentTarget);
+    // a retried target that has been reached needs no more exclusions
+    if(currentTarget != NodeStore.NONE && !nodes.isVirgin(currentTarget))
+      exclusions.remove(currentTarget);
+    diverged = false;
+    if(checkpoint != null && ++pathsSinceCheckpoint >= anaConf.getCheckpointInterval())
+      writeCheckpoint();
+    if(workSharing != null && workSharing.isStealRequested())
+      shareWork();
+    
     current = root;
-    while((currentTarget = backtrack(currentTarget, true)) != null) {
-      DecisionData dec = currentTarget.decisionData();
-      if(dec == null) {
-        assert currentTarget.isVirgin();
-        int ad = currentTarget.incAltDepth();
-        if(anaConf.maxAltDepthExceeded(ad) || anaConf.maxDepthExceeded(currentTarget.depth)) {
-          currentTarget.dontKnow();
-          continue;
+    while((currentTarget = nextTarget()) != NodeStore.NONE) {
+      int ad = targetAltDepth(currentTarget);
+      if(bounds != null && bounds.defer(currentTarget, nodes.getDepth(currentTarget), ad))
+        continue;
+      // a retried target has been counted when it was first picked
+      if(!exclusions.containsKey(currentTarget)) {
+        nodes.incAltDepth(currentTarget);
+        if(checkpoint != null)
+          checkpoint.altDepth(currentTarget);
+      }
+      if(anaConf.maxAltDepthExceeded(ad) || anaConf.maxDepthExceeded(nodes.getDepth(currentTarget))) {
+        dontKnow(currentTarget);
+        close(currentTarget);
+        continue;
+      }
+      moveTo(currentTarget);
+      Valuation val = new Valuation();
+      logger.finer("Finding new valuation");
+      Result res = null;
+      List<Expression<Boolean>> excl = exclusions.get(currentTarget);
+      List<Expression<Boolean>> query = null;
+      if(cexCache != null) {
+        query = getPathCondition(currentTarget);
+        if(excl != null)
+          query.addAll(excl);
+        res = cexCache.lookup(query, val);
+      }
+      if(res == null && speculator != null && excl == null) {
+        res = speculator.take(currentTarget, val);
+      }
+      if(res == null) {
+        if(excl != null) {
+          solverCtx.push();
+          solverCtx.add(excl);
         }
-        Valuation val = new Valuation();
-        logger.finer("Finding new valuation");
-        Result res = solverCtx.solve(val);
-        logger.finer("Found: " + res + " : " + val);
-        // FIXME: prevent generation of valuation that has been used before.        
-        switch(res) {
-        case UNSAT:
-          currentTarget.unsatisfiable();
-          break;
-        case DONT_KNOW:
-          currentTarget.dontKnow();
+        long start = System.nanoTime();
+        res = solverCtx.solve(val);
+        solverTime += System.nanoTime() - start;
+        if(excl != null)
+          solverCtx.pop();
+        if(cexCache != null)
+          cexCache.store(query, res, val);
+      }
+      logger.finer("Found: " + res + " : " + val);
+      switch(res) {
+      case UNSAT:
+        if(excl != null) {
+          // only the valuations that diverged satisfy the path condition
+          dontKnow(currentTarget);
           break;
-        case SAT:
-        	Node predictedTarget = simulate(val);
-        	if(predictedTarget != null && predictedTarget != currentTarget) {
-        		boolean inconclusive = predictedTarget.isExhausted();
-        		logger.info("Predicted ", inconclusive ? "inconclusive " : "", "divergence");
-        		if(inconclusive) {
-        			logger.finer("NOT attempting execution");
-        			currentTarget.dontKnow();
-        			break;
-        		}
-        	}
-          if (val.equals(prev)) {
-            logger.finer("Wont re-execute with known valuation");
-            currentTarget.dontKnow();
-            break;
-          }
-          prev = val;
-          return ExpressionUtil.combineValuations(val);
         }
-      }
-      else {
-        int nextIdx = dec.nextOpenChild();
-        assert (nextIdx != -1);
-        Expression<Boolean> constraint = dec.getConstraint(nextIdx);
-        Node c = dec.getChild(nextIdx);
-        currentTarget = c;
-        solverCtx.push();
-        expectedPath.add(nextIdx);
-        try {
-          solverCtx.add(constraint);
+        if(nodes.unsatisfiable(currentTarget) && checkpoint != null)
+          checkpoint.unsatisfiable(currentTarget);
+        break;
+      case DONT_KNOW:
+        dontKnow(currentTarget);
+        break;
+      case SAT:
+        if(executed != null && executed.contains(ExpressionUtil.combineValuations(val))) {
+          // the target is unexplored, so the known valuation may as well 
+          // be a false positive of the set
+          Valuation unseen = solveUnseen(excl, val);
+          if(unseen != null)
+            val = unseen;
+          else
+            logger.finer("No unseen valuation, executing known valuation");
         }
-        catch(Exception ex) {
-          logger.finer(ex.getMessage());           
-          // ex.printStackTrace();
-          //currentTarget.dontKnow(); // TODO good idea?
+      	int predictedTarget = simulate(val);
+      	if(predictedTarget != NodeStore.NONE && predictedTarget != currentTarget) {
+      		boolean inconclusive = nodes.isExhausted(predictedTarget);
+      		logger.info("Predicted ", inconclusive ? "inconclusive " : "", "divergence");
+      		if(inconclusive) {
+      			logger.finer("NOT attempting execution");
+      			dontKnow(currentTarget);
+      			break;
+      		}
+      	}
+        if (val.equals(prev)) {
+          logger.finer("Wont re-execute with known valuation");
+          dontKnow(currentTarget);
+          break;
         }
+        prev = val;
+        pathStartCoverage = numCoveredBranches;
+        pathTargetDepth = nodes.getDepth(currentTarget);
+        if(speculator != null)
+          speculate();
+        Valuation next = ExpressionUtil.combineValuations(val);
+        if(executed != null)
+          executed.add(next);
+        return next;
       }
+      close(currentTarget);
     }
+    moveTo(root);
+    if(checkpoint != null)
+      writeCheckpoint();
     
     //We fall back on the preset values that might be specified in the
     //jpf config -- this only happens when we cannot find a new target
@@ -520,17 +1040,106 @@ public class InternalConstraintsTree {
       currentTarget = root;
       assert this.expectedPath.isEmpty();
       replay = true;
+      pathStartCoverage = numCoveredBranches;
+      pathTargetDepth = nodes.getDepth(root);
       return preset.next();
     }
 
+    if(summarized.getTotal() > 0)
+      logger.info("Summarized paths: ", summarized);
+    if(executed != null)
+      logger.info("Executed valuations: ", executed);
     return null;
   }
+  
+  /**
+   * Releases the resources held by the tree. Called when the analysis 
+   * ends, whether the tree has been exhausted or not.
+   */
+  public void dispose() {
+    if(speculator != null) {
+      speculator.shutdown();
+      speculator = null;
+    }
+    if(events != null) {
+      try {
+        events.close();
+      }
+      catch(IOException ex) {
+        logger.severe("Could not close event file: ", ex.getMessage());
+      }
+      events = null;
+    }
+    if(spill != null) {
+      try {
+        spill.close();
+      }
+      catch(IOException ex) {
+        logger.severe("Could not close spill file: ", ex.getMessage());
+      }
+      spill = null;
+    }
+    // also reported if the exploration was terminated prematurely
+    if(workSharing != null) {
+      try {
+        save(workSharing.getResultFile());
+      }
+      catch(IOException ex) {
+        logger.severe("Could not write partial tree: ", ex.getMessage());
+      }
+      workSharing = null;
+    }
+  }
+  
+  /**
+   * Solves the current target again, blocking valuations that have been
+   * executed before, at most as often as configured.
+   * 
+   * @return a valuation that has not been executed, or <tt>null</tt>
+   */
+  private Valuation solveUnseen(List<Expression<Boolean>> excl, Valuation val) {
+    solverCtx.push();
+    try {
+      if(excl != null)
+        solverCtx.add(excl);
+      for(int i = 0; i < anaConf.getDedupValuations(); i++) {
+        logger.finer("Blocking known valuation ", val);
+        solverCtx.add(new Negation(ExpressionUtil.valuationToExpression(val)));
+        val = new Valuation();
+        long start = System.nanoTime();
+        Result res = solverCtx.solve(val);
+        solverTime += System.nanoTime() - start;
+        if(res != Result.SAT)
+          return null;
+        if(!executed.contains(ExpressionUtil.combineValuations(val)))
+          return val;
+      }
+      return null;
+    }
+    finally {
+      solverCtx.pop();
+    }
+  }
+  
+  /**
+   * Hands the likely next targets to the speculative solver, while the
+   * current valuation is executed.
+   */
+  private void speculate() {
+    int[] targets = strategy.peek(speculator.getLookahead());
+    speculator.retain(targets);
+    for(int t : targets) {
+      if(t != currentTarget && nodes.isVirgin(t) && isOwned(t) && !speculator.isPending(t))
+        speculator.submit(t, getPathCondition(t));
+    }
+  }
 
   public ConstraintsTree toFinalCTree() {
-    if (root == null) {
-      return null;
-    }    
-    TrimmedConstraintsTree.Node r = trim();    
+    return toFinalCTree(nodes);
+  }
+  
+  static ConstraintsTree toFinalCTree(NodeStore nodes) {
+    TrimmedConstraintsTree.Node r = trim(nodes);    
     if (r == null) {
       return null;
     } 
@@ -538,85 +1147,81 @@ public class InternalConstraintsTree {
   }
     
   TrimmedConstraintsTree.Node trim() {
+    return trim(nodes);
+  }
+  
+  static TrimmedConstraintsTree.Node trim(NodeStore nodes) {
     LinkedList<Pair<Integer,TrimmedConstraintsTree.Node[]>> stack = new LinkedList<>();
-    Node curr = root;
-    Node prev = null;
+    int curr = NodeStore.ROOT;
     TrimmedConstraintsTree.Node done = null;
+    boolean down = true;
     
-    while (curr != null) {
+    while (curr != NodeStore.NONE) {
       // moving down
-      if (prev == null || prev == curr.parent) {        
+      if (down) {        
         // moving further down
-        if (curr.data != null && curr.data.getClass().getName().equals(DecisionData.class.getName())) {
-          DecisionData d = (DecisionData)curr.data;
-          int cCount = d.children.length;
+        if (nodes.isDecision(curr)) {
+          int cCount = nodes.getNumChildren(curr);
           assert cCount > 0;
-         
-          int idx = 0;
-          TrimmedConstraintsTree.Node[] arr = new TrimmedConstraintsTree.Node[cCount];
-          for (int i=0; i<cCount; i++) {
-            if (d.children[i] != null) {
-              break;
-            }
-            arr[idx++] = null;
-          }
           
-          // moving back up 
-          if (idx == cCount) {
-            done = generateTrimmedNode(d, arr);
-            Node tmp = curr; curr = prev; prev = tmp;            
-            continue;
-          }
-          
-          // moving further down
-          Pair<Integer, TrimmedConstraintsTree.Node[]> p = new Pair<>(idx, arr);
+          Pair<Integer, TrimmedConstraintsTree.Node[]> p = new Pair<>(0, new TrimmedConstraintsTree.Node[cCount]);
           stack.push(p);
-          prev = curr; curr = d.children[idx];
+          curr = nodes.getChild(curr, 0);
           continue;
         }
        
         // moving back up
-        if (curr.data == null || curr.data.getClass().getName().equals(UnsatisfiableData.class.getName())) {
-          done = null;
-        }        
-        else if (curr.data.getClass().getName().equals(ResultData.class.getName())) {
-          ResultData d = (ResultData) curr.data;
-          done = new TrimmedConstraintsTree.ResultNode(d.result);
-        }
-        else if (curr.data.getClass().getName().equals(DontKnowData.class.getName())) {
+        switch (nodes.getState(curr)) {
+        case NodeStore.RESULT:
+          done = new TrimmedConstraintsTree.ResultNode(nodes.getResult(curr));
+          break;
+        case NodeStore.DONT_KNOW:
           done = TrimmedConstraintsTree.DONT_KNOW_NODE;
+          break;
+        case NodeStore.SUMMARY:
+          done = summaryNode(nodes.getSummary(curr));
+          break;
+        default:
+          done = null;
         }
-        Node tmp = curr; curr = prev; prev = tmp;
+        curr = nodes.getParent(curr);
+        down = false;
       } 
       // moving up
       else {
         Pair<Integer, TrimmedConstraintsTree.Node[]> p = stack.pop();
-        DecisionData data = (DecisionData) curr.data;
         p._2[p._1] = done;
         
-        int idx = p._1;
-        while (++idx < p._2.length) {
-          if (data.children[idx] != null) {
-            break;
-          }
-        }
-        
+        int idx = p._1 + 1;
         // moving further up
         if (idx == p._2.length) {        
-          done = generateTrimmedNode(data, p._2);
-          prev = curr; curr = curr.parent;
+          done = generateTrimmedNode(nodes, curr, p._2);
+          curr = nodes.getParent(curr);
           continue;
         }
         // moving down again
-        p = new Pair(idx, p._2);
-        stack.push(p);
-        prev = curr; curr = data.children[idx];
+        stack.push(new Pair<>(idx, p._2));
+        curr = nodes.getChild(curr, idx);
+        down = true;
       }
     }
     return done;
   }
 
-  private TrimmedConstraintsTree.Node generateTrimmedNode(DecisionData d, TrimmedConstraintsTree.Node[] arr) {
+  /**
+   * A summarized subtree becomes a single leaf, carrying the result of 
+   * one of its paths. 
+   */
+  private static TrimmedConstraintsTree.Node summaryNode(PathSummary summary) {
+    PathResult example = summary.getExample();
+    if(example != null)
+      return new TrimmedConstraintsTree.ResultNode(example);
+    if(summary.getCount(PathState.DONT_KNOW) > 0)
+      return TrimmedConstraintsTree.DONT_KNOW_NODE;
+    return null;
+  }
+
+  private static TrimmedConstraintsTree.Node generateTrimmedNode(NodeStore nodes, int node, TrimmedConstraintsTree.Node[] arr) {
     List<TrimmedConstraintsTree.Node> tchildren = new ArrayList<>();
     List<Expression<Boolean>> tconstraints = new ArrayList<>();
     boolean allDontKnow = true;
@@ -625,7 +1230,7 @@ public class InternalConstraintsTree {
         if(tc == null)
           continue;
         tchildren.add(tc);
-        tconstraints.add(d.constraints[i]);
+        tconstraints.add(nodes.getConstraint(node, i));
         if(tc != TrimmedConstraintsTree.DONT_KNOW_NODE)
           allDontKnow = false;
       }
@@ -636,7 +1241,7 @@ public class InternalConstraintsTree {
         return tchildren.iterator().next();
       if(allDontKnow)
         return TrimmedConstraintsTree.DONT_KNOW_NODE;
-      return new TrimmedConstraintsTree.InnerNode(tchildren, tconstraints);
+      return new TrimmedConstraintsTree.InnerNode(tchildren, tconstraints, tchildren.size() == arr.length);
     }
   
   
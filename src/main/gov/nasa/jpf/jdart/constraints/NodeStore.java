@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.constraints;
+
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.vm.Instruction;
+
+import java.util.Arrays;
+
+/**
+ * Storage backend of the {@link InternalConstraintsTree}. Nodes are identified
+ * by integer ids, the root has id 0. The successors of a decision are created
+ * together with the decision.
+ */
+abstract class NodeStore {
+  
+  public static final int ROOT = 0;
+  public static final int NONE = -1;
+  
+  public static final byte VIRGIN = 0;
+  public static final byte DECISION = 1;
+  public static final byte RESULT = 2;
+  public static final byte DONT_KNOW = 3;
+  public static final byte UNSAT = 4;
+  // closed subtree, only the number of paths is kept
+  public static final byte SUMMARY = 5;
+  // node below a summary, no data is kept
+  public static final byte PRUNED = 6;
+  
+  public abstract int size();
+  
+  public abstract int getParent(int node);
+  
+  public abstract int getDepth(int node);
+  
+  public abstract int getAltDepth(int node);
+  
+  public abstract int incAltDepth(int node);
+  
+  public abstract byte getState(int node);
+  
+  public abstract boolean isClosed(int node);
+  
+  public abstract void setClosed(int node);
+  
+  /**
+   * turns a virgin (or dont know) node into a decision node and creates its
+   * successors. If <tt>explore</tt> is false, all successors are dont know
+   * nodes.
+   */
+  protected abstract void setDecision(int node, Instruction branchInsn, Expression<Boolean>[] constraints, boolean explore);
+  
+  public abstract int getNumChildren(int node);
+  
+  public abstract int getChild(int node, int idx);
+  
+  public abstract int getBranchIndex(int node);
+  
+  public abstract Instruction getBranchInstruction(int node);
+  
+  public abstract Expression<Boolean> getConstraint(int node, int idx);
+  
+  public abstract int getNumOpen(int node);
+  
+  public abstract void decrementOpen(int node);
+  
+  public abstract int getNumUnexhausted(int node);
+  
+  public abstract void decrementUnexhausted(int node);
+  
+  protected abstract void setResult(int node, PathResult result);
+  
+  public abstract PathResult getResult(int node);
+  
+  protected abstract void setState(int node, byte state);
+  
+  /**
+   * turns a decision node into a summary node, dropping its successors.
+   * The successors have to be pruned separately.
+   */
+  protected abstract void setSummary(int node, PathSummary summary);
+  
+  public abstract PathSummary getSummary(int node);
+  
+  /**
+   * drops all data of a node in a summarized subtree
+   */
+  protected abstract void prune(int node);
+  
+  
+  public boolean isVirgin(int node) {
+    return getState(node) == VIRGIN;
+  }
+  
+  public boolean isDecision(int node) {
+    return getState(node) == DECISION;
+  }
+  
+  public boolean isOpen(int node) {
+    byte state = getState(node);
+    if(state == DECISION)
+      return getNumOpen(node) > 0;
+    return state == VIRGIN;
+  }
+  
+  public boolean isExhausted(int node) {
+    byte state = getState(node);
+    if(state == DECISION)
+      return getNumUnexhausted(node) <= 0;
+    if(state == SUMMARY)
+      return getSummary(node).isExhausted();
+    // Dont know is not exhausted, all other forms of data are
+    return state != VIRGIN && state != DONT_KNOW;
+  }
+  
+  public boolean hasDecisionData(int node) {
+    byte state = getState(node);
+    return state != VIRGIN && state != DONT_KNOW;
+  }
+  
+  
+  public void decision(int node, Instruction branchInsn, Expression<Boolean>[] constraints, boolean explore) {
+    if(!hasDecisionData(node)) {
+      setDecision(node, branchInsn, constraints, explore);
+      return;
+    }
+    if(getState(node) != DECISION)
+      throw new IllegalStateException("Decision at already finished node!");
+    
+    if(branchInsn != getBranchInstruction(node))
+      throw new IllegalStateException("Same decision, but different branching instruction!");
+    if(constraints != null && constraints.length == getNumChildren(node))
+      throw new IllegalStateException("Same decision, but different number of constraints!");
+  }
+  
+  public boolean result(int node, PathResult result) {
+    byte state = getState(node);
+    if(state == VIRGIN || state == DONT_KNOW) {
+      setResult(node, result);
+      return true;
+    }
+    //throw new IllegalStateException("Attempting to finish already explored path (data = " + data.getClass().getName() + "!");
+    return false;
+  }
+  
+  /**
+   * Replaces the subtree below a decision node by the given summary.
+   * 
+   * @param node a decision node
+   * @param summary the paths in the subtree
+   * @param visitor notified about the nodes in the subtree (in no 
+   * particular order) before they are pruned, may be <tt>null</tt>
+   */
+  public void summarize(int node, PathSummary summary, Visitor visitor) {
+    if(getState(node) != DECISION)
+      throw new IllegalStateException("Summarizing a node that is not a decision!");
+    int[] stack = new int[16];
+    int top = 0;
+    for(int i = getNumChildren(node) - 1; i >= 0; i--) {
+      if(top == stack.length)
+        stack = Arrays.copyOf(stack, top << 1);
+      stack[top++] = getChild(node, i);
+    }
+    while(top > 0) {
+      int n = stack[--top];
+      switch(getState(n)) {
+      case DECISION:
+        for(int i = getNumChildren(n) - 1; i >= 0; i--) {
+          if(top == stack.length)
+            stack = Arrays.copyOf(stack, top << 1);
+          stack[top++] = getChild(n, i);
+        }
+        break;
+      case RESULT:
+        summary.add(getResult(n));
+        break;
+      case DONT_KNOW:
+        summary.add(PathState.DONT_KNOW);
+        break;
+      case SUMMARY:
+        summary.add(getSummary(n));
+        break;
+      default:
+      }
+      if(visitor != null)
+        visitor.visit(this, n);
+      prune(n);
+    }
+    setSummary(node, summary);
+  }
+  
+  /**
+   * Callback for the nodes of a summarized subtree.
+   */
+  public static interface Visitor {
+    void visit(NodeStore nodes, int node);
+  }
+  
+  public boolean dontKnow(int node) {
+    byte state = getState(node);
+    if(state == VIRGIN) {
+      setState(node, DONT_KNOW);
+      return true;
+    }
+    //System.err.println("Attempting to fail already explored path!");
+    return state == DONT_KNOW;
+  }
+  
+  public boolean unsatisfiable(int node) {
+    if(getState(node) == VIRGIN) {
+      setState(node, UNSAT);
+      return true;
+    }
+    //throw new IllegalStateException("Attempting to fail already explored path!");
+    return false;
+  }
+  
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.constraints;
+
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.vm.Instruction;
+
+import java.util.Arrays;
+
+/**
+ * Default backend, storing each node as an object. The ids of the 
+ * successors of a decision are reserved together with the decision, but
+ * the successors are only created when they are modified (successors of
+ * decisions that are not explored are created right away).
+ * <p>
+ * Ids are never reused, as search strategies and checkpoints refer to 
+ * nodes by id. Pruned nodes are dropped, the table mapping ids to nodes
+ * is allocated in chunks of {@value #CHUNK_SIZE} ids, and a chunk is 
+ * released once all of its ids have been pruned.
+ */
+final class ObjectNodeStore extends NodeStore {
+  
+  private static final int CHUNK_BITS = 10;
+  private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+  
+  private static final class DecisionData {
+    private final Instruction branchInsn;
+    private final Expression<Boolean>[] constraints;
+    private final int first;
+    private int numOpen;
+    private int numUnexhausted;
+    
+    public DecisionData(Instruction branchInsn, Expression<Boolean>[] constraints, int first) {
+      this.branchInsn = branchInsn;
+      this.constraints = constraints;
+      this.first = first;
+      this.numUnexhausted = constraints.length;
+    }
+  }
+  
+  private static final class Node {
+    private final int id;
+    private final Node parent;
+    private final int depth;
+    private int altDepth;
+    private byte state = VIRGIN;
+    private boolean closed;
+    
+    private DecisionData decision;
+    private PathResult result;
+    private PathSummary summary;
+    
+    public Node(int id, Node parent) {
+      this.id = id;
+      this.parent = parent;
+      this.depth = (parent != null) ? parent.depth + 1 : 0;
+      this.altDepth = (parent != null) ? parent.altDepth : 0;
+    }
+  }
+  
+  // returned for all pruned ids
+  private static final Node PRUNED_NODE = new Node(NONE, null);
+  
+  static {
+    PRUNED_NODE.state = PRUNED;
+    PRUNED_NODE.closed = true;
+  }
+  
+  // the node with a given id, or its parent if it has not been created yet
+  private Node[][] chunks = new Node[16][];
+  // number of pruned ids per chunk
+  private int[] pruned = new int[16];
+  private int numChunks = 0;
+  private int size = 0;
+  
+  public ObjectNodeStore() {
+    add(new Node(ROOT, null));
+  }
+  
+  private void add(Node n) {
+    int c = size >>> CHUNK_BITS;
+    if((size & CHUNK_MASK) == 0) {
+      if(c == chunks.length) {
+        chunks = Arrays.copyOf(chunks, c << 1);
+        pruned = Arrays.copyOf(pruned, c << 1);
+      }
+      chunks[c] = new Node[CHUNK_SIZE];
+      numChunks++;
+    }
+    chunks[c][size & CHUNK_MASK] = n;
+    size++;
+  }
+  
+  /**
+   * @return the node with the given id, its parent if it has not been 
+   * created yet, or {@link #PRUNED_NODE}
+   */
+  private Node slot(int id) {
+    Node[] chunk = chunks[id >>> CHUNK_BITS];
+    Node n = (chunk != null) ? chunk[id & CHUNK_MASK] : null;
+    return (n != null) ? n : PRUNED_NODE;
+  }
+  
+  private static boolean isCreated(Node n, int id) {
+    return n.id == id || n == PRUNED_NODE;
+  }
+  
+  /**
+   * @return the node with the given id (created if necessary), or 
+   * {@link #PRUNED_NODE}
+   */
+  private Node node(int id) {
+    Node n = slot(id);
+    if(isCreated(n, id))
+      return n;
+    Node c = new Node(id, n);
+    chunks[id >>> CHUNK_BITS][id & CHUNK_MASK] = c;
+    return c;
+  }
+  
+  private Node live(int id) {
+    Node n = node(id);
+    if(n == PRUNED_NODE)
+      throw new IllegalStateException("Node " + id + " has been pruned!");
+    return n;
+  }
+  
+  /**
+   * @return the number of chunks of the node table that have not been 
+   * released
+   */
+  int numChunks() {
+    return numChunks;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public int getParent(int node) {
+    Node n = slot(node);
+    if(!isCreated(n, node))
+      return n.id;
+    return (n.parent != null) ? n.parent.id : NONE;
+  }
+
+  @Override
+  public int getDepth(int node) {
+    Node n = slot(node);
+    return isCreated(n, node) ? n.depth : n.depth + 1;
+  }
+
+  @Override
+  public int getAltDepth(int node) {
+    // a successor that has not been created yet has the alternation depth
+    // of its parent
+    return slot(node).altDepth;
+  }
+
+  @Override
+  public int incAltDepth(int node) {
+    return ++live(node).altDepth;
+  }
+
+  @Override
+  public byte getState(int node) {
+    Node n = slot(node);
+    return isCreated(n, node) ? n.state : VIRGIN;
+  }
+
+  @Override
+  protected void setState(int node, byte state) {
+    live(node).state = state;
+  }
+
+  @Override
+  public boolean isClosed(int node) {
+    Node n = slot(node);
+    return isCreated(n, node) && n.closed;
+  }
+
+  @Override
+  public void setClosed(int node) {
+    live(node).closed = true;
+  }
+
+  @Override
+  protected void setDecision(int node, Instruction branchInsn, Expression<Boolean>[] constraints, boolean explore) {
+    Node n = live(node);
+    DecisionData dec = new DecisionData(branchInsn, constraints, size);
+    for(int i = 0; i < constraints.length; i++) {
+      if(explore) {
+        add(n);
+        continue;
+      }
+      Node c = new Node(size, n);
+      c.state = DONT_KNOW;
+      add(c);
+    }
+    dec.numOpen = explore ? constraints.length : 0;
+    n.decision = dec;
+    n.state = DECISION;
+  }
+
+  @Override
+  public int getNumChildren(int node) {
+    Node n = slot(node);
+    DecisionData dec = isCreated(n, node) ? n.decision : null;
+    return (dec != null) ? dec.constraints.length : 0;
+  }
+
+  @Override
+  public int getChild(int node, int idx) {
+    return slot(node).decision.first + idx;
+  }
+
+  @Override
+  public int getBranchIndex(int node) {
+    Node n = slot(node);
+    Node p = isCreated(n, node) ? n.parent : n;
+    if(p == null)
+      return NONE;
+    return node - p.decision.first;
+  }
+
+  @Override
+  public Instruction getBranchInstruction(int node) {
+    Node n = slot(node);
+    DecisionData dec = isCreated(n, node) ? n.decision : null;
+    return (dec != null) ? dec.branchInsn : null;
+  }
+
+  @Override
+  public Expression<Boolean> getConstraint(int node, int idx) {
+    return slot(node).decision.constraints[idx];
+  }
+
+  @Override
+  public int getNumOpen(int node) {
+    return slot(node).decision.numOpen;
+  }
+
+  @Override
+  public void decrementOpen(int node) {
+    live(node).decision.numOpen--;
+  }
+
+  @Override
+  public int getNumUnexhausted(int node) {
+    return slot(node).decision.numUnexhausted;
+  }
+
+  @Override
+  public void decrementUnexhausted(int node) {
+    live(node).decision.numUnexhausted--;
+  }
+
+  @Override
+  protected void setResult(int node, PathResult result) {
+    Node n = live(node);
+    n.result = result;
+    n.state = RESULT;
+  }
+
+  @Override
+  public PathResult getResult(int node) {
+    Node n = slot(node);
+    return isCreated(n, node) ? n.result : null;
+  }
+
+  @Override
+  protected void setSummary(int node, PathSummary summary) {
+    Node n = live(node);
+    n.decision = null;
+    n.result = null;
+    n.summary = summary;
+    n.state = SUMMARY;
+  }
+
+  @Override
+  public PathSummary getSummary(int node) {
+    Node n = slot(node);
+    return isCreated(n, node) ? n.summary : null;
+  }
+
+  @Override
+  protected void prune(int node) {
+    int c = node >>> CHUNK_BITS;
+    Node[] chunk = chunks[c];
+    if(chunk == null || chunk[node & CHUNK_MASK] == null)
+      return;
+    chunk[node & CHUNK_MASK] = null;
+    if(++pruned[c] == CHUNK_SIZE) {
+      chunks[c] = null;
+      numChunks--;
+    }
+  }
+  
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.constraints;
+
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.ValuationEntry;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * Writes one JSON object per line for every path that is finished during
+ * exploration, so results can be consumed while the analysis is running.
+ * 
+ * Events are collected in a buffer that is written to the file channel when
+ * it is full, when an event is recorded after the flush interval has elapsed 
+ * since the last write, and when the sink is closed. There is no timer, so 
+ * while no events are recorded, buffered events stay in the buffer.
+ */
+public final class PathEventSink {
+  
+  private static final int BUFFER_SIZE = 64 * 1024;
+  
+  private final FileChannel channel;
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+  private final long flushInterval;
+  
+  private long lastFlush = System.currentTimeMillis();
+  private int events = 0;
+  
+  /**
+   * @param file the file to write to
+   * @param append append to an existing file instead of replacing it
+   * @param flushInterval time in milliseconds after which the buffer is 
+   * written with the next event
+   * @throws IOException 
+   */
+  public PathEventSink(File file, boolean append, long flushInterval) throws IOException {
+    this.channel = append 
+            ? FileChannel.open(file.toPath(), StandardOpenOption.CREATE, 
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)
+            : FileChannel.open(file.toPath(), StandardOpenOption.CREATE, 
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    this.flushInterval = flushInterval;
+  }
+  
+  /**
+   * records a path that ended with the given result.
+   * 
+   * @param result the result of the path
+   * @param depth the number of decisions on the path
+   */
+  public void pathFinished(PathResult result, int depth) throws IOException {
+    JsonObject ev = event(result.getState(), depth);
+    if(result instanceof PathResult.ValuationResult)
+      ev.add("valuation", toJson(((PathResult.ValuationResult)result).getValuation()));
+    if(result instanceof PathResult.ErrorResult)
+      ev.addProperty("exception", ((PathResult.ErrorResult)result).getExceptionClass());
+    if(result instanceof PathResult.BudgetExceededResult)
+      ev.addProperty("budget", ((PathResult.BudgetExceededResult)result).getBudget());
+    write(ev);
+  }
+  
+  /**
+   * records a target that was given up, i.e., a path that ends in a 
+   * DONT_KNOW leaf.
+   * 
+   * @param depth the depth of the target
+   */
+  public void targetFailed(int depth) throws IOException {
+    write(event(PathState.DONT_KNOW, depth));
+  }
+  
+  public int getEventCount() {
+    return events;
+  }
+  
+  public void flush() throws IOException {
+    buffer.flip();
+    while(buffer.hasRemaining())
+      channel.write(buffer);
+    buffer.clear();
+    lastFlush = System.currentTimeMillis();
+  }
+  
+  public void close() throws IOException {
+    try {
+      flush();
+    }
+    finally {
+      channel.close();
+    }
+  }
+  
+  private JsonObject event(PathState state, int depth) {
+    JsonObject ev = new JsonObject();
+    ev.addProperty("n", events++);
+    ev.addProperty("time", System.currentTimeMillis());
+    ev.addProperty("state", state.name());
+    ev.addProperty("depth", depth);
+    return ev;
+  }
+  
+  private static JsonObject toJson(Valuation val) {
+    JsonObject vs = new JsonObject();
+    for(ValuationEntry<?> e : val) {
+      Object v = e.getValue();
+      JsonPrimitive jv;
+      // non-finite floating point values are not valid JSON numbers
+      if(v instanceof Number && !isNonFinite((Number)v))
+        jv = new JsonPrimitive((Number)v);
+      else if(v instanceof Boolean)
+        jv = new JsonPrimitive((Boolean)v);
+      else
+        jv = new JsonPrimitive(String.valueOf(v));
+      vs.add(e.getVariable().getName(), jv);
+    }
+    return vs;
+  }
+  
+  private static boolean isNonFinite(Number n) {
+    if(n instanceof Double || n instanceof Float) {
+      double d = n.doubleValue();
+      return Double.isNaN(d) || Double.isInfinite(d);
+    }
+    return false;
+  }
+  
+  private void write(JsonObject ev) throws IOException {
+    byte[] line = (ev.toString() + "\n").getBytes(StandardCharsets.UTF_8);
+    if(line.length > buffer.remaining())
+      flush();
+    if(line.length > buffer.capacity()) {
+      ByteBuffer direct = ByteBuffer.wrap(line);
+      while(direct.hasRemaining())
+        channel.write(direct);
+    }
+    else {
+      buffer.put(line);
+    }
+    if(System.currentTimeMillis() - lastFlush >= flushInterval)
+      flush();
+  }
+}
@@ -15,6 +15,7 @@
  */
 package gov.nasa.jpf.jdart.constraints;
 
+import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.api.Valuation;
 
 import java.io.IOException;
@@ -92,6 +93,39 @@ public class PathResult {
     }
   }
   
+  public static final class BudgetExceededResult extends ValuationResult {
+    private final String budget;
+    private final Expression<Boolean> pathCondition;
+    
+    public BudgetExceededResult(Valuation valuation, String budget, Expression<Boolean> pathCondition) {
+      super(PathState.BUDGET_EXCEEDED, valuation);
+      this.budget = budget;
+      this.pathCondition = pathCondition;
+    }
+    
+    /**
+     * @return the budget that was exceeded
+     */
+    public String getBudget() {
+      return budget;
+    }
+    
+    /**
+     * @return the path condition collected until the execution was cut off
+     */
+    public Expression<Boolean> getPathCondition() {
+      return pathCondition;
+    }
+    
+    public void print(Appendable a, boolean printBudget, boolean printValues) throws IOException {
+      super.print(a, printBudget, printValues);
+      if(printBudget) {
+        a.append((printValues) ? ", " : ": ");
+        a.append(budget);
+      }
+    }
+  }
+  
   public static OkResult ok(Valuation valuation, PostCondition pc) {
     return new OkResult(valuation, pc);
   }
@@ -100,6 +134,10 @@ public class PathResult {
     return new ErrorResult(valuation, exceptionClass, stackTrace);
   }
   
+  public static BudgetExceededResult budgetExceeded(Valuation valuation, String budget, Expression<Boolean> pathCondition) {
+    return new BudgetExceededResult(valuation, budget, pathCondition);
+  }
+  
   public static PathResult dontKnow() {
     return DONT_KNOW;
   }
@@ -22,4 +22,5 @@ public enum PathState {
   OK, 
   ERROR, // path leads to exception
   DONT_KNOW, // constrained for path could not be solved
+  BUDGET_EXCEEDED, // execution was cut off after exceeding its budget
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.constraints;
+
+/**
+ * Number of paths per final state in a subtree of the constraints tree 
+ * that is no longer stored.
+ */
+public final class PathSummary {
+  
+  private static final PathState[] STATES = PathState.values();
+  
+  private final int[] counts = new int[STATES.length];
+  
+  // result of one of the paths, errors are preferred
+  private PathResult example = null;
+  
+  public void add(PathState state) {
+    counts[state.ordinal()]++;
+  }
+  
+  public void add(PathResult result) {
+    add(result.getState());
+    keepExample(result);
+  }
+  
+  public void add(PathSummary other) {
+    for(int i = 0; i < counts.length; i++)
+      counts[i] += other.counts[i];
+    if(other.example != null)
+      keepExample(other.example);
+  }
+  
+  private void keepExample(PathResult result) {
+    if(!(result instanceof PathResult.ValuationResult))
+      return;
+    if(example == null 
+        || (example.getState() != PathState.ERROR && result.getState() == PathState.ERROR))
+      example = result;
+  }
+  
+  /**
+   * @return the result of one of the paths (an error path, if there is
+   * one), or <tt>null</tt> if no path has a valuation
+   */
+  public PathResult getExample() {
+    return example;
+  }
+  
+  public int getCount(PathState state) {
+    return counts[state.ordinal()];
+  }
+  
+  public int getTotal() {
+    int total = 0;
+    for(int c : counts)
+      total += c;
+    return total;
+  }
+  
+  /**
+   * @return <tt>true</tt> if the subtree contains no dont know paths
+   */
+  public boolean isExhausted() {
+    return getCount(PathState.DONT_KNOW) == 0;
+  }
+  
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for(int i = 0; i < STATES.length; i++) {
+      if(i > 0)
+        sb.append(", ");
+      sb.append(STATES[i]).append(": ").append(counts[i]);
+    }
+    return sb.toString();
+  }
+}
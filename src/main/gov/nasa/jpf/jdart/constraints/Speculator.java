@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.constraints;
+
+import gov.nasa.jpf.JPF;
+import gov.nasa.jpf.constraints.api.ConstraintSolver;
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.SolverContext;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.util.JPFLogger;
+import gov.nasa.jpf.util.SimpleProfiler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Solves the path conditions of likely next targets on worker threads
+ * while the current valuation is executed. Each worker uses its own solver
+ * context, the solver therefore has to support concurrent contexts.
+ * 
+ * Except for the workers themselves, this class is only accessed by the
+ * JPF thread.
+ */
+final class Speculator {
+  
+  public static final String HITS = "speculation-hits";
+  public static final String WAITS = "speculation-waits";
+  public static final String MISSES = "speculation-misses";
+  
+  private static final JPFLogger logger = JPF.getLogger("jdart");
+  
+  private static final class Speculation {
+    private final List<Expression<Boolean>> query;
+    // set by the thread that solves (or cancels) this speculation
+    private final AtomicBoolean claimed = new AtomicBoolean(false);
+    private final CountDownLatch done = new CountDownLatch(1);
+    private final Valuation valuation = new Valuation();
+    private volatile Result result = null;
+    
+    public Speculation(List<Expression<Boolean>> query) {
+      this.query = query;
+    }
+  }
+  
+  private final class Worker extends Thread {
+    
+    public Worker(int id) {
+      super("jdart-speculation-" + id);
+      setDaemon(true);
+    }
+    
+    @Override
+    public void run() {
+      SolverContext ctx = solver.createContext();
+      try {
+        while(true) {
+          Speculation s = queue.take();
+          if(!s.claimed.compareAndSet(false, true))
+            continue; // cancelled
+          try {
+            ctx.push();
+            ctx.add(s.query);
+            s.result = ctx.solve(s.valuation);
+            ctx.pop();
+          }
+          catch(RuntimeException ex) {
+            // the JPF thread will solve this query itself
+            logger.finer("Speculative solving failed: ", ex.getMessage());
+            ctx.dispose();
+            ctx = solver.createContext();
+          }
+          finally {
+            s.done.countDown();
+          }
+        }
+      }
+      catch(InterruptedException ex) {
+        // shutdown
+      }
+      finally {
+        ctx.dispose();
+      }
+    }
+  }
+  
+  private final ConstraintSolver solver;
+  private final int lookahead;
+  private final LinkedBlockingQueue<Speculation> queue = new LinkedBlockingQueue<>();
+  private final Map<Integer,Speculation> speculations = new HashMap<>();
+  private final List<Worker> workers = new ArrayList<>();
+  
+  public Speculator(ConstraintSolver solver, int numWorkers, int lookahead) {
+    this.solver = solver;
+    this.lookahead = lookahead;
+    for(int i = 0; i < numWorkers; i++) {
+      Worker w = new Worker(i);
+      workers.add(w);
+      w.start();
+    }
+  }
+  
+  /**
+   * @return the number of nodes to solve ahead
+   */
+  public int getLookahead() {
+    return lookahead;
+  }
+  
+  public boolean isPending(int node) {
+    return speculations.containsKey(node);
+  }
+  
+  /**
+   * cancels all speculations for nodes not contained in <tt>nodes</tt>.
+   */
+  public void retain(int[] nodes) {
+    Map<Integer,Speculation> keep = new HashMap<>();
+    for(int n : nodes) {
+      Speculation s = speculations.get(n);
+      if(s != null)
+        keep.put(n, s);
+    }
+    Iterator<Map.Entry<Integer,Speculation>> it = speculations.entrySet().iterator();
+    while(it.hasNext()) {
+      Map.Entry<Integer,Speculation> e = it.next();
+      if(keep.containsKey(e.getKey()))
+        continue;
+      if(e.getValue().claimed.compareAndSet(false, true))
+        queue.remove(e.getValue());
+      it.remove();
+    }
+  }
+  
+  /**
+   * starts solving the given path condition of a node.
+   */
+  public void submit(int node, List<Expression<Boolean>> query) {
+    Speculation s = new Speculation(query);
+    speculations.put(node, s);
+    queue.offer(s);
+  }
+  
+  /**
+   * retrieves the result for a node. If the node is currently being solved,
+   * this method waits for the result.
+   * 
+   * @param node the target node
+   * @param val receives the model if the result is SAT
+   * @return the result, or <tt>null</tt> if there was no (successful) 
+   * speculation for the node
+   */
+  public Result take(int node, Valuation val) {
+    Speculation s = speculations.remove(node);
+    if(s == null || s.claimed.compareAndSet(false, true)) {
+      if(s != null)
+        queue.remove(s);
+      SimpleProfiler.count(MISSES);
+      return null;
+    }
+    
+    if(s.done.getCount() > 0)
+      SimpleProfiler.count(WAITS);
+    try {
+      s.done.await();
+    }
+    catch(InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+    
+    if(s.result == null) {
+      SimpleProfiler.count(MISSES);
+      return null;
+    }
+    SimpleProfiler.count(HITS);
+    val.putAll(s.valuation);
+    return s.result;
+  }
+  
+  public void shutdown() {
+    for(Worker w : workers)
+      w.interrupt();
+    workers.clear();
+    speculations.clear();
+    queue.clear();
+  }
+  
+}
@@ -0,0 +1,462 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.constraints;
+
+import gov.nasa.jpf.JPF;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.ValuationEntry;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.jdart.summaries.json.ExpressionHandler;
+import gov.nasa.jpf.jdart.summaries.json.VariableHandler;
+import gov.nasa.jpf.util.JPFLogger;
+import gov.nasa.jpf.vm.ClassInfo;
+import gov.nasa.jpf.vm.ClassLoaderInfo;
+import gov.nasa.jpf.vm.Instruction;
+import gov.nasa.jpf.vm.MethodInfo;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * Append-only log of the modifications of an {@link InternalConstraintsTree}.
+ * 
+ * Every modification is written as one JSON object per line. Records are
+ * buffered and written at checkpoints, i.e., the cost of a checkpoint is 
+ * proportional to the number of modifications since the last one. A 
+ * checkpoint is terminated by a marker record, records following the last 
+ * marker are discarded (and truncated) on resume.
+ */
+final class TreeCheckpoint {
+  
+  /**
+   * receives the modifications stored in a checkpoint file.
+   */
+  static interface Handler {
+    public void decision(int node, Instruction insn, Expression<Boolean>[] constraints, boolean explore);
+    public void result(int node, PathResult result);
+    public void dontKnow(int node);
+    public void unsatisfiable(int node);
+    public void altDepth(int node);
+    public void close(int node);
+    public void cover(Instruction insn, int branchIdx);
+    public void checkpoint(int target);
+  }
+  
+  private static final JPFLogger logger = JPF.getLogger("jdart");
+  
+  private static final String OP = "op";
+  
+  private final File file;
+  private Writer out;
+  private boolean resolveInstructions = true;
+  
+  private static final ExpressionHandler expressions = new ExpressionHandler();
+  private static final VariableHandler variables = new VariableHandler();
+  
+  private final List<String> pending = new ArrayList<>();
+  private final Map<Instruction,Integer> instructionIds = new IdentityHashMap<>();
+  // ids of replayed instructions are used even if they cannot be resolved
+  private int nextInstructionId = 0;
+  
+  public TreeCheckpoint(File file) {
+    this.file = file;
+  }
+  
+  /**
+   * Branch instructions can only be resolved while JPF is running. If
+   * disabled, replayed decisions have no branch instruction.
+   */
+  public void setResolveInstructions(boolean resolveInstructions) {
+    this.resolveInstructions = resolveInstructions;
+  }
+  
+  /**
+   * replays a checkpoint file and truncates any incomplete records.
+   * 
+   * @param handler receives the modifications
+   * @return the number of checkpoints replayed
+   * @throws IOException 
+   */
+  public int replay(Handler handler) throws IOException {
+    Map<Integer,Instruction> insns = new HashMap<>();
+    List<JsonObject> batch = new ArrayList<>();
+    JsonParser parser = new JsonParser();
+    long valid = 0, pos = 0;
+    int checkpoints = 0;
+    
+    try(BufferedReader r = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+      String line;
+      while((line = r.readLine()) != null) {
+        pos += line.getBytes(StandardCharsets.UTF_8).length + 1;
+        JsonObject rec;
+        try {
+          rec = parser.parse(line).getAsJsonObject();
+        }
+        catch(JsonParseException | IllegalStateException ex) {
+          logger.warning("Incomplete checkpoint record, discarding remainder");
+          break;
+        }
+        if(!"cp".equals(rec.get(OP).getAsString())) {
+          batch.add(rec);
+          continue;
+        }
+        for(JsonObject b : batch)
+          replay(b, handler, insns);
+        batch.clear();
+        handler.checkpoint(rec.get("t").getAsInt());
+        valid = pos;
+        checkpoints++;
+      }
+    }
+    
+    try(RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      if(raf.length() > valid)
+        raf.setLength(valid);
+    }
+    for(Map.Entry<Integer,Instruction> e : insns.entrySet()) {
+      if(e.getValue() != null)
+        instructionIds.put(e.getValue(), e.getKey());
+    }
+    return checkpoints;
+  }
+  
+  /**
+   * starts a new checkpoint file, or appends to a replayed one.
+   * 
+   * @param append
+   * @throws IOException 
+   */
+  public void open(boolean append) throws IOException {
+    out = new OutputStreamWriter(new FileOutputStream(file, append), StandardCharsets.UTF_8);
+    if(!append) {
+      instructionIds.clear();
+      nextInstructionId = 0;
+    }
+  }
+  
+  /**
+   * writes all records since the last checkpoint, followed by a marker.
+   * 
+   * @param target the current target node
+   * @throws IOException 
+   */
+  public void checkpoint(int target) throws IOException {
+    JsonObject rec = record("cp");
+    rec.addProperty("t", target);
+    pending.add(rec.toString());
+    
+    StringBuilder sb = new StringBuilder();
+    for(String s : pending)
+      sb.append(s).append('\n');
+    pending.clear();
+    out.write(sb.toString());
+    out.flush();
+  }
+  
+  public void close() throws IOException {
+    if(out != null)
+      out.close();
+    out = null;
+  }
+  
+  
+  public void decision(int node, Instruction insn, Expression<Boolean>[] constraints, boolean explore) {
+    JsonObject rec = record("d", node);
+    rec.addProperty("i", instructionId(insn));
+    rec.addProperty("e", explore);
+    rec.add("c", serializeConstraints(constraints));
+    pending.add(rec.toString());
+  }
+  
+  public void result(int node, PathResult result) {
+    JsonObject rec = record("r", node);
+    rec.addProperty("s", result.getState().name());
+    if(result instanceof PathResult.ValuationResult) {
+      Valuation val = ((PathResult.ValuationResult)result).getValuation();
+      JsonArray vs = new JsonArray();
+      for(ValuationEntry<?> e : val) {
+        JsonArray entry = new JsonArray();
+        entry.add(variables.serialize(e.getVariable(), null, null));
+        entry.add(new JsonPrimitive(valueToString(e.getValue())));
+        vs.add(entry);
+      }
+      rec.add("v", vs);
+    }
+    if(result instanceof PathResult.OkResult) {
+      PostCondition post = ((PathResult.OkResult)result).getPostCondition();
+      JsonArray ps = new JsonArray();
+      for(Map.Entry<Variable<?>,Expression<?>> e : post.getConditions().entrySet()) {
+        JsonArray entry = new JsonArray();
+        entry.add(variables.serialize(e.getKey(), null, null));
+        entry.add(expressions.serialize(e.getValue(), null, null));
+        ps.add(entry);
+      }
+      rec.add("p", ps);
+    }
+    else if(result instanceof PathResult.ErrorResult) {
+      PathResult.ErrorResult err = (PathResult.ErrorResult)result;
+      rec.addProperty("x", err.getExceptionClass());
+      rec.addProperty("st", err.getStackTrace());
+    }
+    else if(result instanceof PathResult.BudgetExceededResult) {
+      PathResult.BudgetExceededResult be = (PathResult.BudgetExceededResult)result;
+      rec.addProperty("b", be.getBudget());
+      rec.add("pc", expressions.serialize(be.getPathCondition(), null, null));
+    }
+    pending.add(rec.toString());
+  }
+  
+  public void dontKnow(int node) {
+    pending.add(record("k", node).toString());
+  }
+  
+  public void unsatisfiable(int node) {
+    pending.add(record("u", node).toString());
+  }
+  
+  public void altDepth(int node) {
+    pending.add(record("a", node).toString());
+  }
+  
+  public void close(int node) {
+    pending.add(record("x", node).toString());
+  }
+  
+  public void cover(Instruction insn, int branchIdx) {
+    JsonObject rec = record("b");
+    rec.addProperty("i", instructionId(insn));
+    rec.addProperty("b", branchIdx);
+    pending.add(rec.toString());
+  }
+  
+  
+  private static String valueToString(Object value) {
+    // char values are parsed as numbers
+    if(value instanceof Character)
+      return String.valueOf((int)((Character)value).charValue());
+    return String.valueOf(value);
+  }
+  
+  private static JsonObject record(String op) {
+    JsonObject rec = new JsonObject();
+    rec.addProperty(OP, op);
+    return rec;
+  }
+  
+  private static JsonObject record(String op, int node) {
+    JsonObject rec = record(op);
+    rec.addProperty("n", node);
+    return rec;
+  }
+  
+  private int instructionId(Instruction insn) {
+    if(insn == null)
+      return -1;
+    Integer id = instructionIds.get(insn);
+    if(id != null)
+      return id;
+    id = nextInstructionId++;
+    instructionIds.put(insn, id);
+    MethodInfo mi = insn.getMethodInfo();
+    JsonObject rec = record("insn");
+    rec.addProperty("id", id);
+    rec.addProperty("c", mi.getClassName());
+    rec.addProperty("m", mi.getUniqueName());
+    rec.addProperty("i", insn.getInstructionIndex());
+    pending.add(rec.toString());
+    return id;
+  }
+  
+  private static Instruction resolve(String cls, String method, int idx) {
+    try {
+      ClassInfo ci = ClassLoaderInfo.getCurrentClassLoader().getResolvedClassInfo(cls);
+      MethodInfo mi = ci.getMethod(method, false);
+      return mi.getInstruction(idx);
+    }
+    catch(RuntimeException ex) {
+      logger.warning("Could not resolve instruction " + cls + "." + method + "@" + idx + ": " + ex.getMessage());
+      return null;
+    }
+  }
+  
+  private void replay(JsonObject rec, Handler handler, Map<Integer,Instruction> insns) {
+    String op = rec.get(OP).getAsString();
+    switch(op) {
+    case "insn":
+      int id = rec.get("id").getAsInt();
+      nextInstructionId = Math.max(nextInstructionId, id + 1);
+      if(resolveInstructions) {
+        insns.put(id, resolve(rec.get("c").getAsString(), rec.get("m").getAsString(), rec.get("i").getAsInt()));
+      }
+      break;
+    case "d":
+      Expression<Boolean>[] constraints = parseConstraints(rec.getAsJsonArray("c"));
+      handler.decision(rec.get("n").getAsInt(), insns.get(rec.get("i").getAsInt()), 
+          constraints, rec.get("e").getAsBoolean());
+      break;
+    case "r":
+      handler.result(rec.get("n").getAsInt(), parseResult(rec));
+      break;
+    case "k":
+      handler.dontKnow(rec.get("n").getAsInt());
+      break;
+    case "u":
+      handler.unsatisfiable(rec.get("n").getAsInt());
+      break;
+    case "a":
+      handler.altDepth(rec.get("n").getAsInt());
+      break;
+    case "x":
+      handler.close(rec.get("n").getAsInt());
+      break;
+    case "b":
+      handler.cover(insns.get(rec.get("i").getAsInt()), rec.get("b").getAsInt());
+      break;
+    default:
+      throw new JsonParseException("Unknown checkpoint record " + op);
+    }
+  }
+  
+  private static JsonArray serializeConstraints(Expression<Boolean>[] constraints) {
+    JsonArray cs = new JsonArray();
+    for(Expression<Boolean> c : constraints)
+      cs.add(expressions.serialize(c, null, null));
+    return cs;
+  }
+  
+  @SuppressWarnings("unchecked")
+  private static Expression<Boolean>[] parseConstraints(JsonArray cs) {
+    Expression<Boolean>[] constraints = new Expression[cs.size()];
+    for(int i = 0; i < constraints.length; i++)
+      constraints[i] = (Expression<Boolean>)expressions.deserialize(cs.get(i), null, null);
+    return constraints;
+  }
+  
+  /**
+   * A decision on the path to a node, see {@link #encodePath(NodeStore, int)}.
+   */
+  static final class PathStep {
+    final Instruction branchInsn;
+    final Expression<Boolean>[] constraints;
+    final int branchIdx;
+    
+    PathStep(Instruction branchInsn, Expression<Boolean>[] constraints, int branchIdx) {
+      this.branchInsn = branchInsn;
+      this.constraints = constraints;
+      this.branchIdx = branchIdx;
+    }
+  }
+  
+  /**
+   * encodes the decisions (and taken branches) on the path from the root
+   * to the given node. Unlike node ids, the encoding is independent of the 
+   * tree it was taken from.
+   */
+  static String encodePath(NodeStore nodes, int node) {
+    JsonArray steps = new JsonArray();
+    for(int n = node; nodes.getParent(n) != NodeStore.NONE; n = nodes.getParent(n)) {
+      int p = nodes.getParent(n);
+      Expression<Boolean>[] constraints = constraintsOf(nodes, p);
+      JsonObject step = new JsonObject();
+      Instruction insn = nodes.getBranchInstruction(p);
+      if(insn != null) {
+        MethodInfo mi = insn.getMethodInfo();
+        step.addProperty("c", mi.getClassName());
+        step.addProperty("m", mi.getUniqueName());
+        step.addProperty("i", insn.getInstructionIndex());
+      }
+      step.add("cs", serializeConstraints(constraints));
+      step.addProperty("b", nodes.getBranchIndex(n));
+      steps.add(step);
+    }
+    JsonArray path = new JsonArray();
+    for(int i = steps.size() - 1; i >= 0; i--)
+      path.add(steps.get(i));
+    return path.toString();
+  }
+  
+  static List<PathStep> decodePath(String encoded) {
+    List<PathStep> path = new ArrayList<>();
+    for(JsonElement je : new JsonParser().parse(encoded).getAsJsonArray()) {
+      JsonObject step = je.getAsJsonObject();
+      Instruction insn = null;
+      if(step.has("c"))
+        insn = resolve(step.get("c").getAsString(), step.get("m").getAsString(), step.get("i").getAsInt());
+      path.add(new PathStep(insn, parseConstraints(step.getAsJsonArray("cs")), step.get("b").getAsInt()));
+    }
+    return path;
+  }
+  
+  @SuppressWarnings("unchecked")
+  static Expression<Boolean>[] constraintsOf(NodeStore nodes, int node) {
+    Expression<Boolean>[] constraints = new Expression[nodes.getNumChildren(node)];
+    for(int i = 0; i < constraints.length; i++)
+      constraints[i] = nodes.getConstraint(node, i);
+    return constraints;
+  }
+  
+  @SuppressWarnings({"unchecked","rawtypes"})
+  private PathResult parseResult(JsonObject rec) {
+    PathState state = PathState.valueOf(rec.get("s").getAsString());
+    if(state == PathState.DONT_KNOW)
+      return PathResult.dontKnow();
+    
+    Valuation val = new Valuation();
+    for(JsonElement je : rec.getAsJsonArray("v")) {
+      JsonArray entry = je.getAsJsonArray();
+      Variable v = variables.deserialize(entry.get(0), null, null);
+      val.setParsedValue(v, entry.get(1).getAsString());
+    }
+    
+    if(state == PathState.ERROR) {
+      return PathResult.error(val, rec.get("x").getAsString(), rec.get("st").getAsString());
+    }
+    if(state == PathState.BUDGET_EXCEEDED) {
+      Expression<Boolean> pc = (Expression<Boolean>)expressions.deserialize(rec.get("pc"), null, null);
+      return PathResult.budgetExceeded(val, rec.get("b").getAsString(), pc);
+    }
+    
+    PostCondition post = new PostCondition();
+    for(JsonElement je : rec.getAsJsonArray("p")) {
+      JsonArray entry = je.getAsJsonArray();
+      Variable v = variables.deserialize(entry.get(0), null, null);
+      post.addCondition(v, (Expression)expressions.deserialize(entry.get(1), null, null));
+    }
+    return PathResult.ok(val, post);
+  }
+  
+}
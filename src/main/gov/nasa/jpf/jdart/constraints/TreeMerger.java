@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.constraints;
+
+import gov.nasa.jpf.JPF;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.util.JPFLogger;
+import gov.nasa.jpf.vm.Instruction;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Merges the partial trees written by several processes exploring the
+ * same method (see {@link InternalConstraintsTree#save(File)}).
+ */
+public final class TreeMerger {
+  
+  private static final JPFLogger logger = JPF.getLogger("jdart");
+  
+  private static final class Task {
+    final int merged;
+    final List<NodeStore> stores = new ArrayList<>();
+    final List<Integer> nodes = new ArrayList<>();
+    
+    Task(int merged) {
+      this.merged = merged;
+    }
+  }
+  
+  /**
+   * @param files partial trees
+   * @return the merged tree, <tt>null</tt> if nothing was explored
+   * @throws IOException 
+   */
+  public static ConstraintsTree merge(List<File> files) throws IOException {
+    List<NodeStore> parts = new ArrayList<>();
+    for(File f : files) {
+      if(!f.exists()) {
+        logger.warning("Missing partial tree ", f);
+        continue;
+      }
+      parts.add(read(f));
+    }
+    
+    NodeStore merged = new ObjectNodeStore();
+    LinkedList<Task> stack = new LinkedList<>();
+    Task rootTask = new Task(NodeStore.ROOT);
+    for(NodeStore p : parts) {
+      rootTask.stores.add(p);
+      rootTask.nodes.add(NodeStore.ROOT);
+    }
+    stack.push(rootTask);
+    
+    while(!stack.isEmpty()) {
+      Task t = stack.pop();
+      int best = -1;
+      for(int i = 0; i < t.stores.size(); i++) {
+        if(best == -1 || rank(t.stores.get(i), t.nodes.get(i)) > rank(t.stores.get(best), t.nodes.get(best)))
+          best = i;
+      }
+      if(best == -1)
+        continue;
+      NodeStore bs = t.stores.get(best);
+      int bn = t.nodes.get(best);
+      switch(bs.getState(bn)) {
+      case NodeStore.DECISION:
+        merged.decision(t.merged, bs.getBranchInstruction(bn), TreeCheckpoint.constraintsOf(bs, bn), true);
+        for(int c = 0; c < merged.getNumChildren(t.merged); c++) {
+          Task child = new Task(merged.getChild(t.merged, c));
+          for(int i = 0; i < t.stores.size(); i++) {
+            NodeStore s = t.stores.get(i);
+            int n = t.nodes.get(i);
+            if(!s.isDecision(n))
+              continue;
+            if(s.getNumChildren(n) != merged.getNumChildren(t.merged)) {
+              logger.warning("Partial trees disagree on number of branches, ignoring one");
+              continue;
+            }
+            child.stores.add(s);
+            child.nodes.add(s.getChild(n, c));
+          }
+          stack.push(child);
+        }
+        break;
+      case NodeStore.RESULT:
+        merged.result(t.merged, bs.getResult(bn));
+        break;
+      case NodeStore.DONT_KNOW:
+        merged.dontKnow(t.merged);
+        break;
+      case NodeStore.UNSAT:
+        merged.unsatisfiable(t.merged);
+        break;
+      default:
+      }
+    }
+    
+    return InternalConstraintsTree.toFinalCTree(merged);
+  }
+  
+  private static int rank(NodeStore store, int node) {
+    switch(store.getState(node)) {
+    case NodeStore.DECISION:
+    case NodeStore.RESULT:
+      return 3;
+    case NodeStore.DONT_KNOW:
+      return 2;
+    case NodeStore.UNSAT:
+      return 1;
+    default:
+      return 0;
+    }
+  }
+  
+  private static NodeStore read(File file) throws IOException {
+    final NodeStore store = new ObjectNodeStore();
+    TreeCheckpoint cp = new TreeCheckpoint(file);
+    cp.setResolveInstructions(false);
+    cp.replay(new TreeCheckpoint.Handler() {
+      @Override
+      public void decision(int node, Instruction insn, Expression<Boolean>[] constraints, boolean explore) {
+        store.decision(node, insn, constraints, explore);
+      }
+      @Override
+      public void result(int node, PathResult result) {
+        store.result(node, result);
+      }
+      @Override
+      public void dontKnow(int node) {
+        store.dontKnow(node);
+      }
+      @Override
+      public void unsatisfiable(int node) {
+        store.unsatisfiable(node);
+      }
+      @Override
+      public void altDepth(int node) {
+      }
+      @Override
+      public void close(int node) {
+      }
+      @Override
+      public void cover(Instruction insn, int branchIdx) {
+      }
+      @Override
+      public void checkpoint(int target) {
+      }
+    });
+    return store;
+  }
+  
+  private TreeMerger() {
+  }
+}
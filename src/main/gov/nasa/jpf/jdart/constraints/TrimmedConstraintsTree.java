@@ -54,16 +54,20 @@ public class TrimmedConstraintsTree {
   static class InnerNode extends Node {
     private final Node[] children;
     private final Expression<Boolean>[] constraints;
+    // false if branches have been trimmed, the constraints then do not 
+    // cover all executions reaching the node
+    private final boolean complete;
     
     @SuppressWarnings("unchecked")
-    public InnerNode(Collection<Node> children, List<Expression<Boolean>> constraints) {
-      this(children.toArray(new Node[children.size()]), constraints.toArray(new Expression[constraints.size()]));
+    public InnerNode(Collection<Node> children, List<Expression<Boolean>> constraints, boolean complete) {
+      this(children.toArray(new Node[children.size()]), constraints.toArray(new Expression[constraints.size()]), complete);
     }
     
-    public InnerNode(Node[] children, Expression<Boolean>[] constraints) {
+    public InnerNode(Node[] children, Expression<Boolean>[] constraints, boolean complete) {
       assert children.length == constraints.length;
       this.children = children;
       this.constraints = constraints;
+      this.complete = complete;
     }
     
     @Override
@@ -155,7 +159,13 @@ public class TrimmedConstraintsTree {
       ConstraintsTree.Node succFalse = toBinaryCTree(node, children, index+1);
       if(succFalse == null)
         return succTrue;
-      return new ConstraintsTree.Node(node.constraints[index], succTrue, succFalse);    
+      if(node.complete)
+        return new ConstraintsTree.Node(node.constraints[index], succTrue, succFalse);
+      // the remaining branches are guarded by their own constraints, the
+      // negation of this one would include the trimmed branches
+      Expression<Boolean> falseDecision = (index + 2 == children.length) 
+          ? node.constraints[index + 1] : ExpressionUtil.TRUE;
+      return new ConstraintsTree.Node(node.constraints[index], succTrue, succFalse, falseDecision);    
   }
   
   public TrimmedConstraintsTree() {
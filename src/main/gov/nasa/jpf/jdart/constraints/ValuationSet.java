@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.constraints;
+
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.ValuationEntry;
+
+/**
+ * Set of the valuations executed so far, stored as 64 bit hashes. Entries
+ * with the default value of their type are ignored, as missing variables
+ * are executed with their default value. Either an exact set of hashes 
+ * or, for very long explorations, a Bloom filter of fixed size. Both may
+ * report false positives (the Bloom filter much more often, as it fills
+ * up), but never false negatives.
+ * 
+ * A valuation reported as executed is solved again, and executed anyway 
+ * if no other valuation is found. A false positive therefore costs solver 
+ * calls, but no paths.
+ */
+final class ValuationSet {
+  
+  private static final int PROBES = 3;
+  
+  // open addressing table of hashes, 0 marks an empty slot
+  private long[] table;
+  private int size = 0;
+  
+  // bits of the Bloom filter, null for an exact set
+  private final long[] bloom;
+  private final int bloomMask;
+  
+  /**
+   * @param bloomBits the Bloom filter has <tt>2^bloomBits</tt> bits, 0 
+   * for an exact set of hashes
+   */
+  public ValuationSet(int bloomBits) {
+    if(bloomBits > 0) {
+      int bits = Math.min(Math.max(bloomBits, 6), 30);
+      this.bloom = new long[1 << (bits - 6)];
+      this.bloomMask = (1 << bits) - 1;
+    }
+    else {
+      this.bloom = null;
+      this.bloomMask = 0;
+      this.table = new long[1024];
+    }
+  }
+  
+  public boolean add(Valuation val) {
+    long h = hash(val);
+    if(bloom != null) {
+      boolean added = false;
+      for(int i = 0; i < PROBES; i++) {
+        int bit = probe(h, i);
+        long mask = 1L << bit;
+        if((bloom[bit >>> 6] & mask) == 0) {
+          bloom[bit >>> 6] |= mask;
+          added = true;
+        }
+      }
+      if(added)
+        size++;
+      return added;
+    }
+    if((size + 1) * 2 > table.length)
+      rehash();
+    if(!insert(table, h))
+      return false;
+    size++;
+    return true;
+  }
+  
+  public boolean contains(Valuation val) {
+    long h = hash(val);
+    if(bloom != null) {
+      for(int i = 0; i < PROBES; i++) {
+        int bit = probe(h, i);
+        if((bloom[bit >>> 6] & (1L << bit)) == 0)
+          return false;
+      }
+      return true;
+    }
+    int mask = table.length - 1;
+    for(int i = (int)h & mask; table[i] != 0; i = (i + 1) & mask) {
+      if(table[i] == h)
+        return true;
+    }
+    return false;
+  }
+  
+  /**
+   * @return the number of valuations added (approximate for Bloom filters)
+   */
+  public int size() {
+    return size;
+  }
+  
+  private int probe(long h, int i) {
+    int h1 = (int)h;
+    int h2 = (int)(h >>> 32) | 1;
+    return (h1 + i * h2) & bloomMask;
+  }
+  
+  private static boolean insert(long[] table, long h) {
+    int mask = table.length - 1;
+    int i = (int)h & mask;
+    while(table[i] != 0) {
+      if(table[i] == h)
+        return false;
+      i = (i + 1) & mask;
+    }
+    table[i] = h;
+    return true;
+  }
+  
+  private void rehash() {
+    long[] old = table;
+    table = new long[old.length << 1];
+    for(long h : old) {
+      if(h != 0)
+        insert(table, h);
+    }
+  }
+  
+  /**
+   * Order independent hash of the non-default entries of a valuation.
+   */
+  static long hash(Valuation val) {
+    long h = 0;
+    for(ValuationEntry<?> e : val) {
+      Object value = e.getValue();
+      if(value == null || value.equals(e.getVariable().getType().getDefaultValue()))
+        continue;
+      long v = (value instanceof Double || value instanceof Float) 
+          ? Double.doubleToLongBits(((Number)value).doubleValue())
+          : (value instanceof Number) ? ((Number)value).longValue() : value.hashCode();
+      h += mix(e.getVariable().getName().hashCode() * 0x9E3779B97F4A7C15L + v);
+    }
+    return (h == 0) ? 1 : h;
+  }
+  
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+  
+  @Override
+  public String toString() {
+    return (bloom != null) 
+        ? "Bloom filter of " + (bloomMask + 1) + " bits, ~" + size + " valuations"
+        : size + " valuations";
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.constraints;
+
+import java.io.File;
+
+/**
+ * Connection of an {@link InternalConstraintsTree} to other processes 
+ * exploring the same method. Subtrees are exchanged as opaque strings.
+ */
+public interface WorkSharing {
+  
+  /**
+   * @return <tt>true</tt> if this process starts exploring at the root
+   */
+  public boolean ownsRoot();
+  
+  /**
+   * @return <tt>true</tt> if another process asked for a subtree
+   */
+  public boolean isStealRequested();
+  
+  /**
+   * answers a steal request.
+   * 
+   * @param work the subtree, <tt>null</tt> if none can be given away
+   */
+  public void provide(String work);
+  
+  /**
+   * asks for a subtree and blocks until one is available.
+   * 
+   * @return the subtree, <tt>null</tt> if the exploration is complete
+   */
+  public String request();
+  
+  /**
+   * @return file to which the explored tree is written when done
+   */
+  public File getResultFile();
+  
+}
@@ -31,8 +31,10 @@ import gov.nasa.jpf.vm.ThreadInfo;
 import gov.nasa.jpf.vm.VM;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
@@ -48,7 +50,22 @@ public class SymbolicObjectsContext {
   
   private static transient JPFLogger logger = JPF.getLogger("jdart");
     
-  private static final Map<String,SymbolicVariable<?>> globalSymbolics = new HashMap<>();
+  // symbolic statics and instance fields, per VM
+  private static final Map<VM,Map<String,SymbolicVariable<?>>> globalSymbolics 
+          = Collections.synchronizedMap(new WeakHashMap<VM,Map<String,SymbolicVariable<?>>>());
+  
+  private static void addGlobalSymbolics(VM vm, Map<String,SymbolicVariable<?>> vars) {
+    if(vars.isEmpty())
+      return;
+    synchronized(globalSymbolics) {
+      Map<String,SymbolicVariable<?>> m = globalSymbolics.get(vm);
+      if(m == null) {
+        m = new HashMap<>();
+        globalSymbolics.put(vm, m);
+      }
+      m.putAll(vars);
+    }
+  }
   
   public static void analyzeStatic(VM vm, ClassInfo ci) {
     SymbolicObjectsContext ctx = new SymbolicObjectsContext(vm.getHeap(), Predicates.alwaysFalse(), Predicates.alwaysFalse(), Predicates.alwaysFalse());
@@ -61,7 +78,7 @@ public class SymbolicObjectsContext {
       }
     }
     
-    globalSymbolics.putAll(ctx.symbolicVars);
+    addGlobalSymbolics(vm, ctx.symbolicVars);
   }
   
   public static void analyzeNewInstance(ThreadInfo ti, ElementInfo ei) {
@@ -74,7 +91,7 @@ public class SymbolicObjectsContext {
         ctx.processField(ei, fi, fqn);
       }
     }
-    globalSymbolics.putAll(ctx.symbolicVars);
+    addGlobalSymbolics(ti.getVM(), ctx.symbolicVars);
   }
   
   // "Special" handlers for container classes
@@ -0,0 +1,305 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.parallel;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import gov.nasa.jpf.Config;
+import gov.nasa.jpf.JPF;
+import gov.nasa.jpf.JPFShell;
+import gov.nasa.jpf.jdart.JDart;
+import gov.nasa.jpf.jdart.constraints.ConstraintsTree;
+import gov.nasa.jpf.jdart.constraints.PathState;
+import gov.nasa.jpf.jdart.constraints.TreeMerger;
+import gov.nasa.jpf.util.JPFLogger;
+import gov.nasa.jpf.util.LogManager;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Explores a concolic method with several JDart processes. Every worker
+ * explores the subtrees it owns. Idle workers steal open nodes from busy 
+ * workers through this coordinator. When all workers are idle, the partial
+ * trees are merged.
+ * 
+ * Currently, only a single concolic method (<tt>concolic.method</tt>)
+ * is supported.
+ */
+public class JDartCoordinator implements JPFShell {
+  
+  public static final String CONFIG_KEY_WORKERS = "jdart.parallel.workers";
+  public static final String CONFIG_KEY_COORDINATOR = "jdart.parallel.coordinator";
+  public static final String CONFIG_KEY_WORKER = "jdart.parallel.worker";
+  public static final String CONFIG_KEY_RESULT = "jdart.parallel.result";
+  
+  // messages
+  static final String TYPE = "m";
+  static final String PATH = "p";
+  static final String HELLO = "hello";
+  static final String IDLE = "idle";
+  static final String STEAL = "steal";
+  static final String WORK = "work";
+  static final String NONE = "none";
+  static final String DONE = "done";
+  
+  private static final String CLOSED = "closed";
+  
+  private final Config config;
+  
+  private JPFLogger logger;
+  
+  private static final class Worker {
+    final int id;
+    final File result;
+    Process process;
+    Writer out;
+    boolean idle = false;
+    boolean asked = false;
+    boolean closed = false;
+    
+    Worker(int id, File result) {
+      this.id = id;
+      this.result = result;
+    }
+  }
+  
+  private static final class Message {
+    final Worker from;
+    final JsonObject msg;
+    
+    Message(Worker from, JsonObject msg) {
+      this.from = from;
+      this.msg = msg;
+    }
+  }
+  
+  private final BlockingQueue<Message> inbox = new LinkedBlockingQueue<>();
+  
+  public JDartCoordinator(Config conf) {
+    LogManager.init(conf);
+    this.config = conf;
+    this.logger = JPF.getLogger("jdart");
+  }
+  
+  static JsonObject message(String type) {
+    JsonObject msg = new JsonObject();
+    msg.addProperty(TYPE, type);
+    return msg;
+  }
+
+  @Override
+  public void start(String[] args) {
+    int numWorkers = config.getInt(CONFIG_KEY_WORKERS, Runtime.getRuntime().availableProcessors());
+    List<Worker> workers = new ArrayList<>();
+    
+    try(ServerSocket server = new ServerSocket(0, numWorkers, InetAddress.getLoopbackAddress())) {
+      for(int i = 0; i < numWorkers; i++) {
+        File result = File.createTempFile("jdart-worker" + i + "-", ".tree");
+        result.deleteOnExit();
+        Worker w = new Worker(i, result);
+        w.process = new ProcessBuilder(workerCommand(args, server.getLocalPort(), w))
+                .inheritIO().start();
+        workers.add(w);
+      }
+      for(int i = 0; i < numWorkers; i++)
+        connect(server.accept(), workers);
+      
+      coordinate(workers);
+      
+      for(Worker w : workers)
+        w.process.waitFor();
+    }
+    catch(IOException ex) {
+      logger.severe("Parallel exploration failed: ", ex.getMessage());
+      return;
+    }
+    catch(InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+    
+    List<File> results = new ArrayList<>();
+    for(Worker w : workers)
+      results.add(w.result);
+    try {
+      report(TreeMerger.merge(results));
+    }
+    catch(IOException ex) {
+      logger.severe("Could not merge partial trees: ", ex.getMessage());
+    }
+  }
+  
+  private List<String> workerCommand(String[] args, int port, Worker w) {
+    List<String> cmd = new ArrayList<>();
+    cmd.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+    cmd.add("-cp");
+    cmd.add(System.getProperty("java.class.path"));
+    cmd.add(JPF.class.getName());
+    int appIdx = cmd.size();
+    boolean hasApp = false;
+    for(String a : args) {
+      if(a.startsWith("+shell=") || a.startsWith("+jdart.parallel."))
+        continue;
+      hasApp |= a.endsWith(".jpf");
+      cmd.add(a);
+    }
+    if(!hasApp && config.hasValue("jpf.app"))
+      cmd.add(appIdx, config.getString("jpf.app"));
+    cmd.add("+shell=" + JDart.class.getName());
+    cmd.add("+" + CONFIG_KEY_COORDINATOR + "=" + port);
+    cmd.add("+" + CONFIG_KEY_WORKER + "=" + w.id);
+    cmd.add("+" + CONFIG_KEY_RESULT + "=" + w.result.getAbsolutePath());
+    return cmd;
+  }
+  
+  private void connect(final Socket socket, List<Worker> workers) throws IOException {
+    final BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    JsonObject hello = new JsonParser().parse(in.readLine()).getAsJsonObject();
+    final Worker w = workers.get(hello.get("w").getAsInt());
+    w.out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+    
+    Thread reader = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        JsonParser parser = new JsonParser();
+        try {
+          String line;
+          while((line = in.readLine()) != null)
+            inbox.add(new Message(w, parser.parse(line).getAsJsonObject()));
+        }
+        catch(IOException ex) {
+          logger.warning("Lost connection to worker ", w.id, ": ", ex.getMessage());
+        }
+        inbox.add(new Message(w, message(CLOSED)));
+      }
+    }, "jdart-coordinator-" + w.id);
+    reader.setDaemon(true);
+    reader.start();
+  }
+  
+  private void coordinate(List<Worker> workers) throws InterruptedException {
+    LinkedList<Worker> thieves = new LinkedList<>();
+    // stolen work whose thief has gone away in the meantime
+    LinkedList<JsonObject> unclaimed = new LinkedList<>();
+    int asked = 0;
+    
+    while(true) {
+      Message m = inbox.poll(50, TimeUnit.MILLISECONDS);
+      if(m != null) {
+        Worker w = m.from;
+        String type = m.msg.get(TYPE).getAsString();
+        // idle or closed victims will not answer a pending steal request
+        if(w.asked && !WORK.equals(type)) {
+          w.asked = false;
+          asked--;
+        }
+        switch(type) {
+        case IDLE:
+          w.idle = true;
+          thieves.add(w);
+          break;
+        case CLOSED:
+          w.closed = true;
+          w.idle = true;
+          thieves.remove(w);
+          break;
+        case WORK:
+          if(w.asked) {
+            w.asked = false;
+            asked--;
+          }
+          unclaimed.add(m.msg);
+          break;
+        default:
+        }
+      }
+      
+      while(!thieves.isEmpty() && !unclaimed.isEmpty()) {
+        Worker thief = thieves.poll();
+        thief.idle = false;
+        send(thief, unclaimed.poll());
+      }
+      
+      boolean allIdle = true;
+      for(Worker w : workers)
+        allIdle &= w.idle;
+      if(allIdle && asked == 0) {
+        if(!unclaimed.isEmpty())
+          logger.severe("No worker left for ", unclaimed.size(), " subtrees");
+        break;
+      }
+      
+      for(Worker w : workers) {
+        if(asked >= thieves.size())
+          break;
+        if(w.idle || w.asked)
+          continue;
+        w.asked = true;
+        asked++;
+        send(w, message(STEAL));
+      }
+    }
+    
+    for(Worker w : workers) {
+      if(!w.closed)
+        send(w, message(DONE));
+    }
+  }
+  
+  private void send(Worker w, JsonObject msg) {
+    try {
+      w.out.write(msg.toString());
+      w.out.write('\n');
+      w.out.flush();
+    }
+    catch(IOException ex) {
+      logger.warning("Could not send message to worker ", w.id, ": ", ex.getMessage());
+    }
+  }
+  
+  private void report(ConstraintsTree tree) {
+    if(tree == null) {
+      logger.info("tree is null");
+      return;
+    }
+    if (!config.getBoolean("jdart.tree.dont.print")) {
+      logger.info(tree.toString(false, true));
+    }
+    logger.info("----Constraints Tree Statistics---");
+    logger.info("# paths (total): " + tree.getPathCount());
+    logger.info("# OK paths: " + tree.getPathCount(PathState.OK));
+    logger.info("# ERROR paths: " + tree.getPathCount(PathState.ERROR));
+    logger.info("# DONT_KNOW paths: " + tree.getPathCount(PathState.DONT_KNOW));
+    logger.info("# BUDGET_EXCEEDED paths: " + tree.getPathCount(PathState.BUDGET_EXCEEDED));
+    logger.info("");
+  }
+  
+}
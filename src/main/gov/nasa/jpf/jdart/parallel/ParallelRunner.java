@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.parallel;
+
+import gov.nasa.jpf.Config;
+import gov.nasa.jpf.JPF;
+import gov.nasa.jpf.JPFShell;
+import gov.nasa.jpf.jdart.CompletedAnalysis;
+import gov.nasa.jpf.jdart.ConcolicExplorer;
+import gov.nasa.jpf.jdart.JDart;
+import gov.nasa.jpf.jdart.config.ConcolicConfig;
+import gov.nasa.jpf.jdart.config.ConcolicMethodConfig;
+import gov.nasa.jpf.jdart.constraints.ConstraintsTree;
+import gov.nasa.jpf.jdart.constraints.PathState;
+import gov.nasa.jpf.util.JPFLogger;
+import gov.nasa.jpf.util.LogManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Analyzes all concolic methods (<tt>concolic.method</tt> and 
+ * <tt>concolic.methods</tt>) concurrently on a pool of 
+ * <tt>jdart.parallel.threads</tt> threads.
+ * 
+ * All analyses share the class loader of the runner, so native libraries 
+ * (e.g., the solver's) are only loaded once. Each one is run by a 
+ * {@link JDart} instance of its own, whose state (profiler, symbolic 
+ * globals, explorer) is scoped to that run.
+ * A method can have its own target (<tt>concolic.method.&lt;id&gt;.target</tt>).
+ */
+public class ParallelRunner implements JPFShell {
+  
+  public static final String CONFIG_KEY_THREADS = "jdart.parallel.threads";
+  
+  private final Config config;
+  
+  private final JPFLogger logger;
+  
+  public ParallelRunner(Config conf) {
+    LogManager.init(conf);
+    this.config = conf;
+    this.logger = JPF.getLogger("jdart");
+  }
+
+  @Override
+  public void start(String[] args) {
+    Map<String,ConcolicExplorer> explorers = analyze(args);
+    for(Map.Entry<String,ConcolicExplorer> e : explorers.entrySet())
+      logger.info(e.getKey(), ": ", summary(e.getValue()));
+    logger.info("Analyzed ", explorers.size(), " methods");
+  }
+  
+  /**
+   * Analyzes all concolic methods concurrently.
+   * 
+   * @param args JPF command line
+   * @return the explorers of the analyses that did not fail, by method id
+   */
+  public Map<String,ConcolicExplorer> analyze(String[] args) {
+    int threads = config.getInt(CONFIG_KEY_THREADS, Runtime.getRuntime().availableProcessors());
+    
+    Map<String,Future<ConcolicExplorer>> results = new LinkedHashMap<>();
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    for(ConcolicMethodConfig mc : new ConcolicConfig(config).getMethodConfigs()) {
+      String id = mc.getId();
+      results.put(id, pool.submit(new Analysis(analysisArgs(args, id))));
+    }
+    pool.shutdown();
+    
+    Map<String,ConcolicExplorer> explorers = new LinkedHashMap<>();
+    for(Map.Entry<String,Future<ConcolicExplorer>> e : results.entrySet()) {
+      try {
+        explorers.put(e.getKey(), e.getValue().get());
+      }
+      catch(ExecutionException ex) {
+        logger.severe(e.getKey(), ": analysis failed: ", ex.getCause());
+      }
+      catch(InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        pool.shutdownNow();
+        break;
+      }
+    }
+    return explorers;
+  }
+  
+  private String[] analysisArgs(String[] args, String id) {
+    List<String> res = new ArrayList<>();
+    boolean hasApp = false;
+    for(String a : args) {
+      if(a.startsWith("+shell=") || a.startsWith("+concolic.method="))
+        continue;
+      hasApp |= a.endsWith(".jpf");
+      res.add(a);
+    }
+    if(!hasApp && config.hasValue("jpf.app"))
+      res.add(0, config.getString("jpf.app"));
+    res.add("+concolic.methods=");
+    res.add("+concolic.method=" + id);
+    String target = config.getString("concolic.method." + id + ".target");
+    if(target != null)
+      res.add("+target=" + target);
+    return res.toArray(new String[res.size()]);
+  }
+  
+  /**
+   * Runs JDart for the given command line.
+   */
+  private static final class Analysis implements Callable<ConcolicExplorer> {
+    private final String[] args;
+    
+    Analysis(String[] args) {
+      this.args = args;
+    }
+
+    @Override
+    public ConcolicExplorer call() throws Exception {
+      Config conf = JPF.createConfig(args);
+      // logging has been initialized by the runner
+      return new JDart(conf, false).run();
+    }
+  }
+  
+  /**
+   * @return a summary of the completed analyses of an explorer
+   */
+  private static String summary(ConcolicExplorer ce) {
+    StringBuilder sb = new StringBuilder();
+    for(List<CompletedAnalysis> cas : ce.getCompletedAnalyses().values()) {
+      for(CompletedAnalysis ca : cas) {
+        ConstraintsTree ct = ca.getConstraintsTree();
+        if(ct == null)
+          continue;
+        sb.append(ct.getPathCount()).append(" paths (")
+          .append(ct.getPathCount(PathState.OK)).append(" OK, ")
+          .append(ct.getPathCount(PathState.ERROR)).append(" ERROR, ")
+          .append(ct.getPathCount(PathState.DONT_KNOW)).append(" DONT_KNOW, ")
+          .append(ct.getPathCount(PathState.BUDGET_EXCEEDED)).append(" BUDGET_EXCEEDED) ");
+      }
+    }
+    return (sb.length() == 0) ? "no completed analysis" : sb.toString().trim();
+  }
+  
+}
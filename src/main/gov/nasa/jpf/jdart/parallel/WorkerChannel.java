@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.parallel;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import gov.nasa.jpf.JPF;
+import gov.nasa.jpf.jdart.constraints.WorkSharing;
+import gov.nasa.jpf.util.JPFLogger;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Connection of a worker process to the {@link JDartCoordinator}.
+ */
+public class WorkerChannel implements WorkSharing {
+  
+  private static final JPFLogger logger = JPF.getLogger("jdart");
+  
+  private final int worker;
+  private final File resultFile;
+  
+  private final Socket socket;
+  private final Writer out;
+  
+  private final BlockingQueue<JsonObject> replies = new LinkedBlockingQueue<>();
+  
+  private volatile boolean stealRequested = false;
+  private volatile boolean idle = false;
+  
+  public WorkerChannel(int port, int worker, File resultFile) throws IOException {
+    this.worker = worker;
+    this.resultFile = resultFile;
+    this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+    this.out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+    
+    Thread reader = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        readMessages();
+      }
+    }, "jdart-worker-channel");
+    reader.setDaemon(true);
+    reader.start();
+    
+    JsonObject hello = JDartCoordinator.message(JDartCoordinator.HELLO);
+    hello.addProperty("w", worker);
+    send(hello);
+  }
+  
+  private void readMessages() {
+    JsonParser parser = new JsonParser();
+    try(BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+      String line;
+      while((line = in.readLine()) != null) {
+        JsonObject msg = parser.parse(line).getAsJsonObject();
+        if(JDartCoordinator.STEAL.equals(msg.get(JDartCoordinator.TYPE).getAsString())) {
+          // steal requests sent before we became idle are answered by the idle message
+          if(!idle)
+            stealRequested = true;
+        }
+        else {
+          replies.add(msg);
+        }
+      }
+    }
+    catch(IOException ex) {
+      logger.severe("Lost connection to coordinator: ", ex.getMessage());
+    }
+    replies.add(JDartCoordinator.message(JDartCoordinator.DONE));
+  }
+  
+  private synchronized void send(JsonObject msg) {
+    try {
+      out.write(msg.toString());
+      out.write('\n');
+      out.flush();
+    }
+    catch(IOException ex) {
+      logger.severe("Could not send message to coordinator: ", ex.getMessage());
+    }
+  }
+  
+  public int getWorker() {
+    return worker;
+  }
+
+  @Override
+  public boolean ownsRoot() {
+    return worker == 0;
+  }
+
+  @Override
+  public boolean isStealRequested() {
+    return stealRequested;
+  }
+
+  @Override
+  public void provide(String work) {
+    stealRequested = false;
+    JsonObject msg;
+    if(work == null) {
+      msg = JDartCoordinator.message(JDartCoordinator.NONE);
+    }
+    else {
+      msg = JDartCoordinator.message(JDartCoordinator.WORK);
+      msg.addProperty(JDartCoordinator.PATH, work);
+    }
+    send(msg);
+  }
+
+  @Override
+  public String request() {
+    idle = true;
+    stealRequested = false;
+    send(JDartCoordinator.message(JDartCoordinator.IDLE));
+    JsonObject reply;
+    try {
+      reply = replies.take();
+    }
+    catch(InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+    idle = false;
+    if(!JDartCoordinator.WORK.equals(reply.get(JDartCoordinator.TYPE).getAsString()))
+      return null;
+    return reply.get(JDartCoordinator.PATH).getAsString();
+  }
+
+  @Override
+  public File getResultFile() {
+    return resultFile;
+  }
+  
+}
@@ -16,10 +16,14 @@
 package gov.nasa.jpf.jdart.regressions;
 
 import gov.nasa.jpf.Config;
+import gov.nasa.jpf.JPFConfigException;
 import gov.nasa.jpf.JPFShell;
 import gov.nasa.jpf.jdart.ConcolicExplorer;
 import gov.nasa.jpf.jdart.JDart;
+import gov.nasa.jpf.jdart.config.ConcolicConfig;
+import gov.nasa.jpf.jdart.parallel.ParallelRunner;
 import gov.nasa.jpf.util.LogManager;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -41,24 +45,42 @@ public class RegressionShell implements JPFShell {
   public void start(String[] strings) {
     boolean pass = false;
     try {
-      pass = run();
-    } catch (ClassNotFoundException | InstantiationException | IllegalAccessException ex) {
+      pass = config.getBoolean("regression.parallel", false) ? runParallel(strings) : run();
+    } catch (JPFConfigException ex) {
       Logger.getLogger(RegressionShell.class.getName()).log(Level.SEVERE, null, ex);
       ex.printStackTrace();
     }
     error(pass);
   }
 
-  private boolean run() throws ClassNotFoundException, InstantiationException, IllegalAccessException {
+  private boolean run() {
     config.setTarget(config.getProperty("regression.target"));
     JDart dart = new JDart(config, false);    
     ConcolicExplorer exp = dart.run();
     
-    Class clazz = Class.forName(config.getProperty("regression.oracle"));
-    TestOracle o = (TestOracle)clazz.newInstance();    
+    // oracles may take the config, e.g., for running reference analyses
+    TestOracle o = config.getEssentialInstance("regression.oracle", TestOracle.class);
     return o.verdict(exp);
   } 
   
+  /**
+   * analyzes all concolic methods concurrently, the oracle is applied to 
+   * each analysis.
+   */
+  private boolean runParallel(String[] args) {
+    Map<String,ConcolicExplorer> exps = new ParallelRunner(config).analyze(args);
+    if (exps.size() != new ConcolicConfig(config).getMethodConfigs().size()) {
+      return false;
+    }
+    TestOracle o = config.getEssentialInstance("regression.oracle", TestOracle.class);
+    for (ConcolicExplorer exp : exps.values()) {
+      if (!o.verdict(exp)) {
+        return false;
+      }
+    }
+    return true;
+  }
+  
   private void error(boolean pass) {
     System.err.println("JDart Regression " + config.getProperty("regression.name"));
     System.err.println("  target:  " + config.getProperty("regression.target"));
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.search;
+
+/**
+ * Breadth-first search. Open branches are visited in the order in which
+ * they were discovered.
+ */
+public class BreadthFirst extends SearchStrategy {
+  
+  private final IntDeque queue = new IntDeque();
+
+  @Override
+  public void add(int node) {
+    queue.offer(node);
+  }
+
+  @Override
+  public int next() {
+    return queue.poll();
+  }
+
+  @Override
+  public int[] peek(int k) {
+    int[] res = new int[Math.min(k, queue.size())];
+    for(int i = 0; i < res.length; i++)
+      res[i] = queue.get(i);
+    return res;
+  }
+  
+}
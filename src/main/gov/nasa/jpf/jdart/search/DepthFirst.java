@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.search;
+
+
+/**
+ * Depth-first search (default). Open branches are visited in the order of their
+ * branch index, deeper decisions first.
+ */
+public class DepthFirst extends SearchStrategy {
+  
+  private final IntDeque stack = new IntDeque();
+
+  @Override
+  public void add(int node) {
+    stack.push(node);
+  }
+
+  @Override
+  public void addChildren(int parent, int takenIdx) {
+    for(int i = tree.getNumChildren(parent) - 1; i >= 0; i--) {
+      if(i != takenIdx)
+        stack.push(tree.getChild(parent, i));
+    }
+    // retried first if the current execution does not reach it
+    stack.push(tree.getChild(parent, takenIdx));
+  }
+
+  @Override
+  public int next() {
+    return stack.poll();
+  }
+
+  @Override
+  public int[] peek(int k) {
+    int[] res = new int[Math.min(k, stack.size())];
+    for(int i = 0; i < res.length; i++)
+      res[i] = stack.get(i);
+    return res;
+  }
+  
+}
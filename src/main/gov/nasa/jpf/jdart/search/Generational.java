@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.search;
+
+import gov.nasa.jpf.jdart.constraints.InternalConstraintsTree;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Generational search (as in SAGE). Every completed execution expands into
+ * one child per branch past the bound of its path (i.e., each decision
+ * recorded during that execution), each child negating that branch.
+ * 
+ * Children are prioritized by the number of branches first covered by the 
+ * execution that generated them, ties are broken in the order of generation.
+ * Children are solved when they are selected, so unsatisfiable children never
+ * cause a re-execution. SAGE solves all children of an execution in one 
+ * batch. Here this is left to speculative solving (<tt>speculation.workers</tt>):
+ * the children ranked first, usually those of the last completed execution, 
+ * are solved on worker threads before they are selected (see 
+ * {@link #peek(int)}). Without workers, they are solved one at a time.
+ */
+public class Generational extends SearchStrategy {
+  
+  private static final class Entry {
+    private final int node;
+    private final int score;
+    private final long seq;
+    
+    public Entry(int node, int score, long seq) {
+      this.node = node;
+      this.score = score;
+      this.seq = seq;
+    }
+  }
+  
+  private static final Comparator<Entry> COMPARATOR = new Comparator<Entry>() {
+    @Override
+    public int compare(Entry e1, Entry e2) {
+      int d = Integer.compare(e2.score, e1.score);
+      if(d != 0)
+        return d;
+      return Long.compare(e1.seq, e2.seq);
+    }
+  };
+  
+  private final PriorityQueue<Entry> frontier = new PriorityQueue<>(64, COMPARATOR);
+  private final IntDeque pending = new IntDeque();
+  private long seq = 0;
+
+  @Override
+  public void add(int node) {
+    pending.offer(node);
+  }
+
+  @Override
+  public void pathCompleted(int leaf, int newBranches) {
+    expand(newBranches);
+  }
+
+  @Override
+  public int next() {
+    // children of executions that did not complete
+    expand(0);
+    Entry e = frontier.poll();
+    return (e != null) ? e.node : InternalConstraintsTree.NONE;
+  }
+
+  @Override
+  public int[] peek(int k) {
+    Entry[] entries = new Entry[Math.min(k, frontier.size())];
+    int[] res = new int[entries.length];
+    for(int i = 0; i < entries.length; i++) {
+      entries[i] = frontier.poll();
+      res[i] = entries[i].node;
+    }
+    for(Entry e : entries)
+      frontier.offer(e);
+    return res;
+  }
+  
+  private void expand(int score) {
+    while(!pending.isEmpty())
+      frontier.offer(new Entry(pending.poll(), score, seq++));
+  }
+  
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.search;
+
+import java.util.Arrays;
+
+/**
+ * Unboxed double-ended queue of node ids.
+ */
+final class IntDeque {
+  
+  private int[] elements = new int[64];
+  private int head = 0;
+  private int size = 0;
+  
+  public boolean isEmpty() {
+    return size == 0;
+  }
+  
+  public int size() {
+    return size;
+  }
+  
+  public void push(int e) {
+    ensureCapacity();
+    head = (head - 1) & (elements.length - 1);
+    elements[head] = e;
+    size++;
+  }
+  
+  public void offer(int e) {
+    ensureCapacity();
+    elements[(head + size) & (elements.length - 1)] = e;
+    size++;
+  }
+  
+  /**
+   * @param i position, 0 is the first element
+   * @return the element at the given position
+   */
+  public int get(int i) {
+    if(i < 0 || i >= size)
+      throw new IndexOutOfBoundsException(String.valueOf(i));
+    return elements[(head + i) & (elements.length - 1)];
+  }
+  
+  public void set(int i, int e) {
+    if(i < 0 || i >= size)
+      throw new IndexOutOfBoundsException(String.valueOf(i));
+    elements[(head + i) & (elements.length - 1)] = e;
+  }
+  
+  /**
+   * @return the last element, or -1 if the deque is empty
+   */
+  public int pollLast() {
+    if(size == 0)
+      return -1;
+    size--;
+    return elements[(head + size) & (elements.length - 1)];
+  }
+  
+  /**
+   * @return the first element, or -1 if the deque is empty
+   */
+  public int poll() {
+    if(size == 0)
+      return -1;
+    int e = elements[head];
+    head = (head + 1) & (elements.length - 1);
+    size--;
+    return e;
+  }
+  
+  private void ensureCapacity() {
+    if(size < elements.length)
+      return;
+    int[] tmp = new int[elements.length << 1];
+    int n = elements.length - head;
+    System.arraycopy(elements, head, tmp, 0, n);
+    System.arraycopy(elements, 0, tmp, n, head);
+    elements = tmp;
+    head = 0;
+  }
+  
+  @Override
+  public String toString() {
+    int[] arr = new int[size];
+    for(int i = 0; i < size; i++)
+      arr[i] = elements[(head + i) & (elements.length - 1)];
+    return Arrays.toString(arr);
+  }
+  
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.search;
+
+import gov.nasa.jpf.jdart.constraints.InternalConstraintsTree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Random-path search: walks down from the root, choosing uniformly among the
+ * successors that still have open nodes below them. This favors nodes
+ * close to the root without starving deep subtrees.
+ * 
+ * Unexplored nodes the tree would reject (see 
+ * {@link InternalConstraintsTree#isSelectable(int)}) are not walked into.
+ * If the walk does not end in a selectable node, a random candidate is 
+ * picked and removed, so rejected candidates are handed to the tree (and 
+ * dropped or deferred by it) only once. Candidates that have been explored
+ * in the meantime, in particular those returned by the walk, are dropped
+ * whenever the number of candidates has doubled.
+ */
+public class RandomPath extends SearchStrategy {
+  
+  private final Random random;
+  private final IntDeque candidates = new IntDeque();
+  // number of candidates at which explored ones are dropped
+  private int limit = 64;
+  private final List<Integer> open = new ArrayList<>();
+  
+  public RandomPath() {
+    this.random = new Random();
+  }
+  
+  public RandomPath(int seed) {
+    this.random = new Random(seed);
+  }
+
+  @Override
+  public void add(int node) {
+    if(candidates.size() >= limit)
+      compact();
+    candidates.offer(node);
+  }
+  
+  private void compact() {
+    for(int i = candidates.size(); i > 0; i--) {
+      int n = candidates.poll();
+      if(tree.isVirgin(n))
+        candidates.offer(n);
+    }
+    limit = Math.max(64, candidates.size() << 1);
+  }
+
+  @Override
+  public int next() {
+    int n = walk();
+    if(n != InternalConstraintsTree.NONE)
+      return n;
+    if(candidates.isEmpty())
+      return InternalConstraintsTree.NONE;
+    int idx = random.nextInt(candidates.size());
+    n = candidates.get(idx);
+    candidates.set(idx, candidates.get(candidates.size() - 1));
+    candidates.pollLast();
+    return n;
+  }
+  
+  /**
+   * @return the number of candidates kept for the fallback
+   */
+  int numCandidates() {
+    return candidates.size();
+  }
+  
+  private int walk() {
+    int n = tree.getRoot();
+    while(!tree.isVirgin(n)) {
+      open.clear();
+      for(int i = 0; i < tree.getNumChildren(n); i++) {
+        int c = tree.getChild(n, i);
+        if(tree.isOpen(c) && (!tree.isVirgin(c) || tree.isSelectable(c)))
+          open.add(c);
+      }
+      if(open.isEmpty())
+        return InternalConstraintsTree.NONE;
+      n = open.get(random.nextInt(open.size()));
+    }
+    return n;
+  }
+  
+}
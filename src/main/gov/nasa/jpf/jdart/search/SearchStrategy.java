@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.search;
+
+import gov.nasa.jpf.jdart.constraints.InternalConstraintsTree;
+
+/**
+ * A SearchStrategy decides which open node of the constraints tree
+ * is targeted next by the constraint solver.
+ * 
+ * The tree reports every node that may become a target via {@link #add(int)}
+ * (or {@link #addChildren(int, int)} for the successors of a new decision).
+ * Candidates are never removed explicitly: {@link #next()} may return nodes
+ * that have been explored in the meantime, those are skipped by the tree.
+ * Nodes are identified by their integer id in the tree.
+ */
+public abstract class SearchStrategy {
+  
+  protected InternalConstraintsTree tree;
+  
+  /**
+   * called once by the constraints tree before the exploration starts.
+   * 
+   * @param tree the tree this strategy is operating on
+   */
+  public void initialize(InternalConstraintsTree tree) {
+    this.tree = tree;
+  }
+  
+  /**
+   * adds a single candidate node.
+   * 
+   * @param node a (still unexplored) node of the tree
+   */
+  public abstract void add(int node);
+  
+  /**
+   * adds the successors of a newly recorded decision. The successor
+   * at <tt>takenIdx</tt> is the one currently being executed.
+   * 
+   * @param parent the decision node
+   * @param takenIdx index of the branch taken by the current execution
+   */
+  public void addChildren(int parent, int takenIdx) {
+    for(int i = 0; i < tree.getNumChildren(parent); i++) {
+      add(tree.getChild(parent, i));
+    }
+  }
+  
+  /**
+   * removes and returns the next candidate.
+   * 
+   * @return the next candidate, or {@link InternalConstraintsTree#NONE} if
+   * there are none left
+   */
+  public abstract int next();
+  
+  /**
+   * returns (without removing) up to <tt>k</tt> candidates in the order
+   * in which {@link #next()} would return them if no further candidates
+   * were added. Used for speculative solving; strategies that cannot
+   * predict their choices return an empty array.
+   * 
+   * @param k maximum number of candidates
+   * @return the next candidates
+   */
+  public int[] peek(int k) {
+    return new int[0];
+  }
+  
+  /**
+   * called when an execution has been completed, i.e., a path result
+   * has been recorded.
+   * 
+   * @param leaf the node at which the path ended
+   * @param newBranches number of branches covered for the first time
+   * during this execution
+   */
+  public void pathCompleted(int leaf, int newBranches) {
+  }
+  
+}
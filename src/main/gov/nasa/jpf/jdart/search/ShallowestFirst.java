@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.search;
+
+import gov.nasa.jpf.jdart.constraints.InternalConstraintsTree;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Always targets the open node closest to the root. Nodes on the
+ * same depth are visited in the order in which they were discovered.
+ */
+public class ShallowestFirst extends SearchStrategy {
+  
+  private static final class Entry {
+    private final int node;
+    private final int depth;
+    private final long seq;
+    
+    public Entry(int node, int depth, long seq) {
+      this.node = node;
+      this.depth = depth;
+      this.seq = seq;
+    }
+  }
+  
+  private static final Comparator<Entry> COMPARATOR = new Comparator<Entry>() {
+    @Override
+    public int compare(Entry e1, Entry e2) {
+      int d = Integer.compare(e1.depth, e2.depth);
+      if(d != 0)
+        return d;
+      return Long.compare(e1.seq, e2.seq);
+    }
+  };
+  
+  private final PriorityQueue<Entry> queue = new PriorityQueue<>(64, COMPARATOR);
+  private long seq = 0;
+
+  @Override
+  public void add(int node) {
+    queue.offer(new Entry(node, tree.getDepth(node), seq++));
+  }
+
+  @Override
+  public int next() {
+    Entry e = queue.poll();
+    return (e != null) ? e.node : InternalConstraintsTree.NONE;
+  }
+
+  @Override
+  public int[] peek(int k) {
+    Entry[] entries = new Entry[Math.min(k, queue.size())];
+    int[] res = new int[entries.length];
+    for(int i = 0; i < entries.length; i++) {
+      entries[i] = queue.poll();
+      res[i] = entries[i].node;
+    }
+    for(Entry e : entries)
+      queue.offer(e);
+    return res;
+  }
+  
+}
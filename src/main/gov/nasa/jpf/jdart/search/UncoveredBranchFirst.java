@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.search;
+
+import java.util.Arrays;
+
+/**
+ * Prefers open nodes behind branches that have not been covered by any
+ * execution so far. Coverage is re-checked when a node is selected, nodes
+ * whose branch has been covered in the meantime are demoted. Within each
+ * group, nodes are visited depth-first.
+ */
+public class UncoveredBranchFirst extends SearchStrategy {
+  
+  private final IntDeque uncovered = new IntDeque();
+  private final IntDeque covered = new IntDeque();
+
+  @Override
+  public void add(int node) {
+    if(tree.isCovered(node))
+      covered.push(node);
+    else
+      uncovered.push(node);
+  }
+
+  @Override
+  public int next() {
+    int n;
+    while((n = uncovered.poll()) >= 0) {
+      if(!tree.isCovered(n))
+        return n;
+      covered.push(n);
+    }
+    return covered.poll();
+  }
+
+  @Override
+  public int[] peek(int k) {
+    int[] res = new int[Math.min(k, uncovered.size() + covered.size())];
+    int n = 0;
+    for(int i = 0; i < uncovered.size() && n < res.length; i++) {
+      if(!tree.isCovered(uncovered.get(i)))
+        res[n++] = uncovered.get(i);
+    }
+    for(int i = 0; i < covered.size() && n < res.length; i++)
+      res[n++] = covered.get(i);
+    return Arrays.copyOf(res, n);
+  }
+  
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.solvers.caching;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.SolverContext;
+import gov.nasa.jpf.constraints.api.Valuation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Answers queries from a {@link QueryCache} where possible. The cache is
+ * shared by all contexts created by this solver.
+ */
+public class CachingSolver extends ConstraintSolver {
+
+  private final ConstraintSolver solver;
+  
+  private final QueryCache cache;
+    
+  public CachingSolver(ConstraintSolver solver, QueryCache cache) {
+    this.solver = solver;
+    this.cache = cache;
+  }
+    
+  @Override
+  public Result solve(Expression<Boolean> exprsn, Valuation vltn) {
+    List<QueryCache.Conjunct> conjuncts = new ArrayList<>();
+    cache.addConjuncts(exprsn, conjuncts);
+    QueryCache.Query query = cache.canonicalize(conjuncts);
+    Result res = cache.lookup(query, vltn);
+    if (res != null) {
+      return res;
+    }
+    Valuation model = new Valuation();
+    res = solver.solve(exprsn, model);
+    cache.store(query, res, model);
+    if (vltn != null) {
+      vltn.putAll(model);
+    }
+    return res;
+  }
+  
+  @Override
+  public CachingSolverContext createContext() {  
+    SolverContext ctx = solver.createContext();
+    return new CachingSolverContext(ctx, cache);
+  }
+}
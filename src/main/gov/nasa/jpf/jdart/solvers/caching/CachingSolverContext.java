@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.solvers.caching;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.SolverContext;
+import gov.nasa.jpf.constraints.api.Valuation;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps track of the asserted constraints and consults the query cache before
+ * passing a query to the underlying context.
+ */
+public class CachingSolverContext extends SolverContext {
+
+  private static class StackElement {    
+    final ArrayList<QueryCache.Conjunct> conjuncts = new ArrayList<>();
+  }
+  
+  private final SolverContext ctx;
+
+  private final QueryCache cache;
+
+  private final ArrayList<StackElement> stack = new ArrayList<>();
+  
+  private StackElement current;
+  
+  public CachingSolverContext(SolverContext ctx, QueryCache cache) {
+    this.ctx = ctx;
+    this.cache = cache;
+    this.current = new StackElement();
+    this.stack.add(current);
+  }
+    
+  @Override
+  public void push() {
+    ctx.push();
+    current = new StackElement();
+    stack.add(current);
+  }
+
+  @Override
+  public void pop(int n) {
+    ctx.pop(n);
+    for (int i=0; i<n; i++) {
+      stack.remove(stack.size() -1);
+    }
+    current = stack.get(stack.size() - 1);
+  }
+
+  @Override
+  public Result solve(Valuation vltn) {
+    List<QueryCache.Conjunct> conjuncts = new ArrayList<>();
+    for (StackElement se : stack) {
+      conjuncts.addAll(se.conjuncts);
+    }
+    QueryCache.Query query = cache.canonicalize(conjuncts);
+    Result res = cache.lookup(query, vltn);
+    if (res != null) {
+      return res;
+    }
+    Valuation model = new Valuation();
+    res = ctx.solve(model);
+    cache.store(query, res, model);
+    if (vltn != null) {
+      vltn.putAll(model);
+    }
+    return res;
+  }
+
+  @Override
+  public void add(List<Expression<Boolean>> list) { 
+    for (Expression<Boolean> e : list) {
+      // only record what the underlying context accepted
+      ctx.add(e);
+      cache.addConjuncts(e, current.conjuncts);
+    }
+  }
+
+  @Override
+  public void dispose() {
+    ctx.dispose();
+  }
+  
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.solvers.caching;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver;
+import gov.nasa.jpf.constraints.solvers.ConstraintSolverFactory;
+import gov.nasa.jpf.constraints.solvers.ConstraintSolverProvider;
+import java.util.Properties;
+
+/**
+ * Provides a solver that caches results of an underlying solver. 
+ * 
+ * caching.dp : the underlying solver (default: z3)
+ * caching.size : maximal number of cached queries (default: 10000)
+ */
+public class CachingSolverProvider implements ConstraintSolverProvider {
+
+  @Override
+  public String[] getNames() {
+    return new String[]{"caching"};
+  }
+
+  @Override
+  public ConstraintSolver createSolver(Properties config) {
+    String dp = "z3";
+    if (config.containsKey("caching.dp")) {
+      dp = config.getProperty("caching.dp");
+    }
+
+    int size = 10000;
+    if (config.containsKey("caching.size")) {
+      size = Integer.parseInt(config.getProperty("caching.size"));
+    }
+    
+    ConstraintSolver solver = ConstraintSolverFactory.getRootFactory().createSolver(dp, config);
+    return new CachingSolver(solver, new QueryCache(size));
+  }
+
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.solvers.caching;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.LogicalOperator;
+import gov.nasa.jpf.constraints.expressions.PropositionalCompound;
+import gov.nasa.jpf.constraints.util.ExpressionUtil;
+import gov.nasa.jpf.util.SimpleProfiler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Function;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * LRU cache for solver results (models and unsatisfiability verdicts).
+ * 
+ * Queries are conjunctions of constraints. They are normalized by splitting
+ * top-level conjunctions, sorting the conjuncts (by shape, then by the names
+ * of their variables), and renaming variables in order of their first 
+ * occurrence. Hence, the same conjunction solved under
+ * a different prefix or over different variables (e.g., in a re-entered
+ * loop) hits the same entry. 
+ * 
+ * Normalized conjuncts are computed once per expression object and interned, 
+ * which makes building the key of a query cheap for the constraints tree,
+ * where the same expression objects are re-asserted over and over.
+ */
+public class QueryCache {
+  
+  public static final String HITS = "solver-cache-hits";
+  public static final String MISSES = "solver-cache-misses";
+  
+  /**
+   * a conjunct with its variables renamed to their local index
+   */
+  static final class Conjunct {
+    private final String shape;
+    private final Variable<?>[] vars;
+    
+    private Conjunct(String shape, Variable<?>[] vars) {
+      this.shape = shape;
+      this.vars = vars;
+    }
+    
+    private boolean sameAs(Conjunct other) {
+      return shape == other.shape && Arrays.equals(vars, other.vars);
+    }
+  }
+  
+  /**
+   * a normalized query
+   */
+  static final class Query {
+    private final String key;
+    private final Variable<?>[] vars;
+    
+    private Query(String key, Variable<?>[] vars) {
+      this.key = key;
+      this.vars = vars;
+    }
+  }
+  
+  private static final class Entry {
+    private final Result result;
+    private final Object[] values;
+    
+    private Entry(Result result, Object[] values) {
+      this.result = result;
+      this.values = values;
+    }
+  }
+  
+  private static final Comparator<Conjunct> ORDER = new Comparator<Conjunct>() {
+    @Override
+    public int compare(Conjunct c1, Conjunct c2) {
+      int res = c1.shape.compareTo(c2.shape);
+      // conjuncts of the same shape have the same number of variables 
+      // with the same types, they are ordered by the variables' names
+      for (int i=0; res == 0 && i<c1.vars.length; i++) {
+        res = c1.vars[i].getName().compareTo(c2.vars[i].getName());
+      }
+      return res;
+    }
+  };
+  
+  private final Map<String,Entry> entries;
+  
+  private final Cache<Expression<Boolean>,Conjunct> conjuncts 
+          = CacheBuilder.newBuilder().weakKeys().build();
+  
+  private final Interner<String> shapes = Interners.newWeakInterner();
+
+  public QueryCache(final int size) {
+    this.entries = new LinkedHashMap<String,Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > size;
+      }
+    };
+  }
+  
+  /**
+   * splits the given expression into normalized conjuncts
+   * 
+   * @param expr the expression
+   * @param result list the conjuncts are added to 
+   */
+  void addConjuncts(Expression<Boolean> expr, List<Conjunct> result) {
+    if (expr instanceof PropositionalCompound) {
+      PropositionalCompound pc = (PropositionalCompound)expr;
+      if (pc.getOperator() == LogicalOperator.AND) {
+        addConjuncts(pc.getLeft(), result);
+        addConjuncts(pc.getRight(), result);
+        return;
+      }
+    }
+    if (ExpressionUtil.isTrue(expr)) {
+      return;
+    }
+    Conjunct c = conjuncts.getIfPresent(expr);
+    if (c == null) {
+      c = normalize(expr);
+      conjuncts.put(expr, c);
+    }
+    result.add(c);
+  }
+  
+  private Conjunct normalize(Expression<Boolean> expr) {
+    Set<Variable<?>> vars = new LinkedHashSet<>();
+    expr.collectFreeVariables(vars);
+    final Map<String,String> names = new HashMap<>();
+    for (Variable<?> v : vars) {
+      names.put(v.getName(), "_" + names.size());
+    }
+    Expression<Boolean> renamed = ExpressionUtil.renameVars(expr, new Function<String,String>() {
+      @Override
+      public String apply(String name) {
+        String n = names.get(name);
+        return (n != null) ? n : name;
+      }
+    });
+    String shape = shapes.intern(renamed.toString(Expression.INCLUDE_VARIABLE_TYPE));
+    return new Conjunct(shape, vars.toArray(new Variable<?>[vars.size()]));
+  }
+  
+  /**
+   * computes the normal form of the conjunction of the given conjuncts
+   * 
+   * @param conjuncts the conjuncts
+   * @return the normalized query
+   */
+  Query canonicalize(List<Conjunct> conjuncts) {
+    List<Conjunct> sorted = new ArrayList<>(conjuncts);
+    Collections.sort(sorted, ORDER);
+    
+    Map<Variable<?>,Integer> index = new HashMap<>();
+    List<Variable<?>> vars = new ArrayList<>();
+    StringBuilder key = new StringBuilder();
+    Conjunct last = null;
+    for (Conjunct c : sorted) {
+      if (last != null && c.sameAs(last)) {
+        continue;
+      }
+      last = c;
+      key.append(c.shape).append('[');
+      for (Variable<?> v : c.vars) {
+        Integer idx = index.get(v);
+        if (idx == null) {
+          idx = vars.size();
+          index.put(v, idx);
+          vars.add(v);
+        }
+        key.append(idx).append(',');
+      }
+      key.append("];");
+    }
+    return new Query(key.toString(), vars.toArray(new Variable<?>[vars.size()]));
+  }
+  
+  /**
+   * looks up the result for a query. For satisfiable queries, the model is 
+   * stored in the given valuation.
+   * 
+   * @param query the query
+   * @param vltn valuation for storing the model (may be <tt>null</tt>)
+   * @return the cached result or <tt>null</tt>
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  Result lookup(Query query, Valuation vltn) {
+    Entry e;
+    synchronized (entries) {
+      e = entries.get(query.key);
+    }
+    if (e == null) {
+      SimpleProfiler.count(MISSES);
+      return null;
+    }
+    SimpleProfiler.count(HITS);
+    if (vltn != null && e.values != null) {
+      for (int i=0; i<e.values.length; i++) {
+        if (e.values[i] != null) {
+          vltn.setValue((Variable)query.vars[i], e.values[i]);
+        }
+      }
+    }
+    return e.result;
+  }
+  
+  /**
+   * stores the result for a query
+   * 
+   * @param query the query
+   * @param res the result, DONT_KNOW is not cached
+   * @param model the model (for SAT)
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  void store(Query query, Result res, Valuation model) {
+    Object[] values = null;
+    switch (res) {
+    case SAT:
+      values = new Object[query.vars.length];
+      for (int i=0; i<values.length; i++) {
+        Variable v = query.vars[i];
+        if (model.containsValueFor(v)) {
+          values[i] = model.getValue(v);
+        }
+      }
+      break;
+    case UNSAT:
+      break;
+    default:
+      return;
+    }
+    synchronized (entries) {
+      entries.put(query.key, new Entry(res, values));
+    }
+  }
+  
+}
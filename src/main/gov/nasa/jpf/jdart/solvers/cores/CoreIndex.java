@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.solvers.cores;
+
+import gov.nasa.jpf.constraints.api.Expression;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of unsatisfiable cores. Each core is watched by one of its 
+ * constraints, so a set of constraints only has to be checked against 
+ * the cores watched by its members.
+ */
+public class CoreIndex {
+  
+  private final Map<Expression<Boolean>,List<List<Expression<Boolean>>>> watched = new HashMap<>();
+  
+  private int size = 0;
+  
+  public synchronized void add(List<Expression<Boolean>> core) {
+    Expression<Boolean> watch = core.get(0);
+    List<List<Expression<Boolean>>> cores = watched.get(watch);
+    if (cores == null) {
+      cores = new ArrayList<>();
+      watched.put(watch, cores);
+    }
+    cores.add(new ArrayList<>(core));
+    size++;
+  }
+  
+  /**
+   * checks whether the given set of constraints contains a known core
+   * 
+   * @param constraints the constraints
+   * @return <tt>true</tt> if the constraints are known to be unsatisfiable
+   */
+  public synchronized boolean containsCore(Set<Expression<Boolean>> constraints) {
+    for (Expression<Boolean> c : constraints) {
+      List<List<Expression<Boolean>>> cores = watched.get(c);
+      if (cores == null) {
+        continue;
+      }
+      for (Collection<Expression<Boolean>> core : cores) {
+        if (constraints.containsAll(core)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+  
+  public synchronized int size() {
+    return size;
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.solvers.cores;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver;
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.SolverContext;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.util.ExpressionUtil;
+import gov.nasa.jpf.util.SimpleProfiler;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Refutes queries that contain a known unsatisfiable core. 
+ * 
+ * The underlying solvers do not provide unsatisfiable cores, so cores are 
+ * computed here when a query turns out to be unsatisfiable: the constraints 
+ * sharing variables (transitively) with the top-most stack level are checked
+ * first, then constraints are removed one by one as long as the rest stays
+ * unsatisfiable (bounded by a maximal number of solver calls). 
+ */
+public class UnsatCoreSolverContext extends SolverContext {
+  
+  public static final String CORE_HITS = "unsat-core-hits";
+  public static final String CORES = "unsat-cores";
+  public static final String CORE_CHECKS = "unsat-core-checks";
+
+  private static class StackElement {    
+    final ArrayList<Expression<Boolean>> exprs = new ArrayList<>();
+  }
+  
+  private final SolverContext ctx;
+  
+  private final ConstraintSolver solver;
+  
+  private final CoreIndex index;
+  
+  private final int maxChecks;
+
+  private final ArrayList<StackElement> stack = new ArrayList<>();
+  
+  private StackElement current;
+
+  public UnsatCoreSolverContext(SolverContext ctx, ConstraintSolver solver, CoreIndex index, int maxChecks) {
+    this.ctx = ctx;
+    this.solver = solver;
+    this.index = index;
+    this.maxChecks = maxChecks;
+    this.current = new StackElement();
+    this.stack.add(current);
+  }
+    
+  @Override
+  public void push() {
+    ctx.push();
+    current = new StackElement();
+    stack.add(current);
+  }
+
+  @Override
+  public void pop(int n) {
+    ctx.pop(n);
+    for (int i=0; i<n; i++) {
+      stack.remove(stack.size() -1);
+    }
+    current = stack.get(stack.size() - 1);
+  }
+
+  @Override
+  public void add(List<Expression<Boolean>> list) { 
+    ctx.add(list);
+    current.exprs.addAll(list);
+  }
+
+  @Override
+  public void dispose() {
+    ctx.dispose();
+  }
+
+  @Override
+  public Result solve(Valuation vltn) {
+    Set<Expression<Boolean>> all = new LinkedHashSet<>();
+    for (StackElement se : stack) {
+      all.addAll(se.exprs);
+    }
+    if (index.containsCore(all)) {
+      SimpleProfiler.count(CORE_HITS);
+      return Result.UNSAT;
+    }
+    
+    Result res = ctx.solve(vltn);
+    if (res == Result.UNSAT) {
+      List<Expression<Boolean>> core = extractCore(all);
+      if (!core.isEmpty()) {
+        index.add(core);
+        SimpleProfiler.count(CORES);
+      }
+    }
+    return res;
+  }
+  
+  private List<Expression<Boolean>> extractCore(Set<Expression<Boolean>> all) {
+    int checks = 0;
+    
+    // the top-most level was the only new one, so (usually) the core lies
+    // in its connected component
+    List<Expression<Boolean>> core = component(all);
+    if (core.size() < all.size()) {
+      // the component is only a core if it is unsatisfiable by itself
+      if (checks < maxChecks) {
+        checks++;
+        if (!isUnsat(core)) {
+          core = new ArrayList<>(all);
+        }
+      }
+      else {
+        core = new ArrayList<>(all);
+      }
+    }
+    
+    for (int i=core.size()-1; i>=0 && checks < maxChecks && core.size() > 1; i--) {
+      List<Expression<Boolean>> candidate = new ArrayList<>(core);
+      candidate.remove(i);
+      checks++;
+      if (isUnsat(candidate)) {
+        core = candidate;
+      }
+    }
+    
+    SimpleProfiler.count(CORE_CHECKS, checks);
+    return core;
+  }
+  
+  private boolean isUnsat(List<Expression<Boolean>> exprs) {
+    return solver.isSatisfiable(ExpressionUtil.and(exprs)) == Result.UNSAT;
+  }
+  
+  private List<Expression<Boolean>> component(Set<Expression<Boolean>> all) {
+    List<Expression<Boolean>> rest = new ArrayList<>(all);
+    List<Expression<Boolean>> comp = new ArrayList<>();
+    Set<Variable<?>> vars = new HashSet<>();
+    for (Expression<Boolean> e : current.exprs) {
+      if (rest.remove(e)) {
+        comp.add(e);
+        e.collectFreeVariables(vars);
+      }
+    }
+    if (comp.isEmpty()) {
+      return new ArrayList<>(all);
+    }
+    
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (int i=rest.size()-1; i>=0; i--) {
+        Expression<Boolean> e = rest.get(i);
+        Set<Variable<?>> evars = ExpressionUtil.freeVariables(e);
+        if (!disjoint(vars, evars)) {
+          rest.remove(i);
+          comp.add(e);
+          vars.addAll(evars);
+          changed = true;
+        }
+      }
+    }
+    return comp;
+  }
+  
+  private static boolean disjoint(Set<Variable<?>> s1, Set<Variable<?>> s2) {
+    for (Variable<?> v : s2) {
+      if (s1.contains(v)) {
+        return false;
+      }
+    }
+    return true;
+  }
+  
+}
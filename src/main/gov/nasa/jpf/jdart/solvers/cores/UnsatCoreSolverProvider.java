@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.solvers.cores;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver;
+import gov.nasa.jpf.constraints.solvers.ConstraintSolverFactory;
+import gov.nasa.jpf.constraints.solvers.ConstraintSolverProvider;
+import java.util.Properties;
+
+/**
+ * Provides a solver that records unsatisfiable cores and refutes queries
+ * containing a known core without calling the underlying solver.
+ * 
+ * unsatcores.dp : the underlying solver (default: z3)
+ * unsatcores.max_checks : maximal number of solver calls for minimizing 
+ *                         a core (default: 32)
+ */
+public class UnsatCoreSolverProvider implements ConstraintSolverProvider {
+
+  @Override
+  public String[] getNames() {
+    return new String[]{"unsatcores"};
+  }
+
+  @Override
+  public ConstraintSolver createSolver(Properties config) {
+    String dp = "z3";
+    if (config.containsKey("unsatcores.dp")) {
+      dp = config.getProperty("unsatcores.dp");
+    }
+    
+    int maxChecks = 32;
+    if (config.containsKey("unsatcores.max_checks")) {
+      maxChecks = Integer.parseInt(config.getProperty("unsatcores.max_checks"));
+    }
+    
+    ConstraintSolver solver = ConstraintSolverFactory.getRootFactory().createSolver(dp, config);
+    return new UnsatCoreSolver(solver, new CoreIndex(), maxChecks);
+  }
+
+}
@@ -39,6 +39,7 @@ import gov.nasa.jpf.constraints.expressions.functions.math.axioms.LogProperties;
 import gov.nasa.jpf.constraints.expressions.functions.math.axioms.SinProperties;
 import gov.nasa.jpf.constraints.expressions.functions.math.axioms.SqrtProperties;
 import gov.nasa.jpf.constraints.expressions.functions.math.axioms.TanProperties;
+import gov.nasa.jpf.jdart.constraints.ExpressionCompiler;
 import gov.nasa.jpf.util.JPFLogger;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -135,6 +136,8 @@ public class FunctionSolverContext extends SolverContext {
    */
   private final Map<String, Boolean> cache = new HashMap<>();
   
+  private final ExpressionCompiler compiler = new ExpressionCompiler();
+  
   public FunctionSolverContext(SolverContext ctx, boolean useDomainBounds, boolean useRangeBounds,
           boolean useDefinitions, boolean instantiate) {
     this.ctx = ctx;
@@ -424,9 +427,10 @@ public class FunctionSolverContext extends SolverContext {
   
   
   private boolean evaluate(Valuation vltn) {
+    ExpressionCompiler.Slots slots = compiler.slots(vltn);
     for (StackElement se : stack) {
       for (Expression<Boolean> expr : se.exprsn) {
-        if (!expr.evaluate(vltn)) {
+        if (!compiler.compile(expr).evaluate(slots)) {
           logger.finest(vltn + " |/= " + expr);
           return false;
         }
@@ -19,6 +19,7 @@ import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
 import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.api.SolverContext;
 import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.jdart.constraints.ExpressionCompiler;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -40,6 +41,8 @@ public class SimpleSelectiveSolverContext extends SolverContext {
   private StackElement current;
   
   private final boolean evaluate;
+  
+  private final ExpressionCompiler compiler = new ExpressionCompiler();
 
   public SimpleSelectiveSolverContext(SolverContext ctx, ExpressionFilter filter, boolean evaluate) {
     this.ctx = ctx;
@@ -106,9 +109,10 @@ public class SimpleSelectiveSolverContext extends SolverContext {
   }  
   
   private boolean evaluate(Valuation vltn) {
+    ExpressionCompiler.Slots slots = compiler.slots(vltn);
     for (StackElement se : dkStack) {
       for (Expression<Boolean> expr : se.exprsn) {
-        if (!expr.evaluate(vltn)) {
+        if (!compiler.compile(expr).evaluate(slots)) {
           return false;
         }
       }
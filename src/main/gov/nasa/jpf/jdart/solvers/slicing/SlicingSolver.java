@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.solvers.slicing;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.SolverContext;
+import gov.nasa.jpf.constraints.api.Valuation;
+
+/**
+ * Slicing is only applied in solver contexts, where a model of the
+ * previously asserted constraints is available. Plain queries are passed
+ * on unchanged.
+ */
+public class SlicingSolver extends ConstraintSolver {
+
+  private final ConstraintSolver solver;
+    
+  public SlicingSolver(ConstraintSolver solver) {
+    this.solver = solver;
+  }
+    
+  @Override
+  public Result solve(Expression<Boolean> exprsn, Valuation vltn) {
+    return solver.solve(exprsn, vltn);
+  }
+  
+  @Override
+  public SlicingSolverContext createContext() {  
+    SolverContext ctx = solver.createContext();
+    return new SlicingSolverContext(ctx, solver);
+  }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.solvers.slicing;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver;
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.SolverContext;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.util.ExpressionUtil;
+import gov.nasa.jpf.util.SimpleProfiler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Constraint independence slicing (as in KLEE). 
+ * 
+ * Only the constraints asserted on the top-most stack level (i.e., the newly
+ * negated branch) and the constraints transitively sharing variables with them
+ * are sent to the solver. The values of all other variables are taken from a
+ * witness, the most recent model known to satisfy the lower stack levels. 
+ * 
+ * Constraints that are not satisfied by the witness are added to the slice, so
+ * the combined valuation always satisfies all asserted constraints. If the
+ * slice comprises all constraints, the underlying (incremental) context is used.
+ */
+public class SlicingSolverContext extends SolverContext {
+  
+  public static final String QUERY_CONJUNCTS = "solver-query-conjuncts";
+  public static final String SLICED_CONJUNCTS = "solver-sliced-conjuncts";
+
+  private static final class Conjunct {
+    final Expression<Boolean> expr;
+    final Variable<?>[] vars;
+    
+    Conjunct(Expression<Boolean> expr) {
+      this.expr = expr;
+      Set<Variable<?>> vs = ExpressionUtil.freeVariables(expr);
+      this.vars = vs.toArray(new Variable<?>[vs.size()]);
+    }
+  }
+  
+  private static class StackElement {    
+    final ArrayList<Conjunct> conjuncts = new ArrayList<>();
+    Valuation witness = null;
+  }
+  
+  private final SolverContext ctx;
+  
+  private final ConstraintSolver solver;
+
+  private final ArrayList<StackElement> stack = new ArrayList<>();
+  
+  private StackElement current;
+
+  public SlicingSolverContext(SolverContext ctx, ConstraintSolver solver) {
+    this.ctx = ctx;
+    this.solver = solver;
+    this.current = new StackElement();
+    this.stack.add(current);
+  }
+    
+  @Override
+  public void push() {
+    ctx.push();
+    current = new StackElement();
+    stack.add(current);
+  }
+
+  @Override
+  public void pop(int n) {
+    ctx.pop(n);
+    Valuation witness = null;
+    for (int i=0; i<n; i++) {
+      StackElement se = stack.remove(stack.size() -1);
+      if (witness == null) {
+        witness = se.witness;
+      }
+    }
+    current = stack.get(stack.size() - 1);
+    // a model of the popped levels also satisfies the remaining ones
+    if (witness != null) {
+      current.witness = witness;
+    }
+  }
+
+  @Override
+  public void add(List<Expression<Boolean>> list) { 
+    ctx.add(list);
+    for (Expression<Boolean> e : list) {
+      current.conjuncts.add(new Conjunct(e));
+    }
+    current.witness = null;
+  }
+
+  @Override
+  public void dispose() {
+    ctx.dispose();
+  }
+
+  @Override
+  public Result solve(Valuation vltn) {
+    Valuation witness = findWitness();
+    if (witness == null) {
+      return solveAll(vltn);
+    }
+    
+    List<Conjunct> all = new ArrayList<>();
+    for (StackElement se : stack) {
+      all.addAll(se.conjuncts);
+    }
+    List<Conjunct> slice = slice(all, witness);
+    
+    SimpleProfiler.count(QUERY_CONJUNCTS, all.size());
+    SimpleProfiler.count(SLICED_CONJUNCTS, slice.size());
+    if (slice.size() == all.size()) {
+      return solveAll(vltn);
+    }
+    
+    Set<Variable<?>> sliceVars = new HashSet<>();
+    List<Expression<Boolean>> exprs = new ArrayList<>(slice.size());
+    for (Conjunct c : slice) {
+      exprs.add(c.expr);
+      for (Variable<?> v : c.vars) {
+        sliceVars.add(v);
+      }
+    }
+    
+    Valuation model = new Valuation();
+    // an empty slice means that the witness already satisfies everything
+    Result res = exprs.isEmpty() ? Result.SAT : solver.solve(ExpressionUtil.and(exprs), model);
+    if (res == Result.DONT_KNOW) {
+      return solveAll(vltn);
+    }
+    if (res != Result.SAT) {
+      return res;
+    }
+    
+    Valuation combined = new Valuation();
+    for (Variable<?> v : witness.getVariables()) {
+      if (!sliceVars.contains(v)) {
+        combined.addEntry(witness.getEntry(v));
+      }
+    }
+    combined.putAll(model);
+    current.witness = combined;
+    if (vltn != null) {
+      vltn.putAll(combined);
+    }
+    return res;
+  }
+  
+  private Result solveAll(Valuation vltn) {
+    Valuation model = new Valuation();
+    Result res = ctx.solve(model);
+    if (res == Result.SAT) {
+      current.witness = model;
+      if (vltn != null) {
+        vltn.putAll(model);
+      }
+    }
+    return res;
+  }
+  
+  private Valuation findWitness() {
+    for (int i=stack.size()-1; i>=0; i--) {
+      Valuation w = stack.get(i).witness;
+      if (w != null) {
+        return w;
+      }
+    }
+    return null;
+  }
+  
+  /**
+   * computes the slice: starting from the constraints on the top-most level,
+   * adds all constraints sharing variables with the slice and all constraints 
+   * that are not satisfied by the witness.
+   */
+  private List<Conjunct> slice(List<Conjunct> all, Valuation witness) {
+    Map<Variable<?>,List<Conjunct>> byVar = new HashMap<>();
+    for (Conjunct c : all) {
+      for (Variable<?> v : c.vars) {
+        List<Conjunct> l = byVar.get(v);
+        if (l == null) {
+          l = new ArrayList<>();
+          byVar.put(v, l);
+        }
+        l.add(c);
+      }
+    }
+    
+    Set<Conjunct> inSlice = new HashSet<>();
+    Set<Variable<?>> visited = new HashSet<>();
+    ArrayDeque<Conjunct> worklist = new ArrayDeque<>(current.conjuncts);
+    
+    while (true) {
+      while (!worklist.isEmpty()) {
+        Conjunct c = worklist.poll();
+        if (!inSlice.add(c)) {
+          continue;
+        }
+        for (Variable<?> v : c.vars) {
+          if (visited.add(v)) {
+            worklist.addAll(byVar.get(v));
+          }
+        }
+      }
+      for (Conjunct c : all) {
+        if (!inSlice.contains(c) && !satisfies(witness, c)) {
+          worklist.add(c);
+        }
+      }
+      if (worklist.isEmpty()) {
+        break;
+      }
+    }
+    
+    List<Conjunct> slice = new ArrayList<>(inSlice.size());
+    for (Conjunct c : all) {
+      if (inSlice.contains(c)) {
+        slice.add(c);
+      }
+    }
+    return slice;
+  }
+  
+  private static boolean satisfies(Valuation witness, Conjunct c) {
+    try {
+      return c.expr.evaluate(witness);
+    }
+    catch (RuntimeException ex) {
+      // e.g., due to functions with undefined semantics
+      return false;
+    }
+  }
+  
+}
@@ -18,10 +18,10 @@ package gov.nasa.jpf.jdart.summaries;
 import gov.nasa.jpf.constraints.api.Valuation;
 import gov.nasa.jpf.jdart.constraints.ConstraintsTree;
 import gov.nasa.jpf.jdart.constraints.Path;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.List;
+
+import com.google.common.collect.Iterators;
 
 /**
  * A method summary is a collection of paths. 
@@ -42,9 +42,10 @@ public class MethodSummary implements Iterable<Path> {
   }
   
   public MethodSummary(String methodId, ConstraintsTree ct) {
-    this.okPaths = new ArrayList<>(ct.getCoveredPaths());
-    this.errorPaths = new ArrayList<>(ct.getErrorPaths());
-    this.dontKnowPaths = new ArrayList<>(ct.getDontKnowPaths());
+    // read-only views on the tree's leaf index
+    this.okPaths = ct.getCoveredPaths();
+    this.errorPaths = ct.getErrorPaths();
+    this.dontKnowPaths = ct.getDontKnowPaths();
     this.methodId = methodId;            
   }
   
@@ -100,10 +101,7 @@ public class MethodSummary implements Iterable<Path> {
 
   @Override
   public Iterator<Path> iterator() {
-    List<Path> allpaths = new ArrayList<>();
-    allpaths.addAll(this.okPaths);
-    allpaths.addAll(this.errorPaths);
-    allpaths.addAll(this.dontKnowPaths);
-    return allpaths.iterator();
+    return Iterators.concat(okPaths.iterator(), errorPaths.iterator(), 
+            dontKnowPaths.iterator());
   }
 }
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.termination;
+
+import gov.nasa.jpf.jdart.constraints.InternalConstraintsTree;
+
+/**
+ * Stops as soon as one of the given strategies is done.
+ */
+public class AnyOf extends TerminationStrategy {
+
+  private final TerminationStrategy[] strategies;
+
+  public AnyOf(TerminationStrategy... strategies) {
+    this.strategies = strategies;
+  }
+
+  @Override
+  public void pathCompleted(InternalConstraintsTree tree) {
+    for (TerminationStrategy t : strategies)
+      t.pathCompleted(tree);
+  }
+
+  @Override
+  public boolean isDone() {
+    for (TerminationStrategy t : strategies) {
+      if (t.isDone())
+        return true;
+    }
+    return false;
+  }
+
+  @Override
+  public String getReason() {
+    for (TerminationStrategy t : strategies) {
+      if (t.isDone())
+        return t.getReason();
+    }
+    return "Resolved all paths!";
+  }
+}
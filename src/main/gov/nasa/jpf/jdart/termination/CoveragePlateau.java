@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.termination;
+
+import gov.nasa.jpf.jdart.constraints.InternalConstraintsTree;
+
+/**
+ * Stops when no new branch has been covered for a number of paths or
+ * for some time. A limit of 0 disables the respective check.
+ */
+public class CoveragePlateau extends TerminationStrategy {
+
+  private final int maxPaths;
+  private final long maxMillis;
+
+  private InternalConstraintsTree tree = null;
+  private int covered = -1;
+  private int pathsWithoutProgress = 0;
+  private long lastProgressMillis = System.currentTimeMillis();
+
+  public CoveragePlateau(int paths) {
+    this(paths, 0);
+  }
+
+  public CoveragePlateau(int paths, int seconds) {
+    if (paths < 0 || seconds < 0 || (paths == 0 && seconds == 0))
+      throw new IllegalArgumentException("bogus limits " + paths + ", " + seconds);
+    this.maxPaths = paths;
+    this.maxMillis = seconds * 1000l;
+  }
+
+  @Override
+  public void pathCompleted(InternalConstraintsTree tree) {
+    int c = tree.getNumCoveredBranches();
+    // coverage is counted per analysis
+    if (tree != this.tree || c > covered) {
+      this.tree = tree;
+      covered = c;
+      pathsWithoutProgress = 0;
+      lastProgressMillis = System.currentTimeMillis();
+    }
+    else {
+      pathsWithoutProgress++;
+    }
+  }
+
+  private boolean pathsExceeded() {
+    return maxPaths > 0 && pathsWithoutProgress >= maxPaths;
+  }
+
+  private boolean timeExceeded() {
+    return maxMillis > 0 && System.currentTimeMillis() - lastProgressMillis >= maxMillis;
+  }
+
+  @Override
+  public boolean isDone() {
+    return pathsExceeded() || timeExceeded();
+  }
+
+  @Override
+  public String getReason() {
+    if (pathsExceeded())
+      return "No new branch covered in " + pathsWithoutProgress + " paths";
+    if (timeExceeded())
+      return "No new branch covered in " 
+              + (System.currentTimeMillis() - lastProgressMillis) / 1000 + " seconds";
+    return "Resolved all paths!";
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.termination;
+
+import gov.nasa.jpf.jdart.constraints.InternalConstraintsTree;
+
+/**
+ * Stops when the share of dont know paths of the running analysis exceeds
+ * a percentage. The ratio is checked only after a minimal number of paths.
+ */
+public class DontKnowRatio extends TerminationStrategy {
+
+  private final int percent;
+  private final int minPaths;
+
+  private InternalConstraintsTree tree = null;
+
+  public DontKnowRatio(int percent) {
+    this(percent, 20);
+  }
+
+  public DontKnowRatio(int percent, int minPaths) {
+    if (percent <= 0 || percent > 100)
+      throw new IllegalArgumentException("bogus percentage " + percent);
+    this.percent = percent;
+    this.minPaths = minPaths;
+  }
+
+  @Override
+  public void pathCompleted(InternalConstraintsTree tree) {
+    this.tree = tree;
+  }
+
+  @Override
+  public boolean isDone() {
+    if (tree == null)
+      return false;
+    int dontKnow = tree.getNumFailedTargets();
+    int total = tree.getNumCompletedPaths() + dontKnow;
+    return total >= minPaths && dontKnow * 100l >= total * (long) percent;
+  }
+
+  @Override
+  public String getReason() {
+    if (!isDone())
+      return "Resolved all paths!";
+    int dontKnow = tree.getNumFailedTargets();
+    int total = tree.getNumCompletedPaths() + dontKnow;
+    return "Too many DONT_KNOW paths (" + dontKnow + " of " + total + ", limit " + percent + "%)";
+  }
+}
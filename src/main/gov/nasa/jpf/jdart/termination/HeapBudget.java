@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.termination;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+
+/**
+ * Stops when the heap that is still used after the last garbage collection
+ * exceeds a percentage of the maximal heap size. The analysis completes 
+ * with the part of the constraints tree explored so far.
+ */
+public class HeapBudget extends TerminationStrategy {
+
+  private final int percent;
+  private final long maxHeap = Runtime.getRuntime().maxMemory();
+
+  private long used = 0;
+
+  public HeapBudget(int percent) {
+    if (percent <= 0 || percent > 100)
+      throw new IllegalArgumentException("bogus percentage " + percent);
+    this.percent = percent;
+  }
+
+  private static long usedAfterCollection() {
+    long used = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() != MemoryType.HEAP)
+        continue;
+      MemoryUsage u = pool.getCollectionUsage();
+      if (u != null)
+        used += u.getUsed();
+    }
+    return used;
+  }
+
+  @Override
+  public boolean isDone() {
+    used = usedAfterCollection();
+    return used * 100 >= maxHeap * percent;
+  }
+
+  @Override
+  public String getReason() {
+    if (used * 100 < maxHeap * percent)
+      return "Resolved all paths!";
+    return "Heap budget exhausted (" + (used >> 20) + " of " 
+            + (maxHeap >> 20) + " MB used, limit " + percent + "%)";
+  }
+}
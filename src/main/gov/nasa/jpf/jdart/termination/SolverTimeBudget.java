@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.termination;
+
+import gov.nasa.jpf.jdart.constraints.InternalConstraintsTree;
+
+/**
+ * Stops when the time spent in the constraint solver (summed over all 
+ * analyses) exceeds a limit.
+ */
+public class SolverTimeBudget extends TerminationStrategy {
+
+  private final long budgetNanos;
+
+  private InternalConstraintsTree tree = null;
+  // solver time of completed analyses
+  private long previous = 0;
+
+  public SolverTimeBudget(int seconds) {
+    this(0, seconds);
+  }
+
+  public SolverTimeBudget(int minutes, int seconds) {
+    this.budgetNanos = (minutes * 60l + seconds) * 1000000000l;
+    if (budgetNanos <= 0)
+      throw new IllegalArgumentException("bogus time limit " + minutes + ":" + seconds);
+  }
+
+  @Override
+  public void pathCompleted(InternalConstraintsTree tree) {
+    if (tree != this.tree) {
+      if (this.tree != null)
+        previous += this.tree.getSolverTime();
+      this.tree = tree;
+    }
+  }
+
+  private long spent() {
+    return previous + ((tree != null) ? tree.getSolverTime() : 0);
+  }
+
+  @Override
+  public boolean isDone() {
+    return spent() >= budgetNanos;
+  }
+
+  @Override
+  public String getReason() {
+    if (!isDone())
+      return "Resolved all paths!";
+    return "Solver time budget exhausted (" + spent() / 1000000 + " ms)";
+  }
+}
@@ -15,6 +15,8 @@
  */
 package gov.nasa.jpf.jdart.termination;
 
+import gov.nasa.jpf.jdart.constraints.InternalConstraintsTree;
+
 /**
  * A TerminationStrategy tells JDart if it should stop running.
  * termination is checked after a path is completed.
@@ -30,4 +32,12 @@ public abstract class TerminationStrategy {
    * @return an informative message about why execution was stopped.
    */
   public abstract String getReason();
+  
+  /**
+   * Called after each executed path.
+   * 
+   * @param tree the constraints tree of the running analysis
+   */
+  public void pathCompleted(InternalConstraintsTree tree) {
+  }
 }
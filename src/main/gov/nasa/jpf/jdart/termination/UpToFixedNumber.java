@@ -15,35 +15,38 @@
  */
 package gov.nasa.jpf.jdart.termination;
 
-
+import gov.nasa.jpf.jdart.constraints.InternalConstraintsTree;
 
 /**
- * Executes up to a fixed number of times.
+ * Executes up to a fixed number of paths.
  * 
  */
 public class UpToFixedNumber extends TerminationStrategy {
 
-  private int toGo;
+  private final int limit;
+  private int executed = 0;
 
   public UpToFixedNumber(int n){
     if (n <= 0)
       throw new IllegalArgumentException("bogus number " + n);
-    this.toGo= n;
+    this.limit = n;
+  }
+
+  @Override
+  public void pathCompleted(InternalConstraintsTree tree) {
+    executed++;
   }
 
   @Override
   public boolean isDone() {
-    toGo -= 1;
-    return toGo <= 0;
+    return executed >= limit;
   }
 
   @Override
   public String getReason() {
-// FIXME: re-introduce actual test for termination
-    if (true)
-//    if (ConstraintsTree.done())
+    if (executed < limit)
       return "Resolved all paths!";
     else
-      return "Execution Limit Reached";
+      return "Execution Limit Reached (" + limit + " paths)";
   }
 }
@@ -21,6 +21,7 @@ import gov.nasa.jpf.jdart.CompletedAnalysis;
 import gov.nasa.jpf.jdart.config.ConcolicMethodConfig;
 import gov.nasa.jpf.jdart.config.ParamConfig;
 import gov.nasa.jpf.jdart.constraints.Path;
+import gov.nasa.jpf.jdart.constraints.PathState;
 import gov.nasa.jpf.util.TemplateBasedCompiler;
 import gov.nasa.jpf.vm.ClassPath;
 
@@ -136,6 +137,10 @@ public class TestSuiteGenerator {
         // dont know cases
         continue;
       }
+      if (p.getState() == PathState.BUDGET_EXCEEDED) {
+        // would not terminate in time
+        continue;
+      }
 
       String call = callBase + "(";
       if (mc.getParams().size() > 0) {
@@ -20,47 +20,115 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 /**
- * 
+ * Collects timings and counters. Results are kept per scope, so that
+ * analyses running on different threads do not mix their numbers. Threads
+ * inherit the scope of the thread that created them.
  */
 public class SimpleProfiler {
 
   public static final boolean PROFILE = true;
   
-  public static final Map<String,Long> cumulated = new HashMap<String, Long>();
-  public static final Map<String,Long> pending = new HashMap<String, Long>();
-          
+  private static final SimpleProfiler global = new SimpleProfiler();
+  
+  private static final InheritableThreadLocal<SimpleProfiler> scope = 
+          new InheritableThreadLocal<SimpleProfiler>() {
+    @Override
+    protected SimpleProfiler initialValue() {
+      return global;
+    }
+  };
+  
+  private final Map<String,Long> cumulated = new HashMap<String, Long>();
+  private final Map<String,Long> pending = new HashMap<String, Long>();
+  private final Map<String,Long> counters = new HashMap<String, Long>();
+  
+  /**
+   * starts a new scope on the current thread.
+   * 
+   * @return the previous scope, to be passed to {@link #leaveScope(SimpleProfiler)}
+   */
+  public static SimpleProfiler enterScope() {
+    SimpleProfiler prev = scope.get();
+    scope.set(new SimpleProfiler());
+    return prev;
+  }
+  
+  public static void leaveScope(SimpleProfiler prev) {
+    scope.set(prev);
+  }
   
   public static void start(String name) {
     if (!PROFILE) {
       return;
     }
     long start = System.currentTimeMillis();
-  
-    pending.put(name,start);
-    
+    SimpleProfiler p = scope.get();
+    synchronized (p.pending) {
+      p.pending.put(name,start);
+    }
   }
   
   public static void stop(String name) {
     if (!PROFILE) {
       return;
     }
-    Long start = pending.remove(name);
+    SimpleProfiler p = scope.get();
+    Long start;
+    synchronized (p.pending) {
+      start = p.pending.remove(name);
+    }
     if (start == null) {
       return;
     }
     long duration = System.currentTimeMillis() - start;
-    Long sum = cumulated.get(name);
-    if (sum == null) {
-      sum = (long)0;
+    synchronized (p.cumulated) {
+      Long sum = p.cumulated.get(name);
+      if (sum == null) {
+        sum = (long)0;
+      }
+      p.cumulated.put(name, sum + duration);
     }
-    cumulated.put(name, sum + duration);
   }
   
   
+  public static void count(String name) {
+    count(name, 1);
+  }
+  
+  public static void count(String name, long n) {
+    if (!PROFILE) {
+      return;
+    }
+    SimpleProfiler p = scope.get();
+    synchronized (p.counters) {
+      Long sum = p.counters.get(name);
+      if (sum == null) {
+        sum = (long)0;
+      }
+      p.counters.put(name, sum + n);
+    }
+  }
+  
+  public static long getCount(String name) {
+    SimpleProfiler p = scope.get();
+    synchronized (p.counters) {
+      Long sum = p.counters.get(name);
+      return (sum != null) ? sum : 0;
+    }
+  }
+  
   public static String getResults() {
+    SimpleProfiler p = scope.get();
     StringBuilder sb = new StringBuilder();
-    for (Entry<String, Long> e : cumulated.entrySet()) {
-      sb.append(e.getKey()).append(": ").append(e.getValue()).append(" ms [").append(e.getValue()/1000).append(" s]\n");
+    synchronized (p.cumulated) {
+      for (Entry<String, Long> e : p.cumulated.entrySet()) {
+        sb.append(e.getKey()).append(": ").append(e.getValue()).append(" ms [").append(e.getValue()/1000).append(" s]\n");
+      }
+    }
+    synchronized (p.counters) {
+      for (Entry<String, Long> e : p.counters.entrySet()) {
+        sb.append(e.getKey()).append(": ").append(e.getValue()).append("\n");
+      }
     }
     return sb.toString();
   }
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart;
+
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.BitvectorOperator;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.LogicalOperator;
+import gov.nasa.jpf.constraints.expressions.NumericCompound;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.expressions.NumericOperator;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestExpressionFactory {
+  
+  private static final Variable<Integer> X = Variable.create(BuiltinTypes.SINT32, "x");
+  private static final Variable<Integer> Y = Variable.create(BuiltinTypes.SINT32, "y");
+  private static final Variable<Double> D = Variable.create(BuiltinTypes.DOUBLE, "d");
+  private static final Variable<Boolean> B = Variable.create(BuiltinTypes.BOOL, "b");
+  
+  private static final Expression<Boolean> TRUE = ExpressionFactory.constant(BuiltinTypes.BOOL, true);
+  private static final Expression<Boolean> FALSE = ExpressionFactory.constant(BuiltinTypes.BOOL, false);
+  
+  private static Constant<Integer> i(int v) {
+    return ExpressionFactory.constant(BuiltinTypes.SINT32, v);
+  }
+  
+  private static Constant<Double> d(double v) {
+    return ExpressionFactory.constant(BuiltinTypes.DOUBLE, v);
+  }
+  
+  private static Expression<Integer> add(Expression<Integer> l, Expression<Integer> r) {
+    return ExpressionFactory.compound(l, NumericOperator.PLUS, r);
+  }
+  
+  private static Expression<Integer> mul(Expression<Integer> l, Expression<Integer> r) {
+    return ExpressionFactory.compound(l, NumericOperator.MUL, r);
+  }
+  
+  private static Expression<Integer> bv(Expression<Integer> l, BitvectorOperator op, Expression<Integer> r) {
+    return ExpressionFactory.bitvector(l, op, r);
+  }
+  
+  @Test
+  public void testInterning() {
+    assertSame(add(X, Y), add(X, Y));
+    assertNotSame(add(X, Y), add(Y, X));
+    assertSame(ExpressionFactory.cmp(X, Y), ExpressionFactory.cmp(X, Y));
+    assertSame(ExpressionFactory.not(B), ExpressionFactory.not(B));
+  }
+  
+  @Test
+  public void testFoldConstants() {
+    assertSame(i(5), add(i(2), i(3)));
+    assertSame(i(-7), ExpressionFactory.compound(i(7), NumericOperator.DIV, i(-1)));
+    assertSame(d(0.5), ExpressionFactory.compound(d(1.0), NumericOperator.DIV, d(2.0)));
+    assertSame(i(6), bv(i(3), BitvectorOperator.SHIFTL, i(1)));
+    // division by zero is left to the execution
+    assertTrue(ExpressionFactory.compound(i(1), NumericOperator.DIV, i(0)) instanceof NumericCompound);
+  }
+  
+  @Test
+  public void testIntegerCompound() {
+    // constants are moved to the right
+    assertSame(add(X, i(1)), add(i(1), X));
+    assertSame(mul(X, i(2)), mul(i(2), X));
+    // neutral and absorbing elements
+    assertSame(X, add(X, i(0)));
+    assertSame(X, mul(X, i(1)));
+    assertSame(i(0), mul(X, i(0)));
+    assertSame(X, ExpressionFactory.compound(X, NumericOperator.DIV, i(1)));
+    assertSame(i(0), ExpressionFactory.compound(X, NumericOperator.MINUS, X));
+    // x - c => x + (-c)
+    assertSame(add(X, i(-3)), ExpressionFactory.compound(X, NumericOperator.MINUS, i(3)));
+    // chains with constants are merged
+    assertSame(add(X, i(5)), add(add(X, i(2)), i(3)));
+    assertSame(mul(X, i(6)), mul(mul(X, i(2)), i(3)));
+    assertSame(X, add(add(X, i(2)), i(-2)));
+  }
+  
+  @Test
+  public void testFloatingCompound() {
+    assertSame(D, ExpressionFactory.compound(D, NumericOperator.PLUS, d(-0.0)));
+    assertSame(D, ExpressionFactory.compound(d(-0.0), NumericOperator.PLUS, D));
+    assertSame(D, ExpressionFactory.compound(D, NumericOperator.MINUS, d(0.0)));
+    assertSame(D, ExpressionFactory.compound(D, NumericOperator.MUL, d(1.0)));
+    assertSame(D, ExpressionFactory.compound(d(1.0), NumericOperator.MUL, D));
+    assertSame(D, ExpressionFactory.compound(D, NumericOperator.DIV, d(1.0)));
+    // not exact for -0.0, NaN or infinities
+    assertNotSame(D, ExpressionFactory.compound(D, NumericOperator.PLUS, d(0.0)));
+    assertNotSame(D, ExpressionFactory.compound(D, NumericOperator.MINUS, d(-0.0)));
+    assertNotSame(d(0.0), ExpressionFactory.compound(D, NumericOperator.MUL, d(0.0)));
+    assertNotSame(d(0.0), ExpressionFactory.compound(D, NumericOperator.MINUS, D));
+  }
+  
+  @Test
+  public void testBitvector() {
+    assertSame(bv(X, BitvectorOperator.AND, i(12)), bv(i(12), BitvectorOperator.AND, X));
+    assertSame(X, bv(X, BitvectorOperator.AND, X));
+    assertSame(X, bv(X, BitvectorOperator.OR, X));
+    assertSame(i(0), bv(X, BitvectorOperator.XOR, X));
+    assertSame(i(0), bv(X, BitvectorOperator.AND, i(0)));
+    assertSame(X, bv(X, BitvectorOperator.AND, i(-1)));
+    assertSame(X, bv(X, BitvectorOperator.OR, i(0)));
+    assertSame(i(-1), bv(X, BitvectorOperator.OR, i(-1)));
+    assertSame(X, bv(X, BitvectorOperator.XOR, i(0)));
+    assertSame(X, bv(X, BitvectorOperator.SHIFTL, i(0)));
+    // shifts are not commutative
+    assertNotSame(bv(X, BitvectorOperator.SHIFTL, i(1)), bv(i(1), BitvectorOperator.SHIFTL, X));
+  }
+  
+  @Test
+  public void testCompare() {
+    assertSame(TRUE, ExpressionFactory.compare(i(1), NumericComparator.LT, i(2)));
+    assertSame(FALSE, ExpressionFactory.compare(d(Double.NaN), NumericComparator.EQ, d(Double.NaN)));
+    assertSame(TRUE, ExpressionFactory.compare(d(Double.NaN), NumericComparator.NE, d(Double.NaN)));
+    // constants are moved to the right
+    assertSame(ExpressionFactory.compare(X, NumericComparator.GT, i(3)), 
+        ExpressionFactory.compare(i(3), NumericComparator.LT, X));
+    assertSame(TRUE, ExpressionFactory.compare(X, NumericComparator.LE, X));
+    assertSame(FALSE, ExpressionFactory.compare(X, NumericComparator.NE, X));
+    // x == x is false for NaN
+    assertNotSame(TRUE, ExpressionFactory.compare(D, NumericComparator.EQ, D));
+    // (x + c1) == c2 => x == (c2 - c1)
+    assertSame(ExpressionFactory.compare(X, NumericComparator.EQ, i(3)), 
+        ExpressionFactory.compare(add(X, i(2)), NumericComparator.EQ, i(5)));
+    // not exact for orderings because of overflows
+    assertNotSame(ExpressionFactory.compare(X, NumericComparator.LT, i(3)), 
+        ExpressionFactory.compare(add(X, i(2)), NumericComparator.LT, i(5)));
+  }
+  
+  @Test
+  public void testLogical() {
+    assertSame(B, ExpressionFactory.propositional(TRUE, LogicalOperator.AND, B));
+    assertSame(B, ExpressionFactory.propositional(B, LogicalOperator.AND, TRUE));
+    assertSame(B, ExpressionFactory.propositional(FALSE, LogicalOperator.OR, B));
+    assertSame(FALSE, ExpressionFactory.propositional(B, LogicalOperator.AND, FALSE));
+    assertSame(TRUE, ExpressionFactory.propositional(TRUE, LogicalOperator.OR, B));
+    assertSame(B, ExpressionFactory.not(ExpressionFactory.not(B)));
+    assertSame(FALSE, ExpressionFactory.not(TRUE));
+  }
+  
+  @Test
+  public void testUnary() {
+    assertSame(X, ExpressionFactory.minus(ExpressionFactory.minus(X)));
+    assertSame(i(-4), ExpressionFactory.minus(i(4)));
+    assertSame(d(-0.0), ExpressionFactory.minus(d(0.0)));
+    assertSame(X, ExpressionFactory.cast(X, BuiltinTypes.SINT32));
+    assertSame(ExpressionFactory.constant(BuiltinTypes.SINT64, 4L), ExpressionFactory.cast(i(4), BuiltinTypes.SINT64));
+  }
+  
+  @Test
+  public void testDisabled() throws InterruptedException {
+    ExpressionFactory.setSimplify(false);
+    try {
+      Expression<Integer> sum = add(i(2), i(3));
+      assertTrue(sum instanceof NumericCompound);
+      assertSame(sum, add(i(2), i(3)));
+      assertNotSame(X, add(X, i(0)));
+      
+      // other threads are not affected
+      final AtomicBoolean simplified = new AtomicBoolean();
+      Thread t = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          simplified.set(add(i(2), i(3)) == i(5));
+        }
+      });
+      t.start();
+      t.join();
+      assertTrue(simplified.get());
+    }
+    finally {
+      ExpressionFactory.setSimplify(true);
+    }
+    assertSame(i(5), add(i(2), i(3)));
+  }
+}
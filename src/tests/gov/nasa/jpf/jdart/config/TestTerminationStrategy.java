@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.config;
+
+import gov.nasa.jpf.jdart.termination.AllOf;
+import gov.nasa.jpf.jdart.termination.AnyOf;
+import gov.nasa.jpf.jdart.termination.NeverTerminate;
+import gov.nasa.jpf.jdart.termination.UpToFixedNumber;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestTerminationStrategy {
+  
+  private static final String UP_TO = UpToFixedNumber.class.getName();
+  
+  @Test
+  public void testCombinations() {
+    assertTrue(ConcolicConfig.parseTerminationStrategy(UP_TO + ",4") instanceof UpToFixedNumber);
+    assertTrue(ConcolicConfig.parseTerminationStrategy(UP_TO + ",4 | " + UP_TO + ",2") instanceof AnyOf);
+    assertTrue(ConcolicConfig.parseTerminationStrategy(UP_TO + ",4 & " + UP_TO + ",2") instanceof AllOf);
+    assertTrue(ConcolicConfig.parseTerminationStrategy(
+        UP_TO + ",4 | " + UP_TO + ",2 & " + UP_TO + ",3") instanceof AnyOf);
+  }
+  
+  @Test
+  public void testInvalidSingle() {
+    assertTrue(ConcolicConfig.parseTerminationStrategy("no.such.Strategy") instanceof NeverTerminate);
+  }
+  
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidPartOfAll() {
+    ConcolicConfig.parseTerminationStrategy(UP_TO + ",4 & " + UP_TO + ",x");
+  }
+  
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidPartOfAny() {
+    ConcolicConfig.parseTerminationStrategy(UP_TO + ",4 | " + UP_TO + ",2 & no.such.Strategy");
+  }
+  
+  @Test(expected = IllegalArgumentException.class)
+  public void testEmptyPart() {
+    ConcolicConfig.parseTerminationStrategy(UP_TO + ",4 |");
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.constraints;
+
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.jdart.config.AnalysisConfig;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestAdaptiveBounds {
+  
+  private static final int SITES = 6;
+  
+  // a sequence of branches with SITES + 1 feasible paths, the deepest 
+  // ones only reachable after raising the bounds
+  private static final TreeDriver.Program THRESHOLDS = new TreeDriver.Program() {
+    @Override
+    public void run(TreeDriver driver, int x) {
+      for(int i = 0; i < SITES; i++)
+        driver.branch(x, NumericComparator.GT, 3 * i);
+    }
+  };
+  
+  @Test
+  public void testRaiseNeedsNewCoverage() {
+    // the depth cannot be raised, only the alternation depth
+    AnalysisConfig anaConf = new AnalysisConfig();
+    anaConf.setAdaptiveInitialDepth(2);
+    anaConf.setAdaptiveInitialAltDepth(1);
+    anaConf.setTreeMaxDepth(2);
+    AdaptiveBounds bounds = new AdaptiveBounds(anaConf);
+    
+    bounds.pathCompleted(2, 1);
+    assertTrue(bounds.defer(1, 2, 2));
+    assertTrue(bounds.raise());
+    assertEquals(2, bounds.getDepth());
+    assertEquals(2, bounds.getAltDepth());
+    bounds.takeDeferred();
+    
+    // no new coverage since the last raise
+    bounds.pathCompleted(2, 0);
+    assertTrue(bounds.defer(2, 2, 3));
+    assertFalse(bounds.raise());
+    assertEquals(2, bounds.getAltDepth());
+  }
+  
+  @Test
+  public void testRaiseToFullTree() {
+    for(boolean compact : new boolean[]{false, true}) {
+      AnalysisConfig anaConf = new AnalysisConfig();
+      anaConf.setCompactTree(compact);
+      anaConf.setAdaptiveBounds(true);
+      anaConf.setAdaptiveInitialDepth(2);
+      anaConf.setAdaptiveInitialAltDepth(SITES);
+      TreeDriver driver = new TreeDriver(anaConf, -5, 20, THRESHOLDS);
+      driver.explore(0, 1000);
+      
+      Set<Integer> classes = new HashSet<>();
+      for(int x : driver.getInputs()) {
+        int n = 0;
+        for(int i = 0; i < SITES; i++) {
+          if(x > 3 * i)
+            n++;
+        }
+        classes.add(n);
+      }
+      assertEquals(SITES + 1, classes.size());
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.constraints;
+
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+import gov.nasa.jpf.constraints.util.ExpressionUtil;
+import gov.nasa.jpf.jdart.config.AnalysisConfig;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestConstraintsTree {
+  
+  private static Expression<Boolean> cmp(NumericComparator cmp, int k) {
+    return new NumericBooleanExpression(TreeDriver.X, cmp, Constant.create(BuiltinTypes.SINT32, k));
+  }
+  
+  private static int caseOf(int x) {
+    return (x < 0) ? 0 : (x == 0) ? 1 : 2;
+  }
+  
+  // a switch with three cases, below a branch so that it is not the root
+  private static final TreeDriver.Program SWITCH = new TreeDriver.Program() {
+    @Override
+    public void run(TreeDriver driver, int x) {
+      if(driver.branch(x, NumericComparator.LT, 5)) {
+        driver.switchOn(caseOf(x), 
+            cmp(NumericComparator.LT, 0), cmp(NumericComparator.EQ, 0), cmp(NumericComparator.GT, 0));
+      }
+    }
+  };
+  
+  private static TreeDriver explore(int maxPaths) {
+    TreeDriver driver = new TreeDriver(new AnalysisConfig(), -10, 10, SWITCH);
+    driver.explore(-5, maxPaths);
+    return driver;
+  }
+  
+  @Test
+  public void testUnexploredCase() {
+    // the x >= 5 branch and one of the cases remain unexplored
+    TreeDriver driver = explore(2);
+    assertEquals(2, driver.getInputs().size());
+    Set<Integer> explored = new HashSet<>();
+    for(int x : driver.getInputs()) {
+      assertTrue(x < 5);
+      explored.add(caseOf(x));
+    }
+    assertEquals(2, explored.size());
+    
+    ConstraintsTree ct = driver.getTree().toFinalCTree();
+    Expression<Boolean> covered = ct.getCoveredConstraint();
+    for(int x = -10; x <= 10; x++) {
+      Valuation v = TreeDriver.valuation(x);
+      boolean expected = x < 5 && explored.contains(caseOf(x));
+      assertEquals("x = " + x, expected, covered.evaluate(v));
+    }
+  }
+  
+  @Test
+  public void testCompleteSwitch() {
+    TreeDriver driver = explore(100);
+    assertEquals(4, driver.getInputs().size());
+    
+    ConstraintsTree ct = driver.getTree().toFinalCTree();
+    assertEquals(4, ct.getPathCount());
+    for(int x = -10; x <= 10; x++)
+      assertTrue(ct.getCoveredConstraint().evaluate(TreeDriver.valuation(x)));
+    // identical subtrees of complete decisions are merged
+    assertEquals(ExpressionUtil.TRUE, ct.getCoveredConstraint());
+  }
+}
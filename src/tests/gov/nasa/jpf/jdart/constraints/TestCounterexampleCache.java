@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.constraints;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCounterexampleCache {
+  
+  private static final Variable<Integer> X = TreeDriver.X;
+  private static final Variable<Integer> Y = Variable.create(BuiltinTypes.SINT32, "y");
+  private static final Variable<Integer> Z = Variable.create(BuiltinTypes.SINT32, "z");
+  
+  private static Expression<Boolean> cmp(Variable<Integer> v, NumericComparator cmp, int k) {
+    return new NumericBooleanExpression(v, cmp, Constant.create(BuiltinTypes.SINT32, k));
+  }
+  
+  @SafeVarargs
+  private static List<Expression<Boolean>> query(Expression<Boolean> ... exprs) {
+    return Arrays.asList(exprs);
+  }
+  
+  private static Valuation valuation(int x, int y) {
+    Valuation v = TreeDriver.valuation(x);
+    v.setValue(Y, y);
+    return v;
+  }
+  
+  private static boolean satisfies(Valuation val, Collection<Expression<Boolean>> query) {
+    for(Expression<Boolean> e : query) {
+      if(!e.evaluate(val))
+        return false;
+    }
+    return true;
+  }
+  
+  /**
+   * decides a query by enumerating x and y over a small domain.
+   */
+  private static Result solve(Collection<Expression<Boolean>> query, Valuation model) {
+    for(int x = -3; x <= 3; x++) {
+      for(int y = -3; y <= 3; y++) {
+        Valuation val = valuation(x, y);
+        if(satisfies(val, query)) {
+          model.putAll(val);
+          return Result.SAT;
+        }
+      }
+    }
+    return Result.UNSAT;
+  }
+  
+  @Test
+  public void testUnsatSubset() {
+    Expression<Boolean> xPos = cmp(X, NumericComparator.GT, 0);
+    Expression<Boolean> xNeg = cmp(X, NumericComparator.LT, 0);
+    Expression<Boolean> yPos = cmp(Y, NumericComparator.GT, 0);
+    CounterexampleCache cache = new CounterexampleCache(10);
+    cache.store(query(xPos, xNeg), Result.UNSAT, null);
+    
+    // any query containing an unsatisfiable one, regardless of the order
+    assertEquals(Result.UNSAT, cache.lookup(query(yPos, xNeg, xPos), new Valuation()));
+    assertEquals(Result.UNSAT, cache.lookup(query(cmp(X, NumericComparator.LT, 0), cmp(X, NumericComparator.GT, 0)), new Valuation()));
+    assertNull(cache.lookup(query(xPos, yPos), new Valuation()));
+    assertNull(cache.lookup(query(xNeg), new Valuation()));
+    
+    // inconclusive results are not stored
+    cache.store(query(yPos), Result.DONT_KNOW, null);
+    assertNull(cache.lookup(query(yPos), new Valuation()));
+  }
+  
+  @Test
+  public void testModelOfSuperset() {
+    Expression<Boolean> xPos = cmp(X, NumericComparator.GT, 0);
+    Expression<Boolean> yNeg = cmp(Y, NumericComparator.LT, 0);
+    CounterexampleCache cache = new CounterexampleCache(10);
+    Valuation model = valuation(1, -1);
+    cache.store(query(xPos, yNeg), Result.SAT, model);
+    // the cache keeps its own copy
+    model.setValue(X, -5);
+    
+    Valuation val = new Valuation();
+    assertEquals(Result.SAT, cache.lookup(query(xPos), val));
+    assertEquals(1, (int)val.getValue(X));
+    assertEquals(-1, (int)val.getValue(Y));
+    
+    val = new Valuation();
+    assertEquals(Result.SAT, cache.lookup(query(yNeg, xPos), val));
+    assertTrue(satisfies(val, query(yNeg, xPos)));
+  }
+  
+  @Test
+  public void testModelEvaluation() {
+    CounterexampleCache cache = new CounterexampleCache(10);
+    cache.addModel(query(cmp(X, NumericComparator.GT, 0)), valuation(2, -1));
+    
+    // not a subset, but satisfied by the stored model
+    Expression<Boolean> xBig = cmp(X, NumericComparator.GT, 1);
+    Expression<Boolean> yNeg = cmp(Y, NumericComparator.LT, 0);
+    Valuation val = new Valuation();
+    assertEquals(Result.SAT, cache.lookup(query(xBig, yNeg), val));
+    assertTrue(satisfies(val, query(xBig, yNeg)));
+    
+    // violated by the stored model
+    assertNull(cache.lookup(query(xBig, cmp(Y, NumericComparator.GT, 0)), new Valuation()));
+    // no variable in common with the stored model
+    assertNull(cache.lookup(query(cmp(Z, NumericComparator.EQ, 0)), new Valuation()));
+  }
+  
+  @Test
+  public void testEviction() {
+    Expression<Boolean> xPos = cmp(X, NumericComparator.GT, 0);
+    List<Expression<Boolean>> q1 = query(xPos, cmp(X, NumericComparator.LT, 0));
+    List<Expression<Boolean>> q2 = query(xPos, cmp(X, NumericComparator.LT, 1));
+    List<Expression<Boolean>> q3 = query(xPos, cmp(X, NumericComparator.LT, -1));
+    
+    CounterexampleCache cache = new CounterexampleCache(2);
+    cache.store(q1, Result.UNSAT, null);
+    cache.store(q2, Result.UNSAT, null);
+    // a hit makes q1 the most recently used entry
+    assertEquals(Result.UNSAT, cache.lookup(q1, new Valuation()));
+    cache.store(q3, Result.UNSAT, null);
+    assertEquals(Result.UNSAT, cache.lookup(q1, new Valuation()));
+    assertEquals(Result.UNSAT, cache.lookup(q3, new Valuation()));
+    assertNull(cache.lookup(q2, new Valuation()));
+  }
+  
+  @Test
+  public void testRandomQueries() {
+    NumericComparator[] cmps = { NumericComparator.LT, NumericComparator.LE, 
+        NumericComparator.GT, NumericComparator.GE, NumericComparator.EQ, NumericComparator.NE };
+    Random rand = new Random(42);
+    CounterexampleCache cache = new CounterexampleCache(16);
+    int hits = 0;
+    
+    for(int i = 0; i < 2000; i++) {
+      List<Expression<Boolean>> query = new ArrayList<>();
+      int n = 1 + rand.nextInt(3);
+      for(int j = 0; j < n; j++)
+        query.add(cmp(rand.nextBoolean() ? X : Y, cmps[rand.nextInt(cmps.length)], rand.nextInt(5) - 2));
+      
+      Valuation val = new Valuation();
+      Result cached = cache.lookup(query, val);
+      Valuation model = new Valuation();
+      Result res = solve(query, model);
+      if(cached != null) {
+        // every answer from the cache agrees with the solver
+        hits++;
+        assertEquals(res, cached);
+        if(cached == Result.SAT)
+          assertTrue(query + " violated by " + val, satisfies(val, query));
+      }
+      else {
+        cache.store(query, res, model);
+      }
+    }
+    assertTrue(hits > 0);
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.constraints;
+
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.Negation;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+import gov.nasa.jpf.jdart.config.AnalysisConfig;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestDivergenceRetries {
+  
+  private static final Expression<Boolean> POSITIVE = 
+      new NumericBooleanExpression(TreeDriver.X, NumericComparator.GT, Constant.create(BuiltinTypes.SINT32, 0));
+  
+  // the first three branches are reported as x > 0, but taken for x == 3, 
+  // x == 1 and other positive values, respectively
+  private static final TreeDriver.Program DIVERGING = new TreeDriver.Program() {
+    @Override
+    public void run(TreeDriver driver, int x) {
+      int idx = (x <= 0) ? 3 : (x == 3) ? 0 : (x == 1) ? 1 : 2;
+      driver.switchOn(idx, POSITIVE, POSITIVE, POSITIVE, new Negation(POSITIVE));
+    }
+  };
+  
+  private static TreeDriver explore(int retries) {
+    AnalysisConfig anaConf = new AnalysisConfig();
+    anaConf.setDivergenceRetries(retries);
+    // retries do not count as alternations
+    anaConf.setTreeMaxAltDepth(1);
+    TreeDriver driver = new TreeDriver(anaConf, -2, 5, DIVERGING);
+    driver.explore(0, 100);
+    return driver;
+  }
+  
+  @Test
+  public void testRetries() {
+    TreeDriver driver = explore(3);
+    assertEquals(Arrays.asList(0, 1, 2, 3), driver.getInputs());
+    InternalConstraintsTree tree = driver.getTree();
+    assertTrue(tree.isExhausted(tree.getRoot()));
+  }
+  
+  @Test
+  public void testNoRetriesByDefault() {
+    assertEquals(0, new AnalysisConfig().getDivergenceRetries());
+    TreeDriver driver = explore(0);
+    assertEquals(Arrays.asList(0, 1), driver.getInputs());
+    InternalConstraintsTree tree = driver.getTree();
+    assertFalse(tree.isExhausted(tree.getRoot()));
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.constraints;
+
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.expressions.NumericCompound;
+import gov.nasa.jpf.constraints.expressions.NumericOperator;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestExpressionCompiler {
+  
+  private static final double[] VALUES = { 0.0, -0.0, Double.NaN, 1.0, Double.NEGATIVE_INFINITY };
+  
+  private static boolean expected(NumericComparator cmp, double l, double r) {
+    switch(cmp) {
+    case EQ: return l == r;
+    case NE: return l != r;
+    case LT: return l < r;
+    case LE: return l <= r;
+    case GT: return l > r;
+    case GE: return l >= r;
+    default: throw new IllegalArgumentException();
+    }
+  }
+  
+  private static final NumericComparator[] COMPARATORS = { 
+    NumericComparator.EQ, NumericComparator.NE, NumericComparator.LT, 
+    NumericComparator.LE, NumericComparator.GT, NumericComparator.GE 
+  };
+  
+  @Test
+  public void testDoubleComparisons() {
+    ExpressionCompiler compiler = new ExpressionCompiler();
+    Variable<Double> x = Variable.create(BuiltinTypes.DOUBLE, "x");
+    Variable<Double> y = Variable.create(BuiltinTypes.DOUBLE, "y");
+    for(NumericComparator cmp : COMPARATORS) {
+      NumericBooleanExpression e = new NumericBooleanExpression(x, cmp, y);
+      for(double l : VALUES) {
+        for(double r : VALUES) {
+          Valuation v = new Valuation();
+          v.setValue(x, l);
+          v.setValue(y, r);
+          assertEquals(l + " " + cmp + " " + r, expected(cmp, l, r), 
+              compiler.compile(e).evaluate(compiler.slots(v)));
+        }
+      }
+    }
+  }
+  
+  @Test
+  public void testFloatConstants() {
+    ExpressionCompiler compiler = new ExpressionCompiler();
+    Variable<Float> x = Variable.create(BuiltinTypes.FLOAT, "x");
+    for(NumericComparator cmp : COMPARATORS) {
+      for(double c : VALUES) {
+        NumericBooleanExpression e = new NumericBooleanExpression(x, cmp, Constant.create(BuiltinTypes.FLOAT, (float)c));
+        for(double l : VALUES) {
+          Valuation v = new Valuation();
+          v.setValue(x, (float)l);
+          assertEquals(l + " " + cmp + " " + c, expected(cmp, l, c), 
+              compiler.compile(e).evaluate(compiler.slots(v)));
+        }
+      }
+    }
+  }
+  
+  @Test
+  public void testManyVariables() {
+    ExpressionCompiler compiler = new ExpressionCompiler();
+    List<Variable<Integer>> vars = new ArrayList<>();
+    Valuation v = new Valuation();
+    for(int i = 0; i < 40; i++) {
+      Variable<Integer> x = Variable.create(BuiltinTypes.SINT32, "x" + i);
+      vars.add(x);
+      v.setValue(x, i);
+    }
+    // a slots object is shared by the expressions, and grows with the
+    // variables that are read
+    ExpressionCompiler.Slots slots = compiler.slots(v);
+    Expression<Integer> sum = vars.get(0);
+    for(int i = 1; i < vars.size(); i++) {
+      Expression<Integer> prefix = sum;
+      sum = new NumericCompound<>(prefix, NumericOperator.PLUS, vars.get(i));
+      NumericBooleanExpression e = new NumericBooleanExpression(sum, NumericComparator.EQ, 
+          Constant.create(BuiltinTypes.SINT32, i * (i + 1) / 2));
+      assertTrue(compiler.compile(e).evaluate(slots));
+      // equal variables share a slot
+      NumericBooleanExpression f = new NumericBooleanExpression(
+          Variable.create(BuiltinTypes.SINT32, "x" + i), NumericComparator.EQ, vars.get(i));
+      assertTrue(compiler.compile(f).evaluate(slots));
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.constraints;
+
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+import gov.nasa.jpf.jdart.config.AnalysisConfig;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestNodeStores {
+  
+  private static Expression<Boolean> cmp(NumericComparator cmp, int k) {
+    return new NumericBooleanExpression(TreeDriver.X, cmp, Constant.create(BuiltinTypes.SINT32, k));
+  }
+  
+  // binary and ternary decisions, some branches are infeasible
+  private static final TreeDriver.Program PROGRAM = new TreeDriver.Program() {
+    @Override
+    public void run(TreeDriver driver, int x) {
+      int sign = (x < 0) ? 0 : (x == 0) ? 1 : 2;
+      driver.switchOn(sign, cmp(NumericComparator.LT, 0), cmp(NumericComparator.EQ, 0), cmp(NumericComparator.GT, 0));
+      if(driver.branch(x, NumericComparator.LT, -3)) {
+        driver.branch(x, NumericComparator.GT, 5);
+        driver.branch(x, NumericComparator.LT, -7);
+      }
+      else if(driver.branch(x, NumericComparator.GT, 4)) {
+        driver.branch(x, NumericComparator.EQ, 9);
+      }
+    }
+  };
+  
+  private static TreeDriver explore(boolean compact, String strategy, boolean summarize) {
+    AnalysisConfig anaConf = new AnalysisConfig();
+    anaConf.setCompactTree(compact);
+    anaConf.setSearchStrategy(strategy);
+    anaConf.setSummarizeClosed(summarize);
+    TreeDriver driver = new TreeDriver(anaConf, -10, 10, PROGRAM);
+    driver.explore(0, 100);
+    return driver;
+  }
+  
+  @Test
+  public void testSameTree() {
+    String[] strategies = {null, "gov.nasa.jpf.jdart.search.BreadthFirst"};
+    for(String strategy : strategies) {
+      for(boolean summarize : new boolean[]{false, true}) {
+        TreeDriver object = explore(false, strategy, summarize);
+        TreeDriver compact = explore(true, strategy, summarize);
+        assertEquals(object.getInputs(), compact.getInputs());
+        
+        InternalConstraintsTree ot = object.getTree();
+        InternalConstraintsTree ct = compact.getTree();
+        assertEquals(ot.size(), ct.size());
+        for(int n = 0; n < ot.size(); n++) {
+          assertEquals(ot.getParent(n), ct.getParent(n));
+          assertEquals(ot.getDepth(n), ct.getDepth(n));
+          assertEquals(ot.getBranchIndex(n), ct.getBranchIndex(n));
+          assertEquals(ot.getNumChildren(n), ct.getNumChildren(n));
+          assertEquals(ot.isVirgin(n), ct.isVirgin(n));
+          assertEquals(ot.isExhausted(n), ct.isExhausted(n));
+        }
+        assertEquals(ot.getSummarizedPaths().toString(), ct.getSummarizedPaths().toString());
+        assertEquals(ot.toFinalCTree().toString(true, false), ct.toFinalCTree().toString(true, false));
+      }
+    }
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.constraints;
+
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.Negation;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+import gov.nasa.jpf.jdart.config.AnalysisConfig;
+import gov.nasa.jpf.jvm.bytecode.NOP;
+import gov.nasa.jpf.vm.Instruction;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestSummarizeClosed {
+  
+  // nested branches, so subtrees below the root are closed early
+  private static final TreeDriver.Program NESTED = new TreeDriver.Program() {
+    @Override
+    public void run(TreeDriver driver, int x) {
+      if(driver.branch(x, NumericComparator.LT, 0)) {
+        if(driver.branch(x, NumericComparator.LT, -5))
+          driver.branch(x, NumericComparator.LT, -8);
+      }
+      else if(driver.branch(x, NumericComparator.GT, 5)) {
+        driver.branch(x, NumericComparator.GT, 8);
+      }
+    }
+  };
+  
+  private static TreeDriver explore(boolean summarize, boolean compact) {
+    AnalysisConfig anaConf = new AnalysisConfig();
+    anaConf.setSummarizeClosed(summarize);
+    anaConf.setCompactTree(compact);
+    TreeDriver driver = new TreeDriver(anaConf, -10, 10, NESTED);
+    driver.explore(0, 100);
+    return driver;
+  }
+  
+  @Test
+  public void testFinalTree() {
+    for(boolean compact : new boolean[]{false, true}) {
+      TreeDriver driver = explore(true, compact);
+      assertEquals(6, driver.getInputs().size());
+      assertTrue(driver.getTree().getSummarizedPaths().getTotal() > 0);
+      
+      ConstraintsTree ct = driver.getTree().toFinalCTree();
+      assertNotNull(ct);
+      // every summarized subtree yields one test case
+      int tests = 0;
+      for(Path p : ct.getAllPaths()) {
+        Valuation val = p.getValuation();
+        assertNotNull(val);
+        assertTrue(p.getPathCondition().evaluate(val));
+        tests++;
+      }
+      assertTrue(tests > 0);
+      // summarized subtrees keep their constraints, so no executed path 
+      // is attributed to another part of the tree
+      for(int x : driver.getInputs())
+        assertTrue(ct.getCoveredConstraint().evaluate(TreeDriver.valuation(x)));
+      assertEquals(2, ct.getPathCount());
+    }
+  }
+  
+  @Test
+  public void testSameCoverage() {
+    for(boolean compact : new boolean[]{false, true}) {
+      ConstraintsTree full = explore(false, compact).getTree().toFinalCTree();
+      ConstraintsTree summarized = explore(true, compact).getTree().toFinalCTree();
+      for(int x = -10; x <= 10; x++) {
+        Valuation v = TreeDriver.valuation(x);
+        assertEquals(full.getCoveredConstraint().evaluate(v), summarized.getCoveredConstraint().evaluate(v));
+      }
+    }
+  }
+  
+  /**
+   * Builds a chain of decisions below the first successor of the root, 
+   * with a distinct constraint on each edge, and finishes all its paths.
+   * 
+   * @return the head of the chain
+   */
+  private static int chain(NodeStore nodes, int length) {
+    Instruction insn = new NOP();
+    nodes.decision(NodeStore.ROOT, insn, constraints(0), true);
+    int head = nodes.getChild(NodeStore.ROOT, 0);
+    int n = head;
+    for(int i = 1; i <= length; i++) {
+      nodes.decision(n, insn, constraints(i), true);
+      nodes.result(nodes.getChild(n, 1), PathResult.ok(null, null));
+      n = nodes.getChild(n, 0);
+    }
+    nodes.result(n, PathResult.ok(null, null));
+    return head;
+  }
+  
+  @SuppressWarnings("unchecked")
+  private static Expression<Boolean>[] constraints(int k) {
+    Expression<Boolean> lt = new NumericBooleanExpression(TreeDriver.X, NumericComparator.LT, Constant.create(BuiltinTypes.SINT32, k));
+    return new Expression[]{lt, new Negation(lt)};
+  }
+  
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testPrunedStorageReleased() {
+    int length = 2000;
+    
+    CompactNodeStore compact = new CompactNodeStore();
+    int head = chain(compact, length);
+    assertEquals(2 * length + 2, compact.numConstraints());
+    assertEquals(4, compact.numChunks());
+    compact.summarize(head, new PathSummary(), null);
+    assertEquals(length + 1, compact.getSummary(head).getCount(PathState.OK));
+    // only the constraints of the root decision remain
+    assertEquals(2, compact.numConstraints());
+    // the first and the last chunk still contain live nodes
+    assertEquals(2, compact.numChunks());
+    assertEquals(NodeStore.PRUNED, compact.getState(2000));
+    assertTrue(compact.isClosed(2000));
+    int other = compact.getChild(NodeStore.ROOT, 1);
+    Expression<Boolean>[] shared = new Expression[]{compact.getConstraint(NodeStore.ROOT, 0), compact.getConstraint(NodeStore.ROOT, 1)};
+    compact.decision(other, new NOP(), shared, true);
+    assertEquals(2, compact.numConstraints());
+    Expression<Boolean>[] fresh = constraints(1);
+    compact.decision(compact.getChild(other, 0), new NOP(), fresh, true);
+    assertEquals(4, compact.numConstraints());
+    assertSame(fresh[1], compact.getConstraint(compact.getChild(other, 0), 1));
+    
+    ObjectNodeStore object = new ObjectNodeStore();
+    head = chain(object, length);
+    assertEquals(4, object.numChunks());
+    object.summarize(head, new PathSummary(), null);
+    assertEquals(length + 1, object.getSummary(head).getCount(PathState.OK));
+    assertEquals(2, object.numChunks());
+    assertEquals(NodeStore.PRUNED, object.getState(2000));
+  }
+}
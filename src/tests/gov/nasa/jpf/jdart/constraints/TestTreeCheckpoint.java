@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.constraints;
+
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.jvm.bytecode.NOP;
+import gov.nasa.jpf.vm.Instruction;
+import gov.nasa.jpf.vm.MethodInfo;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import static org.junit.Assert.*;
+
+public class TestTreeCheckpoint {
+  
+  private static final MethodInfo METHOD = new MethodInfo("m", "()V", 0);
+  
+  private static Instruction insn() {
+    return new NOP() {
+      @Override
+      public MethodInfo getMethodInfo() {
+        return METHOD;
+      }
+    };
+  }
+  
+  private static class Replayed implements TreeCheckpoint.Handler {
+    int covered = 0;
+    
+    @Override
+    public void decision(int node, Instruction insn, Expression<Boolean>[] constraints, boolean explore) {}
+    @Override
+    public void result(int node, PathResult result) {}
+    @Override
+    public void dontKnow(int node) {}
+    @Override
+    public void unsatisfiable(int node) {}
+    @Override
+    public void altDepth(int node) {}
+    @Override
+    public void close(int node) {}
+    @Override
+    public void cover(Instruction insn, int branchIdx) {
+      covered++;
+    }
+    @Override
+    public void checkpoint(int target) {}
+  }
+  
+  private static Set<Integer> instructionIds(File file) throws IOException {
+    Set<Integer> ids = new HashSet<>();
+    JsonParser parser = new JsonParser();
+    try(BufferedReader r = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+      String line;
+      while((line = r.readLine()) != null) {
+        JsonObject rec = parser.parse(line).getAsJsonObject();
+        if("insn".equals(rec.get("op").getAsString()))
+          assertTrue(ids.add(rec.get("id").getAsInt()));
+      }
+    }
+    return ids;
+  }
+  
+  @Test
+  public void testResumeWithUnresolvedInstructions() throws IOException {
+    File file = File.createTempFile("jdart", ".checkpoint");
+    file.deleteOnExit();
+    
+    TreeCheckpoint cp = new TreeCheckpoint(file);
+    cp.open(false);
+    cp.cover(insn(), 0);
+    cp.cover(insn(), 1);
+    cp.checkpoint(0);
+    cp.close();
+    
+    // the replayed instructions cannot be resolved, their ids must not be 
+    // handed out again
+    TreeCheckpoint resumed = new TreeCheckpoint(file);
+    resumed.setResolveInstructions(false);
+    Replayed replayed = new Replayed();
+    assertEquals(1, resumed.replay(replayed));
+    assertEquals(2, replayed.covered);
+    resumed.open(true);
+    resumed.cover(insn(), 0);
+    resumed.checkpoint(0);
+    resumed.close();
+    
+    assertEquals(3, instructionIds(file).size());
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.constraints;
+
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+import gov.nasa.jpf.jdart.config.AnalysisConfig;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestValuationSet {
+  
+  private static final Variable<Integer> Y = Variable.create(BuiltinTypes.SINT32, "y");
+  
+  private static Valuation valuation(int x, int y) {
+    Valuation v = TreeDriver.valuation(x);
+    v.setValue(Y, y);
+    return v;
+  }
+  
+  @Test
+  public void testExactSet() {
+    ValuationSet set = new ValuationSet(0);
+    for(int i = 0; i < 5000; i++)
+      assertTrue(set.add(valuation(i, -i)));
+    assertFalse(set.add(valuation(42, -42)));
+    assertEquals(5000, set.size());
+    for(int i = 0; i < 5000; i++) {
+      assertTrue(set.contains(valuation(i, -i)));
+      assertFalse(set.contains(valuation(i, i + 1)));
+    }
+  }
+  
+  @Test
+  public void testDefaultValues() {
+    ValuationSet set = new ValuationSet(0);
+    set.add(valuation(0, 7));
+    Valuation v = new Valuation();
+    v.setValue(Y, 7);
+    // missing variables are executed with their default value
+    assertTrue(set.contains(v));
+    assertFalse(set.contains(valuation(1, 7)));
+  }
+  
+  @Test
+  public void testBloomFilter() {
+    ValuationSet set = new ValuationSet(16);
+    for(int i = 0; i < 1000; i++)
+      set.add(valuation(i, i * 31));
+    // no false negatives
+    for(int i = 0; i < 1000; i++)
+      assertTrue(set.contains(valuation(i, i * 31)));
+    int falsePositives = 0;
+    for(int i = 1000; i < 2000; i++) {
+      if(set.contains(valuation(i, i * 31)))
+        falsePositives++;
+    }
+    assertTrue(falsePositives < 10);
+  }
+  
+  // one path per value of x in [0, 63]
+  private static final TreeDriver.Program BITS = new TreeDriver.Program() {
+    @Override
+    public void run(TreeDriver driver, int x) {
+      int lo = 0;
+      int hi = 64;
+      while(hi - lo > 1) {
+        int mid = (lo + hi) / 2;
+        if(driver.branch(x, NumericComparator.GE, mid))
+          lo = mid;
+        else
+          hi = mid;
+      }
+    }
+  };
+  
+  @Test
+  public void testFalsePositivesKeepPaths() {
+    // the smallest filter saturates quickly, so many new valuations are
+    // reported as executed, and each target has a single solution
+    AnalysisConfig anaConf = new AnalysisConfig();
+    anaConf.setDedupValuations(2);
+    anaConf.setDedupBloomBits(6);
+    TreeDriver driver = new TreeDriver(anaConf, 0, 63, BITS);
+    driver.explore(0, 1000);
+    assertEquals(64, driver.getInputs().size());
+    assertEquals(0, driver.getTree().getNumFailedTargets());
+    assertTrue(driver.getTree().isExhausted(driver.getTree().getRoot()));
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.constraints;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.SolverContext;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.Negation;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+import gov.nasa.jpf.jdart.config.AnalysisConfig;
+import gov.nasa.jpf.jvm.bytecode.NOP;
+import gov.nasa.jpf.vm.Instruction;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Explores synthetic programs over a single integer input with a 
+ * constraints tree, without JPF. Branches are reported to the tree like 
+ * {@link gov.nasa.jpf.jdart.ConcolicMethodExplorer} does, and constraints 
+ * are solved by enumerating a small domain.
+ */
+public class TreeDriver {
+  
+  public static final Variable<Integer> X = Variable.create(BuiltinTypes.SINT32, "x");
+  
+  /**
+   * A program executed on one concrete input.
+   */
+  public static interface Program {
+    public void run(TreeDriver driver, int x);
+  }
+  
+  /**
+   * Solves constraints over {@link TreeDriver#X} by trying every value of
+   * its domain.
+   */
+  public static class EnumeratingContext extends SolverContext {
+    
+    private final int min;
+    private final int max;
+    private final LinkedList<List<Expression<Boolean>>> stack = new LinkedList<>();
+    
+    public EnumeratingContext(int min, int max) {
+      this.min = min;
+      this.max = max;
+      stack.push(new ArrayList<Expression<Boolean>>());
+    }
+
+    @Override
+    public void push() {
+      stack.push(new ArrayList<Expression<Boolean>>());
+    }
+
+    @Override
+    public void pop(int n) {
+      for(int i = 0; i < n; i++)
+        stack.pop();
+    }
+
+    @Override
+    public Result solve(Valuation val) {
+      Valuation v = new Valuation();
+      for(int x = min; x <= max; x++) {
+        v.setValue(X, x);
+        if(satisfies(v)) {
+          if(val != null)
+            val.setValue(X, x);
+          return Result.SAT;
+        }
+      }
+      return Result.UNSAT;
+    }
+    
+    private boolean satisfies(Valuation v) {
+      for(List<Expression<Boolean>> frame : stack) {
+        for(Expression<Boolean> e : frame) {
+          if(!e.evaluate(v))
+            return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public void add(List<Expression<Boolean>> expressions) {
+      stack.peek().addAll(expressions);
+    }
+
+    @Override
+    public void dispose() {
+    }
+  }
+  
+  /**
+   * Thrown to abandon a path whose target could not be reached.
+   */
+  private static class Abandoned extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+  }
+  
+  private final InternalConstraintsTree tree;
+  private final Program program;
+  private final List<Instruction> sites = new ArrayList<>();
+  private final List<Integer> inputs = new ArrayList<>();
+  private int site;
+  
+  public TreeDriver(AnalysisConfig anaConf, int min, int max, Program program) {
+    this.tree = new InternalConstraintsTree(new EnumeratingContext(min, max), anaConf);
+    this.program = program;
+  }
+  
+  public InternalConstraintsTree getTree() {
+    return tree;
+  }
+  
+  /**
+   * @return the inputs of all executed paths, in order
+   */
+  public List<Integer> getInputs() {
+    return inputs;
+  }
+  
+  /**
+   * Executes paths until the tree has no more targets, at most 
+   * <tt>maxPaths</tt> ones.
+   * 
+   * @return the number of executed paths
+   */
+  public int explore(int initial, int maxPaths) {
+    Valuation v = new Valuation();
+    v.setValue(X, initial);
+    while(v != null && inputs.size() < maxPaths) {
+      int x = v.getValue(X);
+      inputs.add(x);
+      site = 0;
+      try {
+        program.run(this, x);
+        Valuation result = new Valuation();
+        result.setValue(X, x);
+        tree.finish(PathResult.ok(result, new PostCondition()));
+      }
+      catch(Abandoned ex) {
+        // target has been given up
+      }
+      v = tree.findNext();
+    }
+    return inputs.size();
+  }
+  
+  /**
+   * Branches on <tt>x cmp k</tt> at the next branching site of the path.
+   * 
+   * @return the outcome of the comparison
+   */
+  public boolean branch(int x, NumericComparator cmp, int k) {
+    Expression<Boolean> c = new NumericBooleanExpression(X, cmp, Constant.create(BuiltinTypes.SINT32, k));
+    boolean taken = c.evaluate(valuation(x));
+    return switchOn(taken ? 0 : 1, c, new Negation(c)) == 0;
+  }
+  
+  /**
+   * Takes the given branch of an n-ary decision at the next branching site.
+   * 
+   * @return the taken branch
+   */
+  @SafeVarargs
+  public final int switchOn(int idx, Expression<Boolean>... constraints) {
+    while(sites.size() <= site)
+      sites.add(new NOP());
+    Instruction insn = sites.get(site++);
+    switch(tree.decision(insn, idx, tree.needsDecision() ? constraints : null)) {
+    case INCONCLUSIVE:
+      tree.failCurrentTarget();
+      throw new Abandoned();
+    case UNEXPECTED:
+      tree.retryCurrentTarget();
+      break;
+    default:
+    }
+    return idx;
+  }
+  
+  public static Valuation valuation(int x) {
+    Valuation v = new Valuation();
+    v.setValue(X, x);
+    return v;
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.regressions.parallel;
+
+import gov.nasa.jpf.jdart.CompletedAnalysis;
+import gov.nasa.jpf.jdart.ConcolicExplorer;
+import gov.nasa.jpf.jdart.constraints.PathState;
+import gov.nasa.jpf.jdart.regressions.TestOracle;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every concurrent analysis analyzed exactly its own method completely.
+ */
+public class Oracle implements TestOracle {
+  
+  @Override
+  public boolean verdict(ConcolicExplorer exp) {
+    Map<String,List<CompletedAnalysis>> cas = exp.getCompletedAnalyses();
+    if (cas.size() != 1) {
+      return false;
+    }
+    String id = cas.keySet().iterator().next();
+    List<CompletedAnalysis> list = cas.get(id);
+    if (list.size() != 1 || list.get(0).getConstraintsTree() == null) {
+      return false;
+    }
+    int paths = list.get(0).getConstraintsTree().getPathCount(PathState.OK);
+    switch (id) {
+    case "a":
+      return paths == 3;
+    case "b":
+      return paths == 2;
+    default:
+      return false;
+    }
+  }  
+}
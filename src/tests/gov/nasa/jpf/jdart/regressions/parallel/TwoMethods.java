@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.regressions.parallel;
+
+/**
+ *
+ */
+public class TwoMethods {
+  
+  public static int a(int i) {
+    if (i > 10)
+      return 1;
+    if (i < -10)
+      return 2;
+    return 3;
+  }
+  
+  public static int b(int i) {
+    if (i == 5)
+      return 1;
+    return 2;
+  }
+
+  public static void main(String[] args) throws Throwable {
+    a(0);
+    b(0);
+  }  
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.regressions.snapshots;
+
+import gov.nasa.jpf.Config;
+import gov.nasa.jpf.jdart.CompletedAnalysis;
+import gov.nasa.jpf.jdart.ConcolicExplorer;
+import gov.nasa.jpf.jdart.JDart;
+import gov.nasa.jpf.jdart.constraints.ConstraintsTree;
+import gov.nasa.jpf.jdart.constraints.Path;
+import gov.nasa.jpf.jdart.regressions.TestOracle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Paths have been resumed from snapshots, and their outcomes are the same
+ * as in an analysis without snapshots.
+ */
+public class Oracle implements TestOracle {
+  
+  private final Config config;
+  
+  public Oracle(Config config) {
+    this.config = config;
+  }
+  
+  @Override
+  public boolean verdict(ConcolicExplorer exp) {
+    CompletedAnalysis ca = exp.getFirstCompletedAnalysis("test");
+    if (ca == null || ca.getConstraintsTree() == null || ca.getResumedPaths() == 0) {
+      return false;
+    }
+    
+    config.setProperty("jdart.configs.snapshots.snapshots", "0");
+    CompletedAnalysis ref = new JDart(config, false).run().getFirstCompletedAnalysis("test");
+    if (ref == null || ref.getConstraintsTree() == null || ref.getResumedPaths() != 0) {
+      return false;
+    }
+    return outcomes(ca.getConstraintsTree()).equals(outcomes(ref.getConstraintsTree()));
+  }
+  
+  private static List<String> outcomes(ConstraintsTree ct) {
+    List<String> res = new ArrayList<>();
+    for (Path p : ct.getAllPaths()) {
+      res.add(p.getPathCondition() + " : " + p.getPathResult().toString(true, false));
+    }
+    Collections.sort(res);
+    return res;
+  }
+}
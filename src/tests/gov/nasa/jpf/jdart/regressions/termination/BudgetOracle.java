@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.regressions.termination;
+
+import gov.nasa.jpf.jdart.CompletedAnalysis;
+import gov.nasa.jpf.jdart.ConcolicExplorer;
+import gov.nasa.jpf.jdart.constraints.ConstraintsTree;
+import gov.nasa.jpf.jdart.constraints.PathState;
+import gov.nasa.jpf.jdart.regressions.TestOracle;
+
+/**
+ * The looping path of {@link LoopingPath} is cut off, and the remaining 
+ * paths are still explored.
+ */
+public class BudgetOracle implements TestOracle {
+  
+  @Override
+  public boolean verdict(ConcolicExplorer exp) {
+    CompletedAnalysis ca = exp.getFirstCompletedAnalysis("test");
+    if (ca == null || ca.getConstraintsTree() == null) {
+      return false;
+    }
+    ConstraintsTree ct = ca.getConstraintsTree();
+    return ct.getPathCount(PathState.BUDGET_EXCEEDED) == 1
+        && ct.getPathCount(PathState.OK) == 2;
+  }  
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.regressions.termination;
+
+/**
+ *
+ */
+public class LoopingPath {
+  
+  public static int test(int i) {
+    int j = 0;
+    if (i < 0)
+      j = -1;
+    if (i == 42)
+      while (j >= 0)
+        j = (j + 1) % 10;
+    return j;
+  }
+
+  public static void main(String[] args) throws Throwable {
+    test(0);
+  }  
+}
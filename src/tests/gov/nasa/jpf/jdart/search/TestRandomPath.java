@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.search;
+
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.jdart.config.AnalysisConfig;
+import gov.nasa.jpf.jdart.constraints.TreeDriver;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestRandomPath {
+  
+  private static final int SITES = 6;
+  
+  // a sequence of branches with only SITES + 1 feasible paths, so most
+  // targets are unsatisfiable and the tree is deeper than the bounds
+  private static final TreeDriver.Program THRESHOLDS = new TreeDriver.Program() {
+    @Override
+    public void run(TreeDriver driver, int x) {
+      for(int i = 0; i < SITES; i++)
+        driver.branch(x, NumericComparator.GT, 3 * i);
+    }
+  };
+  
+  private static Set<Integer> exceeded(Iterable<Integer> inputs) {
+    Set<Integer> classes = new HashSet<>();
+    for(int x : inputs) {
+      int n = 0;
+      for(int i = 0; i < SITES; i++) {
+        if(x > 3 * i)
+          n++;
+      }
+      classes.add(n);
+    }
+    return classes;
+  }
+  
+  /**
+   * Keeps the last created instance, for inspection.
+   */
+  public static class Recording extends RandomPath {
+    static Recording last;
+    
+    public Recording() {
+      super(1);
+      last = this;
+    }
+  }
+  
+  private static AnalysisConfig config(int seed) {
+    AnalysisConfig anaConf = new AnalysisConfig();
+    anaConf.setSearchStrategy(RandomPath.class.getName() + "," + seed);
+    return anaConf;
+  }
+  
+  @Test(timeout = 10000)
+  public void testExhaustsTree() {
+    TreeDriver driver = new TreeDriver(config(1), -5, 20, THRESHOLDS);
+    driver.explore(0, 1000);
+    assertEquals(SITES + 1, exceeded(driver.getInputs()).size());
+    assertTrue(driver.getTree().isExhausted(driver.getTree().getRoot()));
+  }
+  
+  @Test(timeout = 10000)
+  public void testAdaptiveBounds() {
+    // the bounds cannot be raised, so the deferred targets must be handed
+    // to the tree once instead of being walked into over and over again
+    for(int seed = 1; seed <= 10; seed++) {
+      AnalysisConfig anaConf = config(seed);
+      anaConf.setAdaptiveBounds(true);
+      anaConf.setAdaptiveInitialDepth(2);
+      anaConf.setAdaptiveInitialAltDepth(SITES);
+      anaConf.setTreeMaxDepth(2);
+      TreeDriver driver = new TreeDriver(anaConf, -5, 20, THRESHOLDS);
+      int paths = driver.explore(0, 1000);
+      assertTrue(paths < 1000);
+      assertEquals(3, exceeded(driver.getInputs()).size());
+      assertFalse(driver.getTree().isOpen(driver.getTree().getRoot()));
+    }
+  }
+  
+  @Test(timeout = 10000)
+  public void testCandidatesBounded() {
+    final int sites = 100;
+    TreeDriver.Program ladder = new TreeDriver.Program() {
+      @Override
+      public void run(TreeDriver driver, int x) {
+        for(int i = 0; i < sites; i++)
+          driver.branch(x, NumericComparator.GT, i);
+      }
+    };
+    AnalysisConfig anaConf = new AnalysisConfig();
+    anaConf.setSearchStrategy(Recording.class.getName());
+    TreeDriver driver = new TreeDriver(anaConf, -1, sites, ladder);
+    assertEquals(sites / 2, driver.explore(0, sites / 2));
+    // every node of the tree has been a candidate, but explored ones are
+    // not kept
+    assertTrue(driver.getTree().size() > 1000);
+    assertTrue(Recording.last.numCandidates() < 1000);
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.solvers.caching;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestQueryCache {
+  
+  private static final Variable<Integer> X = Variable.create(BuiltinTypes.SINT32, "x");
+  private static final Variable<Integer> Y = Variable.create(BuiltinTypes.SINT32, "y");
+  private static final Variable<Integer> Z = Variable.create(BuiltinTypes.SINT32, "z");
+  
+  private static Expression<Boolean> lt(Variable<Integer> l, Variable<Integer> r) {
+    return new NumericBooleanExpression(l, NumericComparator.LT, r);
+  }
+  
+  @SafeVarargs
+  private static QueryCache.Query query(QueryCache cache, Expression<Boolean> ... exprs) {
+    List<QueryCache.Conjunct> conjuncts = new ArrayList<>();
+    for (Expression<Boolean> e : exprs) {
+      cache.addConjuncts(e, conjuncts);
+    }
+    return cache.canonicalize(conjuncts);
+  }
+  
+  @Test
+  public void testPermutedConjuncts() {
+    QueryCache cache = new QueryCache(16);
+    // all conjuncts have the same shape
+    Expression<Boolean> xy = lt(X, Y), yz = lt(Y, Z), zx = lt(Z, X);
+    
+    Valuation model = new Valuation();
+    model.setValue(X, 1);
+    model.setValue(Y, 2);
+    model.setValue(Z, 3);
+    cache.store(query(cache, xy, yz), Result.SAT, model);
+    cache.store(query(cache, xy, yz, zx), Result.UNSAT, null);
+    
+    Valuation val = new Valuation();
+    assertEquals(Result.SAT, cache.lookup(query(cache, yz, xy), val));
+    assertEquals(1, (int)val.getValue(X));
+    assertEquals(2, (int)val.getValue(Y));
+    assertEquals(3, (int)val.getValue(Z));
+    
+    assertEquals(Result.UNSAT, cache.lookup(query(cache, zx, yz, xy), null));
+    assertEquals(Result.UNSAT, cache.lookup(query(cache, yz, zx, xy), null));
+    // duplicates are dropped
+    assertEquals(Result.UNSAT, cache.lookup(query(cache, yz, xy, zx, xy), null));
+    
+    // the same conjunction over renamed variables
+    val = new Valuation();
+    assertEquals(Result.SAT, cache.lookup(query(cache, zx, yz), val));
+    assertTrue(yz.evaluate(val) && zx.evaluate(val));
+    
+    assertNull(cache.lookup(query(cache, xy), null));
+  }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.solvers.cores;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver;
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.SolverContext;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+import gov.nasa.jpf.constraints.util.ExpressionUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestUnsatCores {
+  
+  private static final Variable<Integer> X = Variable.create(BuiltinTypes.SINT32, "x");
+  private static final Variable<Integer> Y = Variable.create(BuiltinTypes.SINT32, "y");
+  
+  private static Expression<Boolean> cmp(Variable<Integer> v, NumericComparator cmp, int k) {
+    return new NumericBooleanExpression(v, cmp, Constant.create(BuiltinTypes.SINT32, k));
+  }
+  
+  /**
+   * Solves conjunctions over integer variables by enumerating a small 
+   * domain, or answers DONT_KNOW for every query.
+   */
+  private static class StubSolver extends ConstraintSolver {
+    
+    private final boolean dontKnow;
+    private int calls = 0;
+    
+    public StubSolver(boolean dontKnow) {
+      this.dontKnow = dontKnow;
+    }
+    
+    @Override
+    public Result solve(Expression<Boolean> expr, Valuation result) {
+      calls++;
+      if(dontKnow)
+        return Result.DONT_KNOW;
+      List<Variable<?>> vars = new ArrayList<>(ExpressionUtil.freeVariables(expr));
+      return enumerate(expr, vars, 0, new Valuation(), result) ? Result.SAT : Result.UNSAT;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static boolean enumerate(Expression<Boolean> expr, List<Variable<?>> vars, int i, Valuation val, Valuation result) {
+      if(i == vars.size()) {
+        if(!expr.evaluate(val))
+          return false;
+        if(result != null)
+          result.putAll(val);
+        return true;
+      }
+      for(int k = -3; k <= 3; k++) {
+        val.setValue((Variable<Integer>)vars.get(i), k);
+        if(enumerate(expr, vars, i + 1, val, result))
+          return true;
+      }
+      return false;
+    }
+    
+    @Override
+    public SolverContext createContext() {
+      return new StubContext(this);
+    }
+  }
+  
+  private static class StubContext extends SolverContext {
+    
+    private final StubSolver solver;
+    private final LinkedList<List<Expression<Boolean>>> stack = new LinkedList<>();
+    
+    public StubContext(StubSolver solver) {
+      this.solver = solver;
+      stack.push(new ArrayList<Expression<Boolean>>());
+    }
+
+    @Override
+    public void push() {
+      stack.push(new ArrayList<Expression<Boolean>>());
+    }
+
+    @Override
+    public void pop(int n) {
+      for(int i = 0; i < n; i++)
+        stack.pop();
+    }
+
+    @Override
+    public Result solve(Valuation val) {
+      List<Expression<Boolean>> all = new ArrayList<>();
+      for(List<Expression<Boolean>> frame : stack)
+        all.addAll(frame);
+      return solver.solve(ExpressionUtil.and(all), val);
+    }
+
+    @Override
+    public void add(List<Expression<Boolean>> expressions) {
+      stack.peek().addAll(expressions);
+    }
+
+    @Override
+    public void dispose() {
+    }
+  }
+  
+  private static UnsatCoreSolverContext context(StubSolver ctxSolver, StubSolver coreSolver, CoreIndex index, int maxChecks) {
+    return new UnsatCoreSolverContext(ctxSolver.createContext(), coreSolver, index, maxChecks);
+  }
+  
+  @SafeVarargs
+  private static Set<Expression<Boolean>> set(Expression<Boolean> ... exprs) {
+    return new HashSet<>(Arrays.asList(exprs));
+  }
+  
+  @Test
+  public void testCoreExtraction() {
+    Expression<Boolean> xPos = cmp(X, NumericComparator.GT, 0);
+    Expression<Boolean> xBig = cmp(X, NumericComparator.GT, 1);
+    Expression<Boolean> yPos = cmp(Y, NumericComparator.GT, 0);
+    Expression<Boolean> xNeg = cmp(X, NumericComparator.LT, 0);
+    
+    StubSolver solver = new StubSolver(false);
+    CoreIndex index = new CoreIndex();
+    UnsatCoreSolverContext ctx = context(solver, solver, index, 10);
+    ctx.add(xPos, yPos);
+    ctx.push();
+    ctx.add(xBig);
+    assertEquals(Result.SAT, ctx.solve(new Valuation()));
+    assertEquals(0, index.size());
+    ctx.push();
+    ctx.add(xNeg);
+    assertEquals(Result.UNSAT, ctx.solve(new Valuation()));
+    
+    // a minimal core, without the unrelated constraint on y
+    assertEquals(1, index.size());
+    assertTrue(index.containsCore(set(xNeg, xBig)) ^ index.containsCore(set(xNeg, xPos)));
+    assertFalse(index.containsCore(set(xPos, xBig, yPos)));
+    assertFalse(index.containsCore(set(xNeg, yPos)));
+    
+    // refuted without calling the solver
+    ctx.pop(2);
+    ctx.push();
+    ctx.add(xBig, xNeg);
+    int calls = solver.calls;
+    assertEquals(Result.UNSAT, ctx.solve(new Valuation()));
+    assertEquals(calls, solver.calls);
+  }
+  
+  @Test
+  public void testCallCap() {
+    Expression<Boolean> xPos = cmp(X, NumericComparator.GT, 0);
+    Expression<Boolean> xBig = cmp(X, NumericComparator.GT, 1);
+    Expression<Boolean> xNeg = cmp(X, NumericComparator.LT, 0);
+    
+    for(int maxChecks = 0; maxChecks <= 3; maxChecks++) {
+      StubSolver solver = new StubSolver(false);
+      StubSolver coreSolver = new StubSolver(false);
+      CoreIndex index = new CoreIndex();
+      UnsatCoreSolverContext ctx = context(solver, coreSolver, index, maxChecks);
+      ctx.add(xPos, xBig);
+      ctx.push();
+      ctx.add(xNeg);
+      assertEquals(Result.UNSAT, ctx.solve(new Valuation()));
+      assertTrue(coreSolver.calls <= maxChecks);
+      // whatever the cap, the core is unsatisfiable and refutes the query
+      assertEquals(1, index.size());
+      assertTrue(index.containsCore(set(xPos, xBig, xNeg)));
+      assertFalse(index.containsCore(set(xPos, xBig)));
+    }
+    
+    // the component of the top-most level is not a core unless checked
+    Expression<Boolean> yPos = cmp(Y, NumericComparator.GT, 0);
+    StubSolver coreSolver = new StubSolver(false);
+    CoreIndex index = new CoreIndex();
+    UnsatCoreSolverContext ctx = context(new StubSolver(false), coreSolver, index, 0);
+    ctx.add(xPos, yPos);
+    ctx.push();
+    ctx.add(xNeg);
+    assertEquals(Result.UNSAT, ctx.solve(new Valuation()));
+    assertEquals(0, coreSolver.calls);
+    assertTrue(index.containsCore(set(xPos, yPos, xNeg)));
+    assertFalse(index.containsCore(set(xPos, xNeg)));
+  }
+  
+  @Test
+  public void testContainsCore() {
+    Expression<Boolean> a = cmp(X, NumericComparator.GT, 0);
+    Expression<Boolean> b = cmp(X, NumericComparator.LT, 0);
+    Expression<Boolean> c = cmp(Y, NumericComparator.EQ, 0);
+    CoreIndex index = new CoreIndex();
+    index.add(Arrays.asList(a, b));
+    // independent of the order, as long as all members are present
+    assertTrue(index.containsCore(set(b, a)));
+    assertTrue(index.containsCore(set(c, b, a)));
+    assertFalse(index.containsCore(set(a, c)));
+    assertFalse(index.containsCore(set(b)));
+    assertFalse(index.containsCore(set()));
+    // equal constraints match
+    assertTrue(index.containsCore(set(cmp(X, NumericComparator.LT, 0), cmp(X, NumericComparator.GT, 0))));
+  }
+  
+  @Test
+  public void testDontKnow() {
+    Expression<Boolean> xPos = cmp(X, NumericComparator.GT, 0);
+    Expression<Boolean> yPos = cmp(Y, NumericComparator.GT, 0);
+    Expression<Boolean> xNeg = cmp(X, NumericComparator.LT, 0);
+    
+    // an inconclusive query does not yield a core
+    CoreIndex index = new CoreIndex();
+    UnsatCoreSolverContext ctx = context(new StubSolver(true), new StubSolver(false), index, 10);
+    ctx.add(xPos, xNeg);
+    assertEquals(Result.DONT_KNOW, ctx.solve(new Valuation()));
+    assertEquals(0, index.size());
+    
+    // inconclusive checks while shrinking do not count as unsatisfiable,
+    // so no constraint is dropped from the core
+    index = new CoreIndex();
+    ctx = context(new StubSolver(false), new StubSolver(true), index, 10);
+    ctx.add(xPos, yPos);
+    ctx.push();
+    ctx.add(xNeg);
+    assertEquals(Result.UNSAT, ctx.solve(new Valuation()));
+    assertEquals(1, index.size());
+    assertTrue(index.containsCore(set(xPos, yPos, xNeg)));
+    assertFalse(index.containsCore(set(xPos, xNeg)));
+    assertFalse(index.containsCore(set(yPos, xNeg)));
+  }
+}
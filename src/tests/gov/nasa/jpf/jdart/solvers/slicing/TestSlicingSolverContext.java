@@ -0,0 +1,265 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the 
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment 
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you 
+ * may not use this file except in compliance with the License. You may obtain a 
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0. 
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed 
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR 
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.jdart.solvers.slicing;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver;
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.SolverContext;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+import gov.nasa.jpf.constraints.util.ExpressionUtil;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestSlicingSolverContext {
+  
+  private static final Variable<Integer> X = Variable.create(BuiltinTypes.SINT32, "x");
+  private static final Variable<Integer> Y = Variable.create(BuiltinTypes.SINT32, "y");
+  private static final Variable<Integer> Z = Variable.create(BuiltinTypes.SINT32, "z");
+  private static final Variable<Integer> W = Variable.create(BuiltinTypes.SINT32, "w");
+  
+  private static Expression<Boolean> cmp(Variable<Integer> v, NumericComparator cmp, int k) {
+    return new NumericBooleanExpression(v, cmp, Constant.create(BuiltinTypes.SINT32, k));
+  }
+  
+  /**
+   * Solves conjunctions over integer variables by enumerating a small 
+   * domain, or answers DONT_KNOW for every query.
+   */
+  private static class StubSolver extends ConstraintSolver {
+    
+    private final boolean dontKnow;
+    private int calls = 0;
+    private Expression<Boolean> last = null;
+    
+    public StubSolver(boolean dontKnow) {
+      this.dontKnow = dontKnow;
+    }
+    
+    @Override
+    public Result solve(Expression<Boolean> expr, Valuation result) {
+      calls++;
+      last = expr;
+      if(dontKnow)
+        return Result.DONT_KNOW;
+      List<Variable<?>> vars = new ArrayList<>(ExpressionUtil.freeVariables(expr));
+      return enumerate(expr, vars, 0, new Valuation(), result) ? Result.SAT : Result.UNSAT;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static boolean enumerate(Expression<Boolean> expr, List<Variable<?>> vars, int i, Valuation val, Valuation result) {
+      if(i == vars.size()) {
+        if(!expr.evaluate(val))
+          return false;
+        if(result != null)
+          result.putAll(val);
+        return true;
+      }
+      for(int k = -3; k <= 3; k++) {
+        val.setValue((Variable<Integer>)vars.get(i), k);
+        if(enumerate(expr, vars, i + 1, val, result))
+          return true;
+      }
+      return false;
+    }
+    
+    @Override
+    public SolverContext createContext() {
+      return new StubContext(this);
+    }
+  }
+  
+  private static class StubContext extends SolverContext {
+    
+    private final StubSolver solver;
+    private final LinkedList<List<Expression<Boolean>>> stack = new LinkedList<>();
+    
+    public StubContext(StubSolver solver) {
+      this.solver = solver;
+      stack.push(new ArrayList<Expression<Boolean>>());
+    }
+
+    @Override
+    public void push() {
+      stack.push(new ArrayList<Expression<Boolean>>());
+    }
+
+    @Override
+    public void pop(int n) {
+      for(int i = 0; i < n; i++)
+        stack.pop();
+    }
+
+    @Override
+    public Result solve(Valuation val) {
+      return solver.solve(ExpressionUtil.and(all()), val);
+    }
+
+    @Override
+    public void add(List<Expression<Boolean>> expressions) {
+      stack.peek().addAll(expressions);
+    }
+
+    @Override
+    public void dispose() {
+    }
+    
+    List<Expression<Boolean>> all() {
+      List<Expression<Boolean>> all = new ArrayList<>();
+      for(List<Expression<Boolean>> frame : stack)
+        all.addAll(frame);
+      return all;
+    }
+  }
+  
+  private static void assertSatisfies(Valuation val, List<Expression<Boolean>> exprs) {
+    for(Expression<Boolean> e : exprs)
+      assertTrue(e + " violated by " + val, e.evaluate(val));
+  }
+  
+  @Test
+  public void testWitnessHandedDown() {
+    StubSolver ctxSolver = new StubSolver(false);
+    StubSolver sliceSolver = new StubSolver(false);
+    StubContext stub = new StubContext(ctxSolver);
+    SlicingSolverContext ctx = new SlicingSolverContext(stub, sliceSolver);
+    
+    ctx.add(cmp(X, NumericComparator.GT, 0));
+    ctx.push();
+    ctx.add(cmp(Y, NumericComparator.GT, 0));
+    Valuation val = new Valuation();
+    // no witness yet, so the whole stack is solved
+    assertEquals(Result.SAT, ctx.solve(val));
+    assertEquals(1, ctxSolver.calls);
+    assertEquals(0, sliceSolver.calls);
+    int x = val.getValue(X);
+    int y = val.getValue(Y);
+    
+    // the model of the popped level becomes the witness of the bottom level
+    ctx.pop();
+    ctx.push();
+    ctx.add(cmp(Z, NumericComparator.LT, 0));
+    val = new Valuation();
+    assertEquals(Result.SAT, ctx.solve(val));
+    assertEquals(1, ctxSolver.calls);
+    assertEquals(1, sliceSolver.calls);
+    assertEquals(1, ExpressionUtil.freeVariables(sliceSolver.last).size());
+    assertSatisfies(val, stub.all());
+    
+    // values outside of the slice are taken from the witness
+    assertEquals(x, (int)val.getValue(X));
+    assertEquals(y, (int)val.getValue(Y));
+  }
+  
+  @Test
+  public void testUnsatisfiedConjunctsPulledIn() {
+    StubSolver ctxSolver = new StubSolver(false);
+    StubSolver sliceSolver = new StubSolver(false);
+    StubContext stub = new StubContext(ctxSolver);
+    SlicingSolverContext ctx = new SlicingSolverContext(stub, sliceSolver);
+    
+    // the witness of the bottom level picks the smallest z
+    ctx.add(cmp(X, NumericComparator.GT, 0), cmp(Z, NumericComparator.GE, -3));
+    Valuation val = new Valuation();
+    assertEquals(Result.SAT, ctx.solve(val));
+    assertEquals(-3, (int)val.getValue(Z));
+    int x = val.getValue(X);
+    
+    // not solved on its own, so the bottom witness violates it
+    ctx.push();
+    ctx.add(cmp(Z, NumericComparator.GT, 0));
+    ctx.push();
+    ctx.add(cmp(Y, NumericComparator.GT, 0));
+    val = new Valuation();
+    assertEquals(Result.SAT, ctx.solve(val));
+    assertEquals(1, ctxSolver.calls);
+    assertEquals(1, sliceSolver.calls);
+    assertSatisfies(val, stub.all());
+    assertTrue(val.getValue(Z) > 0);
+    
+    // the constraint on x is neither connected nor violated
+    assertFalse(ExpressionUtil.freeVariables(sliceSolver.last).contains(X));
+    assertEquals(x, (int)val.getValue(X));
+  }
+  
+  @Test
+  public void testDontKnowFallsBack() {
+    StubSolver ctxSolver = new StubSolver(false);
+    StubSolver sliceSolver = new StubSolver(true);
+    StubContext stub = new StubContext(ctxSolver);
+    SlicingSolverContext ctx = new SlicingSolverContext(stub, sliceSolver);
+    
+    ctx.add(cmp(X, NumericComparator.GT, 0));
+    assertEquals(Result.SAT, ctx.solve(new Valuation()));
+    ctx.push();
+    ctx.add(cmp(Y, NumericComparator.LT, 0));
+    Valuation val = new Valuation();
+    assertEquals(Result.SAT, ctx.solve(val));
+    assertEquals(1, sliceSolver.calls);
+    assertEquals(2, ctxSolver.calls);
+    assertSatisfies(val, stub.all());
+  }
+  
+  @Test
+  public void testRandomSequences() {
+    @SuppressWarnings("unchecked")
+    Variable<Integer>[] vars = new Variable[]{ X, Y, Z, W };
+    NumericComparator[] cmps = { NumericComparator.LT, NumericComparator.LE, 
+        NumericComparator.GT, NumericComparator.GE, NumericComparator.NE };
+    Random rand = new Random(42);
+    
+    for(int run = 0; run < 50; run++) {
+      StubSolver oracle = new StubSolver(false);
+      StubContext stub = new StubContext(new StubSolver(false));
+      SlicingSolverContext ctx = new SlicingSolverContext(stub, new StubSolver(false));
+      int depth = 0;
+      for(int step = 0; step < 40; step++) {
+        int op = rand.nextInt(4);
+        if(op == 0) {
+          ctx.push();
+          depth++;
+        }
+        else if(op == 1 && depth > 0) {
+          int n = 1 + rand.nextInt(depth);
+          ctx.pop(n);
+          depth -= n;
+        }
+        else if(op == 2) {
+          ctx.add(cmp(vars[rand.nextInt(vars.length)], cmps[rand.nextInt(cmps.length)], rand.nextInt(7) - 3));
+        }
+        else {
+          Valuation val = new Valuation();
+          Result res = ctx.solve(val);
+          assertEquals(oracle.solve(ExpressionUtil.and(stub.all()), null), res);
+          if(res == Result.SAT)
+            assertSatisfies(val, stub.all());
+        }
+      }
+    }
+  }
+}